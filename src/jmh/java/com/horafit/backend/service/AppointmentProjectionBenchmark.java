@@ -0,0 +1,72 @@
+package com.horafit.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.horafit.backend.dto.appointment.AppointmentClientRowDTO;
+import com.horafit.backend.dto.appointment.AppointmentGetDTO;
+import com.horafit.backend.dto.appointment.AppointmentPageDTO;
+import com.horafit.backend.entity.Appointment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of a page of appointments to {@link AppointmentGetDTO} objects and
+ * their JSON serialization, as done for every appointment listing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AppointmentProjectionBenchmark {
+	@Param({"50", "200"})
+	private int pageSize;
+
+	@Param({"1", "8"})
+	private int clientsPerAppointment;
+
+	private List<Appointment> appointments;
+	private List<AppointmentClientRowDTO> rows;
+	private AppointmentPageDTO page;
+	private ObjectMapper objectMapper;
+
+	@Setup
+	public void setUp() {
+		appointments = BenchmarkFixtures.appointments(pageSize);
+		rows = BenchmarkFixtures.rows(appointments, clientsPerAppointment);
+		page = new AppointmentPageDTO(AppointmentProjectionService.assemble(appointments, rows, null), "cursor");
+		// mesmos padrões do ObjectMapper do Spring Boot: JavaTimeModule e datas em ISO-8601
+		objectMapper = Jackson2ObjectMapperBuilder.json()
+				.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+				.build();
+	}
+
+	@Benchmark
+	public List<AppointmentGetDTO> assemble() {
+		return AppointmentProjectionService.assemble(appointments, rows, null);
+	}
+
+	@Benchmark
+	public List<AppointmentGetDTO> assembleForClient() {
+		return AppointmentProjectionService.assemble(appointments, rows, 1L);
+	}
+
+	@Benchmark
+	public byte[] serializePage() throws Exception {
+		return objectMapper.writeValueAsBytes(page);
+	}
+}
@@ -0,0 +1,69 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.dto.appointmentRules.CanRescheduleDTO;
+import com.horafit.backend.entity.ClientMonthQuota;
+import com.horafit.backend.repository.ClientMonthQuotaRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reschedule check of a client in
+ * {@link AppointmentRulesService#canClientReschedule(Long)}, answered from the
+ * quota rows of the current and of the next month.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AppointmentRulesBenchmark {
+	private static final long CLIENT_ID = 1L;
+
+	// true: o cliente já atingiu o limite de remarcações e a mensagem inclui a contagem do mês
+	@Param({"false", "true"})
+	private boolean limitReached;
+
+	private AppointmentRulesService appointmentRulesService;
+
+	@Setup
+	public void setUp() {
+		YearMonth month = YearMonth.now();
+		List<ClientMonthQuota> quotas = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			ClientMonthQuota quota = new ClientMonthQuota();
+			quota.setId(ClientMonthQuota.Key.of(CLIENT_ID, month.plusMonths(i)));
+			quota.setRescheduled(limitReached ? 1 : i);
+			quota.setCanceledWithRescheduling(2);
+			quotas.add(quota);
+		}
+
+		ClientMonthQuotaService clientMonthQuotaService = new ClientMonthQuotaService();
+		ReflectionTestUtils.setField(clientMonthQuotaService, "clientMonthQuotaRepository", BenchmarkFixtures.repository(
+				ClientMonthQuotaRepository.class, Map.of("findByIdClientIdAndIdMonthIn", args -> quotas)));
+
+		appointmentRulesService = new AppointmentRulesService();
+		appointmentRulesService.clientMonthQuotaService = clientMonthQuotaService;
+	}
+
+	@Benchmark
+	public CanRescheduleDTO canClientReschedule() {
+		return appointmentRulesService.canClientReschedule(CLIENT_ID);
+	}
+}
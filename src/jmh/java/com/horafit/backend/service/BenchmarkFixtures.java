@@ -0,0 +1,89 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.dto.appointment.AppointmentClientRowDTO;
+import com.horafit.backend.entity.Appointment;
+import com.horafit.backend.entity.Physiotherapist;
+import com.horafit.backend.entity.enums.AppointmentConfirmation;
+import com.horafit.backend.entity.enums.AppointmentLocation;
+import com.horafit.backend.entity.enums.AppointmentModality;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-memory data and repositories for the benchmarks, so that they measure the
+ * service code only. Database access is covered by the query-plan suite.
+ */
+final class BenchmarkFixtures {
+	static final LocalDateTime FIRST = LocalDateTime.of(2031, 3, 3, 7, 0);
+	static final AppointmentConfirmation[] CONFIRMATIONS = AppointmentConfirmation.values();
+
+	private BenchmarkFixtures() {
+	}
+
+	/**
+	 * Implements a repository interface with the given answers, by method name.
+	 * Default methods run their own code; any other method fails.
+	 */
+	static <T> T repository(Class<T> type, Map<String, Function<Object[], ?>> answers) {
+		InvocationHandler handler = (proxy, method, args) -> {
+			if (method.isDefault()) {
+				return InvocationHandler.invokeDefault(proxy, method, args);
+			}
+			Function<Object[], ?> answer = answers.get(method.getName());
+			if (answer == null) {
+				throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+			}
+			return answer.apply(args);
+		};
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+	}
+
+	static Physiotherapist physiotherapist(long id) {
+		Physiotherapist physiotherapist = new Physiotherapist();
+		physiotherapist.setId(id);
+		physiotherapist.setEmail("fisio" + id + "@horafit.test");
+		physiotherapist.setName("Fisioterapeuta " + id);
+		return physiotherapist;
+	}
+
+	/**
+	 * Appointments of one physiotherapist, one per hour from 7h to 20h.
+	 */
+	static List<Appointment> appointments(int count) {
+		Physiotherapist physiotherapist = physiotherapist(1L);
+		List<Appointment> appointments = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Appointment appointment = new Appointment();
+			appointment.setId((long) i + 1);
+			appointment.setDateTime(FIRST.plusDays(i / 14).plusHours(i % 14));
+			appointment.setLocation(AppointmentLocation.OFFICE);
+			appointment.setModality(AppointmentModality.GROUP_PILATES);
+			appointment.setPhysiotherapist(physiotherapist);
+			appointments.add(appointment);
+		}
+		return appointments;
+	}
+
+	/**
+	 * Client rows of the given appointments, {@code clientsPerAppointment} per
+	 * appointment, in reverse order so that the grouping does not get them
+	 * already sorted.
+	 */
+	static List<AppointmentClientRowDTO> rows(List<Appointment> appointments, int clientsPerAppointment) {
+		List<AppointmentClientRowDTO> rows = new ArrayList<>(appointments.size() * clientsPerAppointment);
+		for (int i = appointments.size() - 1; i >= 0; i--) {
+			for (int c = 0; c < clientsPerAppointment; c++) {
+				long clientId = (i + c) % 40 + 1;
+				rows.add(new AppointmentClientRowDTO(appointments.get(i).getId(), clientId, "Cliente " + clientId,
+						CONFIRMATIONS[(i + c) % CONFIRMATIONS.length], c % 2 == 0));
+			}
+		}
+		return rows;
+	}
+}
@@ -0,0 +1,102 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.dto.client.ClientScheduleDTO;
+import com.horafit.backend.entity.AppointmentRules;
+import com.horafit.backend.entity.Client;
+import com.horafit.backend.entity.ClientWeeklyPattern;
+import com.horafit.backend.entity.enums.AppointmentFrequency;
+import com.horafit.backend.entity.enums.AppointmentModality;
+import com.horafit.backend.repository.ClientRepository;
+import com.horafit.backend.repository.ClientWeeklyPatternRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grouping of the weekly schedule of a client by modality and day of the week
+ * in {@link AppointmentService#getClientSchedule(Long)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientScheduleBenchmark {
+	private static final long CLIENT_ID = 1L;
+
+	// horários por dia da semana, em cada modalidade
+	@Param({"1", "4"})
+	private int timesPerDay;
+
+	private AppointmentService appointmentService;
+
+	@Setup
+	public void setUp() {
+		AppointmentRules appointmentRules = new AppointmentRules();
+		appointmentRules.setId(1L);
+		appointmentRules.setName("Regra Teste");
+		appointmentRules.setFrequency(AppointmentFrequency.values()[0]);
+
+		Client client = new Client();
+		client.setId(CLIENT_ID);
+		client.setName("Cliente Teste");
+		client.setSignedContract(new Date());
+		client.setAppointmentRules(appointmentRules);
+
+		List<ClientWeeklyPattern> patterns = new ArrayList<>();
+		for (AppointmentModality modality : AppointmentModality.values()) {
+			for (int day = 1; day <= 6; day++) {
+				for (int time = 0; time < timesPerDay; time++) {
+					ClientWeeklyPattern pattern = new ClientWeeklyPattern();
+					pattern.setClientId(CLIENT_ID);
+					pattern.setModality(modality);
+					pattern.setDayOfWeek(day);
+					pattern.setStartTime(LocalTime.of(7 + time * 3, 0));
+					pattern.setOccurrences(4);
+					patterns.add(pattern);
+				}
+			}
+		}
+
+		ClientWeeklyPatternService clientWeeklyPatternService = new ClientWeeklyPatternService();
+		ReflectionTestUtils.setField(clientWeeklyPatternService, "clientWeeklyPatternRepository",
+				BenchmarkFixtures.repository(ClientWeeklyPatternRepository.class,
+						Map.of("findByClientIdOrderByModalityAscDayOfWeekAscStartTimeAsc", args -> patterns)));
+
+		PaymentService paymentService = new PaymentService() {
+			@Override
+			public String getUltimoPagamento(Long clientId) {
+				return "03/03/2031 10:00:00";
+			}
+		};
+
+		appointmentService = new AppointmentService();
+		ReflectionTestUtils.setField(appointmentService, "clientRepository",
+				BenchmarkFixtures.repository(ClientRepository.class, Map.of("findById", args -> Optional.of(client))));
+		ReflectionTestUtils.setField(appointmentService, "paymentService", paymentService);
+		ReflectionTestUtils.setField(appointmentService, "clientWeeklyPatternService", clientWeeklyPatternService);
+	}
+
+	@Benchmark
+	public ClientScheduleDTO getClientSchedule() {
+		return appointmentService.getClientSchedule(CLIENT_ID);
+	}
+}
@@ -0,0 +1,81 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.dto.appointment.AppointmentConflictReportDTO;
+import com.horafit.backend.dto.appointment.AppointmentCreateDTO;
+import com.horafit.backend.dto.appointment.RepetirDTO;
+import com.horafit.backend.util.DateTimeUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the date and time of a new appointment and generation of the
+ * date/times of its series in {@link PhysiotherapistService}: the occurrences
+ * inside the 4-week horizon for "Sempre" and 12 occurrences for "X vezes". The
+ * conflict check receives the series without querying the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecurrenceBenchmark {
+	@Param({"Sempre", "X vezes"})
+	private String opcao;
+
+	private PhysiotherapistService physiotherapistService;
+	private AppointmentCreateDTO appointmentCreateDTO;
+
+	@Setup
+	public void setUp() {
+		RepetirDTO repetir = new RepetirDTO();
+		repetir.setAtivo(true);
+		repetir.setOpcao(opcao);
+		repetir.setQuantidade(12);
+
+		appointmentCreateDTO = new AppointmentCreateDTO();
+		appointmentCreateDTO.setData(LocalDate.now().plusDays(1).format(DateTimeUtil.DATE));
+		appointmentCreateDTO.setHorario("18:00");
+		appointmentCreateDTO.setRepetir(repetir);
+		appointmentCreateDTO.setModalidade("GROUP_PILATES");
+		appointmentCreateDTO.setLocacao("OFFICE");
+		appointmentCreateDTO.setClientes(List.of(1L, 2L, 3L, 4L));
+		appointmentCreateDTO.setFisioterapeuta(1L);
+
+		AppointmentConflictDetector appointmentConflictDetector = new AppointmentConflictDetector() {
+			@Override
+			public AppointmentConflictReportDTO detect(Long physiotherapistId, Collection<Long> clientIds,
+					Collection<LocalDateTime> dateTimes) {
+				return new AppointmentConflictReportDTO(dateTimes.size(), clientIds.size(), List.of());
+			}
+		};
+
+		RecurringSeriesService recurringSeriesService = new RecurringSeriesService();
+		ReflectionTestUtils.setField(recurringSeriesService, "horizonWeeks", 4);
+
+		physiotherapistService = new PhysiotherapistService();
+		ReflectionTestUtils.setField(physiotherapistService, "appointmentConflictDetector", appointmentConflictDetector);
+		ReflectionTestUtils.setField(physiotherapistService, "recurringSeriesService", recurringSeriesService);
+	}
+
+	@Benchmark
+	public AppointmentConflictReportDTO generateSeries() {
+		return physiotherapistService.findAppointmentConflicts(appointmentCreateDTO);
+	}
+}
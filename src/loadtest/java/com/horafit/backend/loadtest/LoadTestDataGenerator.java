@@ -0,0 +1,249 @@
+package com.horafit.backend.loadtest;
+
+import com.horafit.backend.entity.enums.AppointmentConfirmation;
+import com.horafit.backend.entity.enums.AppointmentLocation;
+import com.horafit.backend.entity.enums.AppointmentModality;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Properties;
+
+/**
+ * Fills a local MySQL database with a large dataset for {@link LoadTestDriver}.
+ * <p>
+ * Each physiotherapist gets a group appointment every hour from 7h to 20h,
+ * Monday to Saturday, repeated every week like the series created by
+ * {@code PhysiotherapistService}: the same clients at the same time each week,
+ * all CONFIRMED. One seat of each group is left free for reschedules. The weeks
+ * start in the past, so that there are both past and future appointments.
+ * <p>
+ * The tables must already exist (start the application once against the
+ * database). Rows are appended after the existing IDs; the derived tables
+ * (weekly patterns, payment status) are rebuilt by the application when it
+ * starts with them empty. The ranges of the generated IDs are written to
+ * {@code loadtest.dataset}, where the driver reads them.
+ * <p>
+ * Connection: the same {@code DB_URL}, {@code DB_NAME}, {@code DB_USERNAME} and
+ * {@code DB_PASSWORD} environment variables as the application. Size:
+ * {@code loadtest.physiotherapists}, {@code loadtest.clients},
+ * {@code loadtest.weeks} and {@code loadtest.group-size} system properties.
+ */
+public final class LoadTestDataGenerator {
+	static final int FIRST_HOUR = 7;
+	static final int SLOTS_PER_DAY = 14;
+	static final int DAYS_PER_WEEK = 6;
+
+	private static final int BATCH_SIZE = 5_000;
+
+	private static final String INSERT_RULES = "INSERT INTO horafit.appointment_rules " +
+			"(frequency, max_clients_per_group, rule_name, reescheduling_limit, reescheduling_min_hours_in_advance) " +
+			"VALUES (1, 5, 'Pilates Grupo 2x semana', 2, 10)";
+
+	private static final String INSERT_PHYSIOTHERAPIST = "INSERT INTO horafit.physiotherapist " +
+			"(id, email, name, password) VALUES (?, ?, ?, ?)";
+
+	private static final String INSERT_CLIENT = "INSERT INTO horafit.client " +
+			"(id, email, name, password, signed_contract, appointment_rules) VALUES (?, ?, ?, ?, ?, ?)";
+
+	private static final String INSERT_APPOINTMENT = "INSERT INTO horafit.appointment " +
+			"(id, date_time, location, modality, physiotherapist_id, version) VALUES (?, ?, ?, ?, ?, 0)";
+
+	private static final String INSERT_APPOINTMENT_CLIENT = "INSERT INTO horafit.appointment_client " +
+			"(appointment_id, client_id, confirmation, attendance) VALUES (?, ?, ?, ?)";
+
+	private LoadTestDataGenerator() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		int physiotherapists = Integer.getInteger("loadtest.physiotherapists", 500);
+		int clients = Integer.getInteger("loadtest.clients", 100_000);
+		int weeks = Integer.getInteger("loadtest.weeks", 26);
+		int groupSize = Integer.getInteger("loadtest.group-size", 5);
+		Path dataset = Path.of(System.getProperty("loadtest.dataset", "target/load-test/dataset.properties"));
+
+		int seats = groupSize - 1;
+		if (seats < 1 || (long) physiotherapists * seats > clients) {
+			// no mesmo horário cada cliente só pode estar em um grupo
+			throw new IllegalArgumentException("São necessários pelo menos physiotherapists * (group-size - 1) clientes");
+		}
+
+		LocalDate firstMonday = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+				.minusWeeks(weeks / 2);
+
+		try (Connection connection = DriverManager.getConnection(
+				"jdbc:mysql://" + System.getenv("DB_URL") + "/" + System.getenv("DB_NAME") + "?rewriteBatchedStatements=true",
+				System.getenv("DB_USERNAME"), System.getenv("DB_PASSWORD"))) {
+			connection.setAutoCommit(false);
+
+			long rulesId = appointmentRules(connection);
+			long firstPhysiotherapistId = nextId(connection, "physiotherapist");
+			long firstClientId = nextId(connection, "client");
+			long firstAppointmentId = nextId(connection, "appointment");
+
+			insertPhysiotherapists(connection, firstPhysiotherapistId, physiotherapists);
+			insertClients(connection, firstClientId, clients, rulesId);
+			long appointments = insertAppointments(connection, firstMonday, weeks, firstAppointmentId,
+					firstPhysiotherapistId, physiotherapists, firstClientId, clients, seats);
+
+			Properties properties = new Properties();
+			properties.setProperty("firstPhysiotherapistId", Long.toString(firstPhysiotherapistId));
+			properties.setProperty("physiotherapists", Integer.toString(physiotherapists));
+			properties.setProperty("firstClientId", Long.toString(firstClientId));
+			properties.setProperty("clients", Integer.toString(clients));
+			properties.setProperty("firstMonday", firstMonday.toString());
+			properties.setProperty("weeks", Integer.toString(weeks));
+			writeDataset(dataset, properties);
+
+			System.out.printf("%d fisioterapeutas, %d clientes, %d atendimentos e %d vagas ocupadas gerados (%s)%n",
+					physiotherapists, clients, appointments, appointments * seats, dataset);
+		}
+	}
+
+	private static long appointmentRules(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement();
+			 ResultSet resultSet = statement.executeQuery("SELECT MIN(id) FROM horafit.appointment_rules")) {
+			resultSet.next();
+			long id = resultSet.getLong(1);
+			if (!resultSet.wasNull()) {
+				return id;
+			}
+		}
+
+		try (Statement statement = connection.createStatement()) {
+			statement.executeUpdate(INSERT_RULES, Statement.RETURN_GENERATED_KEYS);
+			try (ResultSet keys = statement.getGeneratedKeys()) {
+				keys.next();
+				long id = keys.getLong(1);
+				connection.commit();
+				return id;
+			}
+		}
+	}
+
+	private static long nextId(Connection connection, String table) throws SQLException {
+		try (Statement statement = connection.createStatement();
+			 ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM horafit." + table)) {
+			resultSet.next();
+			return resultSet.getLong(1);
+		}
+	}
+
+	private static void insertPhysiotherapists(Connection connection, long firstId, int count) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(INSERT_PHYSIOTHERAPIST)) {
+			for (int i = 0; i < count; i++) {
+				long id = firstId + i;
+				statement.setLong(1, id);
+				statement.setString(2, "loadtest-fisio-" + id + "@horafit.test");
+				statement.setString(3, "Fisioterapeuta Carga " + id);
+				statement.setString(4, "12345678");
+				addBatch(connection, statement, i + 1);
+			}
+			executeBatch(connection, statement);
+		}
+	}
+
+	private static void insertClients(Connection connection, long firstId, int count, long rulesId) throws SQLException {
+		Timestamp signedContract = Timestamp.valueOf(LocalDateTime.now().withNano(0));
+		try (PreparedStatement statement = connection.prepareStatement(INSERT_CLIENT)) {
+			for (int i = 0; i < count; i++) {
+				long id = firstId + i;
+				statement.setLong(1, id);
+				statement.setString(2, "loadtest-cliente-" + id + "@horafit.test");
+				statement.setString(3, "Cliente Carga " + id);
+				statement.setString(4, "12345678");
+				statement.setTimestamp(5, signedContract);
+				if (rulesId > 0) {
+					statement.setLong(6, rulesId);
+				} else {
+					statement.setNull(6, Types.BIGINT);
+				}
+				addBatch(connection, statement, i + 1);
+			}
+			executeBatch(connection, statement);
+		}
+	}
+
+	private static long insertAppointments(Connection connection, LocalDate firstMonday, int weeks, long firstId,
+										   long firstPhysiotherapistId, int physiotherapists, long firstClientId,
+										   int clients, int seats) throws SQLException {
+		long appointmentId = firstId;
+		long rows = 0;
+		try (PreparedStatement appointmentStatement = connection.prepareStatement(INSERT_APPOINTMENT);
+			 PreparedStatement clientStatement = connection.prepareStatement(INSERT_APPOINTMENT_CLIENT)) {
+			for (int week = 0; week < weeks; week++) {
+				// a mesma distribuição toda semana: cada cliente mantém seus horários
+				long clientCursor = 0;
+				for (int day = 0; day < DAYS_PER_WEEK; day++) {
+					for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+						LocalDateTime dateTime = firstMonday.plusWeeks(week).plusDays(day).atTime(FIRST_HOUR + slot, 0);
+						for (int p = 0; p < physiotherapists; p++) {
+							appointmentStatement.setLong(1, appointmentId);
+							appointmentStatement.setTimestamp(2, Timestamp.valueOf(dateTime));
+							appointmentStatement.setString(3, AppointmentLocation.OFFICE.name());
+							appointmentStatement.setString(4, AppointmentModality.GROUP_PILATES.name());
+							appointmentStatement.setLong(5, firstPhysiotherapistId + p);
+							appointmentStatement.addBatch();
+
+							for (int s = 0; s < seats; s++) {
+								clientStatement.setLong(1, appointmentId);
+								clientStatement.setLong(2, firstClientId + clientCursor++ % clients);
+								clientStatement.setString(3, AppointmentConfirmation.CONFIRMED.name());
+								clientStatement.setBoolean(4, true);
+								clientStatement.addBatch();
+							}
+
+							appointmentId++;
+							rows++;
+							if (rows % BATCH_SIZE == 0) {
+								// os atendimentos precisam estar no banco antes das vagas que os referenciam
+								appointmentStatement.executeBatch();
+								clientStatement.executeBatch();
+								connection.commit();
+							}
+						}
+					}
+				}
+				System.out.printf("semana %d/%d: %d atendimentos%n", week + 1, weeks, rows);
+			}
+			appointmentStatement.executeBatch();
+			clientStatement.executeBatch();
+			connection.commit();
+		}
+		return rows;
+	}
+
+	private static void addBatch(Connection connection, PreparedStatement statement, int rows) throws SQLException {
+		statement.addBatch();
+		if (rows % BATCH_SIZE == 0) {
+			executeBatch(connection, statement);
+		}
+	}
+
+	private static void executeBatch(Connection connection, PreparedStatement statement) throws SQLException {
+		statement.executeBatch();
+		connection.commit();
+	}
+
+	private static void writeDataset(Path dataset, Properties properties) throws IOException {
+		if (dataset.getParent() != null) {
+			Files.createDirectories(dataset.getParent());
+		}
+		try (Writer writer = Files.newBufferedWriter(dataset)) {
+			properties.store(writer, "Gerado por LoadTestDataGenerator");
+		}
+	}
+}
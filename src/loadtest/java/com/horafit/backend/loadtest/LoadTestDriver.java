@@ -0,0 +1,308 @@
+package com.horafit.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.horafit.backend.util.DateTimeUtil;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP workload against a running application, over the dataset of
+ * {@link LoadTestDataGenerator}.
+ * <p>
+ * {@code loadtest.concurrency} virtual threads repeatedly pick an operation by
+ * weight and send it for a random client. Cancels and reschedules first list
+ * the appointments of the client, as the front end does; those listings are
+ * recorded as FUTURE and AVAILABLE. A reschedule needs a cancellation with
+ * rescheduling credit, so it first cancels one of the future appointments of
+ * the same client, recorded as CANCEL, and only then books one of the
+ * available ones. Latencies measured after
+ * {@code loadtest.warmup} are written as one HdrHistogram percentile file per
+ * operation ({@code <operation>.hgrm}, in milliseconds) and a
+ * {@code summary.txt} to {@code loadtest.output}.
+ * <p>
+ * Responses are counted as ok (2xx), rejected (4xx, e.g. a full group or no
+ * reschedule credit) or failed (5xx and I/O errors).
+ * <p>
+ * To compare two versions of the application, run both against the same
+ * data: generate the dataset once and dump the database, then for each
+ * version restore the dump, start the application at that commit and run the
+ * driver with the same settings and its own {@code loadtest.output}, e.g.
+ * {@code target/load-test/before} and {@code target/load-test/after}. The runs
+ * change the data, so the dump must be restored before each one. Compare the
+ * {@code summary.txt} files operation by operation: CREATE measures the
+ * insertion of a series, CANCEL and RESCHEDULE the booking of a group, and
+ * the whole mix the request threads and the JDBC gate under
+ * {@code loadtest.concurrency}.
+ */
+public final class LoadTestDriver {
+	enum Operation {
+		AVAILABLE(35),
+		FUTURE(35),
+		CANCEL(10),
+		RESCHEDULE(10),
+		CREATE(10);
+
+		final int weight;
+		final Histogram latencies = new ConcurrentHistogram(3);
+		final LongAdder ok = new LongAdder();
+		final LongAdder rejected = new LongAdder();
+		final LongAdder failed = new LongAdder();
+
+		Operation(int weight) {
+			this.weight = weight;
+		}
+	}
+
+	private static final int PAGE_SIZE = 20;
+	private static final int TOTAL_WEIGHT = 100;
+
+	private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final String baseUrl;
+	private final long firstClientId;
+	private final int clients;
+	private final long firstPhysiotherapistId;
+	private final int physiotherapists;
+	private final LocalDate firstSunday;
+	private final int weeks;
+	private volatile long measureFrom;
+
+	private LoadTestDriver(String baseUrl, Properties dataset) {
+		this.baseUrl = baseUrl;
+		this.firstClientId = Long.parseLong(dataset.getProperty("firstClientId"));
+		this.clients = Integer.parseInt(dataset.getProperty("clients"));
+		this.firstPhysiotherapistId = Long.parseLong(dataset.getProperty("firstPhysiotherapistId"));
+		this.physiotherapists = Integer.parseInt(dataset.getProperty("physiotherapists"));
+		// aos domingos o gerador não cria atendimentos: os novos atendimentos só conflitam entre si
+		this.firstSunday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.SUNDAY));
+		this.weeks = Integer.parseInt(dataset.getProperty("weeks"));
+	}
+
+	public static void main(String[] args) throws Exception {
+		String baseUrl = System.getProperty("loadtest.base-url", "http://localhost:8080");
+		int concurrency = Integer.getInteger("loadtest.concurrency", 64);
+		Duration warmup = Duration.parse(System.getProperty("loadtest.warmup", "PT30S"));
+		Duration duration = Duration.parse(System.getProperty("loadtest.duration", "PT2M"));
+		Path dataset = Path.of(System.getProperty("loadtest.dataset", "target/load-test/dataset.properties"));
+		Path output = Path.of(System.getProperty("loadtest.output", "target/load-test"));
+
+		Properties properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(dataset)) {
+			properties.load(reader);
+		}
+
+		new LoadTestDriver(baseUrl, properties).run(concurrency, warmup, duration, output);
+	}
+
+	private void run(int concurrency, Duration warmup, Duration duration, Path output) throws Exception {
+		long start = System.nanoTime();
+		measureFrom = start + warmup.toNanos();
+		long end = measureFrom + duration.toNanos();
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<Future<?>> workers = new ArrayList<>();
+			for (int i = 0; i < concurrency; i++) {
+				workers.add(executor.submit(() -> {
+					while (System.nanoTime() < end) {
+						execute(pick());
+					}
+					return null;
+				}));
+			}
+			for (Future<?> worker : workers) {
+				worker.get();
+			}
+		}
+
+		writeResults(output, duration);
+	}
+
+	private static Operation pick() {
+		int value = ThreadLocalRandom.current().nextInt(TOTAL_WEIGHT);
+		for (Operation operation : Operation.values()) {
+			value -= operation.weight;
+			if (value < 0) {
+				return operation;
+			}
+		}
+		return Operation.AVAILABLE;
+	}
+
+	private void execute(Operation operation) {
+		long clientId = firstClientId + ThreadLocalRandom.current().nextInt(clients);
+		switch (operation) {
+			case AVAILABLE -> send(Operation.AVAILABLE, get("/api/appointment/available/" + clientId));
+			case FUTURE -> send(Operation.FUTURE, get("/api/appointment/future/client/" + clientId));
+			case CANCEL -> cancel(clientId);
+			case RESCHEDULE -> {
+				// sem um cancelamento com direito a remarcação a remarcação é recusada com 409
+				if (cancel(clientId)) {
+					Long appointmentId = randomItem(send(Operation.AVAILABLE, get("/api/appointment/available/" + clientId)));
+					if (appointmentId != null) {
+						send(Operation.RESCHEDULE, put("/api/appointment/reschedule/" + clientId + "/" + appointmentId));
+					}
+				}
+			}
+			case CREATE -> send(Operation.CREATE, post("/api/physiotherapist/create/appointment", newAppointment(clientId)));
+		}
+	}
+
+	/**
+	 * Cancels one of the future appointments of a client.
+	 *
+	 * @return true if an appointment was canceled.
+	 */
+	private boolean cancel(long clientId) {
+		Long appointmentId = randomItem(send(Operation.FUTURE, get("/api/appointment/future/client/" + clientId)));
+		if (appointmentId == null) {
+			return false;
+		}
+		HttpResponse<byte[]> response = send(Operation.CANCEL, put("/api/appointment/cancel/" + clientId + "/" + appointmentId));
+		return response != null && response.statusCode() / 100 == 2;
+	}
+
+	private HttpRequest get(String path) {
+		return request(path + "?size=" + PAGE_SIZE).GET().build();
+	}
+
+	private HttpRequest put(String path) {
+		return request(path).PUT(HttpRequest.BodyPublishers.noBody()).build();
+	}
+
+	private HttpRequest post(String path, Object body) {
+		try {
+			return request(path)
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+					.build();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private HttpRequest.Builder request(String path) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30));
+	}
+
+	/**
+	 * A weekly series of 4 group appointments on a Sunday, with 1 to 3 clients.
+	 */
+	private Map<String, Object> newAppointment(long clientId) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		List<Long> clientIds = new ArrayList<>();
+		clientIds.add(clientId);
+		for (int i = random.nextInt(3); i > 0; i--) {
+			clientIds.add(firstClientId + random.nextInt(clients));
+		}
+
+		Map<String, Object> repetir = new LinkedHashMap<>();
+		repetir.put("ativo", true);
+		repetir.put("opcao", "X vezes");
+		repetir.put("quantidade", 4);
+
+		Map<String, Object> appointment = new LinkedHashMap<>();
+		appointment.put("data", DateTimeUtil.DATE.format(firstSunday.plusWeeks(random.nextInt(Math.max(1, weeks / 2)))));
+		appointment.put("horario", String.format("%02d:00",
+				LoadTestDataGenerator.FIRST_HOUR + random.nextInt(LoadTestDataGenerator.SLOTS_PER_DAY)));
+		appointment.put("repetir", repetir);
+		appointment.put("modalidade", "GROUP_PILATES");
+		appointment.put("clientes", clientIds);
+		appointment.put("fisioterapeuta", firstPhysiotherapistId + random.nextInt(physiotherapists));
+		appointment.put("locacao", "OFFICE");
+		return appointment;
+	}
+
+	private HttpResponse<byte[]> send(Operation operation, HttpRequest request) {
+		long started = System.nanoTime();
+		HttpResponse<byte[]> response = null;
+		try {
+			response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+		} catch (IOException e) {
+			// conta como falha abaixo
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		long finished = System.nanoTime();
+
+		if (started >= measureFrom) {
+			operation.latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(finished - started));
+			if (response == null || response.statusCode() >= 500) {
+				operation.failed.increment();
+			} else if (response.statusCode() >= 400) {
+				operation.rejected.increment();
+			} else {
+				operation.ok.increment();
+			}
+		}
+		return response;
+	}
+
+	private Long randomItem(HttpResponse<byte[]> response) {
+		if (response == null || response.statusCode() != 200) {
+			return null;
+		}
+		try {
+			JsonNode items = objectMapper.readTree(response.body()).path("items");
+			if (items.isEmpty()) {
+				return null;
+			}
+			return items.get(ThreadLocalRandom.current().nextInt(items.size())).path("id").asLong();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static void writeResults(Path output, Duration duration) throws IOException {
+		Files.createDirectories(output);
+		Map<Operation, String> lines = new EnumMap<>(Operation.class);
+		for (Operation operation : Operation.values()) {
+			try (PrintStream out = new PrintStream(Files.newOutputStream(output.resolve(operation.name().toLowerCase() + ".hgrm")))) {
+				// microssegundos -> milissegundos
+				operation.latencies.outputPercentileDistribution(out, 1000.0);
+			}
+
+			Histogram latencies = operation.latencies;
+			lines.put(operation, String.format("%-10s %9d %9d %9d %10.1f %9.2f %9.2f %9.2f %9.2f",
+					operation, operation.ok.sum(), operation.rejected.sum(), operation.failed.sum(),
+					latencies.getTotalCount() / (double) duration.toSeconds(),
+					latencies.getValueAtPercentile(50) / 1000.0, latencies.getValueAtPercentile(99) / 1000.0,
+					latencies.getValueAtPercentile(99.9) / 1000.0, latencies.getMaxValue() / 1000.0));
+		}
+
+		try (PrintStream summary = new PrintStream(Files.newOutputStream(output.resolve("summary.txt")))) {
+			for (PrintStream out : List.of(summary, System.out)) {
+				out.printf("%-10s %9s %9s %9s %10s %9s %9s %9s %9s%n",
+						"operação", "ok", "4xx", "falhas", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "máx ms");
+				lines.values().forEach(out::println);
+			}
+		}
+	}
+}
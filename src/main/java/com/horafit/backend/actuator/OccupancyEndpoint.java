@@ -0,0 +1,46 @@
+package com.horafit.backend.actuator;
+
+import com.horafit.backend.dto.appointment.OccupancyConsistencyReportDTO;
+import com.horafit.backend.service.AppointmentOccupancyConsistencyChecker;
+import com.horafit.backend.service.AppointmentOccupancyIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint for the {@link AppointmentOccupancyIndex}.
+ * {@code GET /actuator/occupancy} shows the state of the index,
+ * {@code GET /actuator/occupancy/{clientId}} compares it with the database for
+ * a client and {@code POST /actuator/occupancy} reloads it.
+ */
+@Component
+@Endpoint(id = "occupancy")
+public class OccupancyEndpoint {
+  @Autowired
+  private AppointmentOccupancyIndex appointmentOccupancyIndex;
+
+  @Autowired
+  private AppointmentOccupancyConsistencyChecker consistencyChecker;
+
+  @ReadOperation
+  public Map<String, Object> status() {
+    return Map.of(
+        "ready", appointmentOccupancyIndex.isReady(),
+        "indexedSlots", appointmentOccupancyIndex.size());
+  }
+
+  @ReadOperation
+  public OccupancyConsistencyReportDTO check(@Selector Long clientId) {
+    return consistencyChecker.check(clientId);
+  }
+
+  @WriteOperation
+  public void rebuild() {
+    appointmentOccupancyIndex.rebuild();
+  }
+}
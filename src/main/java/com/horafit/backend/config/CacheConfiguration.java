@@ -0,0 +1,20 @@
+package com.horafit.backend.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the cache of reference data. The caches are Caffeine caches created
+ * from the {@code spring.cache.*} properties, bounded in size and expired some
+ * minutes after being written. Every write of the cached entities evicts them
+ * explicitly. The login principals are cached by email and evicted when the
+ * password changes.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+    public static final String APPOINTMENT_RULES = "appointmentRules";
+    public static final String BUSINESS_RULES = "businessRules";
+    public static final String PHYSIOTHERAPISTS = "physiotherapists";
+    public static final String USER_PRINCIPALS = "userPrincipals";
+}
@@ -0,0 +1,54 @@
+package com.horafit.backend.config;
+
+import com.horafit.backend.monitoring.SqlCountingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Wraps the Hikari pool: a {@link JdbcConcurrencyGate} in front of it and, on
+ * the outside, a {@link SqlCountingDataSource} for the per-request SQL metrics.
+ * Requests run on virtual threads ({@code spring.threads.virtual.enabled}), so
+ * the number of concurrent requests is no longer bounded by the Tomcat pool and
+ * the gate is what keeps the database connections from being oversubscribed.
+ * {@code horafit.jdbc.gate.permits} defaults to the pool size, and
+ * {@code horafit.jdbc.gate.timeout} to 30 seconds.
+ */
+@Configuration
+public class DataSourceConfiguration {
+    @Bean
+    static BeanPostProcessor dataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource hikariDataSource)) {
+                    return bean;
+                }
+                int permits = environment.getProperty("horafit.jdbc.gate.permits", Integer.class, 0);
+                Duration timeout = environment.getProperty("horafit.jdbc.gate.timeout", Duration.class,
+                        Duration.ofSeconds(30));
+                return new SqlCountingDataSource(new JdbcConcurrencyGate(hikariDataSource,
+                        permits > 0 ? permits : hikariDataSource.getMaximumPoolSize(), timeout));
+            }
+        };
+    }
+
+    @Bean
+    MeterBinder jdbcConcurrencyGateMetrics(DataSource dataSource) throws SQLException {
+        JdbcConcurrencyGate gate = dataSource.isWrapperFor(JdbcConcurrencyGate.class)
+                ? dataSource.unwrap(JdbcConcurrencyGate.class)
+                : null;
+        return registry -> {
+            if (gate != null) {
+                gate.bindTo(registry);
+            }
+        };
+    }
+}
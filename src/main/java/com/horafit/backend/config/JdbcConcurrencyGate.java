@@ -0,0 +1,125 @@
+package com.horafit.backend.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits the number of connections taken from the pool at the same time with a
+ * fair semaphore. With virtual threads thousands of requests may ask for a
+ * connection at once; here they wait in arrival order, for up to the
+ * configured timeout, instead of competing inside the pool. With as many
+ * permits as pooled connections, a thread holding a permit normally finds a
+ * free connection in the pool.
+ * Its effect on throughput and latency has not been measured; the load-test
+ * profile (see pom.xml) is the workload to compare it against.
+ * The number of waiting threads, of permits in use and the waiting time are
+ * published as {@code horafit.jdbc.gate.*} metrics.
+ */
+public class JdbcConcurrencyGate extends DelegatingDataSource implements MeterBinder {
+    public static final String QUEUED = "horafit.jdbc.gate.queued";
+    public static final String ACTIVE = "horafit.jdbc.gate.active";
+    public static final String WAIT = "horafit.jdbc.gate.wait";
+
+    private final Semaphore semaphore;
+    private final int permits;
+    private final Duration timeout;
+    private volatile Timer waitTimer;
+
+    public JdbcConcurrencyGate(DataSource targetDataSource, int permits, Duration timeout) {
+        super(targetDataSource);
+        this.semaphore = new Semaphore(permits, true);
+        this.permits = permits;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return releaseOnClose(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            semaphore.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releaseOnClose(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            semaphore.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(QUEUED, semaphore, Semaphore::getQueueLength)
+                .description("Threads aguardando uma conexão com o banco")
+                .register(registry);
+        Gauge.builder(ACTIVE, semaphore, gate -> permits - gate.availablePermits())
+                .description("Conexões com o banco em uso")
+                .register(registry);
+        waitTimer = Timer.builder(WAIT)
+                .description("Tempo de espera por uma conexão com o banco")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+
+    public int getQueueLength() {
+        return semaphore.getQueueLength();
+    }
+
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = semaphore.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrompido aguardando uma conexão com o banco", e);
+        }
+
+        Timer timer = waitTimer;
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            throw new SQLTransientConnectionException(
+                    "Nenhuma conexão com o banco disponível após " + timeout.toMillis() + " ms");
+        }
+    }
+
+    private Connection releaseOnClose(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        // close() pode ser chamado mais de uma vez: a permissão só é devolvida na primeira
+                        if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                            semaphore.release();
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,14 @@
+package com.horafit.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the scheduled jobs, such as the nightly rebuild of the weekly
+ * schedule of the clients and the hourly materialization of the recurring
+ * series.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+}
@@ -6,9 +6,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.horafit.backend.dto.appointment.AttendanceRollCallDTO;
+import com.horafit.backend.dto.response.ResponseDTO;
 import com.horafit.backend.entity.AppointmentClient;
 import com.horafit.backend.service.AppointmentClientService;
 
@@ -16,6 +19,9 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @CrossOrigin
 @RequestMapping("/api/appointment-client")
@@ -37,4 +43,32 @@ public class AppointmentClientController {
         AppointmentClient appointmentClient = appointmentClientService.absentClient(clientId, appointmentId);
         return ResponseEntity.ok(appointmentClient);
     }
+
+    @Operation(summary = "Registrar a chamada de um atendimento.",
+          description = "Registra de uma vez a presença dos clientes de um atendimento, informada pelo ID do cliente " +
+                  "(true para presente, false para ausente). Clientes não informados mantêm a presença atual.")
+    @ApiResponses(value = {
+          @ApiResponse(responseCode = "200", description = "Chamada registrada com sucesso"),
+          @ApiResponse(responseCode = "400", description = "Cliente não pertence ao atendimento")
+    })
+    @PutMapping("/roll-call/{appointmentId}")
+    public ResponseEntity<ResponseDTO> rollCall(
+            @PathVariable Long appointmentId,
+            @RequestBody Map<Long, Boolean> attendance) {
+        int recorded = appointmentClientService.rollCall(List.of(new AttendanceRollCallDTO(appointmentId, attendance)));
+        return ResponseEntity.ok(new ResponseDTO("Presença registrada para " + recorded + " cliente(s)", 200));
+    }
+
+    @Operation(summary = "Registrar a chamada de vários atendimentos.",
+          description = "Registra a chamada de vários atendimentos, como todas as aulas do dia, em uma única requisição. " +
+                  "Se algum cliente não pertencer ao seu atendimento, nenhuma presença é registrada.")
+    @ApiResponses(value = {
+          @ApiResponse(responseCode = "200", description = "Chamadas registradas com sucesso"),
+          @ApiResponse(responseCode = "400", description = "Cliente não pertence ao atendimento")
+    })
+    @PutMapping("/roll-call")
+    public ResponseEntity<ResponseDTO> rollCallMany(@RequestBody List<AttendanceRollCallDTO> rollCalls) {
+        int recorded = appointmentClientService.rollCall(rollCalls);
+        return ResponseEntity.ok(new ResponseDTO("Presença registrada para " + recorded + " cliente(s)", 200));
+    }
 }
@@ -3,16 +3,18 @@ package com.horafit.backend.controller;
 import com.horafit.backend.dto.appointment.AppointmentEditBatchDTO;
 import com.horafit.backend.dto.appointment.AppointmentEditDTO;
 import com.horafit.backend.dto.appointment.AppointmentFilterDTO;
-import com.horafit.backend.dto.appointment.AppointmentGetDTO;
+import com.horafit.backend.dto.appointment.AppointmentPageDTO;
+import com.horafit.backend.dto.appointment.AppointmentPageRequestDTO;
+import com.horafit.backend.dto.appointment.AppointmentPlanDiffDTO;
 import com.horafit.backend.dto.client.ClientScheduleDTO;
 import com.horafit.backend.dto.client.ClientSimpleDTO;
-import com.horafit.backend.entity.Appointment;
 import com.horafit.backend.service.AppointmentService;
 import com.horafit.backend.util.exception.appointment.AppointmentsException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -26,13 +28,14 @@ public class AppointmentController {
   @Autowired
   AppointmentService appointmentService;
 
-  @Operation(summary = "Obter todos os atendimentos.", description = "Este endpoint retorna uma lista de todos os atendimentos agendados.")
+  @Operation(summary = "Obter todos os atendimentos.", description = "Este endpoint retorna uma página dos atendimentos agendados, ordenados por data e hora. Use o nextCursor retornado para obter a próxima página.")
   @ApiResponses(value = {
-      @ApiResponse(responseCode = "200", description = "Lista de atendimentos retornada com sucesso")
+      @ApiResponse(responseCode = "200", description = "Lista de atendimentos retornada com sucesso"),
+      @ApiResponse(responseCode = "400", description = "Cursor de paginação inválido")
   })
   @GetMapping("/all")
-  public ResponseEntity<List<Appointment>> getAllAppointments() {
-    List<Appointment> appointments = appointmentService.findAll();
+  public ResponseEntity<AppointmentPageDTO> getAllAppointments(@ParameterObject AppointmentPageRequestDTO page) {
+    AppointmentPageDTO appointments = appointmentService.findAll(page);
     return ResponseEntity.ok(appointments);
   }
 
@@ -42,8 +45,9 @@ public class AppointmentController {
       @ApiResponse(responseCode = "404", description = "Cliente não encontrado")
   })
   @GetMapping("/client/{id}")
-  public ResponseEntity<List<AppointmentGetDTO>> getAppointmentsByClient(@PathVariable Long id) {
-    List<AppointmentGetDTO> appointments = appointmentService.getAllByClientId(id);
+  public ResponseEntity<AppointmentPageDTO> getAppointmentsByClient(@PathVariable Long id,
+      @ParameterObject AppointmentPageRequestDTO page) {
+    AppointmentPageDTO appointments = appointmentService.getAllByClientId(id, page);
     return ResponseEntity.ok(appointments);
   }
 
@@ -53,8 +57,9 @@ public class AppointmentController {
       @ApiResponse(responseCode = "404", description = "Cliente não encontrado")
   })
   @GetMapping("/future/client/{id}")
-  public ResponseEntity<List<AppointmentGetDTO>> getFutureAppointmentsByClient(@PathVariable Long id) {
-    List<AppointmentGetDTO> appointments = appointmentService.getFutureAppointmentsByClientId(id);
+  public ResponseEntity<AppointmentPageDTO> getFutureAppointmentsByClient(@PathVariable Long id,
+      @ParameterObject AppointmentPageRequestDTO page) {
+    AppointmentPageDTO appointments = appointmentService.getFutureAppointmentsByClientId(id, page);
     return ResponseEntity.ok(appointments);
   }
 
@@ -64,8 +69,9 @@ public class AppointmentController {
       @ApiResponse(responseCode = "404", description = "Fisioterapeuta não encontrado")
   })
   @GetMapping("/physio/{id}")
-  public ResponseEntity<List<AppointmentGetDTO>> getAppointmentsByPhysiotherapist(@PathVariable Long id) {
-    List<AppointmentGetDTO> appointments = appointmentService.findAllByPhysiotherapistId(id);
+  public ResponseEntity<AppointmentPageDTO> getAppointmentsByPhysiotherapist(@PathVariable Long id,
+      @ParameterObject AppointmentPageRequestDTO page) {
+    AppointmentPageDTO appointments = appointmentService.findAllByPhysiotherapistId(id, page);
     return ResponseEntity.ok(appointments);
   }
 
@@ -75,15 +81,17 @@ public class AppointmentController {
       @ApiResponse(responseCode = "400", description = "Data inválida")
   })
   @GetMapping("/date/{date}")
-  public ResponseEntity<List<AppointmentGetDTO>> getAppointmentsByDate(@PathVariable String date) {
-    List<AppointmentGetDTO> appointments = appointmentService.findAllByDate(date);
+  public ResponseEntity<AppointmentPageDTO> getAppointmentsByDate(@PathVariable String date,
+      @ParameterObject AppointmentPageRequestDTO page) {
+    AppointmentPageDTO appointments = appointmentService.findAllByDate(date, page);
     return ResponseEntity.ok(appointments);
   }
 
   @Operation(summary = "Obter atendimentos disponíveis.", description = "Este endpoint retorna uma lista de atendimentos vagos.")
   @GetMapping("/available/{clientId}")
-  public ResponseEntity<List<AppointmentGetDTO>> getAvailable(@PathVariable Long clientId) {
-    List<AppointmentGetDTO> availableAppointments = appointmentService.findAvailable(clientId);
+  public ResponseEntity<AppointmentPageDTO> getAvailable(@PathVariable Long clientId,
+      @ParameterObject AppointmentPageRequestDTO page) {
+    AppointmentPageDTO availableAppointments = appointmentService.findAvailable(clientId, page);
     return ResponseEntity.ok(availableAppointments);
   }
 
@@ -99,6 +107,10 @@ public class AppointmentController {
   }
 
   @Operation(summary = "Reagendar atendimento.", description = "Este endpoint permite reagendar um atendimento após ter sido feito o cancelamento.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "204", description = "Atendimento reagendado com sucesso"),
+      @ApiResponse(responseCode = "409", description = "Atendimento lotado ou cliente sem cancelamento com direito a remarcação")
+  })
   @PutMapping("/reschedule/{clientId}/{appointmentId}")
   public ResponseEntity<Void> rescheduleAppointment(@PathVariable Long clientId, @PathVariable Long appointmentId) {
     appointmentService.rescheduleAppointment(clientId, appointmentId);
@@ -108,7 +120,8 @@ public class AppointmentController {
   @Operation(summary = "Editar um atendimento específico", description = "Permite editar o atendimento específico de um cliente, alterando data e hora. Este endpoint será utilizado pelo fisioterapeuta")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "204", description = "Atendimento deletado com sucesso"),
-      @ApiResponse(responseCode = "404", description = "Atendimento não encontrado")
+      @ApiResponse(responseCode = "404", description = "Atendimento não encontrado"),
+      @ApiResponse(responseCode = "409", description = "Atendimento lotado")
   })
   @PutMapping("/edit/{clientId}/{appointmentId}")
   public ResponseEntity<Void> editIndividualAppointment(@RequestBody AppointmentEditDTO obj,
@@ -118,18 +131,18 @@ public class AppointmentController {
     return ResponseEntity.noContent().build();
   }
 
-  @Operation(summary = "Alterar plano de atendimentos em batch.", description = "Permite alterar o plano de atendimentos de um cliente, excluindo os já existentes e criando novos nos dias e modalidade selecionados. Este endpoint será utilizado pelo fisioterapeuta")
+  @Operation(summary = "Alterar plano de atendimentos em batch.", description = "Permite alterar o plano de atendimentos de um cliente em uma modalidade. Apenas as ocorrências futuras que diferem do novo plano são criadas, movidas ou removidas; o histórico não é alterado. Este endpoint será utilizado pelo fisioterapeuta")
   @ApiResponses(value = {
-      @ApiResponse(responseCode = "204", description = "Atendimentos atualizados com sucesso"),
+      @ApiResponse(responseCode = "200", description = "Atendimentos atualizados com sucesso, com o número de ocorrências mantidas, criadas, movidas e removidas"),
       @ApiResponse(responseCode = "400", description = "Requisição inválida, erro nos dados fornecidos"),
       @ApiResponse(responseCode = "404", description = "Cliente não encontrado"),
   })
   @PutMapping("/batch-edit/{clientId}")
-  public ResponseEntity<Void> editBatchAppointments(@RequestBody AppointmentEditBatchDTO obj,
+  public ResponseEntity<AppointmentPlanDiffDTO> editBatchAppointments(@RequestBody AppointmentEditBatchDTO obj,
       @PathVariable Long clientId) {
 
-    appointmentService.updateBatchAppointmentsForClient(obj, clientId);
-    return ResponseEntity.noContent().build();
+    AppointmentPlanDiffDTO diff = appointmentService.updateBatchAppointmentsForClient(obj, clientId);
+    return ResponseEntity.ok(diff);
   }
 
   @Operation(summary = "Filtrar atendimentos de cliente.", description = "Este endpoint retorna uma lista de atendimentos filtrados por cliente, modalidade e data.")
@@ -138,14 +151,14 @@ public class AppointmentController {
       @ApiResponse(responseCode = "404", description = "Nenhum atendimento encontrado")
   })
   @PostMapping("/filter")
-  public ResponseEntity<List<AppointmentGetDTO>> filterAppointments(@RequestBody AppointmentFilterDTO filterDTO) {
+  public ResponseEntity<AppointmentPageDTO> filterAppointments(@RequestBody AppointmentFilterDTO filterDTO) {
     if (filterDTO.getClientId() == null) {
       throw new AppointmentsException.AppointmentNotFoundException("O ID do cliente deve ser fornecido.");
     }
 
-    List<AppointmentGetDTO> appointments = appointmentService.filterAppointments(filterDTO);
+    AppointmentPageDTO appointments = appointmentService.filterAppointments(filterDTO);
 
-    if (appointments.isEmpty()) {
+    if (appointments.items().isEmpty()) {
       throw new AppointmentsException.AppointmentNotFoundException(
           "Nenhum atendimento encontrado para os filtros aplicados ao cliente com ID: " + filterDTO.getClientId());
     }
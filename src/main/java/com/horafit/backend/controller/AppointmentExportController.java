@@ -0,0 +1,49 @@
+package com.horafit.backend.controller;
+
+import com.horafit.backend.service.AppointmentExportService;
+import com.horafit.backend.service.AppointmentExportWriter;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/appointment/export")
+@CrossOrigin
+@Tag(name = "Appointment Export API", description = "API para exportação de atendimentos em grandes intervalos de datas.")
+public class AppointmentExportController {
+  @Autowired
+  AppointmentExportService appointmentExportService;
+
+  @Operation(summary = "Exportar atendimentos.", description = "Este endpoint exporta os atendimentos e seus clientes no intervalo [from, to) em NDJSON ou CSV, uma linha por cliente, enviando cada linha assim que é lida do banco.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Exportação iniciada com sucesso"),
+      @ApiResponse(responseCode = "400", description = "Intervalo ou formato inválido")
+  })
+  @GetMapping
+  public ResponseEntity<StreamingResponseBody> exportAppointments(
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(defaultValue = "ndjson") String format) {
+    if (!from.isBefore(to)) {
+      throw new IllegalArgumentException("A data inicial deve ser anterior à data final.");
+    }
+
+    AppointmentExportWriter.Format exportFormat = AppointmentExportWriter.Format.fromParameter(format);
+    StreamingResponseBody body = out -> appointmentExportService.export(from, to, exportFormat, out);
+
+    return ResponseEntity.ok()
+        .contentType(exportFormat.getMediaType())
+        .header(HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"atendimentos." + exportFormat.getExtension() + "\"")
+        .body(body);
+  }
+}
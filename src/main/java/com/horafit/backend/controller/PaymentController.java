@@ -1,5 +1,6 @@
 package com.horafit.backend.controller;
 
+import com.horafit.backend.dto.payment.PaymentStatusDTO;
 import com.horafit.backend.dto.payment.UpdatePaymentDTO;
 import com.horafit.backend.dto.response.ResponseDTO;
 import com.horafit.backend.service.PaymentService;
@@ -11,6 +12,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/pagamentos")
 @CrossOrigin
@@ -67,6 +70,19 @@ public class PaymentController {
         }
     }
 
+    @Operation(summary = "Consultar a situação de pagamento de vários clientes.",
+            description = "Este endpoint retorna, em uma única chamada, o último pagamento confirmado, o mês pago " +
+                    "e se o mês atual está pago para cada cliente informado (no máximo " +
+                    PaymentService.MAX_STATUS_CLIENTS + ").")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Situação de pagamento retornada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Clientes demais na consulta")
+    })
+    @GetMapping("/status")
+    public ResponseEntity<List<PaymentStatusDTO>> getPaymentStatus(@RequestParam List<Long> clientIds) {
+        return ResponseEntity.ok(paymentService.findPaymentStatus(clientIds));
+    }
+
     @Operation(summary = "Atualizar a data de pagamento de um cliente.",
             description = "Este endpoint permite atualizar a data de pagamento para um cliente específico.")
     @ApiResponses(value = {
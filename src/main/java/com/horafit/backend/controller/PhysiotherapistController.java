@@ -1,12 +1,14 @@
 package com.horafit.backend.controller;
 
 import com.horafit.backend.dto.appointment.AddClientToAppointmentDTO;
+import com.horafit.backend.dto.appointment.AppointmentConflictReportDTO;
 import com.horafit.backend.dto.appointment.AppointmentCreateDTO;
 import com.horafit.backend.dto.response.ResponseDTO;
 import com.horafit.backend.dto.appointment.AppointmentUpdateDTO;
 import com.horafit.backend.dto.businessRules.BusinessRulesRegisterDTO;
 import com.horafit.backend.dto.client.ClientDTO;
 import com.horafit.backend.entity.Client;
+import com.horafit.backend.service.AppointmentConfirmationService;
 import com.horafit.backend.service.BusinessRulesService;
 import com.horafit.backend.service.PhysiotherapistService;
 import com.horafit.backend.util.exception.appointment.AppointmentsException;
@@ -24,6 +26,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -38,6 +41,9 @@ public class PhysiotherapistController {
     @Autowired
     private BusinessRulesService businessRulesService;
 
+    @Autowired
+    private AppointmentConfirmationService appointmentConfirmationService;
+
     @Operation(summary = "Criar um novo atendimento.",
             description = "Este endpoint permite que o fisioterapeuta possa criar um atendimento para um ou mais clientes. " +
                     "Verifica se já existe um atendimento agendado para outro cliente no mesmo dia e horário.")
@@ -51,7 +57,7 @@ public class PhysiotherapistController {
             physiotherapistService.createAppointmentClient(appointmentDTO);
             ResponseDTO response = new ResponseDTO("Atendimento criado com sucesso", 200);
             return ResponseEntity.ok(response);
-        } catch (AppointmentAlreadyExistsException | IllegalArgumentException e) {
+        } catch (AppointmentAlreadyExistsException | AppointmentFullException | IllegalArgumentException e) {
             ResponseDTO response = new ResponseDTO("Erro: " + e.getMessage(), 400);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         } catch (Exception e) {
@@ -60,12 +66,24 @@ public class PhysiotherapistController {
         }
     }
 
+    @Operation(summary = "Verificar conflitos de um novo atendimento.",
+            description = "Simula a criação de um atendimento, incluindo todas as repetições, e retorna todos os conflitos " +
+                    "com atendimentos já agendados para o fisioterapeuta ou para os clientes, sem criar nada.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Relatório de conflitos gerado com sucesso"),
+    })
+    @PostMapping("/create/appointment/conflicts")
+    public ResponseEntity<AppointmentConflictReportDTO> findAppointmentConflicts(@RequestBody AppointmentCreateDTO appointmentDTO) {
+        return ResponseEntity.ok(physiotherapistService.findAppointmentConflicts(appointmentDTO));
+    }
+
     @Operation(summary = "Atualizar um atendimento existente.",
     description = "Permite atualizar a data e o horário de um atendimento. "
     + "Verifica se já existe um atendimento agendado para o mesmo fisioterapeuta e horário.")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Atendimento atualizado com sucesso."),
         @ApiResponse(responseCode = "400", description = "Erro na requisição. Verifique os dados enviados."),
+        @ApiResponse(responseCode = "409", description = "O cliente está cancelado neste atendimento."),
     })
     @PutMapping("/edit/appointment")
     public ResponseEntity<ResponseDTO> updateAppointment(@RequestBody AppointmentUpdateDTO appointmentUpdateDTO) {
@@ -76,6 +94,9 @@ public class PhysiotherapistController {
         } catch (AppointmentAlreadyExistsException | IllegalArgumentException e) {
             ResponseDTO response = new ResponseDTO("Erro: " + e.getMessage(), 400);
             return ResponseEntity.badRequest().body(response);
+        } catch (InvalidConfirmationTransitionException e) {
+            ResponseDTO response = new ResponseDTO("Erro: " + e.getMessage(), 409);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
         } catch (Exception e) {
             ResponseDTO response = new ResponseDTO("Erro inesperado: " + e.getMessage(), 500);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
@@ -87,7 +108,7 @@ public class PhysiotherapistController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Clientes adicionados com sucesso ao atendimento"),
             @ApiResponse(responseCode = "404", description = "Atendimento ou cliente não encontrado"),
-            @ApiResponse(responseCode = "400", description = "Cliente já associado a este atendimento"),
+            @ApiResponse(responseCode = "400", description = "Cliente já associado a este atendimento ou atendimento lotado"),
     })
     @PostMapping("/appointment/add-clients-to-empty")
     public ResponseEntity<ResponseDTO> addClientsToAppointment(@RequestBody AddClientToAppointmentDTO dto) {
@@ -98,7 +119,7 @@ public class PhysiotherapistController {
         } catch (AppointmentsException.AppointmentNotFoundException | ClientException.ClientNotFoundException e) {
             ResponseDTO response = new ResponseDTO("Erro: " + e.getMessage(), 404);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
-        } catch (ClientException.ClientAlreadyExistsException e) {
+        } catch (ClientException.ClientAlreadyExistsException | AppointmentsException.AppointmentFullException e) {
             ResponseDTO response = new ResponseDTO("Erro: " + e.getMessage(), 400);
             return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
@@ -125,6 +146,66 @@ public class PhysiotherapistController {
         }
     }
 
+    @Operation(summary = "Encerrar a série \"Sempre\" de um horário.",
+            description = "Encerra, para todos os clientes, a série sem data de término que gera o horário do atendimento informado. " +
+                    "Nenhum novo atendimento é criado nesse horário; os já criados são mantidos.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Série encerrada com sucesso"),
+            @ApiResponse(responseCode = "404", description = "Atendimento não encontrado")
+    })
+    @PutMapping("/appointment/{appointmentId}/end-series")
+    public ResponseEntity<ResponseDTO> endSeries(@PathVariable Long appointmentId) {
+        try {
+            int ended = physiotherapistService.endSeries(appointmentId);
+            return ResponseEntity.ok(new ResponseDTO("Séries encerradas: " + ended, 200));
+        } catch (AppointmentNotFoundException e) {
+            ResponseDTO response = new ResponseDTO("Erro: " + e.getMessage(), 404);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+    }
+
+    @Operation(summary = "Retirar um cliente da série \"Sempre\" de um horário.",
+            description = "Retira o cliente da série sem data de término que gera o horário do atendimento informado. " +
+                    "Nenhum novo atendimento é criado para ele nesse horário; os já criados são mantidos.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cliente retirado da série com sucesso"),
+            @ApiResponse(responseCode = "404", description = "Atendimento não encontrado")
+    })
+    @PutMapping("/appointment/{appointmentId}/leave-series/{clientId}")
+    public ResponseEntity<ResponseDTO> leaveSeries(@PathVariable Long appointmentId, @PathVariable Long clientId) {
+        try {
+            int left = physiotherapistService.leaveSeries(clientId, appointmentId);
+            return ResponseEntity.ok(new ResponseDTO("Cliente retirado de " + left + " série(s)", 200));
+        } catch (AppointmentNotFoundException e) {
+            ResponseDTO response = new ResponseDTO("Erro: " + e.getMessage(), 404);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+    }
+
+    @Operation(summary = "Cancelar uma aula.",
+            description = "Cancela a aula para todos os clientes confirmados ou remarcados, que passam a ter direito a remarcação. " +
+                    "Clientes já cancelados não são alterados.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Aula cancelada com sucesso"),
+    })
+    @PutMapping("/appointment/{appointmentId}/cancel")
+    public ResponseEntity<ResponseDTO> cancelClass(@PathVariable Long appointmentId) {
+        int canceled = appointmentConfirmationService.cancelClasses(List.of(appointmentId));
+        return ResponseEntity.ok(new ResponseDTO("Aula cancelada para " + canceled + " cliente(s)", 200));
+    }
+
+    @Operation(summary = "Cancelar todas as aulas de um dia.",
+            description = "Cancela, como em um feriado, todas as aulas do dia (yyyy-MM-dd), do fisioterapeuta informado ou de todos. " +
+                    "Os clientes confirmados ou remarcados passam a ter direito a remarcação.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Aulas do dia canceladas com sucesso"),
+    })
+    @PutMapping("/cancel-day/{date}")
+    public ResponseEntity<ResponseDTO> cancelDay(@PathVariable LocalDate date,
+                                                 @RequestParam(required = false) Long physiotherapistId) {
+        int canceled = appointmentConfirmationService.cancelDay(date, physiotherapistId);
+        return ResponseEntity.ok(new ResponseDTO("Aulas do dia canceladas para " + canceled + " cliente(s)", 200));
+    }
 
     @Operation(summary = "Obter clientes pelo nome.", description = "Retorna uma lista de clientes que contêm o nome fornecido.")
     @ApiResponses(value = {
@@ -12,6 +12,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/user")
 @CrossOrigin
@@ -20,8 +22,8 @@ public class UserController {
   @Autowired
   UserService userService;
   @PostMapping("/login")
-  public ResponseEntity<UserLoginResponseDTO> login(@RequestBody UserLoginDTO requestDTO) {
-    UserLoginResponseDTO responseDTO = userService.login(requestDTO);
-    return ResponseEntity.ok(responseDTO);
+  public CompletableFuture<ResponseEntity<UserLoginResponseDTO>> login(@RequestBody UserLoginDTO requestDTO) {
+    // a senha é verificada fora da thread da requisição, que é liberada enquanto isso
+    return userService.login(requestDTO).thenApply(ResponseEntity::ok);
   }
 }
@@ -0,0 +1,12 @@
+package com.horafit.backend.dto.appointment;
+
+import com.horafit.backend.entity.enums.AppointmentConfirmation;
+
+public record AppointmentClientRowDTO(
+    Long appointmentId,
+    Long clientId,
+    String name,
+    AppointmentConfirmation confirmation,
+    Boolean attendance
+) {
+}
@@ -0,0 +1,14 @@
+package com.horafit.backend.dto.appointment;
+
+import com.horafit.backend.entity.enums.AppointmentConfirmation;
+
+import java.time.LocalDateTime;
+
+public record AppointmentConfirmationRowDTO(
+    Long id, // ID do vínculo appointment_client
+    Long appointmentId,
+    Long clientId,
+    LocalDateTime dateTime,
+    AppointmentConfirmation confirmation
+) {
+}
@@ -0,0 +1,16 @@
+package com.horafit.backend.dto.appointment;
+
+import java.time.LocalDateTime;
+
+public record AppointmentConflictDTO(
+    Type type,
+    LocalDateTime dateTime,
+    Long appointmentId, // atendimento já existente
+    Long id, // ID do fisioterapeuta ou do cliente, conforme o tipo
+    String name
+) {
+  public enum Type {
+    PHYSIOTHERAPIST,
+    CLIENT
+  }
+}
@@ -0,0 +1,16 @@
+package com.horafit.backend.dto.appointment;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public record AppointmentConflictReportDTO(
+    int checkedDateTimes,
+    int checkedClients,
+    List<AppointmentConflictDTO> conflicts
+) {
+  @JsonProperty("hasConflicts")
+  public boolean hasConflicts() {
+    return !conflicts.isEmpty();
+  }
+}
@@ -0,0 +1,13 @@
+package com.horafit.backend.dto.appointment;
+
+import java.time.LocalDateTime;
+
+public record AppointmentConflictRowDTO(
+    Long appointmentId,
+    LocalDateTime dateTime,
+    Long physiotherapistId,
+    String physiotherapistName,
+    Long clientId, // null quando o conflito é apenas do fisioterapeuta
+    String clientName
+) {
+}
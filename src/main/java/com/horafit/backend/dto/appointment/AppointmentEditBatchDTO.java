@@ -1,9 +1,12 @@
 package com.horafit.backend.dto.appointment;
 
+import lombok.Setter;
+
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
 
+@Setter
 public class AppointmentEditBatchDTO {
         private String frequency; // Frequência (ex.: "Semanal")
         private String modality; // Nova modalidade do atendimento
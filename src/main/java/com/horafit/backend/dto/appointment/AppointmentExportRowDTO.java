@@ -0,0 +1,15 @@
+package com.horafit.backend.dto.appointment;
+
+import java.time.LocalDateTime;
+
+public record AppointmentExportRowDTO(
+    Long appointmentId,
+    LocalDateTime dateTime,
+    String location,
+    String modality,
+    Long physiotherapistId,
+    Long clientId, // nulo quando o atendimento nao tem clientes
+    String confirmation,
+    Boolean attendance
+) {
+}
@@ -9,4 +9,6 @@ public class AppointmentFilterDTO {
   Long clientId;
   String modality;
   String monthYear;
-}
\ No newline at end of file
+  String cursor;
+  Integer size;
+}
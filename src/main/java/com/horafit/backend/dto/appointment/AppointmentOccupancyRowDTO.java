@@ -0,0 +1,14 @@
+package com.horafit.backend.dto.appointment;
+
+import com.horafit.backend.entity.enums.AppointmentConfirmation;
+
+import java.time.LocalDateTime;
+
+public record AppointmentOccupancyRowDTO(
+    Long appointmentId,
+    LocalDateTime dateTime,
+    Long clientId,
+    AppointmentConfirmation confirmation,
+    Integer maxClientsPerGroup
+) {
+}
@@ -0,0 +1,9 @@
+package com.horafit.backend.dto.appointment;
+
+import java.util.List;
+
+public record AppointmentPageDTO(
+    List<AppointmentGetDTO> items,
+    String nextCursor // nulo quando nao ha mais paginas
+) {
+}
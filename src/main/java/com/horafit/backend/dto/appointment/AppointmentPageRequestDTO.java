@@ -0,0 +1,13 @@
+package com.horafit.backend.dto.appointment;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+public record AppointmentPageRequestDTO(
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from, // inicio da janela (inclusivo)
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to, // fim da janela (exclusivo)
+    String cursor, // nextCursor retornado pela pagina anterior
+    Integer size
+) {
+}
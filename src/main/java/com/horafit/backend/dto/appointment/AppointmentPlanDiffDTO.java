@@ -0,0 +1,9 @@
+package com.horafit.backend.dto.appointment;
+
+public record AppointmentPlanDiffDTO(
+    int kept, // ocorrências que já estavam no plano
+    int inserted, // novas ocorrências
+    int moved, // ocorrências levadas para outro dia/horário da mesma semana
+    int detached // ocorrências removidas do plano
+) {
+}
@@ -0,0 +1,9 @@
+package com.horafit.backend.dto.appointment;
+
+import java.util.Map;
+
+public record AttendanceRollCallDTO(
+    Long appointmentId,
+    Map<Long, Boolean> attendance // presença de cada cliente do atendimento, pelo ID do cliente
+) {
+}
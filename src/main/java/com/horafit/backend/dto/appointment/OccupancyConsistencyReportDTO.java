@@ -0,0 +1,12 @@
+package com.horafit.backend.dto.appointment;
+
+import java.util.List;
+
+public record OccupancyConsistencyReportDTO(
+    Long clientId,
+    boolean consistent,
+    int indexedSlots,
+    List<Long> missingFromIndex, // disponiveis segundo o SQL, mas nao segundo o indice
+    List<Long> unexpectedInIndex // disponiveis segundo o indice, mas nao segundo o SQL
+) {
+}
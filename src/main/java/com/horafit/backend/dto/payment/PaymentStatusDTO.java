@@ -0,0 +1,17 @@
+package com.horafit.backend.dto.payment;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Payment status of a client.
+ *
+ * @param clientId          the ID of the client.
+ * @param ultimoPagamento   the latest confirmed payment, or null if there is
+ *                          none.
+ * @param pagoAte           the month paid by the latest payment, or null.
+ * @param pagamentoMesAtual whether the current month is paid.
+ */
+public record PaymentStatusDTO(Long clientId, LocalDateTime ultimoPagamento, YearMonth pagoAte,
+                               boolean pagamentoMesAtual) {
+}
@@ -1,4 +1,4 @@
 package com.horafit.backend.dto.user;
 
-public record UserLoginResponseDTO(Long id, String userType) {
+public record UserLoginResponseDTO(Long id, String userType, String token) {
 }
@@ -0,0 +1,4 @@
+package com.horafit.backend.dto.user;
+
+public record UserPrincipalDTO(Long id, String userType, String password, Long appointmentRulesId) {
+}
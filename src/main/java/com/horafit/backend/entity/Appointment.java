@@ -11,7 +11,10 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "appointment")
+@Table(name = "appointment", indexes = {
+    @Index(name = "idx_appointment_physiotherapist_date_time", columnList = "physiotherapist_id, date_time"),
+    @Index(name = "idx_appointment_date_time", columnList = "date_time")
+})
 @Getter
 @Setter
 @AllArgsConstructor
@@ -36,4 +39,9 @@ public class Appointment {
   @Enumerated(EnumType.STRING)
   @Column(name = "modality", nullable = false)
   private AppointmentModality modality;
+
+  // Incrementada a cada cliente que entra no atendimento (ver AppointmentBookingService)
+  @Version
+  @Column(name = "version", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+  private Long version;
 }
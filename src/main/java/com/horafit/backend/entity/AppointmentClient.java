@@ -6,7 +6,10 @@ import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "appointment_client")
+@Table(name = "appointment_client", indexes = {
+    @Index(name = "idx_appointment_client_client_appointment", columnList = "client_id, appointment_id"),
+    @Index(name = "idx_appointment_client_appointment_confirmation", columnList = "appointment_id, confirmation")
+})
 @Getter
 @Setter
 public class AppointmentClient {
@@ -21,6 +21,9 @@ import lombok.Setter;
 @NoArgsConstructor
 @EqualsAndHashCode
 public class AppointmentRules {
+    /** Group capacity used when none of the clients involved has appointment rules. */
+    public static final int DEFAULT_MAX_CLIENTS_PER_GROUP = 4;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(nullable = false, unique = true)
@@ -0,0 +1,51 @@
+package com.horafit.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Reschedule quota of a client in a month: how many of its appointments of the
+ * month are {@code RESCHEDULED} and how many are
+ * {@code CANCELED_WITH_RESCHEDULING}. Kept up to date on every confirmation
+ * change, see {@code ClientMonthQuotaService}.
+ */
+@Entity
+@Table(name = "client_month_quota")
+@Getter
+@Setter
+public class ClientMonthQuota {
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false)
+    private int rescheduled;
+
+    @Column(name = "canceled_with_rescheduling", nullable = false)
+    private int canceledWithRescheduling;
+
+    @Embeddable
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        @Column(name = "client_id")
+        private Long clientId;
+
+        // primeiro dia do mês dos atendimentos
+        @Column(name = "month_start")
+        private LocalDate month;
+
+        public static Key of(Long clientId, YearMonth month) {
+            return new Key(clientId, month.atDay(1));
+        }
+    }
+}
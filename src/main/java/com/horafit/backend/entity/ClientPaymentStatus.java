@@ -0,0 +1,34 @@
+package com.horafit.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Payment summary of a client: its latest confirmed payment and the month it
+ * pays for. Derived from {@code payment}, see {@code ClientPaymentStatusRepository}.
+ */
+@Entity
+@Table(name = "client_payment_status")
+@Getter
+@Setter
+public class ClientPaymentStatus {
+    @Id
+    @Column(name = "client_id")
+    private Long clientId;
+
+    @Column(name = "last_confirmed", nullable = false)
+    private LocalDateTime lastConfirmed;
+
+    // primeiro dia do mês pago
+    @Column(name = "paid_through_month", nullable = false)
+    private LocalDate paidThroughMonth;
+
+    public YearMonth getPaidThrough() {
+        return YearMonth.from(paidThroughMonth);
+    }
+}
@@ -0,0 +1,42 @@
+package com.horafit.backend.entity;
+
+import com.horafit.backend.entity.enums.AppointmentModality;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalTime;
+
+/**
+ * Weekly schedule of a client: one row per modality, day of the week and time
+ * at which the client has confirmed or rescheduled appointments. Derived from
+ * {@code appointment_client}, see {@code ClientWeeklyPatternService}.
+ */
+@Entity
+@Table(name = "client_weekly_pattern",
+        uniqueConstraints = @UniqueConstraint(name = "uk_client_weekly_pattern",
+                columnNames = {"client_id", "modality", "day_of_week", "start_time"}))
+@Getter
+@Setter
+public class ClientWeeklyPattern {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "client_id", nullable = false)
+    private Long clientId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AppointmentModality modality;
+
+    // ISO-8601: 1 = segunda-feira, 7 = domingo
+    @Column(name = "day_of_week", nullable = false)
+    private Integer dayOfWeek;
+
+    @Column(name = "start_time", nullable = false)
+    private LocalTime startTime;
+
+    @Column(nullable = false)
+    private Integer occurrences;
+}
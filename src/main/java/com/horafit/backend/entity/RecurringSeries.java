@@ -0,0 +1,61 @@
+package com.horafit.backend.entity;
+
+import com.horafit.backend.entity.enums.AppointmentLocation;
+import com.horafit.backend.entity.enums.AppointmentModality;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Open-ended ("Sempre") weekly series: the rule from which its appointments
+ * are generated. Only the occurrences inside the rolling horizon exist as
+ * {@link Appointment} rows; the following ones are created by
+ * {@code RecurringSeriesService} as time goes by, starting at
+ * {@link #nextOccurrence}.
+ */
+@Entity
+@Table(name = "recurring_series", indexes = {
+        @Index(name = "idx_recurring_series_next_occurrence", columnList = "next_occurrence")
+})
+@Getter
+@Setter
+public class RecurringSeries {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "physiotherapist_id", nullable = false)
+    private Physiotherapist physiotherapist;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AppointmentModality modality;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AppointmentLocation location;
+
+    // ISO-8601: 1 = segunda-feira, 7 = domingo
+    @Column(name = "day_of_week", nullable = false)
+    private Integer dayOfWeek;
+
+    @Column(name = "start_time", nullable = false)
+    private LocalTime startTime;
+
+    // Primeira ocorrência que ainda não foi criada como atendimento
+    @Column(name = "next_occurrence", nullable = false)
+    private LocalDateTime nextOccurrence;
+
+    @ElementCollection
+    @CollectionTable(name = "recurring_series_client",
+            joinColumns = @JoinColumn(name = "series_id"),
+            indexes = @Index(name = "idx_recurring_series_client_client", columnList = "client_id"))
+    @Column(name = "client_id", nullable = false)
+    private Set<Long> clientIds = new HashSet<>();
+}
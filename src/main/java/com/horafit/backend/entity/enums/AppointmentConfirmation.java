@@ -1,8 +1,47 @@
 package com.horafit.backend.entity.enums;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Confirmation of a client in an appointment. A client enters an appointment
+ * as CONFIRMED and can then be canceled. A CANCELED_WITH_RESCHEDULING
+ * confirmation is a credit: rescheduling moves it to another appointment as
+ * RESCHEDULED, which can be canceled again. CANCELED_WITHOUT_RESCHEDULING does
+ * not change anymore. CONFIRMED and RESCHEDULED clients take a place in the
+ * appointment and keep their confirmation when they are moved to another one.
+ * The allowed changes are in {@link #TRANSITIONS}, see
+ * {@code AppointmentConfirmationService}.
+ */
 public enum AppointmentConfirmation {
   CONFIRMED,
   CANCELED_WITH_RESCHEDULING, // cancelado e pode ser reagendado
   CANCELED_WITHOUT_RESCHEDULING, // cancelado e NAO pode ser reagendado
-  RESCHEDULED
-}
\ No newline at end of file
+  RESCHEDULED;
+
+  // estado atual -> estados seguintes permitidos
+  private static final Map<AppointmentConfirmation, Set<AppointmentConfirmation>> TRANSITIONS =
+      new EnumMap<>(AppointmentConfirmation.class);
+
+  static {
+    // manter a própria confirmação é a mudança de um cliente para outro atendimento
+    TRANSITIONS.put(CONFIRMED, EnumSet.of(CONFIRMED, CANCELED_WITH_RESCHEDULING, CANCELED_WITHOUT_RESCHEDULING));
+    TRANSITIONS.put(RESCHEDULED, EnumSet.of(RESCHEDULED, CANCELED_WITH_RESCHEDULING, CANCELED_WITHOUT_RESCHEDULING));
+    TRANSITIONS.put(CANCELED_WITH_RESCHEDULING, EnumSet.of(RESCHEDULED));
+    TRANSITIONS.put(CANCELED_WITHOUT_RESCHEDULING, EnumSet.noneOf(AppointmentConfirmation.class));
+  }
+
+  public boolean canMoveTo(AppointmentConfirmation next) {
+    return TRANSITIONS.get(this).contains(next);
+  }
+
+  /**
+   * Whether the client takes a place in the appointment, that is, can be
+   * moved to another appointment and have its attendance recorded.
+   */
+  public boolean isBooked() {
+    return canMoveTo(this);
+  }
+}
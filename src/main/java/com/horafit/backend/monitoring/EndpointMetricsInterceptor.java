@@ -0,0 +1,106 @@
+package com.horafit.backend.monitoring;
+
+import com.horafit.backend.controller.AppointmentController;
+import com.horafit.backend.controller.ClientController;
+import com.horafit.backend.controller.PhysiotherapistController;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the handlers of the appointment, physiotherapist and client
+ * controllers: a {@code horafit.endpoint} timer and the number of SQL
+ * statements and rows read by the request ({@code horafit.endpoint.sql.*}),
+ * all tagged by endpoint ({@code Controller.method}). Requests that execute
+ * more statements than {@code horafit.monitoring.statement-budget} are logged,
+ * to find N+1 queries in production.
+ */
+@Component
+public class EndpointMetricsInterceptor implements AsyncHandlerInterceptor {
+    public static final String TIMER = "horafit.endpoint";
+    public static final String STATEMENTS = "horafit.endpoint.sql.statements";
+    public static final String ROWS = "horafit.endpoint.sql.rows";
+
+    private static final Logger log = LoggerFactory.getLogger(EndpointMetricsInterceptor.class);
+
+    private static final Set<Class<?>> CONTROLLERS = Set.of(
+            AppointmentController.class, PhysiotherapistController.class, ClientController.class);
+
+    private static final String START = EndpointMetricsInterceptor.class.getName() + ".start";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${horafit.monitoring.statement-budget:20}")
+    private int statementBudget;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod && CONTROLLERS.contains(handlerMethod.getBeanType())) {
+            request.setAttribute(START, System.nanoTime());
+            RequestSqlCounter.start();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        // o restante da requisição roda em outra thread: não é medido
+        request.removeAttribute(START);
+        RequestSqlCounter.stop();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Long start = (Long) request.getAttribute(START);
+        if (start == null) {
+            return;
+        }
+        request.removeAttribute(START);
+        long elapsed = System.nanoTime() - start;
+        RequestSqlCounter.Counts counts = RequestSqlCounter.stop();
+
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        String endpoint = handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+
+        Timer.builder(TIMER)
+                .tag("endpoint", endpoint)
+                .tag("status", Integer.toString(response.getStatus()))
+                .tag("exception", ex == null ? "none" : ex.getClass().getSimpleName())
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+
+        if (counts == null) {
+            return;
+        }
+        DistributionSummary.builder(STATEMENTS)
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .record(counts.getStatements());
+        DistributionSummary.builder(ROWS)
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .record(counts.getRows());
+
+        if (counts.getStatements() > statementBudget) {
+            log.warn("{} {} ({}) executou {} comandos SQL e leu {} linhas; limite: {} comandos",
+                    request.getMethod(), request.getRequestURI(), endpoint, counts.getStatements(), counts.getRows(),
+                    statementBudget);
+        }
+    }
+}
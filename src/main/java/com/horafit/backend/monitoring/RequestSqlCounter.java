@@ -0,0 +1,64 @@
+package com.horafit.backend.monitoring;
+
+/**
+ * Counts the SQL statements executed and the rows read by the current request.
+ * {@link EndpointMetricsInterceptor} starts the count when an instrumented
+ * handler is called and {@link SqlCountingDataSource} adds to it for the
+ * connections taken while it is active. Connections taken outside a counted
+ * request are not instrumented.
+ */
+public final class RequestSqlCounter {
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    private RequestSqlCounter() {
+    }
+
+    /**
+     * Starts counting for the current thread, discarding any previous count.
+     */
+    public static Counts start() {
+        Counts counts = new Counts();
+        CURRENT.set(counts);
+        return counts;
+    }
+
+    /**
+     * Stops counting for the current thread.
+     *
+     * @return the counts since {@link #start()}, or null if none was started.
+     */
+    public static Counts stop() {
+        Counts counts = CURRENT.get();
+        CURRENT.remove();
+        return counts;
+    }
+
+    static Counts current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Statements and rows of one request. Only updated by the thread of the
+     * request.
+     */
+    public static final class Counts {
+        private int statements;
+        private long rows;
+
+        void statementExecuted() {
+            statements++;
+        }
+
+        void rowRead() {
+            rows++;
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+    }
+}
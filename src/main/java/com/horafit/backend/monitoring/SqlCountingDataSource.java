@@ -0,0 +1,83 @@
+package com.horafit.backend.monitoring;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Adds the statements executed and the rows read through its connections to
+ * the {@link RequestSqlCounter} of the request that took them. Counting is done
+ * at the JDBC level so that the queries of Hibernate and of the
+ * {@code JdbcTemplate} repositories are both included; each
+ * {@code execute*} call is one statement, and each successful
+ * {@link ResultSet#next()} one row.
+ */
+public class SqlCountingDataSource extends DelegatingDataSource {
+    public SqlCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counted(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counted(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private static Connection counted(Connection connection) {
+        RequestSqlCounter.Counts counts = RequestSqlCounter.current();
+        if (counts == null) {
+            return connection;
+        }
+
+        return proxy(Connection.class, connection, (method, result) -> {
+            if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                return countedStatement(method.getReturnType(), statement, counts);
+            }
+            return result;
+        });
+    }
+
+    private static Object countedStatement(Class<?> type, Statement statement, RequestSqlCounter.Counts counts) {
+        return proxy(type, statement, (method, result) -> {
+            if (method.getName().startsWith("execute")) {
+                counts.statementExecuted();
+            }
+            if (result instanceof ResultSet resultSet && method.getReturnType() == ResultSet.class) {
+                return proxy(ResultSet.class, resultSet, (resultSetMethod, next) -> {
+                    if (Boolean.TRUE.equals(next) && "next".equals(resultSetMethod.getName())) {
+                        counts.rowRead();
+                    }
+                    return next;
+                });
+            }
+            return result;
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, Object target, ResultHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    try {
+                        return handler.handle(method, method.invoke(target, args));
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }));
+    }
+
+    @FunctionalInterface
+    private interface ResultHandler {
+        Object handle(Method method, Object result);
+    }
+}
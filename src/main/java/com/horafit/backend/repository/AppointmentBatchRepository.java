@@ -0,0 +1,172 @@
+package com.horafit.backend.repository;
+
+import com.horafit.backend.entity.Appointment;
+import com.horafit.backend.entity.AppointmentClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts many {@link Appointment} and {@link AppointmentClient} rows with JDBC
+ * batches. With {@code GenerationType.IDENTITY} Hibernate sends one INSERT per
+ * entity; here each list is sent as a single batch, which MySQL Connector/J
+ * rewrites into multi-row INSERTs when the connection URL has
+ * {@code rewriteBatchedStatements=true}.
+ * The attendance of a whole appointment is written with a single UPDATE.
+ * The entities are not attached to the persistence context.
+ */
+@Repository
+public class AppointmentBatchRepository {
+    private static final String INSERT_APPOINTMENT = "INSERT INTO horafit.appointment " +
+            "(date_time, location, modality, physiotherapist_id, version) VALUES (?, ?, ?, ?, 0)";
+
+    private static final String INSERT_APPOINTMENT_CLIENT = "INSERT INTO horafit.appointment_client " +
+            "(appointment_id, client_id, confirmation, attendance) VALUES (?, ?, ?, ?)";
+
+    private static final String MOVE_APPOINTMENT_CLIENT = "UPDATE horafit.appointment_client " +
+            "SET appointment_id = ?, confirmation = ?, attendance = ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the given appointments in one batch and sets their generated IDs.
+     *
+     * @param appointments the new appointments, with their physiotherapist.
+     */
+    public void insertAppointments(List<Appointment> appointments) {
+        if (appointments.isEmpty()) {
+            return;
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_APPOINTMENT, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        Appointment appointment = appointments.get(i);
+                        statement.setTimestamp(1, Timestamp.valueOf(appointment.getDateTime()));
+                        statement.setString(2, appointment.getLocation().name());
+                        statement.setString(3, appointment.getModality().name());
+                        statement.setLong(4, appointment.getPhysiotherapist().getId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return appointments.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < appointments.size(); i++) {
+            Number id = (Number) keys.get(i).values().iterator().next();
+            appointments.get(i).setId(id.longValue());
+            appointments.get(i).setVersion(0L);
+        }
+    }
+
+    /**
+     * Inserts the given appointment-client associations in one batch. Their IDs
+     * are not set.
+     *
+     * @param appointmentClients the new associations. Their appointments must
+     *                           already have an ID.
+     */
+    public void insertAppointmentClients(List<AppointmentClient> appointmentClients) {
+        if (appointmentClients.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_APPOINTMENT_CLIENT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                AppointmentClient appointmentClient = appointmentClients.get(i);
+                statement.setLong(1, appointmentClient.getAppointment().getId());
+                statement.setLong(2, appointmentClient.getClient().getId());
+                statement.setString(3, appointmentClient.getConfirmation().name());
+                statement.setBoolean(4, appointmentClient.getAttendance());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return appointmentClients.size();
+            }
+        });
+    }
+
+    /**
+     * Moves the given appointment-client associations to other appointments in
+     * one batch, keeping their IDs.
+     *
+     * @param appointmentClients the associations, with their new appointment,
+     *                           confirmation and attendance set.
+     */
+    public void moveAppointmentClients(List<AppointmentClient> appointmentClients) {
+        if (appointmentClients.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(MOVE_APPOINTMENT_CLIENT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                AppointmentClient appointmentClient = appointmentClients.get(i);
+                statement.setLong(1, appointmentClient.getAppointment().getId());
+                statement.setString(2, appointmentClient.getConfirmation().name());
+                statement.setBoolean(3, appointmentClient.getAttendance());
+                statement.setLong(4, appointmentClient.getId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return appointmentClients.size();
+            }
+        });
+    }
+
+    /**
+     * Sets the attendance of clients of an appointment with a single
+     * {@code UPDATE ... CASE}. Canceled clients are not changed.
+     *
+     * @param appointmentId the ID of the appointment.
+     * @param attendance    the attendance of each client, by client ID.
+     * @return the number of matched associations, which is smaller than the
+     * size of {@code attendance} when a client is not in the appointment or is
+     * canceled.
+     */
+    public int updateAttendance(Long appointmentId, Map<Long, Boolean> attendance) {
+        if (attendance.isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder sql = new StringBuilder("UPDATE horafit.appointment_client SET attendance = CASE client_id");
+        List<Object> args = new ArrayList<>(attendance.size() * 3 + 1);
+        for (Map.Entry<Long, Boolean> entry : attendance.entrySet()) {
+            sql.append(" WHEN ? THEN ?");
+            args.add(entry.getKey());
+            args.add(entry.getValue());
+        }
+        sql.append(" ELSE attendance END WHERE appointment_id = ? AND confirmation IN ('CONFIRMED', 'RESCHEDULED') " +
+                "AND client_id IN (")
+                .append(String.join(", ", Collections.nCopies(attendance.size(), "?")))
+                .append(")");
+        args.add(appointmentId);
+        args.addAll(attendance.keySet());
+
+        // o Connector/J retorna as linhas encontradas (useAffectedRows=false), mesmo as que não mudaram
+        return jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+}
@@ -1,14 +1,23 @@
 package com.horafit.backend.repository;
 
 import ch.qos.logback.core.net.server.Client;
+import com.horafit.backend.dto.appointment.AppointmentClientRowDTO;
+import com.horafit.backend.dto.appointment.AppointmentConfirmationRowDTO;
+import com.horafit.backend.dto.appointment.AppointmentOccupancyRowDTO;
 import com.horafit.backend.entity.Appointment;
 import com.horafit.backend.entity.AppointmentClient;
+import com.horafit.backend.entity.enums.AppointmentConfirmation;
+import com.horafit.backend.entity.enums.AppointmentModality;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,13 +29,38 @@ import java.util.Optional;
  */
 @Repository
 public interface AppointmentClientRepository extends JpaRepository<AppointmentClient, Long> {
-        @Query(value = "SELECT ac.* FROM appointment_client AS ac " +
-        "JOIN appointment AS a " +
-        "ON a.id = ac.appointment_id " +
-        "WHERE client_id = :clientId " +
-        "AND (DATE_FORMAT(a.date_time, '%m/%Y') = DATE_FORMAT(CURDATE(), '%m/%Y') " +
-        "OR DATE_FORMAT(a.date_time, '%m/%Y') = DATE_FORMAT(DATE_ADD(CURDATE(), INTERVAL 1 MONTH), '%m/%Y'));", nativeQuery = true)
-        List<AppointmentClient> findByClientIdInCurrentAndNextMonth(@Param("clientId") Long clientId);
+        String FIND_BY_CLIENT_ID_BETWEEN = "SELECT ac.* FROM horafit.appointment_client AS ac " +
+                        "JOIN horafit.appointment AS a " +
+                        "ON a.id = ac.appointment_id " +
+                        "WHERE ac.client_id = :clientId " +
+                        "AND a.date_time >= :start AND a.date_time < :end";
+
+        /**
+         * Finds the {@link AppointmentClient} entities of a client whose appointments
+         * are in a date/time range.
+         *
+         * @param clientId the ID of the client.
+         * @param start    the start of the range, inclusive.
+         * @param end      the end of the range, exclusive.
+         * @return a list of {@link AppointmentClient} entities matching the criteria.
+         */
+        @Query(value = FIND_BY_CLIENT_ID_BETWEEN, nativeQuery = true)
+        List<AppointmentClient> findByClientIdBetween(@Param("clientId") Long clientId,
+                        @Param("start") LocalDateTime start,
+                        @Param("end") LocalDateTime end);
+
+        /**
+         * Finds the {@link AppointmentClient} entities of a client whose appointments
+         * are in the current or in the next month.
+         *
+         * @param clientId the ID of the client.
+         * @return a list of {@link AppointmentClient} entities matching the criteria.
+         */
+        default List<AppointmentClient> findByClientIdInCurrentAndNextMonth(Long clientId) {
+                YearMonth month = YearMonth.now();
+                return findByClientIdBetween(clientId, month.atDay(1).atStartOfDay(),
+                                month.plusMonths(2).atDay(1).atStartOfDay());
+        }
 
         /**
          * Finds all {@link AppointmentClient} entities associated with a specific
@@ -38,6 +72,65 @@ public interface AppointmentClientRepository extends JpaRepository<AppointmentCl
          */
         List<AppointmentClient> findByAppointment(Appointment appointment);
 
+        /**
+         * Finds the client rows of several appointments at once, including the
+         * client name, without loading {@link AppointmentClient} entities.
+         *
+         * @param appointmentIds the IDs of the appointments.
+         * @return a list of {@link AppointmentClientRowDTO} objects related to the
+         *         given appointments.
+         */
+        @Query("SELECT new com.horafit.backend.dto.appointment.AppointmentClientRowDTO(" +
+                        "ac.appointment.id, c.id, c.name, ac.confirmation, ac.attendance) " +
+                        "FROM AppointmentClient ac " +
+                        "JOIN ac.client c " +
+                        "WHERE ac.appointment.id IN :appointmentIds " +
+                        "ORDER BY ac.id")
+        List<AppointmentClientRowDTO> findRowsByAppointmentIds(
+                        @Param("appointmentIds") Collection<Long> appointmentIds);
+
+        /**
+         * Finds the client rows, with confirmation, of every appointment scheduled
+         * at or after the given date and time. Used to build the occupancy index.
+         *
+         * @param from the inclusive start date and time.
+         * @return a list of {@link AppointmentOccupancyRowDTO} objects.
+         */
+        @Query("SELECT new com.horafit.backend.dto.appointment.AppointmentOccupancyRowDTO(" +
+                        "a.id, a.dateTime, c.id, ac.confirmation, r.maxClientsPerGroup) " +
+                        "FROM AppointmentClient ac " +
+                        "JOIN ac.appointment a " +
+                        "LEFT JOIN ac.client c " +
+                        "LEFT JOIN c.appointmentRules r " +
+                        "WHERE a.dateTime >= :from")
+        List<AppointmentOccupancyRowDTO> findOccupancyRowsFrom(@Param("from") LocalDateTime from);
+
+        /**
+         * Finds the client rows, with confirmation, of the given appointments. Used
+         * to refresh the occupancy index after a change.
+         *
+         * @param appointmentIds the IDs of the appointments.
+         * @return a list of {@link AppointmentOccupancyRowDTO} objects.
+         */
+        @Query("SELECT new com.horafit.backend.dto.appointment.AppointmentOccupancyRowDTO(" +
+                        "a.id, a.dateTime, c.id, ac.confirmation, r.maxClientsPerGroup) " +
+                        "FROM AppointmentClient ac " +
+                        "JOIN ac.appointment a " +
+                        "LEFT JOIN ac.client c " +
+                        "LEFT JOIN c.appointmentRules r " +
+                        "WHERE a.id IN :appointmentIds")
+        List<AppointmentOccupancyRowDTO> findOccupancyRowsByAppointmentIds(
+                        @Param("appointmentIds") Collection<Long> appointmentIds);
+
+        /**
+         * Finds the IDs of all appointments associated with a specific client.
+         *
+         * @param clientId the ID of the client.
+         * @return a list of appointment IDs.
+         */
+        @Query("SELECT ac.appointment.id FROM AppointmentClient ac WHERE ac.client.id = :clientId")
+        List<Long> findAppointmentIdsByClientId(@Param("clientId") Long clientId);
+
         /**
          * Finds all {@link AppointmentClient} entities associated with a specific
          * client ID.
@@ -60,14 +153,154 @@ public interface AppointmentClientRepository extends JpaRepository<AppointmentCl
         Optional<AppointmentClient> findByAppointmentIdAndClientId(Long appointmentId, Long clientId);
 
         /**
-         * Deletes all {@link AppointmentClient} entities associated with a specific
-         * client ID.
+         * Finds the {@link AppointmentClient} entities of a client in appointments of a
+         * modality after a date/time, with their appointments and physiotherapists.
+         *
+         * @param clientId the ID of the client.
+         * @param modality the modality of the appointments.
+         * @param from     the date/time after which the appointments are, exclusive.
+         * @return a list of {@link AppointmentClient} entities.
+         */
+        @Query("SELECT ac FROM AppointmentClient ac " +
+                        "JOIN FETCH ac.appointment a " +
+                        "JOIN FETCH a.physiotherapist " +
+                        "WHERE ac.client.id = :clientId " +
+                        "AND a.modality = :modality " +
+                        "AND a.dateTime > :from")
+        List<AppointmentClient> findByClientIdAndModalityAfter(@Param("clientId") Long clientId,
+                        @Param("modality") AppointmentModality modality,
+                        @Param("from") LocalDateTime from);
+
+        /**
+         * Deletes the {@link AppointmentClient} entities with the given IDs.
          *
-         * @param clientId the ID of the client whose appointments should be deleted.
+         * @param ids the IDs of the associations.
          */
         @Modifying
-        @Query(value = "DELETE FROM horafit.appointment_client WHERE client_id = :clientId", nativeQuery = true)
-        void deleteByClientId(@Param("clientId") Long clientId);
+        @Query(value = "DELETE FROM horafit.appointment_client WHERE id IN :ids", nativeQuery = true)
+        void deleteByIds(@Param("ids") Collection<Long> ids);
+
+        String SELECT_CONFIRMATION_ROWS = "SELECT new com.horafit.backend.dto.appointment.AppointmentConfirmationRowDTO(" +
+                        "ac.id, a.id, ac.client.id, a.dateTime, ac.confirmation) " +
+                        "FROM AppointmentClient ac " +
+                        "JOIN ac.appointment a ";
+
+        /**
+         * Finds and locks the confirmations of the clients of the given
+         * appointments, without loading their entities.
+         *
+         * @param appointmentIds the IDs of the appointments.
+         * @return a list of {@link AppointmentConfirmationRowDTO} objects.
+         */
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query(SELECT_CONFIRMATION_ROWS + "WHERE a.id IN :appointmentIds")
+        List<AppointmentConfirmationRowDTO> findConfirmationRowsForUpdate(
+                        @Param("appointmentIds") Collection<Long> appointmentIds);
+
+        /**
+         * Finds and locks the confirmations of the clients of the appointments in a
+         * date/time range, optionally of a single physiotherapist.
+         *
+         * @param start             the start of the range, inclusive.
+         * @param end               the end of the range, exclusive.
+         * @param physiotherapistId the ID of the physiotherapist, or null for all.
+         * @return a list of {@link AppointmentConfirmationRowDTO} objects.
+         */
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query(SELECT_CONFIRMATION_ROWS + "WHERE a.dateTime >= :start AND a.dateTime < :end " +
+                        "AND (:physiotherapistId IS NULL OR a.physiotherapist.id = :physiotherapistId)")
+        List<AppointmentConfirmationRowDTO> findConfirmationRowsBetweenForUpdate(
+                        @Param("start") LocalDateTime start,
+                        @Param("end") LocalDateTime end,
+                        @Param("physiotherapistId") Long physiotherapistId);
+
+        /**
+         * Finds and locks the associations of a client with a given confirmation
+         * in a date/time range, oldest first.
+         *
+         * @param clientId     the ID of the client.
+         * @param confirmation the confirmation.
+         * @param start        the start of the range, inclusive.
+         * @param end          the end of the range, exclusive.
+         * @return a list of {@link AppointmentConfirmationRowDTO} objects.
+         */
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query(SELECT_CONFIRMATION_ROWS + "WHERE ac.client.id = :clientId AND ac.confirmation = :confirmation " +
+                        "AND a.dateTime >= :start AND a.dateTime < :end ORDER BY a.dateTime, ac.id")
+        List<AppointmentConfirmationRowDTO> findConfirmationRowsOfClientForUpdate(
+                        @Param("clientId") Long clientId,
+                        @Param("confirmation") AppointmentConfirmation confirmation,
+                        @Param("start") LocalDateTime start,
+                        @Param("end") LocalDateTime end);
+
+        /**
+         * Sets the confirmation of the given associations in a single statement.
+         *
+         * @param ids          the IDs of the associations.
+         * @param confirmation the new confirmation.
+         * @return the number of updated rows.
+         */
+        @Modifying
+        @Query("UPDATE AppointmentClient ac SET ac.confirmation = :confirmation WHERE ac.id IN :ids")
+        int updateConfirmation(@Param("ids") Collection<Long> ids,
+                        @Param("confirmation") AppointmentConfirmation confirmation);
+
+        /**
+         * Moves the given associations to another appointment with a new
+         * confirmation, in a single statement, and marks the clients as
+         * present. The persistence context is cleared, so the associations are
+         * read again with their new appointment.
+         *
+         * @param ids          the IDs of the associations.
+         * @param appointment  the new appointment.
+         * @param confirmation the new confirmation.
+         * @return the number of updated rows.
+         */
+        @Modifying(flushAutomatically = true, clearAutomatically = true)
+        @Query("UPDATE AppointmentClient ac SET ac.appointment = :appointment, ac.confirmation = :confirmation, " +
+                        "ac.attendance = true WHERE ac.id IN :ids")
+        int moveConfirmation(@Param("ids") Collection<Long> ids,
+                        @Param("appointment") Appointment appointment,
+                        @Param("confirmation") AppointmentConfirmation confirmation);
+
+        /**
+         * Aggregated capacity data of an appointment, as seen by a client that wants
+         * to join it.
+         */
+        interface SlotCapacity {
+                /** Number of confirmed or rescheduled clients, other than the joining one. */
+                int getOccupied();
+
+                /** Smallest group limit among the rules of those clients, or null. */
+                Integer getMemberLimit();
+
+                /** Group limit of the rules of the joining client, or null. */
+                Integer getClientLimit();
+        }
+
+        /**
+         * Computes, in a single aggregate query, how many places of an appointment
+         * are taken and which group limits apply to it, without loading its
+         * {@link AppointmentClient} entities.
+         *
+         * @param appointmentId the ID of the appointment.
+         * @param clientId      the ID of the client that wants to join it.
+         * @return the {@link SlotCapacity} of the appointment. A row is returned even
+         *         if the appointment has no clients.
+         */
+        @Query(value = "SELECT " +
+                        "COUNT(CASE WHEN ac.confirmation IN ('CONFIRMED', 'RESCHEDULED') " +
+                        "AND ac.client_id <> :clientId THEN 1 END) AS occupied, " +
+                        "MIN(CASE WHEN ac.confirmation IN ('CONFIRMED', 'RESCHEDULED') " +
+                        "AND ac.client_id <> :clientId THEN r.max_clients_per_group END) AS memberLimit, " +
+                        "(SELECT r2.max_clients_per_group FROM horafit.client c2 " +
+                        "JOIN horafit.appointment_rules r2 ON r2.id = c2.appointment_rules " +
+                        "WHERE c2.id = :clientId) AS clientLimit " +
+                        "FROM horafit.appointment_client ac " +
+                        "LEFT JOIN horafit.client c ON c.id = ac.client_id " +
+                        "LEFT JOIN horafit.appointment_rules r ON r.id = c.appointment_rules " +
+                        "WHERE ac.appointment_id = :appointmentId", nativeQuery = true)
+        SlotCapacity findSlotCapacity(@Param("appointmentId") Long appointmentId, @Param("clientId") Long clientId);
 
         /**
          * Counts the number of clients associated with a specific appointment.
@@ -1,19 +1,28 @@
 package com.horafit.backend.repository;
 
 import ch.qos.logback.core.net.server.Client;
+import com.horafit.backend.dto.appointment.AppointmentConflictRowDTO;
 import com.horafit.backend.entity.Appointment;
+import com.horafit.backend.entity.AppointmentRules;
 import com.horafit.backend.entity.Physiotherapist;
+import com.horafit.backend.entity.enums.AppointmentModality;
+import com.horafit.backend.util.DateTimeUtil;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.OneToMany;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.query.Param;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for managing {@link Appointment} entities.
@@ -22,6 +31,36 @@ import java.util.List;
  */
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
 
+        /**
+         * Joins of the availability queries: the clients of each appointment with
+         * their rules, and the group limit of the rules of {@code :clientId}.
+         */
+        String AVAILABILITY_JOINS = "JOIN horafit.appointment_client AS ac ON ac.appointment_id = a.id " +
+                        "LEFT JOIN horafit.client AS c ON c.id = ac.client_id " +
+                        "LEFT JOIN horafit.appointment_rules AS r ON r.id = c.appointment_rules " +
+                        "CROSS JOIN (" +
+                        "    SELECT MAX(r2.max_clients_per_group) AS client_limit " +
+                        "    FROM horafit.client AS c2 " +
+                        "    JOIN horafit.appointment_rules AS r2 ON r2.id = c2.appointment_rules " +
+                        "    WHERE c2.id = :clientId" +
+                        ") AS cl ";
+
+        /**
+         * Keeps the appointments whose confirmed or rescheduled clients are fewer
+         * than the group limit: the smallest {@code max_clients_per_group} among
+         * those clients and the client looking for an appointment, or
+         * {@link AppointmentRules#DEFAULT_MAX_CLIENTS_PER_GROUP} when none of them
+         * has rules.
+         */
+        String AVAILABILITY_HAVING = "HAVING COUNT(CASE WHEN ac.confirmation IN ('CONFIRMED', 'RESCHEDULED') THEN 1 END) < " +
+                        "COALESCE(" +
+                        "LEAST(MIN(CASE WHEN ac.confirmation IN ('CONFIRMED', 'RESCHEDULED') " +
+                        "THEN r.max_clients_per_group END), MAX(cl.client_limit)), " +
+                        "MIN(CASE WHEN ac.confirmation IN ('CONFIRMED', 'RESCHEDULED') " +
+                        "THEN r.max_clients_per_group END), " +
+                        "MAX(cl.client_limit), " +
+                        AppointmentRules.DEFAULT_MAX_CLIENTS_PER_GROUP + ") ";
+
         /**
          * Finds all appointments associated with a specific physiotherapist.
          *
@@ -29,6 +68,7 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
          * @return a list of {@link Appointment} entities related to the given
          *         physiotherapist.
          */
+        @EntityGraph(attributePaths = "physiotherapist")
         List<Appointment> findByPhysiotherapist_Id(Long id);
 
         // pensar se vamos manter este metodo, ou se vamos substituir pelo de baixo
@@ -55,23 +95,42 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
                         "AND physiotherapist_id = :physiotherapistId;", nativeQuery = true)
         Appointment findByDateTimeAndPhysiotherapist(Long physiotherapistId, LocalDateTime dateTime);
 
+        String FIND_BY_CLIENT_ID_AND_MODALITY_BETWEEN = "SELECT a.* FROM horafit.appointment a " +
+                        "JOIN horafit.appointment_client ac ON a.id = ac.appointment_id " +
+                        "WHERE ac.client_id = :clientId " +
+                        "AND a.modality = :modality " +
+                        "AND a.date_time >= :start AND a.date_time < :end";
+
         /**
-         * Finds appointments by client ID, modality, and month/year using a native SQL
-         * query.
+         * Finds appointments by client ID and modality in a date/time range using a
+         * native SQL query.
+         *
+         * @param clientId the ID of the client.
+         * @param modality the modality of the appointment.
+         * @param start    the start of the range, inclusive.
+         * @param end      the end of the range, exclusive.
+         * @return a list of {@link Appointment} entities matching the criteria.
+         */
+        @Query(value = FIND_BY_CLIENT_ID_AND_MODALITY_BETWEEN, nativeQuery = true)
+        List<Appointment> findByClientIdAndModalityBetween(@Param("clientId") Long clientId,
+                        @Param("modality") String modality,
+                        @Param("start") LocalDateTime start,
+                        @Param("end") LocalDateTime end);
+
+        /**
+         * Finds appointments by client ID, modality, and month/year.
          *
          * @param clientId  the ID of the client.
          * @param modality  the modality of the appointment.
          * @param monthYear the month and year in the format "MM/YYYY".
          * @return a list of {@link Appointment} entities matching the criteria.
          */
-        @Query(value = "SELECT a.* FROM horafit.appointment a " +
-                        "JOIN horafit.appointment_client ac ON a.id = ac.appointment_id " +
-                        "WHERE ac.client_id = :clientId " +
-                        "AND a.modality = :modality " +
-                        "AND DATE_FORMAT(a.date_time, '%m/%Y') = :monthYear", nativeQuery = true)
-        List<Appointment> findByClientIdAndModalityAndMonthYear(@Param("clientId") Long clientId,
-                        @Param("modality") String modality,
-                        @Param("monthYear") String monthYear);
+        default List<Appointment> findByClientIdAndModalityAndMonthYear(Long clientId, String modality,
+                        String monthYear) {
+                YearMonth month = DateTimeUtil.parseMonthYear(monthYear);
+                return findByClientIdAndModalityBetween(clientId, modality,
+                                month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay());
+        }
 
         /**
          * Finds appointments by client ID and modality using a native SQL query.
@@ -84,19 +143,37 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
         List<Appointment> findByClientIdAndModality(@Param("clientId") Long clientId,
                         @Param("modality") String modality);
 
+        String FIND_BY_CLIENT_ID_BETWEEN = "SELECT a.* FROM horafit.appointment a " +
+                        "JOIN horafit.appointment_client ac ON a.id = ac.appointment_id " +
+                        "WHERE ac.client_id = :clientId " +
+                        "AND a.date_time >= :start AND a.date_time < :end";
+
+        /**
+         * Finds appointments by client ID in a date/time range using a native SQL
+         * query.
+         *
+         * @param clientId the ID of the client.
+         * @param start    the start of the range, inclusive.
+         * @param end      the end of the range, exclusive.
+         * @return a list of {@link Appointment} entities matching the criteria.
+         */
+        @Query(value = FIND_BY_CLIENT_ID_BETWEEN, nativeQuery = true)
+        List<Appointment> findByClientIdBetween(@Param("clientId") Long clientId,
+                        @Param("start") LocalDateTime start,
+                        @Param("end") LocalDateTime end);
+
         /**
-         * Finds appointments by client ID and month/year using a native SQL query.
+         * Finds appointments by client ID and month/year.
          *
          * @param clientId  the ID of the client.
          * @param monthYear the month and year in the format "MM/YYYY".
          * @return a list of {@link Appointment} entities matching the criteria.
          */
-        @Query(value = "SELECT a.* FROM horafit.appointment a " +
-                        "JOIN horafit.appointment_client ac ON a.id = ac.appointment_id " +
-                        "WHERE ac.client_id = :clientId " +
-                        "AND DATE_FORMAT(a.date_time, '%m/%Y') = :monthYear", nativeQuery = true)
-        List<Appointment> findByClientIdAndMonthYear(@Param("clientId") Long clientId,
-                        @Param("monthYear") String monthYear);
+        default List<Appointment> findByClientIdAndMonthYear(Long clientId, String monthYear) {
+                YearMonth month = DateTimeUtil.parseMonthYear(monthYear);
+                return findByClientIdBetween(clientId, month.atDay(1).atStartOfDay(),
+                                month.plusMonths(1).atDay(1).atStartOfDay());
+        }
 
         /**
          * Finds all appointments associated with a specific client ID using a native
@@ -106,41 +183,57 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
          * @return a list of {@link Appointment} entities related to the given client
          *         ID.
          */
-        @Query(value = "SELECT a.* FROM horafit.appointment a JOIN horafit.appointment_client ac WHERE ac.client_id = :clientId;", nativeQuery = true)
+        @Query(value = "SELECT a.* FROM horafit.appointment a " +
+                        "JOIN horafit.appointment_client ac ON ac.appointment_id = a.id " +
+                        "WHERE ac.client_id = :clientId", nativeQuery = true)
         List<Appointment> findByClientId(@Param("clientId") Long clientId);
 
+        String FIND_BETWEEN = "SELECT * FROM horafit.appointment " +
+                        "WHERE date_time >= :start AND date_time < :end";
+
         /**
-         * Finds appointments scheduled for a specific date using a native SQL query.
+         * Finds appointments scheduled in a date/time range using a native SQL query.
+         *
+         * @param start the start of the range, inclusive.
+         * @param end   the end of the range, exclusive.
+         * @return a list of {@link Appointment} entities scheduled in the range.
+         */
+        @Query(value = FIND_BETWEEN, nativeQuery = true)
+        List<Appointment> findBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+        /**
+         * Finds appointments scheduled for a specific date.
          *
          * @param date the date of the appointments.
          * @return a list of {@link Appointment} entities scheduled on the given date.
          */
-        @Query(value = "SELECT * FROM horafit.appointment WHERE DATE(date_time) = :date;", nativeQuery = true)
-        List<Appointment> findByDate(LocalDate date);
+        default List<Appointment> findByDate(LocalDate date) {
+                return findBetween(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+        }
 
         /**
          * Finds available appointments for a specific client, ensuring the client is
          * not already
          * associated with the appointments and the number of confirmed or rescheduled
-         * clients is below the maximum.
+         * clients is below the group limit given by the {@link AppointmentRules} of
+         * the clients involved.
          *
          * @param clientId the ID of the client.
          * @return a list of available {@link Appointment} entities.
          */
-        @Query(value = "SELECT a.*\n" +
-                        "FROM appointment AS a\n" +
-                        "JOIN appointment_client AS ac ON ac.appointment_id = a.id\n" +
-                        "WHERE a.date_time >= NOW()\n" +
-                        "AND a.id NOT IN (\n" +
-                        "    SELECT ac2.appointment_id\n" +
-                        "    FROM appointment_client AS ac2\n" +
-                        "    WHERE ac2.client_id = :clientId\n" +
-                        ")\n" +
-                        "GROUP BY a.id\n" +
-                        "HAVING COUNT(CASE WHEN ac.confirmation = 'CONFIRMED' " +
-                        "OR ac.confirmation = 'RESCHEDULED' THEN 1 END) < 4 " +
-                        "ORDER BY a.date_time;", nativeQuery = true)
-        List<Appointment> findAvailable(Long clientId);
+        @Query(value = "SELECT a.* " +
+                        "FROM horafit.appointment AS a " +
+                        AVAILABILITY_JOINS +
+                        "WHERE a.date_time >= NOW() " +
+                        "AND a.id NOT IN (" +
+                        "    SELECT ac2.appointment_id " +
+                        "    FROM horafit.appointment_client AS ac2 " +
+                        "    WHERE ac2.client_id = :clientId" +
+                        ") " +
+                        "GROUP BY a.id " +
+                        AVAILABILITY_HAVING +
+                        "ORDER BY a.date_time", nativeQuery = true)
+        List<Appointment> findAvailable(@Param("clientId") Long clientId);
 
         /**
          * Finds all appointments associated with a specific client using a native SQL
@@ -155,15 +248,181 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
         List<Appointment> findAppointmentsByClientId(@Param("clientId") Long clientId);
 
         /**
-         * Deletes all {@link Appointment} entities associated with a specific client
-         * ID.
+         * Finds, in a single query, the existing appointments that collide with a
+         * set of new date/times: those of the physiotherapist and those of any of the
+         * clients. An appointment with several of the clients produces one row per
+         * client.
+         *
+         * @param physiotherapistId the ID of the physiotherapist.
+         * @param clientIds         the IDs of the clients. Must not be empty.
+         * @param dateTimes         the date/times to check.
+         * @return a list of {@link AppointmentConflictRowDTO} objects. The client
+         *         fields are null for rows that only collide with the physiotherapist.
+         */
+        @Query("SELECT new com.horafit.backend.dto.appointment.AppointmentConflictRowDTO(" +
+                        "a.id, a.dateTime, p.id, p.name, c.id, c.name) " +
+                        "FROM Appointment a " +
+                        "JOIN a.physiotherapist p " +
+                        "LEFT JOIN AppointmentClient ac ON ac.appointment = a AND ac.client.id IN :clientIds " +
+                        "LEFT JOIN ac.client c " +
+                        "WHERE a.dateTime IN :dateTimes " +
+                        "AND (p.id = :physiotherapistId OR c.id IS NOT NULL) " +
+                        "ORDER BY a.dateTime, a.id")
+        List<AppointmentConflictRowDTO> findConflicts(@Param("physiotherapistId") Long physiotherapistId,
+                        @Param("clientIds") Collection<Long> clientIds,
+                        @Param("dateTimes") Collection<LocalDateTime> dateTimes);
+
+        /**
+         * Finds the version of an appointment, without loading the entity.
+         *
+         * @param id the ID of the appointment.
+         * @return the version, or empty if the appointment does not exist.
+         */
+        @Query("SELECT a.version FROM Appointment a WHERE a.id = :id")
+        Optional<Long> findVersionById(@Param("id") Long id);
+
+        /**
+         * Increments the version of an appointment if it still has the given value.
+         * Used as a conditional update: if another transaction changed the
+         * appointment in the meantime, no row is updated.
+         *
+         * @param id      the ID of the appointment.
+         * @param version the version read by the caller.
+         * @return the number of rows updated, 1 or 0.
+         */
+        @Modifying
+        @Query("UPDATE Appointment a SET a.version = a.version + 1 WHERE a.id = :id AND a.version = :version")
+        int incrementVersion(@Param("id") Long id, @Param("version") Long version);
+
+        /**
+         * Finds the appointments with the given IDs, fetching their physiotherapist
+         * in the same query.
+         *
+         * @param ids the IDs of the appointments.
+         * @return a list of {@link Appointment} entities, in no particular order.
+         */
+        @Query("SELECT a FROM Appointment a JOIN FETCH a.physiotherapist WHERE a.id IN :ids")
+        List<Appointment> findAllWithPhysiotherapistByIdIn(@Param("ids") Collection<Long> ids);
+
+        /**
+         * Finds a page of appointments ordered by date/time and ID, starting right
+         * after the given position (keyset pagination).
+         *
+         * @param afterDateTime the date and time of the last appointment already
+         *                      returned.
+         * @param afterId       the ID of the last appointment already returned.
+         * @param to            the exclusive upper bound of the date/time window.
+         * @param pageable      the page size. Only the first page is requested.
+         * @return a list of {@link Appointment} entities in {@code (date_time, id)}
+         *         order.
+         */
+        @Query("SELECT a FROM Appointment a JOIN FETCH a.physiotherapist " +
+                        "WHERE a.dateTime >= :afterDateTime " +
+                        "AND (a.dateTime > :afterDateTime OR a.id > :afterId) " +
+                        "AND a.dateTime < :to " +
+                        "ORDER BY a.dateTime, a.id")
+        List<Appointment> findPage(@Param("afterDateTime") LocalDateTime afterDateTime,
+                        @Param("afterId") Long afterId,
+                        @Param("to") LocalDateTime to,
+                        Pageable pageable);
+
+        /**
+         * Finds a page of appointments of a specific physiotherapist ordered by
+         * date/time and ID, starting right after the given position.
+         *
+         * @param physiotherapistId the ID of the physiotherapist.
+         * @param afterDateTime     the date and time of the last appointment already
+         *                          returned.
+         * @param afterId           the ID of the last appointment already returned.
+         * @param to                the exclusive upper bound of the date/time window.
+         * @param pageable          the page size. Only the first page is requested.
+         * @return a list of {@link Appointment} entities in {@code (date_time, id)}
+         *         order.
+         */
+        @Query("SELECT a FROM Appointment a JOIN FETCH a.physiotherapist p " +
+                        "WHERE p.id = :physiotherapistId " +
+                        "AND a.dateTime >= :afterDateTime " +
+                        "AND (a.dateTime > :afterDateTime OR a.id > :afterId) " +
+                        "AND a.dateTime < :to " +
+                        "ORDER BY a.dateTime, a.id")
+        List<Appointment> findPageByPhysiotherapistId(@Param("physiotherapistId") Long physiotherapistId,
+                        @Param("afterDateTime") LocalDateTime afterDateTime,
+                        @Param("afterId") Long afterId,
+                        @Param("to") LocalDateTime to,
+                        Pageable pageable);
+
+        /**
+         * Finds a page of appointments of a specific client ordered by date/time and
+         * ID, starting right after the given position. Optionally filters by
+         * modality.
+         *
+         * @param clientId      the ID of the client.
+         * @param modality      the modality of the appointments, or null for all.
+         * @param afterDateTime the date and time of the last appointment already
+         *                      returned.
+         * @param afterId       the ID of the last appointment already returned.
+         * @param to            the exclusive upper bound of the date/time window.
+         * @param pageable      the page size. Only the first page is requested.
+         * @return a list of {@link Appointment} entities in {@code (date_time, id)}
+         *         order.
+         */
+        @Query("SELECT a FROM Appointment a JOIN FETCH a.physiotherapist " +
+                        "WHERE a.id IN (SELECT ac.appointment.id FROM AppointmentClient ac WHERE ac.client.id = :clientId) " +
+                        "AND (:modality IS NULL OR a.modality = :modality) " +
+                        "AND a.dateTime >= :afterDateTime " +
+                        "AND (a.dateTime > :afterDateTime OR a.id > :afterId) " +
+                        "AND a.dateTime < :to " +
+                        "ORDER BY a.dateTime, a.id")
+        List<Appointment> findPageByClientId(@Param("clientId") Long clientId,
+                        @Param("modality") AppointmentModality modality,
+                        @Param("afterDateTime") LocalDateTime afterDateTime,
+                        @Param("afterId") Long afterId,
+                        @Param("to") LocalDateTime to,
+                        Pageable pageable);
+
+        /**
+         * Finds a page of available appointments for a specific client, with the same
+         * rules as {@link #findAvailable(Long)}, ordered by date/time and ID and
+         * starting right after the given position.
+         *
+         * @param clientId      the ID of the client.
+         * @param afterDateTime the date and time of the last appointment already
+         *                      returned.
+         * @param afterId       the ID of the last appointment already returned.
+         * @param to            the exclusive upper bound of the date/time window.
+         * @param limit         the maximum number of appointments returned.
+         * @return a list of available {@link Appointment} entities.
+         */
+        @Query(value = "SELECT a.* FROM horafit.appointment AS a " +
+                        AVAILABILITY_JOINS +
+                        "WHERE a.date_time >= NOW() " +
+                        "AND a.date_time >= :afterDateTime " +
+                        "AND (a.date_time > :afterDateTime OR a.id > :afterId) " +
+                        "AND a.date_time < :to " +
+                        "AND a.id NOT IN (" +
+                        "    SELECT ac2.appointment_id " +
+                        "    FROM horafit.appointment_client AS ac2 " +
+                        "    WHERE ac2.client_id = :clientId" +
+                        ") " +
+                        "GROUP BY a.id " +
+                        AVAILABILITY_HAVING +
+                        "ORDER BY a.date_time, a.id " +
+                        "LIMIT :limit", nativeQuery = true)
+        List<Appointment> findAvailablePage(@Param("clientId") Long clientId,
+                        @Param("afterDateTime") LocalDateTime afterDateTime,
+                        @Param("afterId") Long afterId,
+                        @Param("to") LocalDateTime to,
+                        @Param("limit") int limit);
+
+        /**
+         * Deletes the appointments with the given IDs that have no clients left.
          *
-         * @param clientId the ID of the client whose appointments should be deleted.
+         * @param ids the IDs of the appointments.
+         * @return the number of appointments deleted.
          */
         @Modifying
-        @Query(value = "DELETE FROM horafit.appointment a " +
-                        "USING horafit.appointment_client ac " +
-                        "WHERE a.id = ac.appointment_id " +
-                        "AND ac.client_id = :clientId", nativeQuery = true)
-        void deleteByClientId(@Param("clientId") Long clientId);
-}
\ No newline at end of file
+        @Query(value = "DELETE a FROM horafit.appointment a " +
+                        "LEFT JOIN horafit.appointment_client ac ON ac.appointment_id = a.id " +
+                        "WHERE a.id IN :ids AND ac.id IS NULL", nativeQuery = true)
+        int deleteWithoutClientsByIds(@Param("ids") Collection<Long> ids);
+}
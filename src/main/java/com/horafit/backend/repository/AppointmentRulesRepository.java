@@ -4,7 +4,11 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import com.horafit.backend.config.CacheConfiguration;
 import com.horafit.backend.entity.AppointmentRules;
+import org.springframework.cache.annotation.Cacheable;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.Optional;
 
 @Repository
@@ -15,16 +19,24 @@ public interface AppointmentRulesRepository extends JpaRepository<AppointmentRul
       "WHERE c.id = :clientId;", nativeQuery = true)
   Long findReschedulingMinHoursInAdvance(@Param("clientId") Long clientId);
 
+  // Regras são dados de referência: cacheadas aqui para valer também nas chamadas internas de AppointmentRulesService
+  @Cacheable(value = CacheConfiguration.APPOINTMENT_RULES, key = "#p0")
   Optional<AppointmentRules> findById(Long id);
 
-  @Query(value = "SELECT COUNT(*) FROM horafit.appointment AS a " +
+  String COUNT_RESCHEDULED_BETWEEN = "SELECT COUNT(*) FROM horafit.appointment AS a " +
       "JOIN horafit.appointment_client AS ac " +
       "ON ac.appointment_id = a.id " +
-      "JOIN horafit.client as c " +
-      "ON ac.client_id = c.id " +
-      "WHERE c.id = :id " +
+      "WHERE ac.client_id = :id " +
       "AND ac.confirmation = 'RESCHEDULED' " +
-      "AND DATE_FORMAT(a.date_time, '%m/%Y') = DATE_FORMAT(CURDATE(), '%m/%Y') "
-      , nativeQuery = true)
-  Integer countRescheduledAppointmentsInMonth(Long id);
+      "AND a.date_time >= :start AND a.date_time < :end";
+
+  @Query(value = COUNT_RESCHEDULED_BETWEEN, nativeQuery = true)
+  Integer countRescheduledAppointmentsBetween(@Param("id") Long id, @Param("start") LocalDateTime start,
+                                              @Param("end") LocalDateTime end);
+
+  default Integer countRescheduledAppointmentsInMonth(Long id) {
+    YearMonth month = YearMonth.now();
+    return countRescheduledAppointmentsBetween(id, month.atDay(1).atStartOfDay(),
+        month.plusMonths(1).atDay(1).atStartOfDay());
+  }
 }
@@ -1,11 +1,15 @@
 package com.horafit.backend.repository;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.horafit.backend.entity.BusinessRules;
 
 @Repository
 public interface BusinessRulesRepository extends JpaRepository<BusinessRules, Long> {
-    
+    @Query("SELECT DISTINCT b FROM BusinessRules b LEFT JOIN FETCH b.rules ORDER BY b.id")
+    List<BusinessRules> findAllWithRules();
 }
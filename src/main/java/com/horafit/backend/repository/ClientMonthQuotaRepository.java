@@ -0,0 +1,76 @@
+package com.horafit.backend.repository;
+
+import com.horafit.backend.entity.ClientMonthQuota;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ClientMonthQuotaRepository extends JpaRepository<ClientMonthQuota, ClientMonthQuota.Key> {
+        /**
+         * Finds the quota rows of a client in the given months.
+         *
+         * @param clientId the ID of the client.
+         * @param months   the first day of each month.
+         * @return the existing rows; months without rows have no quota used.
+         */
+        List<ClientMonthQuota> findByIdClientIdAndIdMonthIn(Long clientId, Collection<LocalDate> months);
+
+        /**
+         * Adds the given amounts to the counters of a client in a month, creating
+         * the row if needed, in a single statement. The counters never go below
+         * zero.
+         *
+         * @param clientId                 the ID of the client.
+         * @param month                    the first day of the month.
+         * @param rescheduled              the change of the rescheduled counter.
+         * @param canceledWithRescheduling the change of the canceled with
+         *                                 rescheduling counter.
+         */
+        @Modifying
+        @Query(value = "INSERT INTO horafit.client_month_quota " +
+                        "(client_id, month_start, rescheduled, canceled_with_rescheduling) " +
+                        "VALUES (:clientId, :month, GREATEST(:rescheduled, 0), GREATEST(:canceled, 0)) " +
+                        "ON DUPLICATE KEY UPDATE " +
+                        "rescheduled = GREATEST(rescheduled + :rescheduled, 0), " +
+                        "canceled_with_rescheduling = GREATEST(canceled_with_rescheduling + :canceled, 0)",
+                        nativeQuery = true)
+        void add(@Param("clientId") Long clientId, @Param("month") LocalDate month,
+                 @Param("rescheduled") int rescheduled, @Param("canceled") int canceledWithRescheduling);
+
+        /**
+         * Deletes the quota rows of the given clients.
+         *
+         * @param clientIds the IDs of the clients.
+         * @return the number of deleted rows.
+         */
+        @Modifying
+        @Query(value = "DELETE FROM horafit.client_month_quota WHERE client_id IN (:clientIds)", nativeQuery = true)
+        int deleteByClientIds(@Param("clientIds") Collection<Long> clientIds);
+
+        /**
+         * Computes the quota rows of the given clients from the confirmations of
+         * their appointments and inserts them, in a single statement. The previous
+         * rows of the clients must have been deleted.
+         *
+         * @param clientIds the IDs of the clients.
+         * @return the number of inserted rows.
+         */
+        @Modifying
+        @Query(value = "INSERT INTO horafit.client_month_quota " +
+                        "(client_id, month_start, rescheduled, canceled_with_rescheduling) " +
+                        "SELECT ac.client_id, DATE_FORMAT(a.date_time, '%Y-%m-01'), " +
+                        "SUM(ac.confirmation = 'RESCHEDULED'), SUM(ac.confirmation = 'CANCELED_WITH_RESCHEDULING') " +
+                        "FROM horafit.appointment_client ac " +
+                        "JOIN horafit.appointment a ON a.id = ac.appointment_id " +
+                        "WHERE ac.confirmation IN ('RESCHEDULED', 'CANCELED_WITH_RESCHEDULING') " +
+                        "AND ac.client_id IN (:clientIds) " +
+                        "GROUP BY ac.client_id, DATE_FORMAT(a.date_time, '%Y-%m-01')", nativeQuery = true)
+        int insertByClientIds(@Param("clientIds") Collection<Long> clientIds);
+}
@@ -0,0 +1,58 @@
+package com.horafit.backend.repository;
+
+import com.horafit.backend.entity.ClientPaymentStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+public interface ClientPaymentStatusRepository extends JpaRepository<ClientPaymentStatus, Long> {
+    String UPSERT_STATUS = "INSERT INTO horafit.client_payment_status (client_id, last_confirmed, paid_through_month) " +
+            "SELECT * FROM (" +
+            "    SELECT p.client_id, MAX(p.confirmed) AS last_confirmed, " +
+            "    DATE_FORMAT(MAX(p.confirmed), '%Y-%m-01') AS paid_through_month " +
+            "    FROM horafit.payment p " +
+            "    WHERE p.confirmed IS NOT NULL ";
+
+    String ON_DUPLICATE_UPDATE = "    GROUP BY p.client_id" +
+            ") AS s " +
+            "ON DUPLICATE KEY UPDATE last_confirmed = s.last_confirmed, paid_through_month = s.paid_through_month";
+
+    /**
+     * Recomputes the payment summary of the given clients from their confirmed
+     * payments, in a single statement.
+     *
+     * @param clientIds the IDs of the clients.
+     * @return the number of affected rows.
+     */
+    @Modifying
+    @Query(value = UPSERT_STATUS + "AND p.client_id IN (:clientIds) " + ON_DUPLICATE_UPDATE, nativeQuery = true)
+    int refreshByClientIds(@Param("clientIds") Collection<Long> clientIds);
+
+    /**
+     * Deletes the payment summary of the given clients that no longer have a
+     * confirmed payment, e.g. after their payment was set back to unpaid.
+     *
+     * @param clientIds the IDs of the clients.
+     * @return the number of deleted rows.
+     */
+    @Modifying
+    @Query(value = "DELETE s FROM horafit.client_payment_status s " +
+            "WHERE s.client_id IN (:clientIds) " +
+            "AND NOT EXISTS (SELECT 1 FROM horafit.payment p " +
+            "    WHERE p.client_id = s.client_id AND p.confirmed IS NOT NULL)", nativeQuery = true)
+    int deleteUnpaidByClientIds(@Param("clientIds") Collection<Long> clientIds);
+
+    /**
+     * Recomputes the payment summary of every client with a confirmed payment.
+     *
+     * @return the number of affected rows.
+     */
+    @Modifying
+    @Query(value = UPSERT_STATUS + ON_DUPLICATE_UPDATE, nativeQuery = true)
+    int refreshAll();
+}
@@ -3,6 +3,7 @@ package com.horafit.backend.repository;
 import com.horafit.backend.entity.Client;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
@@ -19,6 +20,13 @@ public interface ClientRepository extends JpaRepository<Client, Long> {
     @Query(value = "SELECT DISTINCT c.* FROM horafit.client c JOIN horafit.appointment_client a ON c.id = a.client_id", nativeQuery = true)
     List<Client> findClientsWithAppointments();
 
+    @Query("SELECT r.maxClientsPerGroup FROM Client c JOIN c.appointmentRules r WHERE c.id = :clientId")
+    Optional<Integer> findMaxClientsPerGroupById(@Param("clientId") Long clientId);
+
+    // Percorre os clientes em ordem de ID, um bloco por vez, para as reconstruções das tabelas derivadas
+    @Query(value = "SELECT c.id FROM horafit.client c WHERE c.id > :afterId ORDER BY c.id LIMIT :limit", nativeQuery = true)
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, @Param("limit") int limit);
+
     @Query(value = "SELECT * FROM horafit.client ORDER BY name;", nativeQuery = true)
     List<Client> findAll();
 }
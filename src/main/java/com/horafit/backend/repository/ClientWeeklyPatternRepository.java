@@ -0,0 +1,56 @@
+package com.horafit.backend.repository;
+
+import com.horafit.backend.entity.ClientWeeklyPattern;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ClientWeeklyPatternRepository extends JpaRepository<ClientWeeklyPattern, Long> {
+        String SELECT_PATTERNS = "SELECT ac.client_id, a.modality, WEEKDAY(a.date_time) + 1, TIME(a.date_time), COUNT(*) " +
+                        "FROM horafit.appointment_client ac " +
+                        "JOIN horafit.appointment a ON a.id = ac.appointment_id " +
+                        "WHERE ac.confirmation IN ('CONFIRMED', 'RESCHEDULED') ";
+
+        String GROUP_PATTERNS = "GROUP BY ac.client_id, a.modality, WEEKDAY(a.date_time), TIME(a.date_time)";
+
+        String INSERT_PATTERNS = "INSERT INTO horafit.client_weekly_pattern " +
+                        "(client_id, modality, day_of_week, start_time, occurrences) ";
+
+        /**
+         * Finds the weekly schedule of a client, ordered by modality, day of the
+         * week and time.
+         *
+         * @param clientId the ID of the client.
+         * @return the list of {@link ClientWeeklyPattern} rows of the client.
+         */
+        List<ClientWeeklyPattern> findByClientIdOrderByModalityAscDayOfWeekAscStartTimeAsc(Long clientId);
+
+        /**
+         * Deletes the weekly schedule of the given clients.
+         *
+         * @param clientIds the IDs of the clients.
+         * @return the number of deleted rows.
+         */
+        @Modifying
+        @Query(value = "DELETE FROM horafit.client_weekly_pattern WHERE client_id IN (:clientIds)", nativeQuery = true)
+        int deleteByClientIds(@Param("clientIds") Collection<Long> clientIds);
+
+        /**
+         * Computes the weekly schedule of the given clients from their confirmed or
+         * rescheduled appointments and inserts it, in a single statement. The
+         * previous rows of the clients must have been deleted.
+         *
+         * @param clientIds the IDs of the clients.
+         * @return the number of inserted rows.
+         */
+        @Modifying
+        @Query(value = INSERT_PATTERNS + SELECT_PATTERNS + "AND ac.client_id IN (:clientIds) " + GROUP_PATTERNS,
+                        nativeQuery = true)
+        int insertByClientIds(@Param("clientIds") Collection<Long> clientIds);
+}
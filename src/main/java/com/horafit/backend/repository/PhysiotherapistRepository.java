@@ -1,7 +1,12 @@
 package com.horafit.backend.repository;
 
+import com.horafit.backend.config.CacheConfiguration;
+import com.horafit.backend.dto.appointment.AppointmentPhysiotherapistDTO;
 import com.horafit.backend.entity.Physiotherapist;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
@@ -9,4 +14,11 @@ import java.util.Optional;
 public interface PhysiotherapistRepository extends JpaRepository<Physiotherapist, Long> {
   Optional<Physiotherapist> findByEmail(String email);
   boolean existsByEmail(String email);
+
+  // Fisioterapeutas são dados de referência: cacheados aqui, sem a senha, para valer também nas
+  // chamadas internas de PhysiotherapistService; um ID inexistente não é cacheado
+  @Cacheable(value = CacheConfiguration.PHYSIOTHERAPISTS, key = "#p0", unless = "#result == null")
+  @Query("SELECT new com.horafit.backend.dto.appointment.AppointmentPhysiotherapistDTO(p.id, p.name) " +
+      "FROM Physiotherapist p WHERE p.id = :id")
+  Optional<AppointmentPhysiotherapistDTO> findSummaryById(@Param("id") Long id);
 }
@@ -0,0 +1,86 @@
+package com.horafit.backend.repository;
+
+import com.horafit.backend.entity.RecurringSeries;
+import com.horafit.backend.entity.enums.AppointmentModality;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RecurringSeriesRepository extends JpaRepository<RecurringSeries, Long> {
+        /**
+         * Locks the series that have occurrences to create up to the given
+         * date/time, skipping the ones already locked by another transaction, such
+         * as a plan edit or another instance of the job.
+         *
+         * @param until the end of the horizon.
+         * @param limit the maximum number of series.
+         * @return the IDs of the locked series, in order. Load them with
+         * {@link #findWithClientsByIdIn(Collection)}.
+         */
+        @Query(value = "SELECT id FROM horafit.recurring_series " +
+                        "WHERE next_occurrence <= :until " +
+                        "ORDER BY id LIMIT :limit " +
+                        "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+        List<Long> lockDue(@Param("until") LocalDateTime until, @Param("limit") int limit);
+
+        /**
+         * Finds the given series with their physiotherapist and clients, in a
+         * single query.
+         *
+         * @param ids the IDs of the series.
+         * @return the series, ordered by ID.
+         */
+        @Query("SELECT DISTINCT s FROM RecurringSeries s JOIN FETCH s.physiotherapist " +
+                        "LEFT JOIN FETCH s.clientIds WHERE s.id IN :ids ORDER BY s.id")
+        List<RecurringSeries> findWithClientsByIdIn(@Param("ids") Collection<Long> ids);
+
+        /**
+         * Finds the series of a modality in which a client takes part.
+         *
+         * @param clientId the ID of the client.
+         * @param modality the modality.
+         * @return the list of {@link RecurringSeries} of the client.
+         */
+        @Query("SELECT s FROM RecurringSeries s JOIN s.clientIds c " +
+                        "WHERE c = :clientId AND s.modality = :modality")
+        List<RecurringSeries> findByClientIdAndModality(@Param("clientId") Long clientId,
+                                                        @Param("modality") AppointmentModality modality);
+
+        /**
+         * Same as {@link #findByClientIdAndModality(Long, AppointmentModality)},
+         * but locks the series, so that the materialization job does not create
+         * occurrences while their clients change.
+         */
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query("SELECT s FROM RecurringSeries s JOIN s.clientIds c " +
+                        "WHERE c = :clientId AND s.modality = :modality")
+        List<RecurringSeries> findByClientIdAndModalityForUpdate(@Param("clientId") Long clientId,
+                                                                 @Param("modality") AppointmentModality modality);
+
+        /**
+         * Finds and locks the series of a physiotherapist that generate the
+         * weekly slot of a modality on a day of the week and time.
+         *
+         * @param physiotherapistId the ID of the physiotherapist.
+         * @param modality          the modality.
+         * @param dayOfWeek         the ISO-8601 day of the week, 1 = Monday.
+         * @param startTime         the time of the occurrences.
+         * @return the list of {@link RecurringSeries} of the slot.
+         */
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query("SELECT s FROM RecurringSeries s WHERE s.physiotherapist.id = :physiotherapistId " +
+                        "AND s.modality = :modality AND s.dayOfWeek = :dayOfWeek AND s.startTime = :startTime")
+        List<RecurringSeries> findBySlotForUpdate(@Param("physiotherapistId") Long physiotherapistId,
+                                                  @Param("modality") AppointmentModality modality,
+                                                  @Param("dayOfWeek") Integer dayOfWeek,
+                                                  @Param("startTime") LocalTime startTime);
+}
@@ -0,0 +1,49 @@
+package com.horafit.backend.repository;
+
+import com.horafit.backend.config.CacheConfiguration;
+import com.horafit.backend.dto.user.UserPrincipalDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Resolves the email of a physiotherapist or client to its type, ID, password
+ * hash and, for clients, the ID of its appointment rules, with a single query over the unique email indexes of both
+ * tables. A physiotherapist takes precedence over a client with the same email,
+ * as in the login before. Found principals are cached by email; the cache entry
+ * must be evicted when the password or the appointment rules change.
+ */
+@Repository
+public class UserPrincipalRepository {
+    public static final String PHYSIOTHERAPIST = "Physiotherapist";
+    public static final String CLIENT = "Client";
+
+    private static final String FIND_BY_EMAIL = "SELECT user_type, id, password, appointment_rules_id FROM (" +
+            "SELECT 1 AS priority, '" + PHYSIOTHERAPIST + "' AS user_type, id, password, NULL AS appointment_rules_id " +
+            "FROM horafit.physiotherapist WHERE email = ? " +
+            "UNION ALL " +
+            "SELECT 2 AS priority, '" + CLIENT + "' AS user_type, id, password, appointment_rules AS appointment_rules_id " +
+            "FROM horafit.client WHERE email = ?" +
+            ") AS principal ORDER BY priority LIMIT 1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Finds the principal with the given email.
+     *
+     * @param email the email used to log in.
+     * @return the principal, or empty if no physiotherapist or client has the
+     * email.
+     */
+    @Cacheable(cacheNames = CacheConfiguration.USER_PRINCIPALS, unless = "#result == null")
+    public Optional<UserPrincipalDTO> findByEmail(String email) {
+        return jdbcTemplate.query(FIND_BY_EMAIL,
+                (resultSet, rowNum) -> new UserPrincipalDTO(resultSet.getLong("id"), resultSet.getString("user_type"),
+                        resultSet.getString("password"), resultSet.getObject("appointment_rules_id", Long.class)),
+                email, email).stream().findFirst();
+    }
+}
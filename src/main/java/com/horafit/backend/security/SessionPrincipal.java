@@ -0,0 +1,46 @@
+package com.horafit.backend.security;
+
+import com.horafit.backend.repository.UserPrincipalRepository;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+
+/**
+ * The user of the current request, taken from its session token by
+ * {@link SessionTokenFilter}.
+ *
+ * @param id                 the ID of the physiotherapist or client.
+ * @param role               {@link UserPrincipalRepository#PHYSIOTHERAPIST} or
+ *                           {@link UserPrincipalRepository#CLIENT}.
+ * @param appointmentRulesId the ID of the appointment rules of the client when
+ *                           the token was issued, or null.
+ */
+public record SessionPrincipal(Long id, String role, Long appointmentRulesId) {
+    static final String ATTRIBUTE = SessionPrincipal.class.getName();
+
+    /**
+     * Finds the principal of the current request.
+     *
+     * @return the principal, or empty outside a request or if the request has no
+     * session token.
+     */
+    public static Optional<SessionPrincipal> current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable((SessionPrincipal) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST));
+    }
+
+    /**
+     * Finds the principal of the current request if it is the given client.
+     *
+     * @param clientId the ID of the client.
+     * @return the principal, or empty if the request was not made by this client
+     * with a session token.
+     */
+    public static Optional<SessionPrincipal> currentClient(Long clientId) {
+        return current().filter(principal -> UserPrincipalRepository.CLIENT.equals(principal.role()) && principal.id().equals(clientId));
+    }
+}
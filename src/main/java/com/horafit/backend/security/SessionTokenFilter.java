@@ -0,0 +1,43 @@
+package com.horafit.backend.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Reads the session token of the {@code Authorization: Bearer} header and
+ * exposes its principal to the request, see {@link SessionPrincipal#current()}.
+ * Requests without the header go through unchanged; requests with an invalid
+ * or expired token are answered with 401.
+ */
+@Component
+public class SessionTokenFilter extends OncePerRequestFilter {
+    private static final String BEARER = "Bearer ";
+
+    @Autowired
+    private SessionTokenService sessionTokenService;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER)) {
+            Optional<SessionPrincipal> principal = sessionTokenService.verify(header.substring(BEARER.length()).trim());
+            if (principal.isEmpty()) {
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Sessão inválida ou expirada");
+                return;
+            }
+            request.setAttribute(SessionPrincipal.ATTRIBUTE, principal.get());
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
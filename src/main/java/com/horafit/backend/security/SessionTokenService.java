@@ -0,0 +1,124 @@
+package com.horafit.backend.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Issues and verifies the session tokens returned by the login.
+ * A token is {@code payload.signature}, both Base64url: the payload is
+ * {@code id:role:appointmentRulesId:expiresAt} and the signature its
+ * HMAC-SHA256 with the {@code horafit.session.secret} key, so a token is
+ * verified without any query. Tokens cannot be revoked; they expire after
+ * {@code horafit.session.ttl}.
+ * The key must have at least {@value #MIN_SECRET_BYTES} bytes, the size of the
+ * HMAC-SHA256 output, and the application does not start without it. Only the
+ * {@value #DEV_PROFILE} profile falls back to a random key, valid until the
+ * instance restarts.
+ */
+@Component
+public class SessionTokenService {
+    private static final Logger log = LoggerFactory.getLogger(SessionTokenService.class);
+
+    public static final int MIN_SECRET_BYTES = 32;
+    public static final String DEV_PROFILE = "dev";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+
+    public SessionTokenService(@Value("${horafit.session.secret:}") String secret,
+                               @Value("${horafit.session.ttl:8h}") Duration ttl,
+                               Environment environment) {
+        byte[] keyBytes;
+        if (secret.isBlank() && environment.acceptsProfiles(Profiles.of(DEV_PROFILE))) {
+            // sem segredo configurado os tokens só valem nesta instância e até ela reiniciar
+            log.warn("horafit.session.secret não configurado, usando uma chave aleatória (perfil {})", DEV_PROFILE);
+            keyBytes = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(keyBytes);
+        } else if (secret.isBlank()) {
+            throw new IllegalStateException("horafit.session.secret (SESSION_SECRET) não configurado");
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+            if (keyBytes.length < MIN_SECRET_BYTES) {
+                throw new IllegalStateException("horafit.session.secret precisa ter pelo menos "
+                        + MIN_SECRET_BYTES + " bytes");
+            }
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.ttl = ttl;
+    }
+
+    /**
+     * Issues a token for a principal.
+     *
+     * @param principal the logged in user.
+     * @return the signed token.
+     */
+    public String issue(SessionPrincipal principal) {
+        String payload = principal.id() + ":" + principal.role() + ":"
+                + (principal.appointmentRulesId() == null ? "" : principal.appointmentRulesId()) + ":"
+                + Instant.now().plus(ttl).getEpochSecond();
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes));
+    }
+
+    /**
+     * Verifies a token.
+     *
+     * @param token the token sent by the client.
+     * @return the principal of the token, or empty if the token is malformed, its
+     * signature is wrong or it has expired.
+     */
+    public Optional<SessionPrincipal> verify(String token) {
+        try {
+            int separator = token.indexOf('.');
+            if (separator < 0) {
+                return Optional.empty();
+            }
+
+            byte[] payloadBytes = DECODER.decode(token.substring(0, separator));
+            byte[] signature = DECODER.decode(token.substring(separator + 1));
+            if (!MessageDigest.isEqual(sign(payloadBytes), signature)) {
+                return Optional.empty();
+            }
+
+            String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split(":", -1);
+            if (fields.length != 4 || Instant.now().getEpochSecond() >= Long.parseLong(fields[3])) {
+                return Optional.empty();
+            }
+
+            return Optional.of(new SessionPrincipal(Long.valueOf(fields[0]), fields[1],
+                    fields[2].isEmpty() ? null : Long.valueOf(fields[2])));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 indisponível", e);
+        }
+    }
+}
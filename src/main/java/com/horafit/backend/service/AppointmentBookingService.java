@@ -0,0 +1,112 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.entity.Appointment;
+import com.horafit.backend.repository.AppointmentRepository;
+import com.horafit.backend.util.exception.appointment.AppointmentsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Adds clients to appointments without exceeding their capacity when several
+ * requests book the same appointment at the same time.
+ * Each attempt reads the version of the appointment, checks its capacity and
+ * then increments the version with a conditional update. If another booking
+ * committed in the meantime, no row is updated and the attempt is rolled back
+ * and retried in a new transaction, after a short randomized backoff. No row
+ * is locked by the reads.
+ */
+@Service
+public class AppointmentBookingService {
+  private static final Logger log = LoggerFactory.getLogger(AppointmentBookingService.class);
+
+  private static final int MAX_ATTEMPTS = 8;
+  private static final long INITIAL_BACKOFF_MILLIS = 5;
+  private static final long MAX_BACKOFF_MILLIS = 200;
+
+  @Autowired
+  private AppointmentRepository appointmentRepository;
+
+  @Autowired
+  private AppointmentCapacityService appointmentCapacityService;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  /**
+   * Adds a client to an appointment.
+   * Must not be called inside a transaction: a retry needs a new transaction to
+   * see the bookings committed by other requests.
+   *
+   * @param appointmentId the ID of the appointment.
+   * @param clientId      the ID of the client joining it.
+   * @param write         writes the association of the client with the
+   *                      appointment. Runs in the same transaction as the
+   *                      capacity check, and may run more than once.
+   * @return the value returned by {@code write}.
+   * @throws AppointmentsException.AppointmentNotFoundException if the
+   * appointment does not exist.
+   * @throws AppointmentsException.AppointmentFullException if the appointment
+   * has no free place.
+   * @throws AppointmentsException.AppointmentConcurrencyException if every
+   * attempt conflicted with another booking.
+   */
+  public <T> T join(Long appointmentId, Long clientId, Function<Appointment, T> write) {
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      throw new IllegalStateException("A reserva de atendimentos deve ser feita fora de uma transação");
+    }
+
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    long backoff = INITIAL_BACKOFF_MILLIS;
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return transactionTemplate.execute(status -> attemptJoin(appointmentId, clientId, write));
+      } catch (ConcurrencyFailureException e) {
+        if (attempt >= MAX_ATTEMPTS) {
+          throw new AppointmentsException.AppointmentConcurrencyException(
+              "O atendimento está sendo alterado por outra requisição, tente novamente", e);
+        }
+        log.debug("Conflito ao reservar o atendimento {} (tentativa {})", appointmentId, attempt);
+      }
+
+      sleep(backoff + ThreadLocalRandom.current().nextLong(backoff + 1));
+      backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+    }
+  }
+
+  private <T> T attemptJoin(Long appointmentId, Long clientId, Function<Appointment, T> write) {
+    Long version = appointmentRepository.findVersionById(appointmentId)
+        .orElseThrow(() -> new AppointmentsException.AppointmentNotFoundException(
+            "Atendimento não encontrado com ID: " + appointmentId));
+
+    appointmentCapacityService.checkCanJoin(appointmentId, clientId);
+
+    if (appointmentRepository.incrementVersion(appointmentId, version) == 0) {
+      throw new OptimisticLockingFailureException("Atendimento " + appointmentId + " alterado por outra transação");
+    }
+
+    Appointment appointment = appointmentRepository.findById(appointmentId)
+        .orElseThrow(() -> new AppointmentsException.AppointmentNotFoundException(
+            "Atendimento não encontrado com ID: " + appointmentId));
+
+    return write.apply(appointment);
+  }
+
+  private void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AppointmentsException.AppointmentConcurrencyException("Reserva do atendimento interrompida", e);
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.entity.AppointmentRules;
+import com.horafit.backend.entity.Client;
+import com.horafit.backend.repository.AppointmentClientRepository;
+import com.horafit.backend.repository.AppointmentClientRepository.SlotCapacity;
+import com.horafit.backend.repository.ClientRepository;
+import com.horafit.backend.util.exception.appointment.AppointmentsException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+
+/**
+ * Evaluates the capacity of group appointments.
+ * The limit of an appointment is the smallest {@link AppointmentRules#getMaxClientsPerGroup()}
+ * among its confirmed or rescheduled clients and the client joining it. When
+ * none of them has rules, {@link AppointmentRules#DEFAULT_MAX_CLIENTS_PER_GROUP}
+ * is used. Canceled clients do not take a place.
+ */
+@Service
+public class AppointmentCapacityService {
+  @Autowired
+  private AppointmentClientRepository appointmentClientRepository;
+
+  @Autowired
+  private ClientRepository clientRepository;
+
+  /**
+   * Checks whether a client can join an appointment, using a single aggregate
+   * query.
+   *
+   * @param appointmentId the ID of the appointment.
+   * @param clientId      the ID of the client joining it.
+   * @throws AppointmentsException.AppointmentFullException if the appointment
+   *                                                        has no free place.
+   */
+  public void checkCanJoin(Long appointmentId, Long clientId) {
+    SlotCapacity capacity = appointmentClientRepository.findSlotCapacity(appointmentId, clientId);
+    int limit = resolveLimit(capacity.getMemberLimit(), capacity.getClientLimit());
+
+    if (capacity.getOccupied() >= limit) {
+      throw new AppointmentsException.AppointmentFullException(
+          "Atendimento não disponível: número máximo de clientes atingido (" + limit + ")");
+    }
+  }
+
+  /**
+   * Checks whether a new appointment can be created with the given clients.
+   * No query is executed.
+   *
+   * @param clients the clients of the new appointment, with their rules loaded.
+   * @throws AppointmentsException.AppointmentFullException if there are more
+   *                                                        clients than the
+   *                                                        group limit.
+   */
+  public void checkNewGroup(Collection<Client> clients) {
+    Integer memberLimit = null;
+    for (Client client : clients) {
+      if (client.getAppointmentRules() != null) {
+        memberLimit = min(memberLimit, client.getAppointmentRules().getMaxClientsPerGroup());
+      }
+    }
+
+    int limit = resolveLimit(memberLimit, null);
+    if (clients.size() > limit) {
+      throw new AppointmentsException.AppointmentFullException(
+          "Número de clientes maior que o permitido para o atendimento (" + limit + ")");
+    }
+  }
+
+  /**
+   * Finds the group limit of the rules of a client.
+   *
+   * @param clientId the ID of the client.
+   * @return the limit, or null if the client has no rules.
+   */
+  public Integer findClientLimit(Long clientId) {
+    return clientRepository.findMaxClientsPerGroupById(clientId).orElse(null);
+  }
+
+  /**
+   * Resolves the group limit of an appointment.
+   *
+   * @param memberLimit the smallest limit among the clients of the appointment,
+   *                    or null.
+   * @param clientLimit the limit of the client joining it, or null.
+   * @return the group limit.
+   */
+  public static int resolveLimit(Integer memberLimit, Integer clientLimit) {
+    Integer limit = min(memberLimit, clientLimit);
+    return limit != null ? limit : AppointmentRules.DEFAULT_MAX_CLIENTS_PER_GROUP;
+  }
+
+  private static Integer min(Integer first, Integer second) {
+    if (first == null) {
+      return second;
+    }
+    if (second == null) {
+      return first;
+    }
+    return Math.min(first, second);
+  }
+}
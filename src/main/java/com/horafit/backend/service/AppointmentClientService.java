@@ -1,5 +1,6 @@
 package com.horafit.backend.service;
 
+import com.horafit.backend.dto.appointment.AttendanceRollCallDTO;
 import com.horafit.backend.util.exception.appointment.AppointmentsException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -7,23 +8,56 @@ import org.springframework.transaction.annotation.Transactional;
 import com.horafit.backend.entity.AppointmentClient;
 import com.horafit.backend.repository.AppointmentClientRepository;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+
 @Service
 public class AppointmentClientService {
   @Autowired
   AppointmentClientRepository appointmentClientRepository;
 
+  @Autowired
+  private AppointmentConfirmationService appointmentConfirmationService;
+
   @Transactional
   public AppointmentClient absentClient(Long clientId, Long appointmentId) {
-    AppointmentClient appointmentClient = appointmentClientRepository
-        .findAppointmentClientByClient_IdAndAppointment_Id(clientId, appointmentId)
-        .orElseThrow(() -> new AppointmentsException.AppointmentNotFoundException(
-            "Appointment not found for client with id = " + clientId));
-
-    if (appointmentClient == null) {
-      throw new RuntimeException("AppointmentClient not found");
+    if (appointmentConfirmationService.recordAttendance(appointmentId, Map.of(clientId, false)) == 0) {
+      throw new AppointmentsException.AppointmentNotFoundException(
+          "Appointment not found for client with id = " + clientId);
     }
-    appointmentClient.setAttendance(false);
 
-    return appointmentClientRepository.save(appointmentClient);
+    return appointmentClientRepository.findAppointmentClientByClient_IdAndAppointment_Id(clientId, appointmentId)
+        .orElseThrow();
+  }
+
+  /**
+   * Records the attendance of the clients of one or more appointments, such
+   * as every class of a day, with a single UPDATE per appointment. Either every
+   * appointment is recorded or none is.
+   *
+   * @param rollCalls the attendance of each appointment. Clients left out keep
+   *                  their current attendance.
+   * @return the number of recorded clients.
+   * @throws IllegalArgumentException if an attendance is missing or a client
+   * is not in the appointment or is canceled.
+   */
+  @Transactional
+  public int rollCall(Collection<AttendanceRollCallDTO> rollCalls) {
+    int recorded = 0;
+    for (AttendanceRollCallDTO rollCall : rollCalls) {
+      if (rollCall.appointmentId() == null || rollCall.attendance() == null
+          || rollCall.attendance().values().stream().anyMatch(Objects::isNull)) {
+        throw new IllegalArgumentException("Informe o atendimento e a presença de cada cliente");
+      }
+
+      int matched = appointmentConfirmationService.recordAttendance(rollCall.appointmentId(), rollCall.attendance());
+      if (matched != rollCall.attendance().size()) {
+        throw new IllegalArgumentException((rollCall.attendance().size() - matched)
+            + " cliente(s) não pertencem ao atendimento " + rollCall.appointmentId() + " ou estão cancelados");
+      }
+      recorded += matched;
+    }
+    return recorded;
   }
 }
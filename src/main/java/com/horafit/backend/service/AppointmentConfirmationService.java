@@ -0,0 +1,237 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.dto.appointment.AppointmentConfirmationRowDTO;
+import com.horafit.backend.entity.Appointment;
+import com.horafit.backend.entity.AppointmentClient;
+import com.horafit.backend.entity.Client;
+import com.horafit.backend.entity.enums.AppointmentConfirmation;
+import com.horafit.backend.repository.AppointmentBatchRepository;
+import com.horafit.backend.repository.AppointmentClientRepository;
+import com.horafit.backend.util.exception.appointment.AppointmentsException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Changes the confirmation of clients in appointments, following the state
+ * table of {@link AppointmentConfirmation}: new clients, cancellations,
+ * reschedules, moves to another appointment and attendance all go through
+ * this class. The affected rows are read and
+ * locked as compact {@link AppointmentConfirmationRowDTO} rows, without
+ * loading appointments, clients or rules, and the new confirmation is written
+ * to all of them with a single UPDATE, so canceling a whole class or a whole
+ * day costs the same few statements as canceling one client. The reschedule
+ * quota of the clients ({@link ClientMonthQuotaService}) is updated in the
+ * same transaction.
+ */
+@Service
+public class AppointmentConfirmationService {
+  @Autowired
+  private AppointmentClientRepository appointmentClientRepository;
+
+  @Autowired
+  private AppointmentBatchRepository appointmentBatchRepository;
+
+  @Autowired
+  private ClientMonthQuotaService clientMonthQuotaService;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  /**
+   * Finds and locks the confirmation of a client in an appointment. Joins the
+   * current transaction.
+   *
+   * @throws AppointmentsException.AppointmentNotFoundException if the client
+   * is not in the appointment.
+   */
+  public AppointmentConfirmationRowDTO lock(Long appointmentId, Long clientId) {
+    return findForUpdate(appointmentId, clientId)
+        .orElseThrow(() -> new AppointmentsException.AppointmentNotFoundException(
+            "Appointment not found for client with id = " + clientId));
+  }
+
+  /**
+   * Same as {@link #lock(Long, Long)}, but returns an empty Optional if the
+   * client is not in the appointment.
+   */
+  public Optional<AppointmentConfirmationRowDTO> findForUpdate(Long appointmentId, Long clientId) {
+    return appointmentClientRepository.findConfirmationRowsForUpdate(List.of(appointmentId)).stream()
+        .filter(row -> row.clientId().equals(clientId))
+        .findFirst();
+  }
+
+  /**
+   * Moves the given rows to a new confirmation in their own appointments,
+   * which is how clients are canceled. Joins the current transaction.
+   *
+   * @param rows the rows, locked with {@link #lock(Long, Long)} or by the
+   *             set-based operations of this class.
+   * @param next the new confirmation.
+   * @return the number of changed rows.
+   * @throws AppointmentsException.InvalidConfirmationTransitionException if a
+   * row cannot move to {@code next}, or if {@code next} takes a place in the
+   * appointment: a client only takes a place through
+   * {@link #book(Appointment, Client)}, {@link #move} or {@link #reschedule}.
+   */
+  public int apply(Collection<AppointmentConfirmationRowDTO> rows, AppointmentConfirmation next) {
+    if (next.isBooked()) {
+      throw new AppointmentsException.InvalidConfirmationTransitionException(
+          "A confirmação " + next + " só é atribuída ao entrar em um atendimento");
+    }
+    return transition(rows, null, next);
+  }
+
+  /**
+   * Adds a new client to an appointment as CONFIRMED. Joins the current
+   * transaction, such as the one of {@link AppointmentBookingService#join}.
+   *
+   * @return the new association.
+   */
+  public AppointmentClient book(Appointment appointment, Client client) {
+    AppointmentClient appointmentClient = new AppointmentClient();
+    appointmentClient.setAppointment(appointment);
+    appointmentClient.setClient(client);
+    appointmentClient.setConfirmation(AppointmentConfirmation.CONFIRMED);
+    appointmentClient.setAttendance(true);
+    appointmentClientRepository.save(appointmentClient);
+
+    eventPublisher.publishEvent(AppointmentsChangedEvent.of(appointment.getId(), client.getId()));
+    return appointmentClient;
+  }
+
+  /**
+   * Moves a client to another appointment, keeping its confirmation. Joins the
+   * current transaction.
+   *
+   * @param row    the row of the client, locked with {@link #lock(Long, Long)}.
+   * @param target the new appointment.
+   * @return the moved association.
+   * @throws AppointmentsException.InvalidConfirmationTransitionException if
+   * the client is canceled in its appointment.
+   */
+  public AppointmentClient move(AppointmentConfirmationRowDTO row, Appointment target) {
+    transition(List.of(row), target, row.confirmation());
+    return appointmentClientRepository.findById(row.id()).orElseThrow();
+  }
+
+  /**
+   * Reschedules a client to an appointment, using the oldest of its
+   * CANCELED_WITH_RESCHEDULING appointments of the current and of the next
+   * month: the canceled association moves to the new appointment as
+   * RESCHEDULED, so each cancellation allows a single reschedule. Joins the
+   * current transaction.
+   *
+   * @param clientId the ID of the client.
+   * @param target   the new appointment.
+   * @return the moved association.
+   * @throws AppointmentsException.InvalidConfirmationTransitionException if
+   * the client has no canceled appointment to reschedule.
+   */
+  public AppointmentClient reschedule(Long clientId, Appointment target) {
+    YearMonth month = YearMonth.now();
+    AppointmentConfirmationRowDTO credit = appointmentClientRepository.findConfirmationRowsOfClientForUpdate(
+            clientId, AppointmentConfirmation.CANCELED_WITH_RESCHEDULING,
+            month.atDay(1).atStartOfDay(), month.plusMonths(2).atDay(1).atStartOfDay()).stream()
+        .findFirst()
+        .orElseThrow(() -> new AppointmentsException.InvalidConfirmationTransitionException(
+            "Para fazer a remarcação, primeiro cancele o atendimento desejado na aba \"Meus atendimentos\"."));
+
+    transition(List.of(credit), target, AppointmentConfirmation.RESCHEDULED);
+    return appointmentClientRepository.findById(credit.id()).orElseThrow();
+  }
+
+  /**
+   * Records the attendance of clients of an appointment with a single UPDATE.
+   * Only clients that take a place in the appointment are changed. Joins the
+   * current transaction.
+   *
+   * @param appointmentId the ID of the appointment.
+   * @param attendance    the attendance of each client, by client ID.
+   * @return the number of recorded clients, which is smaller than the size of
+   * {@code attendance} when a client is not in the appointment or is canceled.
+   */
+  public int recordAttendance(Long appointmentId, Map<Long, Boolean> attendance) {
+    return appointmentBatchRepository.updateAttendance(appointmentId, attendance);
+  }
+
+  /**
+   * Cancels whole classes, for instance when the physiotherapist cannot attend
+   * them: every confirmed or rescheduled client becomes
+   * CANCELED_WITH_RESCHEDULING and can book another class. Clients already
+   * canceled are left as they are.
+   *
+   * @param appointmentIds the IDs of the appointments.
+   * @return the number of canceled clients.
+   */
+  @Transactional
+  public int cancelClasses(Collection<Long> appointmentIds) {
+    return cancel(appointmentClientRepository.findConfirmationRowsForUpdate(appointmentIds));
+  }
+
+  /**
+   * Cancels every class of a day, for instance on a holiday, as in
+   * {@link #cancelClasses(Collection)}.
+   *
+   * @param date              the day.
+   * @param physiotherapistId the ID of the physiotherapist, or null to close
+   *                          the whole studio.
+   * @return the number of canceled clients.
+   */
+  @Transactional
+  public int cancelDay(LocalDate date, Long physiotherapistId) {
+    return cancel(appointmentClientRepository.findConfirmationRowsBetweenForUpdate(
+        date.atStartOfDay(), date.plusDays(1).atStartOfDay(), physiotherapistId));
+  }
+
+  private int cancel(List<AppointmentConfirmationRowDTO> rows) {
+    AppointmentConfirmation next = AppointmentConfirmation.CANCELED_WITH_RESCHEDULING;
+    return apply(rows.stream().filter(row -> row.confirmation().canMoveTo(next)).toList(), next);
+  }
+
+  /**
+   * Validates and writes a change of the given rows, in their own appointments
+   * or moved to {@code target}.
+   */
+  private int transition(Collection<AppointmentConfirmationRowDTO> rows, Appointment target,
+                         AppointmentConfirmation next) {
+    for (AppointmentConfirmationRowDTO row : rows) {
+      if (!row.confirmation().canMoveTo(next)) {
+        throw new AppointmentsException.InvalidConfirmationTransitionException(
+            "O atendimento " + row.appointmentId() + " do cliente " + row.clientId() + " está "
+                + row.confirmation() + " e não pode passar para " + next);
+      }
+    }
+    if (rows.isEmpty()) {
+      return 0;
+    }
+
+    List<Long> ids = rows.stream().map(AppointmentConfirmationRowDTO::id).toList();
+    List<Long> appointmentIds = new ArrayList<>(rows.stream().map(AppointmentConfirmationRowDTO::appointmentId).toList());
+    if (target == null) {
+      rows.forEach(row -> clientMonthQuotaService.changed(row.clientId(), row.dateTime(), row.confirmation(), next));
+      appointmentClientRepository.updateConfirmation(ids, next);
+    } else {
+      // a confirmação sai da cota do mês antigo e entra na do mês do novo atendimento
+      for (AppointmentConfirmationRowDTO row : rows) {
+        clientMonthQuotaService.changed(row.clientId(), row.dateTime(), row.confirmation(), null);
+        clientMonthQuotaService.changed(row.clientId(), target.getDateTime(), null, next);
+      }
+      appointmentClientRepository.moveConfirmation(ids, target, next);
+      appointmentIds.add(target.getId());
+    }
+
+    eventPublisher.publishEvent(AppointmentsChangedEvent.of(appointmentIds,
+        rows.stream().map(AppointmentConfirmationRowDTO::clientId).toList()));
+    return rows.size();
+  }
+}
@@ -0,0 +1,120 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.dto.appointment.AppointmentConflictDTO;
+import com.horafit.backend.dto.appointment.AppointmentConflictReportDTO;
+import com.horafit.backend.dto.appointment.AppointmentConflictRowDTO;
+import com.horafit.backend.repository.AppointmentRepository;
+import com.horafit.backend.util.DateTimeUtil;
+import com.horafit.backend.util.exception.appointment.AppointmentsException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Detects the collisions of a set of new appointments with the existing ones.
+ * Every date/time of a series is checked for the physiotherapist and for all
+ * clients with a single query, whatever the length of the series or the size
+ * of the group, and every collision is reported instead of only the first one.
+ */
+@Service
+public class AppointmentConflictDetector {
+  // IDs gerados começam em 1, então esta lista não corresponde a nenhum cliente
+  private static final List<Long> NO_CLIENTS = List.of(0L);
+  private static final int MESSAGE_CONFLICTS = 3;
+
+  @Autowired
+  private AppointmentRepository appointmentRepository;
+
+  /**
+   * Finds the existing appointments of the physiotherapist or of any of the
+   * clients at the given date/times.
+   *
+   * @param physiotherapistId the ID of the physiotherapist.
+   * @param clientIds         the IDs of the clients. May be empty.
+   * @param dateTimes         the date/times of the new appointments.
+   * @return an {@link AppointmentConflictReportDTO} with one conflict per
+   * existing appointment of the physiotherapist and one per existing appointment
+   * of each client, ordered by date/time.
+   */
+  public AppointmentConflictReportDTO detect(Long physiotherapistId, Collection<Long> clientIds,
+                                             Collection<LocalDateTime> dateTimes) {
+    Set<LocalDateTime> distinctDateTimes = new LinkedHashSet<>(dateTimes);
+    Set<Long> distinctClientIds = new LinkedHashSet<>(clientIds);
+    if (distinctDateTimes.isEmpty()) {
+      return new AppointmentConflictReportDTO(0, distinctClientIds.size(), List.of());
+    }
+
+    List<AppointmentConflictRowDTO> rows = appointmentRepository.findConflicts(
+        physiotherapistId,
+        distinctClientIds.isEmpty() ? NO_CLIENTS : distinctClientIds,
+        distinctDateTimes);
+
+    List<AppointmentConflictDTO> conflicts = new ArrayList<>();
+    Set<Long> physiotherapistAppointments = new HashSet<>();
+    for (AppointmentConflictRowDTO row : rows) {
+      if (row.physiotherapistId().equals(physiotherapistId) && physiotherapistAppointments.add(row.appointmentId())) {
+        conflicts.add(new AppointmentConflictDTO(AppointmentConflictDTO.Type.PHYSIOTHERAPIST, row.dateTime(),
+            row.appointmentId(), row.physiotherapistId(), row.physiotherapistName()));
+      }
+      if (row.clientId() != null) {
+        conflicts.add(new AppointmentConflictDTO(AppointmentConflictDTO.Type.CLIENT, row.dateTime(),
+            row.appointmentId(), row.clientId(), row.clientName()));
+      }
+    }
+
+    return new AppointmentConflictReportDTO(distinctDateTimes.size(), distinctClientIds.size(), conflicts);
+  }
+
+  /**
+   * Same as {@link #detect(Long, Collection, Collection)}, but fails if any
+   * conflict is found.
+   *
+   * @throws AppointmentsException.AppointmentConflictException with the full
+   * report if any conflict is found.
+   */
+  public void check(Long physiotherapistId, Collection<Long> clientIds, Collection<LocalDateTime> dateTimes) {
+    check(physiotherapistId, clientIds, dateTimes, Set.of());
+  }
+
+  /**
+   * Same as {@link #check(Long, Collection, Collection)}, but ignores the
+   * conflicts with the given appointments, such as the ones the clients are
+   * leaving in the same change.
+   *
+   * @throws AppointmentsException.AppointmentConflictException with the
+   * remaining conflicts if there is any.
+   */
+  public void check(Long physiotherapistId, Collection<Long> clientIds, Collection<LocalDateTime> dateTimes,
+                    Set<Long> ignoredAppointmentIds) {
+    AppointmentConflictReportDTO report = detect(physiotherapistId, clientIds, dateTimes);
+    if (!ignoredAppointmentIds.isEmpty()) {
+      report = new AppointmentConflictReportDTO(report.checkedDateTimes(), report.checkedClients(),
+          report.conflicts().stream()
+              .filter(conflict -> !ignoredAppointmentIds.contains(conflict.appointmentId()))
+              .toList());
+    }
+    if (report.hasConflicts()) {
+      throw new AppointmentsException.AppointmentConflictException(toMessage(report), report);
+    }
+  }
+
+  private String toMessage(AppointmentConflictReportDTO report) {
+    String details = report.conflicts().stream()
+        .limit(MESSAGE_CONFLICTS)
+        .map(conflict -> (conflict.type() == AppointmentConflictDTO.Type.PHYSIOTHERAPIST ? "fisioterapeuta " : "cliente ")
+            + conflict.name() + " em " + DateTimeUtil.formatDateTime(conflict.dateTime()))
+        .collect(Collectors.joining("; "));
+
+    int remaining = report.conflicts().size() - MESSAGE_CONFLICTS;
+    return "Já existe um atendimento agendado neste dia e horário para: " + details
+        + (remaining > 0 ? " e mais " + remaining + " conflito(s)." : ".");
+  }
+}
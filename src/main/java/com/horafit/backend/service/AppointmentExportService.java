@@ -0,0 +1,92 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.dto.appointment.AppointmentExportRowDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Exports appointments and their clients in a date/time window, writing each
+ * row to the output as soon as it is read from the database.
+ */
+@Service
+public class AppointmentExportService {
+  private static final String EXPORT_QUERY = "SELECT " +
+      "a.id, a.date_time, a.location, a.modality, a.physiotherapist_id, " +
+      "ac.client_id, ac.confirmation, ac.attendance " +
+      "FROM horafit.appointment AS a " +
+      "LEFT JOIN horafit.appointment_client AS ac ON ac.appointment_id = a.id " +
+      "WHERE a.date_time >= ? AND a.date_time < ? " +
+      "ORDER BY a.date_time, a.id";
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  /**
+   * Fetch size of the export statement. The default, {@link Integer#MIN_VALUE},
+   * makes MySQL Connector/J stream the result set row by row. A positive value
+   * only fetches in chunks when the connection URL has {@code useCursorFetch=true}.
+   */
+  @Value("${horafit.export.fetch-size:" + Integer.MIN_VALUE + "}")
+  private int fetchSize;
+
+  /**
+   * Writes every appointment scheduled in the window to the given output stream,
+   * one row per appointment-client pair. Appointments without clients produce a
+   * single row with empty client fields.
+   *
+   * @param from   the inclusive start of the window.
+   * @param to     the exclusive end of the window.
+   * @param format the output format.
+   * @param out    the stream the rows are written to.
+   * @return the number of rows written.
+   */
+  public long export(LocalDateTime from, LocalDateTime to, AppointmentExportWriter.Format format, OutputStream out)
+      throws IOException {
+    try (AppointmentExportWriter writer = new AppointmentExportWriter(format, out)) {
+      jdbcTemplate.query(connection -> {
+        PreparedStatement statement = connection.prepareStatement(
+            EXPORT_QUERY, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(fetchSize);
+        statement.setTimestamp(1, Timestamp.valueOf(from));
+        statement.setTimestamp(2, Timestamp.valueOf(to));
+        return statement;
+      }, (RowCallbackHandler) resultSet -> {
+        try {
+          writer.write(toRow(resultSet));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      return writer.getRowCount();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private AppointmentExportRowDTO toRow(ResultSet resultSet) throws SQLException {
+    long clientId = resultSet.getLong("client_id");
+    boolean hasClient = !resultSet.wasNull();
+
+    return new AppointmentExportRowDTO(
+        resultSet.getLong("id"),
+        resultSet.getTimestamp("date_time").toLocalDateTime(),
+        resultSet.getString("location"),
+        resultSet.getString("modality"),
+        resultSet.getLong("physiotherapist_id"),
+        hasClient ? clientId : null,
+        hasClient ? resultSet.getString("confirmation") : null,
+        hasClient ? resultSet.getBoolean("attendance") : null);
+  }
+}
@@ -0,0 +1,138 @@
+package com.horafit.backend.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.horafit.backend.dto.appointment.AppointmentExportRowDTO;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes {@link AppointmentExportRowDTO} rows to an output stream, one row at a
+ * time. Nothing is kept in memory besides the output buffer, so the memory used
+ * does not depend on the number of rows exported.
+ */
+public class AppointmentExportWriter implements Closeable {
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  private static final String CSV_HEADER =
+      "appointment_id,date_time,location,modality,physiotherapist_id,client_id,confirmation,attendance";
+
+  public enum Format {
+    NDJSON("ndjson", MediaType.parseMediaType("application/x-ndjson")),
+    CSV("csv", MediaType.parseMediaType("text/csv"));
+
+    private final String extension;
+    private final MediaType mediaType;
+
+    Format(String extension, MediaType mediaType) {
+      this.extension = extension;
+      this.mediaType = mediaType;
+    }
+
+    public String getExtension() {
+      return extension;
+    }
+
+    public MediaType getMediaType() {
+      return mediaType;
+    }
+
+    public static Format fromParameter(String format) {
+      for (Format value : values()) {
+        if (value.extension.equalsIgnoreCase(format)) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("Formato de exportação inválido: " + format);
+    }
+  }
+
+  private final Format format;
+  private final Writer writer;
+  private final JsonGenerator generator;
+  private long rowCount;
+
+  public AppointmentExportWriter(Format format, OutputStream out) throws IOException {
+    this.format = format;
+    this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+    if (format == Format.NDJSON) {
+      this.generator = JSON_FACTORY.createGenerator(writer);
+      this.generator.setRootValueSeparator(null);
+    } else {
+      this.generator = null;
+      this.writer.write(CSV_HEADER);
+      this.writer.write('\n');
+    }
+  }
+
+  public void write(AppointmentExportRowDTO row) throws IOException {
+    if (format == Format.NDJSON) {
+      writeJson(row);
+    } else {
+      writeCsv(row);
+    }
+    rowCount++;
+  }
+
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  private void writeJson(AppointmentExportRowDTO row) throws IOException {
+    generator.writeStartObject();
+    generator.writeNumberField("appointmentId", row.appointmentId());
+    generator.writeStringField("dateTime", row.dateTime().toString());
+    generator.writeStringField("location", row.location());
+    generator.writeStringField("modality", row.modality());
+    generator.writeNumberField("physiotherapistId", row.physiotherapistId());
+    if (row.clientId() != null) {
+      generator.writeNumberField("clientId", row.clientId());
+      generator.writeStringField("confirmation", row.confirmation());
+      generator.writeBooleanField("attendance", Boolean.TRUE.equals(row.attendance()));
+    } else {
+      generator.writeNullField("clientId");
+      generator.writeNullField("confirmation");
+      generator.writeNullField("attendance");
+    }
+    generator.writeEndObject();
+    generator.writeRaw('\n');
+  }
+
+  private void writeCsv(AppointmentExportRowDTO row) throws IOException {
+    writer.write(String.valueOf(row.appointmentId()));
+    writer.write(',');
+    writer.write(row.dateTime().toString());
+    writer.write(',');
+    writer.write(row.location());
+    writer.write(',');
+    writer.write(row.modality());
+    writer.write(',');
+    writer.write(String.valueOf(row.physiotherapistId()));
+    writer.write(',');
+    if (row.clientId() != null) {
+      writer.write(String.valueOf(row.clientId()));
+      writer.write(',');
+      writer.write(row.confirmation());
+      writer.write(',');
+      writer.write(Boolean.TRUE.equals(row.attendance()) ? "1" : "0");
+    } else {
+      writer.write(",,");
+    }
+    writer.write('\n');
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (generator != null) {
+      generator.close();
+    }
+    writer.close();
+  }
+}
@@ -0,0 +1,60 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.dto.appointment.OccupancyConsistencyReportDTO;
+import com.horafit.backend.entity.Appointment;
+import com.horafit.backend.repository.AppointmentRepository;
+import com.horafit.backend.util.AppointmentCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compares the {@link AppointmentOccupancyIndex} with the result of the native
+ * {@code AppointmentRepository.findAvailable} query, which is the reference
+ * implementation of the availability rules.
+ */
+@Service
+public class AppointmentOccupancyConsistencyChecker {
+  @Autowired
+  private AppointmentOccupancyIndex appointmentOccupancyIndex;
+
+  @Autowired
+  private AppointmentRepository appointmentRepository;
+
+  @Autowired
+  private AppointmentCapacityService appointmentCapacityService;
+
+  /**
+   * Checks whether the index and the database agree on the appointments
+   * available to a client.
+   * Appointments starting while the check runs may show up as differences.
+   *
+   * @param clientId the ID of the client.
+   * @return an {@link OccupancyConsistencyReportDTO} with the appointments found
+   * by only one of the two sides.
+   */
+  public OccupancyConsistencyReportDTO check(Long clientId) {
+    Set<Long> fromDatabase = new LinkedHashSet<>();
+    for (Appointment appointment : appointmentRepository.findAvailable(clientId)) {
+      fromDatabase.add(appointment.getId());
+    }
+
+    Set<Long> fromIndex = new LinkedHashSet<>(appointmentOccupancyIndex.findAvailable(clientId,
+        appointmentCapacityService.findClientLimit(clientId),
+        AppointmentCursor.startingAt(LocalDateTime.now()), AppointmentCursor.MAX_DATE_TIME, Integer.MAX_VALUE));
+
+    List<Long> missingFromIndex = fromDatabase.stream().filter(id -> !fromIndex.contains(id)).toList();
+    List<Long> unexpectedInIndex = fromIndex.stream().filter(id -> !fromDatabase.contains(id)).toList();
+
+    return new OccupancyConsistencyReportDTO(
+        clientId,
+        appointmentOccupancyIndex.isReady() && missingFromIndex.isEmpty() && unexpectedInIndex.isEmpty(),
+        appointmentOccupancyIndex.size(),
+        missingFromIndex,
+        unexpectedInIndex);
+  }
+}
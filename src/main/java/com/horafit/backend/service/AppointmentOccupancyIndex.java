@@ -0,0 +1,273 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.dto.appointment.AppointmentOccupancyRowDTO;
+import com.horafit.backend.entity.enums.AppointmentConfirmation;
+import com.horafit.backend.repository.AppointmentClientRepository;
+import com.horafit.backend.util.AppointmentCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of the occupancy of future appointments, used to answer the
+ * "available appointments" query without going to the database.
+ * For each appointment it keeps the number of confirmed or rescheduled clients,
+ * the smallest group limit among their rules and the IDs of all its clients. It is loaded from the database when the
+ * application starts and refreshed after every {@link AppointmentsChangedEvent}.
+ * As in {@code AppointmentRepository.findAvailable}, appointments without any
+ * client are not indexed and therefore never available.
+ * Refreshes of the same appointment, and a rebuild with any refresh, are
+ * serialized, so that a snapshot read before a change is never applied after
+ * the snapshot read after it.
+ */
+@Component
+public class AppointmentOccupancyIndex {
+  private static final Logger log = LoggerFactory.getLogger(AppointmentOccupancyIndex.class);
+
+  private static final Comparator<AppointmentCursor> TIMELINE_ORDER = Comparator
+      .comparing(AppointmentCursor::dateTime)
+      .thenComparing(AppointmentCursor::id);
+  private static final int REFRESH_LOCK_STRIPES = 64;
+
+  @Autowired
+  private AppointmentClientRepository appointmentClientRepository;
+
+  private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+  private final ConcurrentSkipListSet<AppointmentCursor> timeline = new ConcurrentSkipListSet<>(TIMELINE_ORDER);
+  private final Set<Long> pendingRefresh = ConcurrentHashMap.newKeySet();
+  private final ReentrantLock[] refreshLocks = Stream.generate(ReentrantLock::new)
+      .limit(REFRESH_LOCK_STRIPES)
+      .toArray(ReentrantLock[]::new);
+  private volatile boolean ready;
+
+  /**
+   * Occupancy of a single appointment.
+   *
+   * @param appointmentId the ID of the appointment.
+   * @param dateTime      the date and time of the appointment.
+   * @param occupied      the number of confirmed or rescheduled clients.
+   * @param memberLimit   the smallest group limit among the rules of the
+   *                      confirmed or rescheduled clients, or null.
+   * @param clientIds     the IDs of all clients of the appointment, whatever
+   *                      their confirmation.
+   */
+  public record Slot(Long appointmentId, LocalDateTime dateTime, int occupied, Integer memberLimit,
+                     Set<Long> clientIds) {
+    AppointmentCursor position() {
+      return new AppointmentCursor(dateTime, appointmentId);
+    }
+  }
+
+  /**
+   * Loads the occupancy of every future appointment from the database. Changes
+   * published while the index is loading are applied right after.
+   * Holds every refresh lock from the read until the new snapshot is in place,
+   * so that a refresh running at the same time is neither overwritten by an
+   * older snapshot nor applied on top of a newer one.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    ready = false;
+    int loadedSize;
+    List<ReentrantLock> locked = lock(allStripes());
+    try {
+      Map<Long, Slot> loaded = toSlots(appointmentClientRepository.findOccupancyRowsFrom(LocalDateTime.now()));
+
+      slots.clear();
+      timeline.clear();
+      for (Slot slot : loaded.values()) {
+        slots.put(slot.appointmentId(), slot);
+        timeline.add(slot.position());
+      }
+      ready = true;
+      loadedSize = loaded.size();
+    } finally {
+      locked.forEach(ReentrantLock::unlock);
+    }
+    log.info("Índice de ocupação carregado com {} atendimentos futuros", loadedSize);
+
+    Set<Long> pending = new HashSet<>(pendingRefresh);
+    pendingRefresh.removeAll(pending);
+    refresh(pending);
+  }
+
+  /**
+   * Refreshes the appointments affected by a change once its transaction is
+   * committed, or right away when there is no transaction.
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onAppointmentsChanged(AppointmentsChangedEvent event) {
+    if (!ready) {
+      pendingRefresh.addAll(event.appointmentIds());
+      return;
+    }
+    refresh(event.appointmentIds());
+  }
+
+  /**
+   * Reloads the occupancy of the given appointments from the database. Deleted
+   * appointments and appointments left without clients are removed.
+   * The read and the update hold the locks of the given appointments, taken in
+   * stripe order; a concurrent refresh of any of them waits and then reads
+   * the newer state.
+   *
+   * @param appointmentIds the IDs of the appointments to reload.
+   */
+  public void refresh(Collection<Long> appointmentIds) {
+    if (appointmentIds.isEmpty()) {
+      return;
+    }
+
+    SortedSet<Integer> stripes = new TreeSet<>();
+    for (Long appointmentId : appointmentIds) {
+      stripes.add(Math.floorMod(appointmentId.hashCode(), REFRESH_LOCK_STRIPES));
+    }
+    List<ReentrantLock> locked = lock(stripes);
+    try {
+      Map<Long, Slot> loaded = toSlots(appointmentClientRepository.findOccupancyRowsByAppointmentIds(appointmentIds));
+      for (Long appointmentId : appointmentIds) {
+        Slot slot = loaded.get(appointmentId);
+        slots.compute(appointmentId, (id, previous) -> {
+          if (previous != null) {
+            timeline.remove(previous.position());
+          }
+          if (slot != null) {
+            timeline.add(slot.position());
+          }
+          return slot;
+        });
+      }
+    } finally {
+      locked.forEach(ReentrantLock::unlock);
+    }
+  }
+
+  public boolean isReady() {
+    return ready;
+  }
+
+  public int size() {
+    return slots.size();
+  }
+
+  public Slot get(Long appointmentId) {
+    return slots.get(appointmentId);
+  }
+
+  /**
+   * Finds the future appointments a client can join, in {@code (date_time, id)}
+   * order, starting right after the given position. No query is executed.
+   *
+   * @param clientId    the ID of the client.
+   * @param clientLimit the group limit of the rules of the client, or null.
+   * @param after       the position after which the scan starts.
+   * @param to          the exclusive upper bound of the date/time window.
+   * @param limit       the maximum number of appointment IDs returned.
+   * @return the IDs of the available appointments.
+   * @see AppointmentCapacityService#resolveLimit(Integer, Integer)
+   */
+  public List<Long> findAvailable(Long clientId, Integer clientLimit, AppointmentCursor after, LocalDateTime to,
+                                  int limit) {
+    LocalDateTime now = LocalDateTime.now();
+    AppointmentCursor start = after.dateTime().isBefore(now) ? AppointmentCursor.startingAt(now) : after;
+
+    List<Long> available = new ArrayList<>();
+    for (AppointmentCursor position : timeline.tailSet(start, false)) {
+      if (!position.dateTime().isBefore(to) || available.size() >= limit) {
+        break;
+      }
+
+      Slot slot = slots.get(position.id());
+      if (slot != null && !slot.clientIds().contains(clientId)
+          && slot.occupied() < AppointmentCapacityService.resolveLimit(slot.memberLimit(), clientLimit)) {
+        available.add(slot.appointmentId());
+      }
+    }
+
+    evictBefore(now);
+    return available;
+  }
+
+  private SortedSet<Integer> allStripes() {
+    SortedSet<Integer> stripes = new TreeSet<>();
+    for (int stripe = 0; stripe < REFRESH_LOCK_STRIPES; stripe++) {
+      stripes.add(stripe);
+    }
+    return stripes;
+  }
+
+  /**
+   * Takes the refresh locks of the given stripes in ascending order, the same
+   * order for every caller, so that two callers never wait on each other.
+   */
+  private List<ReentrantLock> lock(SortedSet<Integer> stripes) {
+    List<ReentrantLock> locked = new ArrayList<>();
+    for (int stripe : stripes) {
+      refreshLocks[stripe].lock();
+      locked.add(refreshLocks[stripe]);
+    }
+    return locked;
+  }
+
+  private void evictBefore(LocalDateTime now) {
+    for (AppointmentCursor position : timeline.headSet(AppointmentCursor.startingAt(now))) {
+      slots.computeIfPresent(position.id(), (id, slot) -> {
+        if (!slot.position().equals(position)) {
+          return slot;
+        }
+        timeline.remove(position);
+        return null;
+      });
+    }
+  }
+
+  private Map<Long, Slot> toSlots(List<AppointmentOccupancyRowDTO> rows) {
+    Map<Long, List<AppointmentOccupancyRowDTO>> rowsByAppointment = new HashMap<>();
+    for (AppointmentOccupancyRowDTO row : rows) {
+      rowsByAppointment.computeIfAbsent(row.appointmentId(), id -> new ArrayList<>()).add(row);
+    }
+
+    Map<Long, Slot> result = new HashMap<>();
+    for (Map.Entry<Long, List<AppointmentOccupancyRowDTO>> entry : rowsByAppointment.entrySet()) {
+      int occupied = 0;
+      Integer memberLimit = null;
+      Set<Long> clientIds = new HashSet<>();
+      for (AppointmentOccupancyRowDTO row : entry.getValue()) {
+        if (row.clientId() != null) {
+          clientIds.add(row.clientId());
+        }
+        if (row.confirmation() == AppointmentConfirmation.CONFIRMED
+            || row.confirmation() == AppointmentConfirmation.RESCHEDULED) {
+          occupied++;
+          if (row.maxClientsPerGroup() != null) {
+            memberLimit = memberLimit == null ? row.maxClientsPerGroup() : Math.min(memberLimit, row.maxClientsPerGroup());
+          }
+        }
+      }
+
+      LocalDateTime dateTime = entry.getValue().get(0).dateTime();
+      result.put(entry.getKey(), new Slot(entry.getKey(), dateTime, occupied, memberLimit, Set.copyOf(clientIds)));
+    }
+    return result;
+  }
+}
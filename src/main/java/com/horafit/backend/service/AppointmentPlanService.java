@@ -0,0 +1,258 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.dto.appointment.AppointmentEditBatchDTO;
+import com.horafit.backend.dto.appointment.AppointmentPlanDiffDTO;
+import com.horafit.backend.entity.Appointment;
+import com.horafit.backend.entity.AppointmentClient;
+import com.horafit.backend.entity.Client;
+import com.horafit.backend.entity.Physiotherapist;
+import com.horafit.backend.entity.RecurringSeries;
+import com.horafit.backend.entity.enums.AppointmentConfirmation;
+import com.horafit.backend.entity.enums.AppointmentLocation;
+import com.horafit.backend.entity.enums.AppointmentModality;
+import com.horafit.backend.repository.AppointmentBatchRepository;
+import com.horafit.backend.repository.AppointmentClientRepository;
+import com.horafit.backend.repository.AppointmentRepository;
+import com.horafit.backend.repository.ClientRepository;
+import com.horafit.backend.util.DateTimeUtil;
+import com.horafit.backend.util.exception.client.ClientException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Changes the weekly plan of a client in a modality by comparing the future
+ * occurrences the client already has with the ones the new plan generates.
+ * Occurrences with the same physiotherapist and date/time are kept as they
+ * are; an occurrence leaving the plan is moved to a new one of the same week
+ * when there is one, and detached otherwise; the remaining new occurrences are
+ * inserted. Past appointments are never read or changed, and appointments are
+ * only deleted when they are left without clients.
+ * For an open-ended plan ("Sempre") the client keeps the {@link RecurringSeries}
+ * that still match the plan and joins new ones for the other days and times,
+ * whose occurrences are planned only up to the horizon of
+ * {@link RecurringSeriesService}.
+ * Every write is done in batches, in a single transaction.
+ */
+@Service
+public class AppointmentPlanService {
+  @Autowired
+  private AppointmentClientRepository appointmentClientRepository;
+
+  @Autowired
+  private AppointmentRepository appointmentRepository;
+
+  @Autowired
+  private AppointmentBatchRepository appointmentBatchRepository;
+
+  @Autowired
+  private ClientRepository clientRepository;
+
+  @Autowired
+  private PhysiotherapistService physiotherapistService;
+
+  @Autowired
+  private AppointmentConflictDetector appointmentConflictDetector;
+
+  @Autowired
+  private AppointmentCapacityService appointmentCapacityService;
+
+  @Autowired
+  private RecurringSeriesService recurringSeriesService;
+
+  @Autowired
+  private ClientMonthQuotaService clientMonthQuotaService;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  /**
+   * Applies a new weekly plan to the future appointments of a client.
+   *
+   * @param plan     the new plan: modality, physiotherapist, location,
+   *                 repetition and the times of each day of the week, with the
+   *                 days named as in {@link DateTimeUtil#dayName(DayOfWeek)}.
+   * @param clientId the ID of the client.
+   * @return how many occurrences were kept, inserted, moved and detached.
+   * @throws ClientException.ClientNotFoundException if the client does not
+   * exist.
+   * @throws com.horafit.backend.util.exception.appointment.AppointmentsException.AppointmentConflictException
+   * if the physiotherapist or the client already has another appointment at a
+   * new date/time.
+   */
+  @Transactional
+  public AppointmentPlanDiffDTO applyPlan(AppointmentEditBatchDTO plan, Long clientId) {
+    AppointmentModality modality = AppointmentModality.valueOf(plan.getModality().toUpperCase());
+    // primeira leitura da transação: espera o job terminar com as séries do cliente e
+    // as leituras seguintes já veem as ocorrências que ele criou
+    List<RecurringSeries> currentSeries = new ArrayList<>(
+        recurringSeriesService.lockByClientIdAndModality(clientId, modality));
+
+    Client client = clientRepository.findById(clientId)
+        .orElseThrow(() -> new ClientException.ClientNotFoundException("Cliente não encontrado"));
+    Physiotherapist physiotherapist = physiotherapistService.findById(plan.getPhysiotherapistId());
+    AppointmentLocation location = AppointmentLocation.valueOf(plan.getLocation().toUpperCase());
+
+    LocalDateTime now = LocalDateTime.now();
+    Set<LocalDateTime> planned = new TreeSet<>();
+    List<LocalDateTime> newSeries = new ArrayList<>();
+    List<RecurringSeries> keptSeries = new ArrayList<>();
+    if (PhysiotherapistService.isOpenEnded(plan.getRepetir())) {
+      LocalDateTime horizon = recurringSeriesService.horizon(now);
+      for (LocalDateTime first : firstOccurrences(plan, now)) {
+        RecurringSeries series = currentSeries.stream()
+            .filter(candidate -> matches(candidate, physiotherapist, first))
+            .findFirst()
+            .orElse(null);
+        if (series != null) {
+          // série mantida: as ocorrências existentes ficam e as próximas são criadas pelo job
+          currentSeries.remove(series);
+          keptSeries.add(series);
+        } else {
+          newSeries.add(first);
+          planned.addAll(RecurringSeriesService.occurrences(first, horizon));
+        }
+      }
+    } else {
+      int weeks = PhysiotherapistService.seriesLength(plan.getRepetir());
+      for (LocalDateTime first : firstOccurrences(plan, now)) {
+        for (int i = 0; i < weeks; i++) {
+          planned.add(first.plusWeeks(i));
+        }
+      }
+    }
+
+    List<AppointmentClient> leaving = new ArrayList<>();
+    Set<LocalDateTime> kept = new HashSet<>();
+    for (AppointmentClient current : appointmentClientRepository.findByClientIdAndModalityAfter(clientId, modality, now)) {
+      Appointment appointment = current.getAppointment();
+      LocalDateTime dateTime = appointment.getDateTime();
+      if (appointment.getPhysiotherapist().getId().equals(physiotherapist.getId())
+          && (planned.contains(dateTime) || keptSeries.stream().anyMatch(series -> matches(series, physiotherapist, dateTime)))
+          && kept.add(dateTime)) {
+        continue;
+      }
+      leaving.add(current);
+    }
+
+    List<LocalDateTime> added = planned.stream().filter(dateTime -> !kept.contains(dateTime)).toList();
+    Set<Long> leftAppointmentIds = new HashSet<>();
+    leaving.forEach(appointmentClient -> leftAppointmentIds.add(appointmentClient.getAppointment().getId()));
+
+    if (!added.isEmpty()) {
+      // os atendimentos que o cliente está deixando não são conflito
+      appointmentConflictDetector.check(physiotherapist.getId(), List.of(clientId), added, leftAppointmentIds);
+      appointmentCapacityService.checkNewGroup(List.of(client));
+    }
+
+    List<Appointment> newAppointments = new ArrayList<>(added.size());
+    for (LocalDateTime dateTime : added) {
+      Appointment appointment = new Appointment();
+      appointment.setDateTime(dateTime);
+      appointment.setPhysiotherapist(physiotherapist);
+      appointment.setModality(modality);
+      appointment.setLocation(location);
+      newAppointments.add(appointment);
+    }
+    appointmentBatchRepository.insertAppointments(newAppointments);
+
+    // ocorrências que saem do plano vão para uma nova ocorrência da mesma semana, se houver
+    Map<LocalDate, Deque<AppointmentClient>> leavingByWeek = new HashMap<>();
+    for (AppointmentClient appointmentClient : leaving) {
+      leavingByWeek.computeIfAbsent(weekOf(appointmentClient.getAppointment().getDateTime()),
+          week -> new ArrayDeque<>()).add(appointmentClient);
+    }
+
+    List<AppointmentClient> moved = new ArrayList<>();
+    List<AppointmentClient> inserted = new ArrayList<>();
+    for (Appointment appointment : newAppointments) {
+      Deque<AppointmentClient> sameWeek = leavingByWeek.get(weekOf(appointment.getDateTime()));
+      AppointmentClient previous = sameWeek != null ? sameWeek.poll() : null;
+
+      // cópias: as entidades carregadas não são alteradas, para não serem regravadas no flush
+      AppointmentClient appointmentClient = new AppointmentClient();
+      appointmentClient.setId(previous != null ? previous.getId() : null);
+      appointmentClient.setAppointment(appointment);
+      appointmentClient.setClient(client);
+      appointmentClient.setConfirmation(AppointmentConfirmation.CONFIRMED);
+      appointmentClient.setAttendance(true);
+      (previous != null ? moved : inserted).add(appointmentClient);
+    }
+
+    List<Long> detached = new ArrayList<>();
+    leavingByWeek.values().forEach(remaining -> remaining.forEach(appointmentClient -> detached.add(appointmentClient.getId())));
+
+    // séries que não correspondem mais ao plano seguem sem o cliente
+    currentSeries.forEach(series -> recurringSeriesService.removeClient(series, clientId));
+    for (LocalDateTime first : newSeries) {
+      LocalDateTime next = first;
+      while (planned.contains(next)) {
+        next = next.plusWeeks(1);
+      }
+      recurringSeriesService.create(physiotherapist, modality, location, next, List.of(clientId));
+    }
+
+    // as confirmações de quem sai (remarcado, cancelado) deixam de contar na cota; quem entra volta confirmado
+    leaving.forEach(appointmentClient -> clientMonthQuotaService.changed(clientId,
+        appointmentClient.getAppointment().getDateTime(), appointmentClient.getConfirmation(), null));
+
+    appointmentBatchRepository.moveAppointmentClients(moved);
+    appointmentBatchRepository.insertAppointmentClients(inserted);
+    if (!detached.isEmpty()) {
+      appointmentClientRepository.deleteByIds(detached);
+    }
+    if (!leftAppointmentIds.isEmpty()) {
+      appointmentRepository.deleteWithoutClientsByIds(leftAppointmentIds);
+    }
+
+    Set<Long> changedAppointmentIds = new LinkedHashSet<>(leftAppointmentIds);
+    newAppointments.forEach(appointment -> changedAppointmentIds.add(appointment.getId()));
+    if (!changedAppointmentIds.isEmpty()) {
+      eventPublisher.publishEvent(AppointmentsChangedEvent.of(changedAppointmentIds, List.of(clientId)));
+    }
+
+    return new AppointmentPlanDiffDTO(kept.size(), inserted.size(), moved.size(), detached.size());
+  }
+
+  /**
+   * First occurrence after {@code now} of each day and time of a plan.
+   */
+  static List<LocalDateTime> firstOccurrences(AppointmentEditBatchDTO plan, LocalDateTime now) {
+    List<LocalDateTime> dateTimes = new ArrayList<>();
+    for (Map.Entry<String, List<LocalTime>> entry : plan.getDaysAndTimes().entrySet()) {
+      DayOfWeek day = DateTimeUtil.parseDayName(entry.getKey());
+      for (LocalTime time : entry.getValue()) {
+        LocalDateTime first = now.toLocalDate().with(TemporalAdjusters.nextOrSame(day)).atTime(time);
+        dateTimes.add(first.isAfter(now) ? first : first.plusWeeks(1));
+      }
+    }
+    return dateTimes;
+  }
+
+  private static boolean matches(RecurringSeries series, Physiotherapist physiotherapist, LocalDateTime first) {
+    return series.getPhysiotherapist().getId().equals(physiotherapist.getId())
+        && series.getDayOfWeek() == first.getDayOfWeek().getValue()
+        && series.getStartTime().equals(first.toLocalTime());
+  }
+
+  private static LocalDate weekOf(LocalDateTime dateTime) {
+    return dateTime.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+  }
+}
@@ -0,0 +1,112 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.dto.appointment.AppointmentClientDTO;
+import com.horafit.backend.dto.appointment.AppointmentClientRowDTO;
+import com.horafit.backend.dto.appointment.AppointmentGetDTO;
+import com.horafit.backend.dto.appointment.AppointmentPhysiotherapistDTO;
+import com.horafit.backend.entity.Appointment;
+import com.horafit.backend.repository.AppointmentClientRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds {@link AppointmentGetDTO} responses for a list of appointments using a
+ * fixed number of queries.
+ * The appointments are loaded by the caller, and every {@link AppointmentClientRowDTO}
+ * belonging to them is fetched in a single query and joined in memory by
+ * appointment ID.
+ */
+@Service
+public class AppointmentProjectionService {
+  @Autowired
+  private AppointmentClientRepository appointmentClientRepository;
+
+  /**
+   * Converts a list of appointments to {@link AppointmentGetDTO} objects,
+   * including every client associated with each appointment.
+   *
+   * @param appointments the appointments to be converted, in the order they
+   *                     should be returned. Duplicates are removed.
+   * @return a list of {@link AppointmentGetDTO} objects in the same order as the
+   * given appointments.
+   */
+  public List<AppointmentGetDTO> toGetDTOs(List<Appointment> appointments) {
+    return toGetDTOs(appointments, null);
+  }
+
+  /**
+   * Converts a list of appointments to {@link AppointmentGetDTO} objects,
+   * including only the given client in the list of clients of each appointment.
+   *
+   * @param appointments the appointments to be converted.
+   * @param clientId     the ID of the client to keep in the client lists.
+   * @return a list of {@link AppointmentGetDTO} objects in the same order as the
+   * given appointments.
+   */
+  public List<AppointmentGetDTO> toGetDTOsForClient(List<Appointment> appointments, Long clientId) {
+    return toGetDTOs(appointments, clientId);
+  }
+
+  private List<AppointmentGetDTO> toGetDTOs(List<Appointment> appointments, Long clientId) {
+    Map<Long, Appointment> appointmentsById = new LinkedHashMap<>();
+    for (Appointment appointment : appointments) {
+      appointmentsById.putIfAbsent(appointment.getId(), appointment);
+    }
+
+    if (appointmentsById.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<AppointmentClientRowDTO> rows = appointmentClientRepository.findRowsByAppointmentIds(appointmentsById.keySet());
+
+    return assemble(appointmentsById.values(), rows, clientId);
+  }
+
+  /**
+   * Joins appointments and their client rows in memory. No query is executed by
+   * this method.
+   *
+   * @param appointments the appointments to be converted.
+   * @param rows         the client rows of the given appointments, in any order.
+   * @param clientId     if not null, only rows of this client are kept.
+   * @return a list of {@link AppointmentGetDTO} objects in the same order as the
+   * given appointments.
+   */
+  static List<AppointmentGetDTO> assemble(Iterable<Appointment> appointments, List<AppointmentClientRowDTO> rows,
+                                          Long clientId) {
+    Map<Long, List<AppointmentClientDTO>> clientsByAppointment = new HashMap<>();
+    for (AppointmentClientRowDTO row : rows) {
+      if (clientId != null && !clientId.equals(row.clientId())) {
+        continue;
+      }
+
+      clientsByAppointment
+          .computeIfAbsent(row.appointmentId(), id -> new ArrayList<>())
+          .add(new AppointmentClientDTO(row.clientId(), row.name(), row.confirmation(), row.attendance()));
+    }
+
+    List<AppointmentGetDTO> result = new ArrayList<>();
+    for (Appointment appointment : appointments) {
+      AppointmentPhysiotherapistDTO physiotherapist = new AppointmentPhysiotherapistDTO(
+          appointment.getPhysiotherapist().getId(),
+          appointment.getPhysiotherapist().getName());
+
+      result.add(new AppointmentGetDTO(
+          appointment.getId(),
+          appointment.getDateTime(),
+          appointment.getLocation(),
+          appointment.getModality(),
+          physiotherapist,
+          clientsByAppointment.getOrDefault(appointment.getId(), new ArrayList<>())));
+    }
+
+    return result;
+  }
+}
@@ -2,24 +2,24 @@ package com.horafit.backend.service;
 
 import com.horafit.backend.dto.appointmentRules.CanRescheduleDTO;
 import com.horafit.backend.entity.Appointment;
-import com.horafit.backend.entity.AppointmentClient;
-import com.horafit.backend.entity.enums.AppointmentConfirmation;
-import com.horafit.backend.repository.AppointmentClientRepository;
+import com.horafit.backend.entity.ClientMonthQuota;
 import com.horafit.backend.repository.AppointmentRepository;
+import com.horafit.backend.config.CacheConfiguration;
+import com.horafit.backend.security.SessionPrincipal;
+import com.horafit.backend.util.DateTimeUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import com.horafit.backend.dto.appointmentRules.AppointmentRulesDTO;
 import com.horafit.backend.entity.AppointmentRules;
-import com.horafit.backend.entity.Client;
 import com.horafit.backend.repository.AppointmentRulesRepository;
 import com.horafit.backend.repository.ClientRepository;
 import jakarta.persistence.EntityNotFoundException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.TextStyle;
+import java.time.YearMonth;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.Locale;
 
 @Service
 public class AppointmentRulesService {
@@ -33,8 +33,9 @@ public class AppointmentRulesService {
   ClientRepository clientRepository;
 
   @Autowired
-  AppointmentClientRepository appointmentClientRepository;
+  ClientMonthQuotaService clientMonthQuotaService;
 
+  @CacheEvict(value = CacheConfiguration.APPOINTMENT_RULES, allEntries = true)
   public AppointmentRules register(AppointmentRulesDTO obj) {
     AppointmentRules rule = new AppointmentRules();
 
@@ -52,12 +53,29 @@ public class AppointmentRulesService {
         .orElseThrow(() -> new EntityNotFoundException("Regra de agendamento não encontrado para o id: " + id));
   }
 
+  /**
+   * Finds the appointment rules of a client. When the request was made by the
+   * client itself with a session token, the rules come from the token and the
+   * cache, without reading the client.
+   *
+   * @param clientId the ID of the client.
+   * @return the rules of the client, or null if it has none.
+   * @throws EntityNotFoundException if the client does not exist.
+   */
+  public AppointmentRules findByClientId(Long clientId) {
+    return SessionPrincipal.currentClient(clientId)
+        .filter(principal -> principal.appointmentRulesId() != null)
+        .map(principal -> findById(principal.appointmentRulesId()))
+        .orElseGet(() -> clientRepository.findById(clientId)
+            .orElseThrow(() -> new EntityNotFoundException("Client not found"))
+            .getAppointmentRules());
+  }
+
   public CanRescheduleDTO canAppointmedBeRescheduled(Long appointmentId, Long clientId) {
     Appointment appointment = appointmentRepository.findById(appointmentId)
         .orElseThrow(() -> new EntityNotFoundException("Appointment not found"));
 
-    Client client = clientRepository.findById(clientId)
-        .orElseThrow(() -> new EntityNotFoundException("Client not found"));
+    AppointmentRules appointmentRules = findByClientId(clientId);
 
     // verifica quantas horas até o atendimento, compara com o número
     // mínimo de horas de antecedência para o cancelamento poder ser remarcado
@@ -65,29 +83,27 @@ public class AppointmentRulesService {
 
     // retorna dto com false caso esse limite seja inferior
     if (hoursUntilAppointment
-        <= client.getAppointmentRules().getReeschedulingMinHoursInAdvance()) {
+        <= appointmentRules.getReeschedulingMinHoursInAdvance()) {
       return new CanRescheduleDTO(
           false,
           "min_rescheduling_hours_in_advance_reached",
           "Este a tendimento ocorrerá em menos de " +
-              client.getAppointmentRules().getReeschedulingMinHoursInAdvance() + " horas. " +
+              appointmentRules.getReeschedulingMinHoursInAdvance() + " horas. " +
               "Ao realizar o cancelamento, você não terá direito a remarcação."
       );
     }
-    Integer rescheduledAppointmentsInMonth = appointmentRulesRepository.countRescheduledAppointmentsInMonth(client.getId());
-
-    if (rescheduledAppointmentsInMonth == null) rescheduledAppointmentsInMonth = 0;
+    int rescheduledAppointmentsInMonth = clientMonthQuotaService.find(clientId, YearMonth.now()).getRescheduled();
 
     // compara a quantidade de atendimentos remarcados pelo cliente no mês
     // com o limite de remarcações no mês (regra de negócio)
     // e retorna dto com false caso cliente já tenha atingido o limite de remarcações
     if (rescheduledAppointmentsInMonth
-        >= client.getAppointmentRules().getReeschedulingLimit()) {
+        >= appointmentRules.getReeschedulingLimit()) {
       return new CanRescheduleDTO(
           false,
           "max_reschedule_limit_reached",
           "São permitidas apenas 2 remarcações por mês. Você já realizou " +
-              appointmentRulesRepository.countRescheduledAppointmentsInMonth(clientId) +
+              rescheduledAppointmentsInMonth +
               " remarcação(es) em " + getCurrentMonth() + ". " +
               "Ao realizar o cancelamento, você não terá direito a remarcação."
       );
@@ -102,17 +118,19 @@ public class AppointmentRulesService {
     );
   }
 
+  /**
+   * Checks whether a client can book a rescheduled appointment, from its quota
+   * in the current and in the next month, read in one lookup.
+   */
   public CanRescheduleDTO canClientReschedule(Long clientId) {
-    List<AppointmentClient> appointmentClients = appointmentClientRepository.findByClientIdInCurrentAndNextMonth(clientId);
+    YearMonth currentMonth = YearMonth.now();
+    List<ClientMonthQuota> quotas = clientMonthQuotaService.find(clientId, currentMonth, currentMonth.plusMonths(1));
     int countRescheduled = 0;
     int countCanceledWithRescheduling = 0;
 
-    for (AppointmentClient ac : appointmentClients) {
-      if (ac.getConfirmation().equals(AppointmentConfirmation.RESCHEDULED)) {
-        countRescheduled++;
-      } else if (ac.getConfirmation().equals(AppointmentConfirmation.CANCELED_WITH_RESCHEDULING)) {
-        countCanceledWithRescheduling++;
-      }
+    for (ClientMonthQuota quota : quotas) {
+      countRescheduled += quota.getRescheduled();
+      countCanceledWithRescheduling += quota.getCanceledWithRescheduling();
     }
 
     if (countRescheduled >= 2) {
@@ -120,7 +138,7 @@ public class AppointmentRulesService {
           false,
           "max_reschedule_limit_reached",
           "São permitidas apenas 2 remarcações por mês. Você já realizou " +
-              appointmentRulesRepository.countRescheduledAppointmentsInMonth(clientId) +
+              quotas.get(0).getRescheduled() +
               " remarcação(es) em " + getCurrentMonth() + ". " +
               "Ao realizar o cancelamento, você não terá direito a remarcação."
       );
@@ -147,7 +165,7 @@ public class AppointmentRulesService {
   }
 
   private String getCurrentMonth() {
-    return LocalDate.now().getMonth().getDisplayName(TextStyle.FULL, new Locale("pt", "BR"));
+    return DateTimeUtil.monthName(LocalDate.now().getMonth());
   }
 
 }
@@ -7,25 +7,34 @@ import com.horafit.backend.dto.client.ClientScheduleDTO;
 import com.horafit.backend.dto.client.ClientSimpleDTO;
 import com.horafit.backend.entity.*;
 import com.horafit.backend.entity.enums.AppointmentConfirmation;
+import com.horafit.backend.entity.enums.AppointmentModality;
 import com.horafit.backend.repository.*;
+import com.horafit.backend.security.SessionPrincipal;
+import com.horafit.backend.util.AppointmentCursor;
+import com.horafit.backend.util.DateTimeUtil;
 import com.horafit.backend.util.exception.appointment.AppointmentsException;
 import com.horafit.backend.util.exception.client.ClientException;
-import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeParseException;
-import java.time.format.TextStyle;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class AppointmentService {
+  private static final int DEFAULT_PAGE_SIZE = 50;
+  private static final int MAX_PAGE_SIZE = 200;
+
   @Autowired
   private AppointmentRepository appointmentRepository;
 
@@ -36,25 +45,54 @@ public class AppointmentService {
   private ClientRepository clientRepository;
 
   @Autowired
-  private PhysiotherapistRepository physiotherapistRepository;
+  private PaymentService paymentService;
 
   @Autowired
-  private PaymentService paymentService;
+  private PhysiotherapistService physiotherapistService;
 
   @Autowired
-  private AppointmentRulesRepository appointmentRulesRepository;
+  private AppointmentProjectionService appointmentProjectionService;
 
   @Autowired
-  private PhysiotherapistService physiotherapistService;
+  private AppointmentOccupancyIndex appointmentOccupancyIndex;
+
+  @Autowired
+  private AppointmentCapacityService appointmentCapacityService;
+
+  @Autowired
+  private AppointmentBookingService appointmentBookingService;
+
+  @Autowired
+  private ClientWeeklyPatternService clientWeeklyPatternService;
+
+  @Autowired
+  private AppointmentRulesService appointmentRulesService;
+
+  @Autowired
+  private AppointmentPlanService appointmentPlanService;
+
+  @Autowired
+  private ClientMonthQuotaService clientMonthQuotaService;
+
+  @Autowired
+  private AppointmentConfirmationService appointmentConfirmationService;
 
   /**
-   * Retrieves all appointments from the repository.
+   * Retrieves a page of all appointments, ordered by date/time and ID.
    *
-   * @return a list of {@link Appointment} entities representing all stored
-   * appointments.
+   * @param page the {@link AppointmentPageRequestDTO} with the date/time window,
+   *             the cursor returned by the previous page and the page size.
+   * @return an {@link AppointmentPageDTO} with the appointments of the page and
+   * the cursor of the next page.
    */
-  public List<Appointment> findAll() {
-    return appointmentRepository.findAll();
+  public AppointmentPageDTO findAll(AppointmentPageRequestDTO page) {
+    AppointmentCursor start = resolveStart(page.cursor(), page.from(), null);
+    int size = resolveSize(page.size());
+
+    List<Appointment> appointments = appointmentRepository.findPage(
+        start.dateTime(), start.id(), resolveEnd(page.to(), null), PageRequest.of(0, size + 1));
+
+    return toPage(appointments, size, appointmentProjectionService::toGetDTOs);
   }
 
   /**
@@ -87,6 +125,8 @@ public class AppointmentService {
    * details, contract status,
    * payment history, appointment rules, and grouped appointments by modality and
    * days of the week.
+   * The weekly schedule is read from the precomputed {@link ClientWeeklyPattern}
+   * rows of the client, with each time listed once per day.
    *
    * @param clientId the ID of the client whose schedule is to be retrieved.
    * @return a {@link ClientScheduleDTO} object containing detailed information
@@ -97,8 +137,6 @@ public class AppointmentService {
     Client client = clientRepository.findById(clientId)
         .orElseThrow(() -> new ClientException.ClientNotFoundException("Cliente não encontrado"));
 
-    List<Appointment> appointments = appointmentRepository.findAppointmentsByClientId(clientId);
-
     ClientScheduleDTO clientScheduleDTO = new ClientScheduleDTO();
     clientScheduleDTO.setNome(client.getName());
     clientScheduleDTO.setAceiteContrato(client.getSignedContract().toString());
@@ -116,28 +154,26 @@ public class AppointmentService {
       System.out.println("Não há regras de remarcação associadas a este cliente.");
     }
 
-    Map<String, List<Appointment>> appointmentsByModality = appointments.stream()
-        .collect(Collectors.groupingBy(appointment -> appointment.getModality().name()));
+    // linhas já ordenadas por modalidade, dia da semana e horário, sem horários repetidos
+    Map<AppointmentModality, Map<DayOfWeek, List<LocalTime>>> scheduleByModality = new LinkedHashMap<>();
+    for (ClientWeeklyPattern pattern : clientWeeklyPatternService.findByClientId(clientId)) {
+      scheduleByModality
+          .computeIfAbsent(pattern.getModality(), modality -> new LinkedHashMap<>())
+          .computeIfAbsent(DayOfWeek.of(pattern.getDayOfWeek()), day -> new ArrayList<>())
+          .add(pattern.getStartTime());
+    }
 
     List<AppointmentDTO> modalityDTOs = new ArrayList<>();
 
-    for (Map.Entry<String, List<Appointment>> entry : appointmentsByModality.entrySet()) {
-      String modality = entry.getKey();
-      List<Appointment> modalityAppointments = entry.getValue();
-
+    for (Map.Entry<AppointmentModality, Map<DayOfWeek, List<LocalTime>>> entry : scheduleByModality.entrySet()) {
       AppointmentDTO modalityDTO = new AppointmentDTO();
-      modalityDTO.setModalidade(modality);
-
-      Map<String, List<LocalTime>> scheduleByDay = modalityAppointments.stream()
-          .collect(Collectors.groupingBy(
-              a -> a.getDateTime().getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.getDefault()),
-              Collectors.mapping(a -> a.getDateTime().toLocalTime(), Collectors.toList())));
+      modalityDTO.setModalidade(entry.getKey().name());
 
       List<DayScheduleDTO> scheduleTimeDTOs = new ArrayList<>();
 
-      for (Map.Entry<String, List<LocalTime>> scheduleEntry : scheduleByDay.entrySet()) {
+      for (Map.Entry<DayOfWeek, List<LocalTime>> scheduleEntry : entry.getValue().entrySet()) {
         DayScheduleDTO scheduleTimeDTO = new DayScheduleDTO();
-        scheduleTimeDTO.setDia(scheduleEntry.getKey());
+        scheduleTimeDTO.setDia(DateTimeUtil.dayName(scheduleEntry.getKey()));
         scheduleTimeDTO.setHorarios(scheduleEntry.getValue());
         scheduleTimeDTOs.add(scheduleTimeDTO);
       }
@@ -152,96 +188,128 @@ public class AppointmentService {
   }
 
   /**
-   * Retrieves all appointments associated with a specific client.
+   * Retrieves a page of the appointments associated with a specific client.
    * For each appointment, it filters the list of associated clients to include
    * only the specified client,
    * ensuring that the returned data is client-specific.
    *
    * @param clientId the ID of the client whose appointments are to be retrieved.
-   * @return a list of {@link AppointmentGetDTO} objects representing all
-   * appointments
-   * associated with the specified client.
+   * @param page     the {@link AppointmentPageRequestDTO} with the date/time
+   *                 window, the cursor and the page size.
+   * @return an {@link AppointmentPageDTO} with the appointments of the page and
+   * the cursor of the next page.
    */
-  public List<AppointmentGetDTO> getAllByClientId(Long clientId) {
-    List<AppointmentClient> appointmentClients = appointmentClientRepository.findByClient_Id(clientId);
-
-    return appointmentClients.stream()
-        .map(AppointmentClient::getAppointment)
-        .distinct()
-        .map(appointment -> {
-          List<AppointmentClient> filteredClients = appointmentClientRepository.findByAppointment(appointment).stream()
-              .filter(appointmentClient -> appointmentClient.getClient().getId().equals(clientId))
-              .collect(Collectors.toList());
-
-          return convertToGetDTO(appointment, filteredClients);
-        })
-        .collect(Collectors.toList());
+  public AppointmentPageDTO getAllByClientId(Long clientId, AppointmentPageRequestDTO page) {
+    return findPageByClientId(clientId, null, page.cursor(), page.from(), page.to(), page.size(), true);
   }
 
   /**
-   * Retrieves a list of future appointments for a specific client.
+   * Retrieves a page of future appointments for a specific client.
    * Filters the appointments based on the client's ID and ensures that only
    * upcoming appointments
    * are included in the result.
    *
    * @param clientId the ID of the client whose future appointments are to be
    *                 retrieved.
-   * @return a list of {@link AppointmentGetDTO} objects representing the future
-   * appointments
-   * associated with the specified client.
+   * @param page     the {@link AppointmentPageRequestDTO} with the date/time
+   *                 window, the cursor and the page size.
+   * @return an {@link AppointmentPageDTO} with the future appointments of the
+   * page and the cursor of the next page.
    */
-  public List<AppointmentGetDTO> getFutureAppointmentsByClientId(Long clientId) {
-    List<AppointmentClient> appointmentClients = appointmentClientRepository.findFutureAppointmentsByClientId(clientId);
-
-    return appointmentClients.stream()
-        .map(AppointmentClient::getAppointment)
-        .distinct()
-        .map(this::convertToGetDTO)
-        .collect(Collectors.toList());
+  public AppointmentPageDTO getFutureAppointmentsByClientId(Long clientId, AppointmentPageRequestDTO page) {
+    LocalDateTime from = latest(page.from(), LocalDateTime.now());
+    return findPageByClientId(clientId, null, page.cursor(), from, page.to(), page.size(), false);
   }
 
   /**
-   * Retrieves all appointments associated with a specific physiotherapist.
+   * Retrieves a page of the appointments associated with a specific
+   * physiotherapist.
    *
-   * @param id the ID of the physiotherapist whose appointments are to be
-   *           retrieved.
-   * @return a list of {@link AppointmentGetDTO} objects representing the
-   * appointments
-   * assigned to the specified physiotherapist.
+   * @param id   the ID of the physiotherapist whose appointments are to be
+   *             retrieved.
+   * @param page the {@link AppointmentPageRequestDTO} with the date/time window,
+   *             the cursor and the page size.
+   * @return an {@link AppointmentPageDTO} with the appointments of the page and
+   * the cursor of the next page.
    */
-  public List<AppointmentGetDTO> findAllByPhysiotherapistId(Long id) {
-    List<Appointment> appointments = appointmentRepository.findByPhysiotherapist_Id(id);
-    return appointments.stream().map(this::convertToGetDTO).collect(Collectors.toList());
+  public AppointmentPageDTO findAllByPhysiotherapistId(Long id, AppointmentPageRequestDTO page) {
+    AppointmentCursor start = resolveStart(page.cursor(), page.from(), null);
+    int size = resolveSize(page.size());
+
+    List<Appointment> appointments = appointmentRepository.findPageByPhysiotherapistId(
+        id, start.dateTime(), start.id(), resolveEnd(page.to(), null), PageRequest.of(0, size + 1));
+
+    return toPage(appointments, size, appointmentProjectionService::toGetDTOs);
   }
 
   /**
-   * Retrieves all appointments scheduled on a specific date.
+   * Retrieves a page of the appointments scheduled on a specific date.
    *
    * @param strDate the date in string format (e.g., "YYYY-MM-DD") for which
    *                appointments are to be retrieved.
-   * @return a list of {@link AppointmentGetDTO} objects representing the
-   * appointments scheduled on the given date.
+   * @param page    the {@link AppointmentPageRequestDTO} with the cursor and the
+   *                page size. The window is limited to the given date.
+   * @return an {@link AppointmentPageDTO} with the appointments of the page and
+   * the cursor of the next page.
    */
-  public List<AppointmentGetDTO> findAllByDate(String strDate) {
+  public AppointmentPageDTO findAllByDate(String strDate, AppointmentPageRequestDTO page) {
     LocalDate date = LocalDate.parse(strDate);
-    List<Appointment> appointments = appointmentRepository.findByDate(date);
-    return appointments.stream().map(this::convertToGetDTO).collect(Collectors.toList());
+    AppointmentCursor start = resolveStart(page.cursor(), page.from(), date.atStartOfDay());
+    int size = resolveSize(page.size());
+
+    List<Appointment> appointments = appointmentRepository.findPage(
+        start.dateTime(), start.id(), resolveEnd(page.to(), date.plusDays(1).atStartOfDay()),
+        PageRequest.of(0, size + 1));
+
+    return toPage(appointments, size, appointmentProjectionService::toGetDTOs);
   }
 
   /**
-   * Retrieves all available appointments for a specific client.
+   * Retrieves a page of the available appointments for a specific client.
    * Filters appointments based on availability and excludes appointments already
    * associated with the client.
+   * Availability is answered by the {@link AppointmentOccupancyIndex}, so only
+   * the appointments of the page are loaded from the database. While the index
+   * is not loaded, the native query is used instead.
    *
    * @param clientId the ID of the client for whom available appointments are to
    *                 be retrieved.
-   * @return a list of {@link AppointmentGetDTO} objects representing available
-   * appointments
-   * for the specified client.
+   * @param page     the {@link AppointmentPageRequestDTO} with the date/time
+   *                 window, the cursor and the page size.
+   * @return an {@link AppointmentPageDTO} with the available appointments of the
+   * page and the cursor of the next page.
    */
-  public List<AppointmentGetDTO> findAvailable(Long clientId) {
-    List<Appointment> availableAppointments = appointmentRepository.findAvailable(clientId);
-    return availableAppointments.stream().map(this::convertToGetDTO).collect(Collectors.toList());
+  public AppointmentPageDTO findAvailable(Long clientId, AppointmentPageRequestDTO page) {
+    AppointmentCursor start = resolveStart(page.cursor(), page.from(), null);
+    int size = resolveSize(page.size());
+
+    LocalDateTime end = resolveEnd(page.to(), null);
+
+    if (!appointmentOccupancyIndex.isReady()) {
+      List<Appointment> availableAppointments = appointmentRepository.findAvailablePage(
+          clientId, start.dateTime(), start.id(), end, size + 1);
+      return toPage(availableAppointments, size, appointmentProjectionService::toGetDTOs);
+    }
+
+    Integer clientLimit = appointmentCapacityService.findClientLimit(clientId);
+    List<Long> availableIds = appointmentOccupancyIndex.findAvailable(clientId, clientLimit, start, end, size + 1);
+    if (availableIds.isEmpty()) {
+      return new AppointmentPageDTO(Collections.emptyList(), null);
+    }
+
+    Map<Long, Appointment> appointmentsById = appointmentRepository.findAllWithPhysiotherapistByIdIn(availableIds)
+        .stream()
+        .collect(Collectors.toMap(Appointment::getId, Function.identity()));
+
+    List<Appointment> availableAppointments = new ArrayList<>();
+    for (Long id : availableIds) {
+      Appointment appointment = appointmentsById.get(id);
+      if (appointment != null) {
+        availableAppointments.add(appointment);
+      }
+    }
+
+    return toPage(availableAppointments, size, appointmentProjectionService::toGetDTOs);
   }
 
   /**
@@ -251,31 +319,28 @@ public class AppointmentService {
    * retrieves all appointments for the specified client.
    *
    * @param filterDTO the {@link AppointmentFilterDTO} containing the filter
-   *                  criteria
-   * @return a list of {@link AppointmentGetDTO} objects representing the filtered
-   * appointments.
-   * If no filters are applied, returns all appointments for the specified
+   *                  criteria, the cursor and the page size.
+   * @return an {@link AppointmentPageDTO} with the filtered appointments of the
+   * page and the cursor of the next page.
+   * If no filters are applied, returns the appointments for the specified
    * client.
    */
-  public List<AppointmentGetDTO> filterAppointments(AppointmentFilterDTO filterDTO) {
-    Long clientId = filterDTO.getClientId();
-    List<Appointment> appointments;
-
-    if (filterDTO.getModality() != null && !filterDTO.getModality().isEmpty() &&
-        filterDTO.getMonthYear() != null && !filterDTO.getMonthYear().isEmpty()) {
-      appointments = appointmentRepository.findByClientIdAndModalityAndMonthYear(clientId, filterDTO.getModality(),
-          filterDTO.getMonthYear());
-    } else if (filterDTO.getModality() != null && !filterDTO.getModality().isEmpty()) {
-      appointments = appointmentRepository.findByClientIdAndModality(clientId, filterDTO.getModality());
-    } else if (filterDTO.getMonthYear() != null && !filterDTO.getMonthYear().isEmpty()) {
-      appointments = appointmentRepository.findByClientIdAndMonthYear(clientId, filterDTO.getMonthYear());
-    } else {
-      appointments = appointmentRepository.findByClientId(clientId);
+  public AppointmentPageDTO filterAppointments(AppointmentFilterDTO filterDTO) {
+    AppointmentModality modality = null;
+    if (filterDTO.getModality() != null && !filterDTO.getModality().isEmpty()) {
+      modality = AppointmentModality.valueOf(filterDTO.getModality().toUpperCase());
     }
 
-    return appointments.stream()
-        .map(this::convertToGetDTO)
-        .collect(Collectors.toList());
+    LocalDateTime from = null;
+    LocalDateTime to = null;
+    if (filterDTO.getMonthYear() != null && !filterDTO.getMonthYear().isEmpty()) {
+      YearMonth monthYear = DateTimeUtil.parseMonthYear(filterDTO.getMonthYear());
+      from = monthYear.atDay(1).atStartOfDay();
+      to = monthYear.plusMonths(1).atDay(1).atStartOfDay();
+    }
+
+    return findPageByClientId(filterDTO.getClientId(), modality, filterDTO.getCursor(), from, to,
+        filterDTO.getSize(), false);
   }
 
   /**
@@ -283,45 +348,36 @@ public class AppointmentService {
    * rescheduled
    * based on the time remaining until the appointment and predefined cancellation
    * rules.
+   * The confirmation is read and changed through the
+   * {@link AppointmentConfirmationService}, without loading the appointment.
    *
    * @param clientId      the ID of the client requesting the cancellation.
    * @param appointmentId the ID of the appointment to be canceled.
-   * @return the updated {@link AppointmentClient} entity after cancellation.
+   * @return the new confirmation of the client in the appointment.
+   * @throws AppointmentsException.InvalidConfirmationTransitionException if the
+   * client had already canceled it.
    * @Transactional This method ensures the cancellation and updates are executed
    * within a transactional context.
    */
   @Transactional
-  public AppointmentClient cancelAppointment(Long clientId, Long appointmentId) {
-    Appointment appointment = appointmentRepository.findById(appointmentId)
-        .orElseThrow(() -> new EntityNotFoundException("Appointment not found"));
+  public AppointmentConfirmation cancelAppointment(Long clientId, Long appointmentId) {
+    AppointmentConfirmationRowDTO row = appointmentConfirmationService.lock(appointmentId, clientId);
 
-    Client client = clientRepository.findById(clientId)
-        .orElseThrow(() -> new EntityNotFoundException("Client not found"));
-
-    AppointmentClient appointmentClient = appointmentClientRepository
-        .findAppointmentClientByClient_IdAndAppointment_Id(clientId, appointmentId)
-        .orElseThrow(() -> new AppointmentsException.AppointmentNotFoundException(
-            "Appointment not found for client with id = " + clientId));
+    AppointmentRules appointmentRules = appointmentRulesService.findByClientId(clientId);
 
-    Long hoursUntilAppointment = calculateHoursUntilAppointments(appointment);
+    long hoursUntilAppointment = ChronoUnit.HOURS.between(LocalDateTime.now(), row.dateTime());
 
+    AppointmentConfirmation confirmation = AppointmentConfirmation.CANCELED_WITH_RESCHEDULING;
     if (hoursUntilAppointment
-        <= client.getAppointmentRules().getReeschedulingMinHoursInAdvance()) {
-      appointmentClient.setConfirmation(AppointmentConfirmation.CANCELED_WITHOUT_RESCHEDULING);
-      return appointmentClientRepository.save(appointmentClient);
-    }
-
-    Integer rescheduledAppointmentsInMonth = appointmentRulesRepository.countRescheduledAppointmentsInMonth(client.getId());
-    if (rescheduledAppointmentsInMonth == null) rescheduledAppointmentsInMonth = 0;
-
-    if (rescheduledAppointmentsInMonth
-        >= client.getAppointmentRules().getReeschedulingLimit()) {
-      appointmentClient.setConfirmation(AppointmentConfirmation.CANCELED_WITHOUT_RESCHEDULING);
-      return appointmentClientRepository.save(appointmentClient);
+        <= appointmentRules.getReeschedulingMinHoursInAdvance()) {
+      confirmation = AppointmentConfirmation.CANCELED_WITHOUT_RESCHEDULING;
+    } else if (clientMonthQuotaService.find(clientId, YearMonth.now()).getRescheduled()
+        >= appointmentRules.getReeschedulingLimit()) {
+      confirmation = AppointmentConfirmation.CANCELED_WITHOUT_RESCHEDULING;
     }
 
-    appointmentClient.setConfirmation(AppointmentConfirmation.CANCELED_WITH_RESCHEDULING);
-    return appointmentClientRepository.save(appointmentClient);
+    appointmentConfirmationService.apply(List.of(row), confirmation);
+    return confirmation;
   }
 
   /**
@@ -333,33 +389,33 @@ public class AppointmentService {
    *
    * @param clientId      the ID of the client to reschedule the appointment for.
    * @param appointmentId the ID of the appointment to reschedule.
-   * @return the newly created {@link AppointmentClient} entity after
-   * rescheduling.
-   * @Transactional This method runs in a transactional context to ensure
-   * atomicity of database operations.
+   * @return the {@link AppointmentClient} entity after rescheduling: the
+   * client's oldest CANCELED_WITH_RESCHEDULING association, moved to the
+   * appointment as RESCHEDULED by
+   * {@link AppointmentConfirmationService#reschedule}.
+   * The client is added through the {@link AppointmentBookingService}, which
+   * runs the capacity check and the move in its own transaction and retries
+   * them on concurrent bookings.
+   * @throws AppointmentsException.InvalidConfirmationTransitionException if
+   * the client has no canceled appointment to reschedule.
    */
-  @Transactional
   public AppointmentClient rescheduleAppointment(Long clientId, Long appointmentId) {
-    Appointment appointment = appointmentRepository.findById(appointmentId).orElseThrow(
-        () -> new RuntimeException("Appointment not found"));
-
-    Client client = clientRepository.findById(clientId).orElseThrow(
-        () -> new RuntimeException("Client not found"));
-
-    Optional<AppointmentClient> existingAppointmentClient = appointmentClientRepository
-        .findAppointmentClientByClient_IdAndAppointment_Id(clientId, appointmentId);
-
-    if (existingAppointmentClient.isPresent()) {
-      throw new RuntimeException("O cliente já está agendado para este atendimento");
+    // com token de sessão do próprio cliente, sua existência já foi verificada no login
+    if (SessionPrincipal.currentClient(clientId).isEmpty()) {
+      clientRepository.findById(clientId).orElseThrow(
+          () -> new RuntimeException("Client not found"));
     }
 
-    AppointmentClient newAppointmentClient = new AppointmentClient();
-    newAppointmentClient.setAppointment(appointment);
-    newAppointmentClient.setClient(client);
-    newAppointmentClient.setConfirmation(AppointmentConfirmation.RESCHEDULED);
-    newAppointmentClient.setAttendance(true);
+    return appointmentBookingService.join(appointmentId, clientId, appointment -> {
+      Optional<AppointmentClient> existingAppointmentClient = appointmentClientRepository
+          .findAppointmentClientByClient_IdAndAppointment_Id(clientId, appointmentId);
 
-    return appointmentClientRepository.save(newAppointmentClient);
+      if (existingAppointmentClient.isPresent()) {
+        throw new RuntimeException("O cliente já está agendado para este atendimento");
+      }
+
+      return appointmentConfirmationService.reschedule(clientId, appointment);
+    });
   }
 
   /**
@@ -368,7 +424,7 @@ public class AppointmentService {
    * Validates that the client and appointment exist, the new physiotherapist and
    * date are available,
    * and that the appointment does not exceed the maximum number of clients
-   * allowed.
+   * allowed by the {@link AppointmentRules} of its clients.
    *
    * @param appointmentEditDTO the data transfer object containing the new
    *                           appointment details
@@ -376,90 +432,131 @@ public class AppointmentService {
    * @param clientId           the ID of the client whose appointment is being
    *                           updated.
    * @param appointmentId      the ID of the current appointment to be updated.
-   * @return the updated {@link AppointmentClient} entity after reassignment.
-   * @Transactional This method runs in a transactional context to ensure
-   * atomicity of updates.
+   * @return the updated {@link AppointmentClient} entity after reassignment,
+   * with its confirmation kept.
+   * The client is moved through the {@link AppointmentBookingService}, which
+   * runs the capacity check and the update in its own transaction and retries
+   * them on concurrent bookings.
+   * @throws AppointmentsException.AppointmentNotFoundException if the client
+   * is not in the current appointment.
+   * @throws AppointmentsException.InvalidConfirmationTransitionException if
+   * the client is canceled in the current appointment.
    */
-  @Transactional
   public AppointmentClient updateAppointmentClient(AppointmentEditDTO appointmentEditDTO, Long clientId,
                                                    Long appointmentId) {
-    AppointmentClient appointmentClient = appointmentClientRepository
-        .findAppointmentClientByClient_IdAndAppointment_Id(clientId, appointmentId)
-        .orElseThrow(() -> new AppointmentsException.AppointmentNotFoundException(
-            "Appointment not found for client with id = " + clientId));
-
-    if (appointmentClient == null) {
-      throw new RuntimeException("O cliente não está agendado para este atendimento");
-    }
-
     clientRepository.findById(clientId)
         .orElseThrow(() -> new RuntimeException("Client not found"));
 
-    Physiotherapist physiotherapist = physiotherapistRepository.findById(appointmentEditDTO.physiotherapistId())
-        .orElseThrow(() -> new RuntimeException("Physiotherapist not found"));
+    Physiotherapist physiotherapist = physiotherapistService.findById(appointmentEditDTO.physiotherapistId());
 
     Appointment appointment = appointmentRepository.findByDateTimeAndPhysiotherapist(
         physiotherapist.getId(),
         appointmentEditDTO.dateTime());
 
-    List<AppointmentClient> appointmentClients = appointmentClientRepository.findByAppointment(appointment);
-
-    if (appointmentClients.size() >= 4) {
-      throw new RuntimeException("Atendimento não disponível: número máximo de clientes atingido");
+    if (appointment == null) {
+      throw new AppointmentsException.AppointmentNotFoundException(
+          "Nenhum atendimento encontrado para o fisioterapeuta neste dia e horário");
     }
 
-    appointmentClient.setAppointment(appointment);
-    appointmentClient.setConfirmation(AppointmentConfirmation.CONFIRMED);
-    appointmentClient.setAttendance(true);
-
-    return appointmentClient;
+    return appointmentBookingService.join(appointment.getId(), clientId, newAppointment -> {
+      AppointmentConfirmationRowDTO row = appointmentConfirmationService.lock(appointmentId, clientId);
+      return appointmentConfirmationService.move(row, newAppointment);
+    });
   }
 
   /**
-   * Updates the batch of appointments for a specific client.
-   * Deletes all existing appointments associated with the client and creates new
-   * appointments
-   * based on the provided days, times, modality, and other configuration details.
+   * Updates the weekly plan of a client in a modality. Only the future
+   * occurrences that differ from the new plan are inserted, moved or detached;
+   * past appointments are left untouched. See {@link AppointmentPlanService}.
    *
    * @param appointmentEditBatch the {@link AppointmentEditBatchDTO} containing
-   *                             the updated configuration
-   *                             for the batch of appointments, including days,
-   *                             times, modality, and repetition rules.
+   *                             the new plan: days and times, modality,
+   *                             physiotherapist, location and repetition.
    * @param clientId             the ID of the client whose appointments are being
    *                             updated.
-   * @Transactional Ensures that all database operations in this method are
-   * executed atomically.
+   * @return an {@link AppointmentPlanDiffDTO} with the number of occurrences
+   * kept, inserted, moved and detached.
    */
-  @Transactional
-  public void updateBatchAppointmentsForClient(AppointmentEditBatchDTO appointmentEditBatch, Long clientId) {
-    // Verificar se o cliente existe
-    clientRepository.findById(clientId)
-        .orElseThrow(() -> new RuntimeException("Client not found with ID: " + clientId));
-
-    // Deletar os atendimentos existentes para o cliente
-    appointmentClientRepository.deleteByClientId(clientId);
-    appointmentRepository.deleteByClientId(clientId);
-
-    // Iterar sobre os dias e horários fornecidos
-    for (Map.Entry<String, List<LocalTime>> entry : appointmentEditBatch.getDaysAndTimes().entrySet()) {
-      String dayOfWeek = entry.getKey(); // Exemplo: "terça-feira"
-      List<LocalTime> times = entry.getValue(); // Exemplo: [16:00, 18:00]
-
-      for (LocalTime time : times) {
-        // Criar o objeto AppointmentCreateDTO
-        AppointmentCreateDTO appointmentCreateDTO = new AppointmentCreateDTO();
-        appointmentCreateDTO.setData(dayOfWeek); // Dia da semana
-        appointmentCreateDTO.setHorario(time.toString()); // Horário no formato HH:mm
-        appointmentCreateDTO.setRepetir(appointmentEditBatch.getRepetir()); // Configuração de repetição
-        appointmentCreateDTO.setModalidade(appointmentEditBatch.getModality()); // Modalidade
-        appointmentCreateDTO.setClientes(List.of(clientId)); // Associar ao cliente atual
-        appointmentCreateDTO.setFisioterapeuta(appointmentEditBatch.getPhysiotherapistId()); // Fisioterapeuta
-        appointmentCreateDTO.setLocacao(appointmentEditBatch.getLocation()); // Localização
-
-        // Criar o novo AppointmentClient utilizando o método createAppointmentClient
-        physiotherapistService.createAppointmentClient(appointmentCreateDTO);
+  public AppointmentPlanDiffDTO updateBatchAppointmentsForClient(AppointmentEditBatchDTO appointmentEditBatch,
+                                                                 Long clientId) {
+    return appointmentPlanService.applyPlan(appointmentEditBatch, clientId);
+  }
+
+  private AppointmentPageDTO findPageByClientId(Long clientId, AppointmentModality modality, String cursor,
+                                                LocalDateTime from, LocalDateTime to, Integer requestedSize,
+                                                boolean onlyClient) {
+    AppointmentCursor start = resolveStart(cursor, from, null);
+    int size = resolveSize(requestedSize);
+
+    List<Appointment> appointments = appointmentRepository.findPageByClientId(
+        clientId, modality, start.dateTime(), start.id(), resolveEnd(to, null), PageRequest.of(0, size + 1));
+
+    if (onlyClient) {
+      return toPage(appointments, size,
+          pageAppointments -> appointmentProjectionService.toGetDTOsForClient(pageAppointments, clientId));
+    }
+    return toPage(appointments, size, appointmentProjectionService::toGetDTOs);
+  }
+
+  /**
+   * Converts the appointments fetched for a page into an
+   * {@link AppointmentPageDTO}. The repository is always asked for one
+   * appointment more than the page size, so that the presence of a next page is
+   * known without a count query.
+   *
+   * @param appointments the appointments fetched, at most {@code size + 1}.
+   * @param size         the page size.
+   * @param projection   the function that converts the appointments of the page
+   *                     to {@link AppointmentGetDTO} objects.
+   * @return an {@link AppointmentPageDTO} with the page and the next cursor, or a
+   * null cursor if this is the last page.
+   */
+  private AppointmentPageDTO toPage(List<Appointment> appointments, int size,
+                                    Function<List<Appointment>, List<AppointmentGetDTO>> projection) {
+    if (appointments.size() <= size) {
+      return new AppointmentPageDTO(projection.apply(appointments), null);
+    }
+
+    List<Appointment> pageAppointments = appointments.subList(0, size);
+    String nextCursor = AppointmentCursor.after(pageAppointments.get(size - 1)).encode();
+    return new AppointmentPageDTO(projection.apply(pageAppointments), nextCursor);
+  }
+
+  private AppointmentCursor resolveStart(String cursor, LocalDateTime from, LocalDateTime lowerBound) {
+    LocalDateTime start = latest(latest(from, lowerBound), AppointmentCursor.MIN_DATE_TIME);
+
+    if (cursor != null && !cursor.isEmpty()) {
+      AppointmentCursor decoded = AppointmentCursor.decode(cursor);
+      if (!decoded.dateTime().isBefore(start)) {
+        return decoded;
       }
     }
+    return AppointmentCursor.startingAt(start);
+  }
+
+  private LocalDateTime resolveEnd(LocalDateTime to, LocalDateTime upperBound) {
+    LocalDateTime end = to != null ? to : AppointmentCursor.MAX_DATE_TIME;
+    if (upperBound != null && upperBound.isBefore(end)) {
+      return upperBound;
+    }
+    return end;
+  }
+
+  private int resolveSize(Integer size) {
+    if (size == null || size <= 0) {
+      return DEFAULT_PAGE_SIZE;
+    }
+    return Math.min(size, MAX_PAGE_SIZE);
+  }
+
+  private LocalDateTime latest(LocalDateTime first, LocalDateTime second) {
+    if (first == null) {
+      return second;
+    }
+    if (second == null || first.isAfter(second)) {
+      return first;
+    }
+    return second;
   }
 
   /**
@@ -478,90 +575,4 @@ public class AppointmentService {
     LocalDateTime currentDateTime = LocalDateTime.now();
     return ChronoUnit.HOURS.between(currentDateTime, appointment.getDateTime());
   }
-
-  /**
-   * Converts an {@link Appointment} entity to a {@link AppointmentGetDTO},
-   * including associated clients
-   * and the assigned physiotherapist.
-   * Retrieves additional data about clients associated with the appointment from
-   * the repository and
-   * maps it to a list of {@link AppointmentClientDTO}.
-   *
-   * @param appointment the {@link Appointment} entity to be converted. Must not
-   *                    be null and must
-   *                    have valid associated entities (clients and
-   *                    physiotherapist).
-   * @return an {@link AppointmentGetDTO} containing detailed information about
-   * the appointment,
-   * including its ID, date/time, location, modality, physiotherapist, and
-   * associated clients.
-   */
-  private AppointmentGetDTO convertToGetDTO(Appointment appointment) {
-    List<AppointmentClient> appointmentClients = appointmentClientRepository.findByAppointment(appointment);
-    List<AppointmentClientDTO> clients = new ArrayList<>();
-    for (AppointmentClient appointmentClient : appointmentClients) {
-      AppointmentClientDTO client = new AppointmentClientDTO(
-          appointmentClient.getClient().getId(),
-          appointmentClient.getClient().getName(),
-          appointmentClient.getConfirmation(),
-          appointmentClient.getAttendance());
-
-      clients.add(client);
-    }
-
-    AppointmentPhysiotherapistDTO physiotherapist = new AppointmentPhysiotherapistDTO(
-        appointment.getPhysiotherapist().getId(),
-        appointment.getPhysiotherapist().getName());
-
-    return new AppointmentGetDTO(
-        appointment.getId(),
-        appointment.getDateTime(),
-        appointment.getLocation(),
-        appointment.getModality(),
-        physiotherapist,
-        clients);
-  }
-
-  /**
-   * Converts an {@link Appointment} entity to a {@link AppointmentGetDTO},
-   * including associated filtered clients
-   * and the assigned physiotherapist.
-   * Allows a pre-filtered list of {@link AppointmentClient} to be provided,
-   * optimizing the conversion process
-   * by avoiding additional repository queries.
-   *
-   * @param appointment     the {@link Appointment} entity to be converted. Must
-   *                        not be null and must
-   *                        have valid associated entities (e.g.,
-   *                        physiotherapist).
-   * @param filteredClients a pre-filtered list of {@link AppointmentClient}
-   *                        entities associated with the
-   *                        appointment. Each client in the list will be included
-   *                        in the resulting DTO.
-   * @return an {@link AppointmentGetDTO} containing detailed information about
-   * the appointment,
-   * including its ID, date/time, location, modality, physiotherapist, and
-   * the filtered list of clients.
-   */
-  private AppointmentGetDTO convertToGetDTO(Appointment appointment, List<AppointmentClient> filteredClients) {
-    List<AppointmentClientDTO> clients = filteredClients.stream()
-        .map(appointmentClient -> new AppointmentClientDTO(
-            appointmentClient.getClient().getId(),
-            appointmentClient.getClient().getName(),
-            appointmentClient.getConfirmation(),
-            appointmentClient.getAttendance()))
-        .collect(Collectors.toList());
-
-    AppointmentPhysiotherapistDTO physiotherapist = new AppointmentPhysiotherapistDTO(
-        appointment.getPhysiotherapist().getId(),
-        appointment.getPhysiotherapist().getName());
-
-    return new AppointmentGetDTO(
-        appointment.getId(),
-        appointment.getDateTime(),
-        appointment.getLocation(),
-        appointment.getModality(),
-        physiotherapist,
-        clients);
-  }
 }
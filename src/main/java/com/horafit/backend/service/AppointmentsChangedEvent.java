@@ -0,0 +1,29 @@
+package com.horafit.backend.service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Published by the write paths whenever the clients of one or more appointments
+ * change (appointment created, moved or deleted, client added, removed or with a
+ * new confirmation). Listeners use it to keep read models up to date.
+ *
+ * @param appointmentIds the IDs of the appointments affected.
+ * @param clientIds      the IDs of the clients affected.
+ */
+public record AppointmentsChangedEvent(Set<Long> appointmentIds, Set<Long> clientIds) {
+
+  public static AppointmentsChangedEvent of(Collection<Long> appointmentIds, Collection<Long> clientIds) {
+    return new AppointmentsChangedEvent(withoutNulls(appointmentIds), withoutNulls(clientIds));
+  }
+
+  public static AppointmentsChangedEvent of(Long appointmentId, Long clientId) {
+    return of(Collections.singleton(appointmentId), Collections.singleton(clientId));
+  }
+
+  private static Set<Long> withoutNulls(Collection<Long> ids) {
+    return ids.stream().filter(id -> id != null).collect(Collectors.toUnmodifiableSet());
+  }
+}
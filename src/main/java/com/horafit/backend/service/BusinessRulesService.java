@@ -4,8 +4,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import com.horafit.backend.config.CacheConfiguration;
 import com.horafit.backend.dto.businessRules.BusinessRulesRegisterDTO;
 import com.horafit.backend.entity.BusinessRules;
 import com.horafit.backend.entity.Rule;
@@ -17,6 +20,7 @@ public class BusinessRulesService {
     BusinessRulesRepository businessRulesRepository;
 
 
+@CacheEvict(value = CacheConfiguration.BUSINESS_RULES, allEntries = true)
 public BusinessRules register(BusinessRulesRegisterDTO dto) {
     BusinessRules businessRules = new BusinessRules();
     businessRules.setTitle(dto.getTitle());
@@ -33,4 +37,9 @@ public BusinessRules register(BusinessRulesRegisterDTO dto) {
     
     return businessRulesRepository.save(businessRules);
 }
+
+@Cacheable(value = CacheConfiguration.BUSINESS_RULES, key = "'all'")
+public List<BusinessRules> findAll() {
+    return businessRulesRepository.findAllWithRules();
+}
 }
@@ -0,0 +1,157 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.entity.ClientMonthQuota;
+import com.horafit.backend.entity.enums.AppointmentConfirmation;
+import com.horafit.backend.repository.ClientMonthQuotaRepository;
+import com.horafit.backend.repository.ClientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the {@link ClientMonthQuota} table, from which the reschedule
+ * rules read how many appointments a client has rescheduled or can still
+ * reschedule in a month, without counting its appointments.
+ * Every write path reports the confirmation changes it makes with
+ * {@link #changed(Long, LocalDateTime, AppointmentConfirmation, AppointmentConfirmation)},
+ * which adds them to the counters with one upsert in the same transaction.
+ * The whole table is rebuilt when the application starts with it empty and
+ * every night, to pick up changes made outside the application. The rebuild
+ * goes through the clients in chunks of
+ * {@code horafit.month-quota.rebuild-chunk-size}, each in a short transaction,
+ * so it never locks the whole table and the appointments of every client.
+ */
+@Service
+public class ClientMonthQuotaService {
+  private static final Logger log = LoggerFactory.getLogger(ClientMonthQuotaService.class);
+
+  @Autowired
+  private ClientMonthQuotaRepository clientMonthQuotaRepository;
+
+  @Autowired
+  private ClientRepository clientRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Value("${horafit.month-quota.rebuild-chunk-size:200}")
+  private int rebuildChunkSize;
+
+  /**
+   * Finds the quota of a client in a month.
+   *
+   * @return the row of the month, with zeroed counters if the client has
+   * none.
+   */
+  public ClientMonthQuota find(Long clientId, YearMonth month) {
+    return clientMonthQuotaRepository.findById(ClientMonthQuota.Key.of(clientId, month))
+        .orElseGet(() -> empty(clientId, month));
+  }
+
+  /**
+   * Finds the quota of a client in each month from {@code first} to
+   * {@code last}, both included, in one lookup.
+   *
+   * @return one row per month, in order, with zeroed counters for the months
+   * without a row.
+   */
+  public List<ClientMonthQuota> find(Long clientId, YearMonth first, YearMonth last) {
+    List<LocalDate> months = new ArrayList<>();
+    for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+      months.add(month.atDay(1));
+    }
+
+    Map<LocalDate, ClientMonthQuota> byMonth = new HashMap<>();
+    clientMonthQuotaRepository.findByIdClientIdAndIdMonthIn(clientId, months)
+        .forEach(quota -> byMonth.put(quota.getId().getMonth(), quota));
+    return months.stream()
+        .map(month -> byMonth.getOrDefault(month, empty(clientId, YearMonth.from(month))))
+        .toList();
+  }
+
+  /**
+   * Records a change of the confirmation of a client in an appointment. Must
+   * run in the transaction of the change, so that the counters are written
+   * with it; fails if there is none.
+   *
+   * @param clientId the ID of the client.
+   * @param dateTime the date/time of the appointment.
+   * @param from     the previous confirmation, or null for a new client.
+   * @param to       the new confirmation, or null for a removed client.
+   * @throws org.springframework.transaction.IllegalTransactionStateException
+   * if there is no active transaction.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void changed(Long clientId, LocalDateTime dateTime, AppointmentConfirmation from,
+                      AppointmentConfirmation to) {
+    int rescheduled = count(to, AppointmentConfirmation.RESCHEDULED)
+        - count(from, AppointmentConfirmation.RESCHEDULED);
+    int canceled = count(to, AppointmentConfirmation.CANCELED_WITH_RESCHEDULING)
+        - count(from, AppointmentConfirmation.CANCELED_WITH_RESCHEDULING);
+    if (rescheduled != 0 || canceled != 0) {
+      clientMonthQuotaRepository.add(clientId, YearMonth.from(dateTime).atDay(1), rescheduled, canceled);
+    }
+  }
+
+  /**
+   * Rebuilds the quota of every client, one chunk of clients per transaction.
+   * The rows of each client are replaced at once, so a reader never sees a
+   * client half rebuilt.
+   *
+   * @return the number of rows of the rebuilt table.
+   */
+  public int rebuild() {
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    int inserted = 0;
+    List<Long> clientIds = clientRepository.findIdsAfter(0L, rebuildChunkSize);
+    while (!clientIds.isEmpty()) {
+      List<Long> chunk = clientIds;
+      inserted += transactionTemplate.execute(status -> {
+        clientMonthQuotaRepository.deleteByClientIds(chunk);
+        return clientMonthQuotaRepository.insertByClientIds(chunk);
+      });
+      clientIds = clientRepository.findIdsAfter(chunk.get(chunk.size() - 1), rebuildChunkSize);
+    }
+    log.info("Cotas de remarcação dos clientes reconstruídas: {} linhas", inserted);
+    return inserted;
+  }
+
+  @Scheduled(cron = "${horafit.month-quota.rebuild-cron:0 45 3 * * *}")
+  public void scheduledRebuild() {
+    rebuild();
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void backfill() {
+    if (clientMonthQuotaRepository.count() == 0) {
+      rebuild();
+    }
+  }
+
+  private static int count(AppointmentConfirmation confirmation, AppointmentConfirmation counted) {
+    return confirmation == counted ? 1 : 0;
+  }
+
+  private static ClientMonthQuota empty(Long clientId, YearMonth month) {
+    ClientMonthQuota quota = new ClientMonthQuota();
+    quota.setId(ClientMonthQuota.Key.of(clientId, month));
+    return quota;
+  }
+}
@@ -1,16 +1,16 @@
 package com.horafit.backend.service;
 
+import com.horafit.backend.config.CacheConfiguration;
 import com.horafit.backend.dto.client.ClientRegisterDTO;
 import com.horafit.backend.dto.client.ResetPasswordDTO;
 import com.horafit.backend.entity.AppointmentRules;
 import com.horafit.backend.entity.BusinessRules;
 import com.horafit.backend.entity.Client;
-import com.horafit.backend.repository.AppointmentRulesRepository;
-import com.horafit.backend.repository.BusinessRulesRepository;
 import com.horafit.backend.repository.ClientRepository;
 import com.horafit.backend.util.PasswordUtil;
 import com.horafit.backend.util.exception.client.ClientException.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import java.util.Date;
 import java.util.List;
@@ -25,9 +25,7 @@ public class ClientService {
     private AppointmentRulesService appointmentRulesService;
 
     @Autowired
-    private BusinessRulesRepository businessRulesRepository;
-  @Autowired
-  private AppointmentRulesRepository appointmentRulesRepository;
+    private BusinessRulesService businessRulesService;
 
     public Client register(ClientRegisterDTO dto) {
         if (clientRepository.findByEmail(dto.getEmail()).isPresent()) {
@@ -44,18 +42,18 @@ public class ClientService {
 
         // O cliente vai ser criado com a regra de pilates em grupo 2x na semana por padrão
         // provisório
-        AppointmentRules appointmentRules = appointmentRulesRepository.findById(2L)
-            .orElseThrow(()-> new RuntimeException("Appointment Rule not found"));
+        AppointmentRules appointmentRules = appointmentRulesService.findById(2L);
 
         client.setAppointmentRules(appointmentRules);
         return clientRepository.save(client);
     }
 
+    @CacheEvict(cacheNames = CacheConfiguration.USER_PRINCIPALS, key = "#dto.email")
     public void resetPassword(ResetPasswordDTO dto) {
         Client client = clientRepository.findByEmail(dto.getEmail())
                 .orElseThrow(() -> new EmailNotFoundException("Email não encontrado"));
 
-        client.setPassword(dto.getNewPassword());
+        client.setPassword(PasswordUtil.encoder(dto.getNewPassword()));
         clientRepository.save(client);
     }
 
@@ -79,6 +77,8 @@ public class ClientService {
         return clientRepository.findById(id).orElseThrow(() -> new RuntimeException("User not found"));
     }
 
+    // sessões já abertas continuam com a regra anterior até o token expirar
+    @CacheEvict(cacheNames = CacheConfiguration.USER_PRINCIPALS, key = "#emailClient")
     public void updateClientAppointmentRules(String emailClient, Long idAppointmentRules) {
         Client client = clientRepository.findByEmail(emailClient)
                 .orElseThrow(() -> new EmailNotFoundException("Email não encontrado"));
@@ -90,7 +90,7 @@ public class ClientService {
     }
 
     public List<BusinessRules> showBusinessRules() {
-        return businessRulesRepository.findAll();
+        return businessRulesService.findAll();
     }
 
     public Boolean contractStatus(Long id) {
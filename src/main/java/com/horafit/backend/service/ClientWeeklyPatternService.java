@@ -0,0 +1,126 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.entity.ClientWeeklyPattern;
+import com.horafit.backend.repository.ClientRepository;
+import com.horafit.backend.repository.ClientWeeklyPatternRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Maintains the {@link ClientWeeklyPattern} table, which describes the weekly
+ * schedule of each client without reading all of their appointments.
+ * The rows of the clients of every {@link AppointmentsChangedEvent} are
+ * recomputed in the same transaction as the change, with one DELETE and one
+ * INSERT ... SELECT. The whole table is rebuilt when the application starts
+ * with it empty and every night, to pick up changes made outside the
+ * application, in chunks of {@code horafit.weekly-pattern.rebuild-chunk-size}
+ * clients, each in a short transaction.
+ */
+@Service
+public class ClientWeeklyPatternService {
+  private static final Logger log = LoggerFactory.getLogger(ClientWeeklyPatternService.class);
+
+  @Autowired
+  private ClientWeeklyPatternRepository clientWeeklyPatternRepository;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private ClientRepository clientRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Value("${horafit.weekly-pattern.rebuild-chunk-size:200}")
+  private int rebuildChunkSize;
+
+  /**
+   * Finds the weekly schedule of a client.
+   *
+   * @param clientId the ID of the client.
+   * @return the rows of the client, ordered by modality, day of the week and
+   * time.
+   */
+  public List<ClientWeeklyPattern> findByClientId(Long clientId) {
+    return clientWeeklyPatternRepository.findByClientIdOrderByModalityAscDayOfWeekAscStartTimeAsc(clientId);
+  }
+
+  /**
+   * Recomputes the weekly schedule of the clients affected by a change, just
+   * before the transaction that changed their appointments commits. Changes
+   * published outside a transaction are applied in a new one.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+  public void onAppointmentsChanged(AppointmentsChangedEvent event) {
+    refresh(event.clientIds());
+  }
+
+  /**
+   * Recomputes the weekly schedule of the given clients. Joins the current
+   * transaction, if any.
+   *
+   * @param clientIds the IDs of the clients.
+   */
+  public void refresh(Collection<Long> clientIds) {
+    if (clientIds.isEmpty()) {
+      return;
+    }
+
+    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+      // as alterações ainda pendentes no contexto de persistência precisam estar no banco antes do INSERT ... SELECT
+      entityManager.flush();
+      clientWeeklyPatternRepository.deleteByClientIds(clientIds);
+      clientWeeklyPatternRepository.insertByClientIds(clientIds);
+    });
+  }
+
+  /**
+   * Rebuilds the weekly schedule of every client, one chunk of clients per
+   * transaction. The rows of each client are replaced at once, so a reader
+   * never sees a client half rebuilt.
+   *
+   * @return the number of rows of the rebuilt table.
+   */
+  public int rebuild() {
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    int inserted = 0;
+    List<Long> clientIds = clientRepository.findIdsAfter(0L, rebuildChunkSize);
+    while (!clientIds.isEmpty()) {
+      List<Long> chunk = clientIds;
+      inserted += transactionTemplate.execute(status -> {
+        clientWeeklyPatternRepository.deleteByClientIds(chunk);
+        return clientWeeklyPatternRepository.insertByClientIds(chunk);
+      });
+      clientIds = clientRepository.findIdsAfter(chunk.get(chunk.size() - 1), rebuildChunkSize);
+    }
+    log.info("Horários semanais dos clientes reconstruídos: {} linhas", inserted);
+    return inserted;
+  }
+
+  @Scheduled(cron = "${horafit.weekly-pattern.rebuild-cron:0 30 3 * * *}")
+  public void scheduledRebuild() {
+    rebuild();
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void backfill() {
+    if (clientWeeklyPatternRepository.count() == 0) {
+      rebuild();
+    }
+  }
+}
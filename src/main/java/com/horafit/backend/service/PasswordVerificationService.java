@@ -0,0 +1,102 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.dto.user.UserPrincipalDTO;
+import com.horafit.backend.repository.UserPrincipalRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verifies login passwords on a dedicated pool with a fixed number of threads
+ * and a bounded queue, so a burst of logins cannot take every request thread:
+ * when the queue is full the verification is rejected immediately with a
+ * {@link java.util.concurrent.RejectedExecutionException}.
+ * Physiotherapists are checked against their plain text password and clients
+ * against their BCrypt hash only, as before the pool.
+ * Every verification costs one BCrypt check, whether the user is a client, a
+ * physiotherapist or does not exist, so the response time does not reveal
+ * which case happened.
+ */
+@Service
+public class PasswordVerificationService {
+  private static final String BCRYPT_PREFIX = "$2";
+
+  @Autowired
+  private BCryptPasswordEncoder passwordEncoder;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${horafit.login.verification-threads:4}")
+  private int threads;
+
+  @Value("${horafit.login.verification-queue:64}")
+  private int queueCapacity;
+
+  private ThreadPoolExecutor pool;
+  private ExecutorService executor;
+  private String dummyHash;
+
+  @PostConstruct
+  void start() {
+    AtomicInteger threadNumber = new AtomicInteger();
+    pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> {
+          Thread thread = new Thread(runnable, "password-verification-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
+    executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "passwordVerification");
+    dummyHash = passwordEncoder.encode("horafit-senha-inexistente");
+  }
+
+  @PreDestroy
+  void stop() {
+    pool.shutdown();
+  }
+
+  /**
+   * Checks a password against the stored one of the user.
+   *
+   * @param rawPassword the password typed by the user.
+   * @param principal   the user, or null if it does not exist.
+   * @return a future completed with true if the password is correct.
+   * @throws java.util.concurrent.RejectedExecutionException if too many
+   * verifications are waiting.
+   */
+  public CompletableFuture<Boolean> matches(String rawPassword, UserPrincipalDTO principal) {
+    return CompletableFuture.supplyAsync(() -> verify(rawPassword, principal), executor);
+  }
+
+  private boolean verify(String rawPassword, UserPrincipalDTO principal) {
+    String raw = rawPassword == null ? "" : rawPassword;
+    String storedPassword = principal == null ? null : principal.password();
+    if (principal != null && UserPrincipalRepository.CLIENT.equals(principal.userType())) {
+      // clientes só entram com a senha criptografada: uma senha gravada em texto puro nunca confere
+      boolean hashed = storedPassword != null && storedPassword.startsWith(BCRYPT_PREFIX);
+      return passwordEncoder.matches(raw, hashed ? storedPassword : dummyHash) && hashed;
+    }
+
+    // fisioterapeutas têm a senha em texto puro; mesmo custo de uma verificação BCrypt,
+    // também quando o usuário não existe
+    passwordEncoder.matches(raw, dummyHash);
+    return storedPassword != null && MessageDigest.isEqual(
+        raw.getBytes(StandardCharsets.UTF_8), storedPassword.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -1,53 +1,87 @@
 package com.horafit.backend.service;
 
+import com.horafit.backend.dto.payment.PaymentStatusDTO;
 import com.horafit.backend.dto.payment.UpdatePaymentDTO;
+import com.horafit.backend.entity.ClientPaymentStatus;
 import com.horafit.backend.entity.Payment;
+import com.horafit.backend.repository.ClientPaymentStatusRepository;
 import com.horafit.backend.repository.PaymentRepository;
+import com.horafit.backend.util.DateTimeUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Payments of the clients. The checks read the {@link ClientPaymentStatus} of
+ * the client by primary key instead of searching its latest payment; the
+ * status is recomputed in the same transaction as every payment update.
+ */
 @Service
 public class PaymentService {
+    public static final int MAX_STATUS_CLIENTS = 500;
+
     @Autowired
     private PaymentRepository paymentRepository;
 
-    private static final SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+    @Autowired
+    private ClientPaymentStatusRepository clientPaymentStatusRepository;
 
     public String getUltimoPagamento(Long clientId) {
-        Optional<Payment> latestPayment = paymentRepository.findLatestPaymentByClientId(clientId);
-        if (latestPayment.isPresent()) {
-            Date confirmedDate = latestPayment.get().getConfirmed();
-            return dateFormat.format(confirmedDate);
-        } else {
-            return "Nenhum pagamento confirmado registrado.";
-        }
+        return clientPaymentStatusRepository.findById(clientId)
+                .map(status -> DateTimeUtil.formatDateTimeSeconds(status.getLastConfirmed()))
+                .orElse("Nenhum pagamento confirmado registrado.");
     }
 
     public boolean verificarPagamento(Long clientId) {
-        Optional<Payment> latestPayment = paymentRepository.findLatestPaymentByClientId(clientId);
-        return latestPayment.isPresent() && latestPayment.get().getConfirmed() != null;
+        return clientPaymentStatusRepository.existsById(clientId);
     }
 
     public boolean verificarPagamentoDoMesAtual(Long clientId) {
-        Optional<Payment> latestPayment = paymentRepository.findLatestPaymentByClientId(clientId);
-        if (latestPayment.isPresent()) {
-            Date confirmedDate = latestPayment.get().getConfirmed();
-            Calendar calendar = Calendar.getInstance();
-            calendar.setTime(confirmedDate);
-            
-            int paymentMonth = calendar.get(Calendar.MONTH);
-            int currentMonth = Calendar.getInstance().get(Calendar.MONTH);
-            
-            return paymentMonth == currentMonth;
+        return isPaidThroughCurrentMonth(clientPaymentStatusRepository.findById(clientId));
+    }
+
+    /**
+     * Finds the payment status of several clients with a single query.
+     *
+     * @param clientIds the IDs of the clients, at most {@value #MAX_STATUS_CLIENTS}.
+     * @return one status per distinct client, in the order of the IDs; clients
+     * without a confirmed payment are included as unpaid.
+     * @throws IllegalArgumentException if there are too many clients.
+     */
+    public List<PaymentStatusDTO> findPaymentStatus(Collection<Long> clientIds) {
+        Set<Long> distinctClientIds = new LinkedHashSet<>(clientIds);
+        if (distinctClientIds.size() > MAX_STATUS_CLIENTS) {
+            throw new IllegalArgumentException("Informe no máximo " + MAX_STATUS_CLIENTS + " clientes");
         }
-        return false;
+
+        Map<Long, ClientPaymentStatus> statusByClient = clientPaymentStatusRepository.findAllById(distinctClientIds).stream()
+                .collect(Collectors.toMap(ClientPaymentStatus::getClientId, Function.identity()));
+
+        return distinctClientIds.stream()
+                .map(clientId -> {
+                    Optional<ClientPaymentStatus> status = Optional.ofNullable(statusByClient.get(clientId));
+                    return new PaymentStatusDTO(
+                            clientId,
+                            status.map(ClientPaymentStatus::getLastConfirmed).orElse(null),
+                            status.map(ClientPaymentStatus::getPaidThrough).orElse(null),
+                            isPaidThroughCurrentMonth(status));
+                })
+                .toList();
     }
 
+    @Transactional
     public boolean atualizarPagamento(UpdatePaymentDTO updatePaymentRequest) {
         Payment payment = paymentRepository.findByClientId(updatePaymentRequest.getClientId())
                 .orElseGet(() -> {
@@ -57,8 +91,29 @@ public class PaymentService {
                 });
 
         payment.setConfirmed(updatePaymentRequest.getDate());
-        paymentRepository.save(payment);
+        paymentRepository.saveAndFlush(payment);
+        // sem data o pagamento volta a não confirmado: o upsert não encontra linha e a antiga é apagada
+        clientPaymentStatusRepository.refreshByClientIds(List.of(updatePaymentRequest.getClientId()));
+        clientPaymentStatusRepository.deleteUnpaidByClientIds(List.of(updatePaymentRequest.getClientId()));
 
         return true;
     }
+
+    /**
+     * Fills the payment status of every client when the table is empty, e.g. on
+     * the first start after it was created.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillPaymentStatus() {
+        if (clientPaymentStatusRepository.count() == 0) {
+            clientPaymentStatusRepository.refreshAll();
+        }
+    }
+
+    private static boolean isPaidThroughCurrentMonth(Optional<ClientPaymentStatus> status) {
+        return status.map(ClientPaymentStatus::getPaidThrough)
+                .filter(paidThrough -> !paidThrough.isBefore(YearMonth.now()))
+                .isPresent();
+    }
 }
@@ -1,8 +1,11 @@
 package com.horafit.backend.service;
 
 import com.horafit.backend.dto.appointment.AddClientToAppointmentDTO;
+import com.horafit.backend.dto.appointment.AppointmentConfirmationRowDTO;
+import com.horafit.backend.dto.appointment.AppointmentConflictReportDTO;
 import com.horafit.backend.dto.appointment.AppointmentCreateDTO;
 import com.horafit.backend.dto.appointment.AppointmentUpdateDTO;
+import com.horafit.backend.dto.appointment.RepetirDTO;
 import com.horafit.backend.entity.Appointment;
 import com.horafit.backend.entity.AppointmentClient;
 import com.horafit.backend.entity.Client;
@@ -10,19 +13,20 @@ import com.horafit.backend.entity.Physiotherapist;
 import com.horafit.backend.entity.enums.AppointmentConfirmation;
 import com.horafit.backend.entity.enums.AppointmentModality;
 import com.horafit.backend.entity.enums.AppointmentLocation;
+import com.horafit.backend.repository.AppointmentBatchRepository;
 import com.horafit.backend.repository.AppointmentClientRepository;
 import com.horafit.backend.repository.AppointmentRepository;
 import com.horafit.backend.repository.ClientRepository;
 import com.horafit.backend.repository.PhysiotherapistRepository;
+import com.horafit.backend.util.DateTimeUtil;
 import com.horafit.backend.util.exception.appointment.AppointmentsException;
 import com.horafit.backend.util.exception.appointment.AppointmentsException.*;
 import com.horafit.backend.util.exception.client.ClientException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import java.time.LocalDate;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -34,92 +38,157 @@ public class PhysiotherapistService {
     @Autowired
     private AppointmentClientRepository appointmentClientRepository;
 
+    @Autowired
+    private AppointmentBatchRepository appointmentBatchRepository;
+
     @Autowired
     private ClientRepository clientRepository;
 
     @Autowired
     private PhysiotherapistRepository physiotherapistRepository;
 
+    @Autowired
+    private AppointmentCapacityService appointmentCapacityService;
+
+    @Autowired
+    private AppointmentBookingService appointmentBookingService;
+
+    @Autowired
+    private AppointmentConflictDetector appointmentConflictDetector;
+
+    @Autowired
+    private RecurringSeriesService recurringSeriesService;
+
+    @Autowired
+    private ClientMonthQuotaService clientMonthQuotaService;
+
+    @Autowired
+    private AppointmentConfirmationService appointmentConfirmationService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Transactional
     public void createAppointmentClient(AppointmentCreateDTO appointmentDTO) {
-        LocalDate date = LocalDate.parse(appointmentDTO.getData(), DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-        LocalTime time = LocalTime.parse(appointmentDTO.getHorario(), DateTimeFormatter.ofPattern("HH:mm"));
-        LocalDateTime dateTime = LocalDateTime.of(date, time);
+        LocalDateTime dateTime = parseDateTime(appointmentDTO.getData(), appointmentDTO.getHorario());
 
-        List<Client> clients = new ArrayList<>();
+        List<Client> clients = clientRepository.findAllById(appointmentDTO.getClientes());
         for (Long clientId : appointmentDTO.getClientes()) {
-            Client client = clientRepository.findById(clientId)
-                    .orElseThrow(() -> new IllegalArgumentException("Client not found: " + clientId));
-            clients.add(client);
+            if (clients.stream().noneMatch(client -> client.getId().equals(clientId))) {
+                throw new IllegalArgumentException("Client not found: " + clientId);
+            }
         }
 
-        Physiotherapist physiotherapist = physiotherapistRepository.findById(appointmentDTO.getFisioterapeuta())
-                .orElseThrow(() -> new IllegalArgumentException("Fisioterapeuta não encontrado"));
-
-        Long hasPhysioAppointment = appointmentClientRepository.existsByPhysiotherapistIdAndDateTime(physiotherapist.getId(), dateTime);
-        if (hasPhysioAppointment > 0) {
-            throw new AppointmentAlreadyExistsException("Já existe um atendimento agendado para o fisioterapeuta " + physiotherapist.getName() + " neste dia e horário.");
-        }
+        Physiotherapist physiotherapist = findById(appointmentDTO.getFisioterapeuta());
 
         if (clients.isEmpty()) {
+            appointmentConflictDetector.check(physiotherapist.getId(), List.of(), List.of(dateTime));
+
             Appointment appointment = createEmptyAppointment(dateTime, physiotherapist, appointmentDTO);
             appointmentRepository.save(appointment);
         } else {
-            for (Client client : clients) {
-                Long hasExistingAppointment = appointmentClientRepository.existsByClientIdAndDateTime(client.getId(), dateTime);
-                if (hasExistingAppointment > 0) {
-                    throw new AppointmentAlreadyExistsException("Já existe um atendimento agendado para o cliente " + client.getName() + " neste dia e horário.");
-                }
-            }
+            List<LocalDateTime> dateTimes = generateDateTimes(dateTime, appointmentDTO);
+
+            // Uma única consulta para todos os horários da série, do fisioterapeuta e de todos os clientes
+            appointmentConflictDetector.check(physiotherapist.getId(), appointmentDTO.getClientes(), dateTimes);
+
+            appointmentCapacityService.checkNewGroup(clients);
 
             List<Appointment> appointments = new ArrayList<>();
-            if (appointmentDTO.getRepetir().isAtivo()) {
-                String opcao = appointmentDTO.getRepetir().getOpcao();
-                if ("Sempre".equalsIgnoreCase(opcao)) {
-                    createWeeklyAppointmentsForSixMonths(dateTime, clients, physiotherapist, appointmentDTO, appointments);
-                } else if ("X vezes".equalsIgnoreCase(opcao)) {
-                    createAppointmentsByQuantity(dateTime, clients, physiotherapist, appointmentDTO, appointments);
-                }
-            } else {
-                appointments.add(createAppointment(dateTime, clients, physiotherapist, appointmentDTO));
+            for (LocalDateTime appointmentDateTime : dateTimes) {
+                appointments.add(createAppointment(appointmentDateTime, physiotherapist, appointmentDTO));
             }
-            appointmentRepository.saveAll(appointments);
+
+            // Toda a série é gravada em dois lotes: atendimentos e depois os clientes de cada um
+            appointmentBatchRepository.insertAppointments(appointments);
+            appointmentBatchRepository.insertAppointmentClients(createAppointmentClients(appointments, clients));
+
+            if (isOpenEnded(appointmentDTO.getRepetir())) {
+                // as próximas ocorrências são criadas por RecurringSeriesService conforme o horizonte avança
+                Appointment last = appointments.get(appointments.size() - 1);
+                recurringSeriesService.create(physiotherapist, last.getModality(), last.getLocation(),
+                        last.getDateTime().plusWeeks(1), appointmentDTO.getClientes());
+            }
+
+            eventPublisher.publishEvent(AppointmentsChangedEvent.of(
+                    appointments.stream().map(Appointment::getId).toList(),
+                    appointmentDTO.getClientes()));
         }
     }
 
-    private void createWeeklyAppointmentsForSixMonths(LocalDateTime dateTime, List<Client> clients, Physiotherapist physio, AppointmentCreateDTO dto, List<Appointment> appointments) {
-        for (int i = 0; i < 26; i++) { // 6 meses -> 26 semanas
-            Appointment appointment = createAppointment(dateTime.plusWeeks(i), clients, physio, dto);
-            appointments.add(appointment);
+    public AppointmentConflictReportDTO findAppointmentConflicts(AppointmentCreateDTO appointmentDTO) {
+        LocalDateTime dateTime = parseDateTime(appointmentDTO.getData(), appointmentDTO.getHorario());
+        List<Long> clientIds = appointmentDTO.getClientes() != null ? appointmentDTO.getClientes() : List.of();
+        List<LocalDateTime> dateTimes = clientIds.isEmpty() ? List.of(dateTime) : generateDateTimes(dateTime, appointmentDTO);
+
+        return appointmentConflictDetector.detect(appointmentDTO.getFisioterapeuta(), clientIds, dateTimes);
+    }
+
+    private LocalDateTime parseDateTime(String data, String horario) {
+        return DateTimeUtil.parseDateTime(data, horario);
+    }
+
+    /**
+     * Whether a series repeats with no end ("Sempre"). Such a series is kept
+     * as a {@link com.horafit.backend.entity.RecurringSeries} rule and only its
+     * occurrences inside the horizon of {@link RecurringSeriesService} exist.
+     */
+    static boolean isOpenEnded(RepetirDTO repetir) {
+        return repetir != null && repetir.isAtivo() && "Sempre".equalsIgnoreCase(repetir.getOpcao());
+    }
+
+    /**
+     * Number of weekly occurrences of a series with an end: the given quantity
+     * for "X vezes" and one when it does not repeat.
+     */
+    static int seriesLength(RepetirDTO repetir) {
+        if (repetir == null || !repetir.isAtivo()) {
+            return 1;
         }
+        if ("X vezes".equalsIgnoreCase(repetir.getOpcao())) {
+            return repetir.getQuantidade();
+        }
+        return 0;
     }
 
-    private void createAppointmentsByQuantity(LocalDateTime dateTime, List<Client> clients, Physiotherapist physio, AppointmentCreateDTO dto, List<Appointment> appointments) {
-        for (int i = 0; i < dto.getRepetir().getQuantidade(); i++) {
-            Appointment appointment = createAppointment(dateTime.plusWeeks(i), clients, physio, dto);
-            appointments.add(appointment);
+    private List<LocalDateTime> generateDateTimes(LocalDateTime dateTime, AppointmentCreateDTO dto) {
+        if (isOpenEnded(dto.getRepetir())) {
+            // a primeira ocorrência é sempre criada, mesmo além do horizonte
+            LocalDateTime horizon = recurringSeriesService.horizon(LocalDateTime.now());
+            return RecurringSeriesService.occurrences(dateTime, dateTime.isAfter(horizon) ? dateTime : horizon);
         }
+
+        int occurrences = seriesLength(dto.getRepetir());
+        List<LocalDateTime> dateTimes = new ArrayList<>(occurrences);
+        for (int i = 0; i < occurrences; i++) {
+            dateTimes.add(dateTime.plusWeeks(i));
+        }
+        return dateTimes;
     }
 
-    private Appointment createAppointment(LocalDateTime dateTime, List<Client> clients, Physiotherapist physio, AppointmentCreateDTO dto) {
+    private Appointment createAppointment(LocalDateTime dateTime, Physiotherapist physio, AppointmentCreateDTO dto) {
         Appointment appointment = new Appointment();
         appointment.setDateTime(dateTime);
         appointment.setPhysiotherapist(physio);
         appointment.setModality(AppointmentModality.valueOf(dto.getModalidade().toUpperCase()));
         appointment.setLocation(AppointmentLocation.valueOf(dto.getLocacao().toUpperCase()));
 
-        appointment = appointmentRepository.save(appointment);
-
-        for (Client client : clients) {
-            AppointmentClient appointmentClient = new AppointmentClient();
-            appointmentClient.setAppointment(appointment);
-            appointmentClient.setClient(client);
-            appointmentClient.setConfirmation(AppointmentConfirmation.CONFIRMED);
-            appointmentClient.setAttendance(true);
+        return appointment;
+    }
 
-            appointmentClientRepository.save(appointmentClient);
+    private List<AppointmentClient> createAppointmentClients(List<Appointment> appointments, List<Client> clients) {
+        List<AppointmentClient> appointmentClients = new ArrayList<>();
+        for (Appointment appointment : appointments) {
+            for (Client client : clients) {
+                AppointmentClient appointmentClient = new AppointmentClient();
+                appointmentClient.setAppointment(appointment);
+                appointmentClient.setClient(client);
+                appointmentClient.setConfirmation(AppointmentConfirmation.CONFIRMED);
+                appointmentClient.setAttendance(true);
+                appointmentClients.add(appointmentClient);
+            }
         }
-
-        return appointment;
+        return appointmentClients;
     }
 
     private Appointment createEmptyAppointment(LocalDateTime dateTime, Physiotherapist physio, AppointmentCreateDTO dto) {
@@ -132,33 +201,26 @@ public class PhysiotherapistService {
             return appointmentRepository.save(appointment);
     }
 
+    @Transactional
     public void updateAppointment(AppointmentUpdateDTO appointmentUpdateDTO) {
         Appointment appointment = appointmentRepository.findById(appointmentUpdateDTO.getIdAtendimento())
                 .orElseThrow(() -> new IllegalArgumentException("Agendamento não encontrado: " + appointmentUpdateDTO.getIdAtendimento()));
 
         Long clientCount = appointmentClientRepository.countByAppointmentId(appointment.getId());
 
-        LocalDate date = LocalDate.parse(appointmentUpdateDTO.getData(), DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-        LocalTime time = LocalTime.parse(appointmentUpdateDTO.getHorario(), DateTimeFormatter.ofPattern("HH:mm"));
-        LocalDateTime newDateTime = LocalDateTime.of(date, time);
+        LocalDateTime newDateTime = parseDateTime(appointmentUpdateDTO.getData(), appointmentUpdateDTO.getHorario());
 
-        Long hasPhysioAppointment = appointmentClientRepository.existsByPhysiotherapistIdAndDateTime(appointment.getPhysiotherapist().getId(), newDateTime);
-        if (hasPhysioAppointment > 0) {
-            throw new AppointmentAlreadyExistsException("Já existe um atendimento agendado para este fisioterapeuta neste dia e horário.");
-        }
-
-        Long hasExistingAppointment = appointmentClientRepository.existsByClientIdAndDateTime(appointmentUpdateDTO.getIdCliente(), newDateTime);
-        if (hasExistingAppointment > 0) {
-            throw new AppointmentAlreadyExistsException("Já existe um atendimento agendado para o cliente neste dia e horário.");
-        }
+        List<Long> clientIds = appointmentUpdateDTO.getIdCliente() != null ? List.of(appointmentUpdateDTO.getIdCliente()) : List.of();
+        appointmentConflictDetector.check(appointment.getPhysiotherapist().getId(), clientIds, List.of(newDateTime));
 
         if (clientCount > 1) {
-            AppointmentClient clientToRemove = appointmentClientRepository.findByAppointmentIdAndClientId(
+            // o cliente sai da série "Sempre" do horário antigo, senão o job continuaria criando atendimentos nele
+            recurringSeriesService.leave(appointment, appointmentUpdateDTO.getIdCliente());
+
+            AppointmentConfirmationRowDTO clientToMove = appointmentConfirmationService.findForUpdate(
                             appointment.getId(), appointmentUpdateDTO.getIdCliente())
                     .orElseThrow(() -> new IllegalArgumentException("Cliente não encontrado no atendimento especificado"));
 
-            appointmentClientRepository.delete(clientToRemove);
-
             Appointment newAppointment = new Appointment();
             newAppointment.setDateTime(newDateTime);
             newAppointment.setPhysiotherapist(appointment.getPhysiotherapist());
@@ -166,17 +228,21 @@ public class PhysiotherapistService {
             newAppointment.setLocation(appointment.getLocation());
             appointmentRepository.save(newAppointment);
 
-            AppointmentClient newAppointmentClient = new AppointmentClient();
-            newAppointmentClient.setAppointment(newAppointment);
-            newAppointmentClient.setClient(clientToRemove.getClient());
-            newAppointmentClient.setConfirmation(AppointmentConfirmation.CONFIRMED);
-            newAppointmentClient.setAttendance(true);
-            appointmentClientRepository.save(newAppointmentClient);
-
+            // o cliente leva a sua confirmação para o novo atendimento
+            appointmentConfirmationService.move(clientToMove, newAppointment);
         } else {
+            // as confirmações acompanham o atendimento para o mês da nova data
+            for (AppointmentClient appointmentClient : appointmentClientRepository.findByAppointment(appointment)) {
+                Long clientId = appointmentClient.getClient().getId();
+                recurringSeriesService.leave(appointment, clientId);
+                clientMonthQuotaService.changed(clientId, appointment.getDateTime(), appointmentClient.getConfirmation(), null);
+                clientMonthQuotaService.changed(clientId, newDateTime, null, appointmentClient.getConfirmation());
+            }
             appointment.setModality(AppointmentModality.valueOf(appointmentUpdateDTO.getModalidade()));
             appointment.setDateTime(newDateTime);
             appointmentRepository.save(appointment);
+
+            eventPublisher.publishEvent(AppointmentsChangedEvent.of(appointment.getId(), appointmentUpdateDTO.getIdCliente()));
         }
     }
 
@@ -188,21 +254,18 @@ public class PhysiotherapistService {
             Client client = clientRepository.findById(clientId)
                     .orElseThrow(() -> new ClientException.ClientNotFoundException("Cliente com ID " + clientId + " não encontrado"));
 
-            boolean alreadyExists = appointmentClientRepository.existsByAppointmentIdAndClientId(appointment.getId(), client.getId());
-            if (alreadyExists) {
-                throw new ClientException.ClientAlreadyExistsException("Cliente com ID " + clientId + " já está associado a este atendimento");
-            }
-
-            AppointmentClient appointmentClient = new AppointmentClient();
-            appointmentClient.setAppointment(appointment);
-            appointmentClient.setClient(client);
-            appointmentClient.setConfirmation(AppointmentConfirmation.CONFIRMED);
-            appointmentClient.setAttendance(true);
+            appointmentBookingService.join(appointment.getId(), client.getId(), bookedAppointment -> {
+                boolean alreadyExists = appointmentClientRepository.existsByAppointmentIdAndClientId(bookedAppointment.getId(), client.getId());
+                if (alreadyExists) {
+                    throw new ClientException.ClientAlreadyExistsException("Cliente com ID " + clientId + " já está associado a este atendimento");
+                }
 
-            appointmentClientRepository.save(appointmentClient);
+                return appointmentConfirmationService.book(bookedAppointment, client);
+            });
         }
     }
 
+    @Transactional
     public void deleteClientFromAppointment(Long clientId, Long appointmentId) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new AppointmentsException.AppointmentDeleteException("Atendimento não encontrado com ID: " + appointmentId));
@@ -222,12 +285,59 @@ public class PhysiotherapistService {
 
         long clientCount = appointmentClientRepository.countByAppointmentId(appointmentId);
 
+        // o cliente sai também da série "Sempre" do horário, senão o job voltaria a criar os seus atendimentos
+        recurringSeriesService.leave(appointment, clientId);
+        clientMonthQuotaService.changed(clientId, appointment.getDateTime(), appointmentClient.getConfirmation(), null);
         if (clientCount > 1) {
             appointmentClientRepository.delete(appointmentClient);
         } else {
             appointmentClientRepository.delete(appointmentClient);
             appointmentRepository.delete(appointment);
         }
+
+        eventPublisher.publishEvent(AppointmentsChangedEvent.of(appointmentId, clientId));
+    }
+
+    /**
+     * Removes a client from the open-ended ("Sempre") series of the slot of an
+     * appointment: no new appointments are created for the client there. The
+     * appointments already created are kept.
+     *
+     * @return the number of series the client left.
+     * @throws AppointmentsException.AppointmentNotFoundException if the
+     * appointment does not exist.
+     */
+    @Transactional
+    public int leaveSeries(Long clientId, Long appointmentId) {
+        Appointment appointment = appointmentRepository.findById(appointmentId)
+                .orElseThrow(() -> new AppointmentsException.AppointmentNotFoundException("Atendimento não encontrado"));
+        return recurringSeriesService.leave(appointment, clientId);
+    }
+
+    /**
+     * Ends the open-ended ("Sempre") series of the slot of an appointment, for
+     * all of its clients. The appointments already created are kept.
+     *
+     * @return the number of series ended.
+     * @throws AppointmentsException.AppointmentNotFoundException if the
+     * appointment does not exist.
+     */
+    @Transactional
+    public int endSeries(Long appointmentId) {
+        Appointment appointment = appointmentRepository.findById(appointmentId)
+                .orElseThrow(() -> new AppointmentsException.AppointmentNotFoundException("Atendimento não encontrado"));
+        return recurringSeriesService.end(appointment);
+    }
+
+    /**
+     * Returns a reference to the physiotherapist, to be set on appointments and
+     * series. The existence is checked against the cached projection, so the
+     * entity, and its password, are not loaded.
+     */
+    public Physiotherapist findById(Long id) {
+        physiotherapistRepository.findSummaryById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Fisioterapeuta não encontrado"));
+        return physiotherapistRepository.getReferenceById(id);
     }
 
     public List<Client> findClientsByName(String name) {
@@ -0,0 +1,317 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.dto.appointment.AppointmentConflictDTO;
+import com.horafit.backend.dto.appointment.AppointmentConflictReportDTO;
+import com.horafit.backend.entity.Appointment;
+import com.horafit.backend.entity.AppointmentClient;
+import com.horafit.backend.entity.Physiotherapist;
+import com.horafit.backend.entity.RecurringSeries;
+import com.horafit.backend.entity.enums.AppointmentConfirmation;
+import com.horafit.backend.entity.enums.AppointmentLocation;
+import com.horafit.backend.entity.enums.AppointmentModality;
+import com.horafit.backend.repository.AppointmentBatchRepository;
+import com.horafit.backend.repository.ClientRepository;
+import com.horafit.backend.repository.RecurringSeriesRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the open-ended series ("Sempre") materialized inside a rolling
+ * horizon. A series is stored as a {@link RecurringSeries} rule, and only its
+ * occurrences up to {@code horafit.recurrence.horizon-weeks} from now exist as
+ * appointments; the job creates the following ones every hour.
+ * <p>
+ * The job is idempotent and safe to restart: the occurrences of a series and
+ * its new {@code next_occurrence} are written in the same transaction, so an
+ * occurrence is never created twice, and an interrupted run leaves nothing
+ * half done. Series are processed in chunks of
+ * {@code horafit.recurrence.chunk-size}, each in a short transaction that
+ * locks its series with {@code SKIP LOCKED}, so the job never waits for a
+ * plan edit in progress and holds a single connection at a time. An occurrence
+ * that collides with an appointment booked in the meantime is skipped for the
+ * physiotherapist or for the client involved.
+ */
+@Service
+public class RecurringSeriesService {
+  private static final Logger log = LoggerFactory.getLogger(RecurringSeriesService.class);
+
+  @Value("${horafit.recurrence.horizon-weeks:4}")
+  private int horizonWeeks;
+
+  @Value("${horafit.recurrence.chunk-size:50}")
+  private int chunkSize;
+
+  @Autowired
+  private RecurringSeriesRepository recurringSeriesRepository;
+
+  @Autowired
+  private AppointmentBatchRepository appointmentBatchRepository;
+
+  @Autowired
+  private AppointmentConflictDetector appointmentConflictDetector;
+
+  @Autowired
+  private ClientRepository clientRepository;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  /**
+   * End of the rolling horizon: occurrences up to this date/time exist as
+   * appointments.
+   */
+  public LocalDateTime horizon(LocalDateTime now) {
+    return now.plusWeeks(horizonWeeks);
+  }
+
+  /**
+   * Weekly occurrences from {@code first} up to {@code until}, both included.
+   */
+  public static List<LocalDateTime> occurrences(LocalDateTime first, LocalDateTime until) {
+    List<LocalDateTime> dateTimes = new ArrayList<>();
+    for (LocalDateTime dateTime = first; !dateTime.isAfter(until); dateTime = dateTime.plusWeeks(1)) {
+      dateTimes.add(dateTime);
+    }
+    return dateTimes;
+  }
+
+  /**
+   * Stores the rule of a new series. Joins the current transaction, where the
+   * caller creates the occurrences before {@code nextOccurrence}.
+   *
+   * @param nextOccurrence the first occurrence not created by the caller.
+   * @param clientIds      the IDs of the clients of the series.
+   * @return the saved {@link RecurringSeries}.
+   */
+  public RecurringSeries create(Physiotherapist physiotherapist, AppointmentModality modality,
+                                AppointmentLocation location, LocalDateTime nextOccurrence,
+                                Collection<Long> clientIds) {
+    RecurringSeries series = new RecurringSeries();
+    series.setPhysiotherapist(physiotherapist);
+    series.setModality(modality);
+    series.setLocation(location);
+    series.setDayOfWeek(nextOccurrence.getDayOfWeek().getValue());
+    series.setStartTime(nextOccurrence.toLocalTime());
+    series.setNextOccurrence(nextOccurrence);
+    series.getClientIds().addAll(clientIds);
+    return recurringSeriesRepository.save(series);
+  }
+
+  /**
+   * Finds and locks the series of a modality in which a client takes part.
+   * Joins the current transaction; while it lasts, the job skips these series.
+   */
+  public List<RecurringSeries> lockByClientIdAndModality(Long clientId, AppointmentModality modality) {
+    return recurringSeriesRepository.findByClientIdAndModalityForUpdate(clientId, modality);
+  }
+
+  /**
+   * Removes a client from a series, locked with
+   * {@link #lockByClientIdAndModality(Long, AppointmentModality)}. The series is
+   * deleted when it is left without clients. Its existing appointments are not
+   * changed.
+   */
+  public void removeClient(RecurringSeries series, Long clientId) {
+    series.getClientIds().remove(clientId);
+    if (series.getClientIds().isEmpty()) {
+      recurringSeriesRepository.delete(series);
+    }
+  }
+
+  /**
+   * Finds and locks the series that generate the weekly slot of an
+   * appointment: same physiotherapist, modality, day of the week and time.
+   * Joins the current transaction; while it lasts, the job skips these series.
+   */
+  public List<RecurringSeries> lockBySlot(Appointment appointment) {
+    return recurringSeriesRepository.findBySlotForUpdate(appointment.getPhysiotherapist().getId(),
+        appointment.getModality(), appointment.getDateTime().getDayOfWeek().getValue(),
+        appointment.getDateTime().toLocalTime());
+  }
+
+  /**
+   * Removes a client from the series that generate the slot of an appointment,
+   * so that the job no longer creates appointments for the client there. Joins
+   * the current transaction. The existing appointments are not changed.
+   *
+   * @return the number of series the client left.
+   */
+  public int leave(Appointment appointment, Long clientId) {
+    int left = 0;
+    for (RecurringSeries series : lockBySlot(appointment)) {
+      if (series.getClientIds().contains(clientId)) {
+        removeClient(series, clientId);
+        left++;
+      }
+    }
+    return left;
+  }
+
+  /**
+   * Ends the series that generate the slot of an appointment, for all of their
+   * clients. Joins the current transaction. The existing appointments are not
+   * changed.
+   *
+   * @return the number of series ended.
+   */
+  public int end(Appointment appointment) {
+    List<RecurringSeries> series = lockBySlot(appointment);
+    recurringSeriesRepository.deleteAll(series);
+    return series.size();
+  }
+
+  /**
+   * Creates the occurrences of every series up to the end of the horizon.
+   *
+   * @return the number of appointments created.
+   */
+  public int materialize() {
+    LocalDateTime now = LocalDateTime.now();
+    return materialize(now, horizon(now));
+  }
+
+  /**
+   * Creates the occurrences of every series from {@code now} up to the given
+   * date/time, one chunk of series per transaction. Occurrences already in the
+   * past, left behind while the job did not run, are not created.
+   *
+   * @param now   the current date/time.
+   * @param until the end of the horizon.
+   * @return the number of appointments created.
+   */
+  int materialize(LocalDateTime now, LocalDateTime until) {
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    int series = 0;
+    int appointments = 0;
+    ChunkResult chunk;
+    do {
+      chunk = transactionTemplate.execute(status -> materializeChunk(now, until));
+      series += chunk.series();
+      appointments += chunk.appointments();
+    } while (chunk.series() == chunkSize);
+
+    if (series > 0) {
+      log.info("Séries recorrentes materializadas até {}: {} séries, {} atendimentos", until, series, appointments);
+    }
+    return appointments;
+  }
+
+  private ChunkResult materializeChunk(LocalDateTime now, LocalDateTime until) {
+    List<Long> dueIds = recurringSeriesRepository.lockDue(until, chunkSize);
+    List<RecurringSeries> due = dueIds.isEmpty() ? List.of() : recurringSeriesRepository.findWithClientsByIdIn(dueIds);
+
+    List<Appointment> appointments = new ArrayList<>();
+    List<Set<Long>> members = new ArrayList<>();
+    for (RecurringSeries series : due) {
+      LocalDateTime first = series.getNextOccurrence();
+      if (first.isBefore(now)) {
+        // depois de uma parada, as ocorrências que já passaram não são criadas
+        first = first.plusWeeks(ChronoUnit.WEEKS.between(first, now));
+        if (first.isBefore(now)) {
+          first = first.plusWeeks(1);
+        }
+      }
+      List<LocalDateTime> dateTimes = occurrences(first, until);
+      if (dateTimes.isEmpty()) {
+        series.setNextOccurrence(first);
+        continue;
+      }
+      Long physiotherapistId = series.getPhysiotherapist().getId();
+
+      // uma consulta por série para todos os horários novos; conflitos são pulados, não interrompem o job
+      AppointmentConflictReportDTO report = appointmentConflictDetector.detect(physiotherapistId,
+          series.getClientIds(), dateTimes);
+      Set<LocalDateTime> physiotherapistBusy = new HashSet<>();
+      Map<LocalDateTime, Set<Long>> clientsBusy = new HashMap<>();
+      for (AppointmentConflictDTO conflict : report.conflicts()) {
+        if (conflict.type() == AppointmentConflictDTO.Type.PHYSIOTHERAPIST) {
+          physiotherapistBusy.add(conflict.dateTime());
+        } else {
+          clientsBusy.computeIfAbsent(conflict.dateTime(), dateTime -> new HashSet<>()).add(conflict.id());
+        }
+      }
+      if (report.hasConflicts()) {
+        log.warn("Série {}: {} conflito(s) até {}, ocorrências puladas", series.getId(), report.conflicts().size(), until);
+      }
+
+      for (LocalDateTime dateTime : dateTimes) {
+        Set<Long> clientIds = new LinkedHashSet<>(series.getClientIds());
+        clientIds.removeAll(clientsBusy.getOrDefault(dateTime, Set.of()));
+        if (physiotherapistBusy.contains(dateTime) || clientIds.isEmpty()) {
+          continue;
+        }
+
+        Appointment appointment = new Appointment();
+        appointment.setDateTime(dateTime);
+        appointment.setPhysiotherapist(series.getPhysiotherapist());
+        appointment.setModality(series.getModality());
+        appointment.setLocation(series.getLocation());
+        appointments.add(appointment);
+        members.add(clientIds);
+      }
+
+      // gravada no commit, junto com os atendimentos
+      series.setNextOccurrence(dateTimes.get(dateTimes.size() - 1).plusWeeks(1));
+    }
+
+    appointmentBatchRepository.insertAppointments(appointments);
+
+    List<AppointmentClient> appointmentClients = new ArrayList<>();
+    Set<Long> clientIds = new HashSet<>();
+    for (int i = 0; i < appointments.size(); i++) {
+      for (Long clientId : members.get(i)) {
+        AppointmentClient appointmentClient = new AppointmentClient();
+        appointmentClient.setAppointment(appointments.get(i));
+        appointmentClient.setClient(clientRepository.getReferenceById(clientId));
+        appointmentClient.setConfirmation(AppointmentConfirmation.CONFIRMED);
+        appointmentClient.setAttendance(true);
+        appointmentClients.add(appointmentClient);
+        clientIds.add(clientId);
+      }
+    }
+    appointmentBatchRepository.insertAppointmentClients(appointmentClients);
+
+    if (!appointments.isEmpty()) {
+      eventPublisher.publishEvent(AppointmentsChangedEvent.of(
+          appointments.stream().map(Appointment::getId).toList(), clientIds));
+    }
+    return new ChunkResult(dueIds.size(), appointments.size());
+  }
+
+  @Scheduled(cron = "${horafit.recurrence.materialize-cron:0 15 * * * *}")
+  public void scheduledMaterialize() {
+    materialize();
+  }
+
+  // retoma o que ficou para trás enquanto a aplicação estava parada
+  @EventListener(ApplicationReadyEvent.class)
+  public void catchUp() {
+    materialize();
+  }
+
+  private record ChunkResult(int series, int appointments) {
+  }
+}
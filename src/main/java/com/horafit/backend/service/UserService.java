@@ -1,61 +1,81 @@
 package com.horafit.backend.service;
 
-import com.fasterxml.jackson.dataformat.yaml.UTF8Reader;
 import com.horafit.backend.dto.user.UserLoginDTO;
 import com.horafit.backend.dto.user.UserLoginResponseDTO;
-import com.horafit.backend.entity.Client;
-import com.horafit.backend.entity.Physiotherapist;
-import com.horafit.backend.repository.ClientRepository;
-import com.horafit.backend.repository.PhysiotherapistRepository;
-
-import com.horafit.backend.repository.PhysiotherapistRepository;
-
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import com.horafit.backend.dto.user.UserPrincipalDTO;
+import com.horafit.backend.repository.UserPrincipalRepository;
+import com.horafit.backend.security.SessionPrincipal;
+import com.horafit.backend.security.SessionTokenService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
 @Service
 public class UserService {
+  public static final String LOGIN_TIMER = "horafit.login";
+
   @Autowired
-  private ClientRepository clientRepository;
+  private UserPrincipalRepository userPrincipalRepository;
 
   @Autowired
-  private PhysiotherapistRepository physiotherapistRepository;
+  private PasswordVerificationService passwordVerificationService;
 
   @Autowired
-  private BCryptPasswordEncoder passwordEncoder;
+  private SessionTokenService sessionTokenService;
 
-  public UserLoginResponseDTO login (UserLoginDTO requestDTO) {
-    if (physiotherapistRepository.existsByEmail(requestDTO.email())) {
-      Physiotherapist physiotherapist = physiotherapistRepository.findByEmail(requestDTO.email())
-          .orElseThrow(() -> new RuntimeException("Physitherapist not found"));
+  @Autowired
+  private MeterRegistry meterRegistry;
 
-        if (!physiotherapist.getPassword().equals(requestDTO.password())) {
-          throw new RuntimeException("Incorrect password");
-        }
+  /**
+   * Logs a physiotherapist or a client in.
+   * The user is resolved with one query (or from the cache) on the request
+   * thread and the password is verified on the pool of
+   * {@link PasswordVerificationService}. The duration of every login is recorded
+   * in the {@value #LOGIN_TIMER} timer, with its p50 and p99, tagged by outcome.
+   *
+   * @param requestDTO the email and password.
+   * @return a future completed with the ID and type of the user and a signed
+   * session token with its ID, type and appointment rules, or failed with
+   * a {@link RuntimeException} if the user does not exist or the password is
+   * incorrect.
+   * @throws RejectedExecutionException if too many logins are waiting for the
+   * password verification.
+   */
+  public CompletableFuture<UserLoginResponseDTO> login(UserLoginDTO requestDTO) {
+    Timer.Sample sample = Timer.start(meterRegistry);
 
-      return new UserLoginResponseDTO(
-          physiotherapist.getId(),
-          physiotherapist.getClass().getSimpleName()
-      );
+    Optional<UserPrincipalDTO> principal = userPrincipalRepository.findByEmail(requestDTO.email());
+    CompletableFuture<Boolean> matches;
+    try {
+      matches = passwordVerificationService.matches(requestDTO.password(), principal.orElse(null));
+    } catch (RejectedExecutionException e) {
+      sample.stop(loginTimer("rejected"));
+      throw e;
     }
 
-    if(clientRepository.existsByEmail(requestDTO.email())) {
-      Client client = clientRepository.findByEmail(requestDTO.email())
-          .orElseThrow(() -> new RuntimeException("Client not found"));
-
-      //Comparando a senha com criptografia
-       if (!passwordEncoder.matches(requestDTO.password(), client.getPassword())) {
-                throw new RuntimeException("Incorrect password");
-            }
-
-      return new UserLoginResponseDTO(
-          client.getId(),
-          client.getClass().getSimpleName()
-      );
-
-    }
+    return matches
+        .thenApply(correct -> {
+          UserPrincipalDTO user = principal.orElseThrow(() -> new RuntimeException("User not found"));
+          if (!correct) {
+            throw new RuntimeException("Incorrect password");
+          }
+          String token = sessionTokenService.issue(
+              new SessionPrincipal(user.id(), user.userType(), user.appointmentRulesId()));
+          return new UserLoginResponseDTO(user.id(), user.userType(), token);
+        })
+        .whenComplete((response, e) -> sample.stop(loginTimer(e == null ? "success" : "failure")));
+  }
 
-    throw new RuntimeException("User not found");
+  private Timer loginTimer(String outcome) {
+    return Timer.builder(LOGIN_TIMER)
+        .description("Duração do login")
+        .tag("outcome", outcome)
+        .publishPercentiles(0.5, 0.99)
+        .register(meterRegistry);
   }
 }
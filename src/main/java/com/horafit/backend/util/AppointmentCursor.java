@@ -0,0 +1,52 @@
+package com.horafit.backend.util;
+
+import com.horafit.backend.entity.Appointment;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of an appointment in the {@code (date_time, id)} order used by the
+ * paginated listings. It is sent to clients as an opaque token.
+ */
+public record AppointmentCursor(LocalDateTime dateTime, Long id) {
+    // limites do tipo DATETIME do MySQL
+    public static final LocalDateTime MIN_DATE_TIME = LocalDateTime.of(1000, 1, 1, 0, 0);
+    public static final LocalDateTime MAX_DATE_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Creates a cursor positioned right before the first appointment scheduled at
+     * or after the given date and time.
+     */
+    public static AppointmentCursor startingAt(LocalDateTime dateTime) {
+        return new AppointmentCursor(dateTime, 0L);
+    }
+
+    /**
+     * Creates a cursor positioned right after the given appointment.
+     */
+    public static AppointmentCursor after(Appointment appointment) {
+        return new AppointmentCursor(appointment.getDateTime(), appointment.getId());
+    }
+
+    public String encode() {
+        String raw = dateTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static AppointmentCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new AppointmentCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido: " + token);
+        }
+    }
+}
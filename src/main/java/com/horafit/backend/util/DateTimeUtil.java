@@ -0,0 +1,95 @@
+package com.horafit.backend.util;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Locale;
+
+/**
+ * Date and time formats used by the API. The formatters are immutable and
+ * thread-safe, so they are created once and shared by every request, and the
+ * names of days and months are always in Brazilian Portuguese, whatever the
+ * default locale of the server.
+ */
+public final class DateTimeUtil {
+    public static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    public static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm");
+    public static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    public static final DateTimeFormatter DATE_TIME_SECONDS = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+    public static final DateTimeFormatter MONTH_YEAR = DateTimeFormatter.ofPattern("MM/yyyy");
+
+    private static final Locale PT_BR = Locale.of("pt", "BR");
+
+    // na ordem de DayOfWeek e Month
+    private static final String[] DAY_NAMES = {
+            "segunda-feira", "terça-feira", "quarta-feira", "quinta-feira", "sexta-feira", "sábado", "domingo"};
+    private static final String[] MONTH_NAMES = {
+            "janeiro", "fevereiro", "março", "abril", "maio", "junho",
+            "julho", "agosto", "setembro", "outubro", "novembro", "dezembro"};
+
+    private DateTimeUtil() {
+    }
+
+    /**
+     * Parses a date in the "dd/MM/yyyy" format and a time in the "HH:mm" format.
+     */
+    public static LocalDateTime parseDateTime(String date, String time) {
+        return LocalDateTime.of(LocalDate.parse(date, DATE), LocalTime.parse(time, TIME));
+    }
+
+    /**
+     * Parses a month in the "MM/yyyy" format.
+     */
+    public static YearMonth parseMonthYear(String monthYear) {
+        return YearMonth.parse(monthYear, MONTH_YEAR);
+    }
+
+    /**
+     * Formats a date and time as "dd/MM/yyyy HH:mm".
+     */
+    public static String formatDateTime(TemporalAccessor dateTime) {
+        return DATE_TIME.format(dateTime);
+    }
+
+    /**
+     * Formats a date and time as "dd/MM/yyyy HH:mm:ss".
+     */
+    public static String formatDateTimeSeconds(TemporalAccessor dateTime) {
+        return DATE_TIME_SECONDS.format(dateTime);
+    }
+
+    /**
+     * Returns the full name of a day of the week, e.g. "segunda-feira".
+     */
+    public static String dayName(DayOfWeek day) {
+        return DAY_NAMES[day.ordinal()];
+    }
+
+    /**
+     * Parses the full name of a day of the week, as returned by
+     * {@link #dayName(DayOfWeek)}, ignoring case.
+     *
+     * @throws IllegalArgumentException if the name is not a day of the week.
+     */
+    public static DayOfWeek parseDayName(String name) {
+        String normalized = name.trim().toLowerCase(PT_BR);
+        for (int i = 0; i < DAY_NAMES.length; i++) {
+            if (DAY_NAMES[i].equals(normalized)) {
+                return DayOfWeek.values()[i];
+            }
+        }
+        throw new IllegalArgumentException("Dia da semana inválido: " + name);
+    }
+
+    /**
+     * Returns the full name of a month, e.g. "março".
+     */
+    public static String monthName(Month month) {
+        return MONTH_NAMES[month.ordinal()];
+    }
+}
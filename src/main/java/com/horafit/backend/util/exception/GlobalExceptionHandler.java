@@ -1,12 +1,15 @@
 package com.horafit.backend.util.exception;
 
 
+import com.horafit.backend.util.exception.appointment.AppointmentsException;
 import com.horafit.backend.util.exception.client.ClientException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @RestControllerAdvice
 public class GlobalExceptionHandler {
     @ExceptionHandler(ClientException.EmailNotFoundException.class)
@@ -18,6 +21,26 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ex.getMessage());
     }
 
+    @ExceptionHandler(AppointmentsException.AppointmentFullException.class)
+    public ResponseEntity<String> handleAppointmentFullException(AppointmentsException.AppointmentFullException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(AppointmentsException.AppointmentConcurrencyException.class)
+    public ResponseEntity<String> handleAppointmentConcurrencyException(AppointmentsException.AppointmentConcurrencyException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(AppointmentsException.InvalidConfirmationTransitionException.class)
+    public ResponseEntity<String> handleInvalidConfirmationTransitionException(AppointmentsException.InvalidConfirmationTransitionException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleRejectedExecutionException(RejectedExecutionException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Servidor ocupado, tente novamente em instantes");
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException ex) {
         return ResponseEntity.badRequest().body(ex.getMessage());
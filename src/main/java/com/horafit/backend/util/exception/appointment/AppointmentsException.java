@@ -1,5 +1,7 @@
 package com.horafit.backend.util.exception.appointment;
 
+import com.horafit.backend.dto.appointment.AppointmentConflictReportDTO;
+
 public class AppointmentsException {
     public static class AppointmentAlreadyExistsException extends RuntimeException{
         public AppointmentAlreadyExistsException(String message) {
@@ -7,6 +9,19 @@ public class AppointmentsException {
         }
     }
 
+    public static class AppointmentConflictException extends AppointmentAlreadyExistsException {
+        private final AppointmentConflictReportDTO report;
+
+        public AppointmentConflictException(String message, AppointmentConflictReportDTO report) {
+            super(message);
+            this.report = report;
+        }
+
+        public AppointmentConflictReportDTO getReport() {
+            return report;
+        }
+    }
+
     public static class AppointmentDeleteException extends RuntimeException{
         public AppointmentDeleteException(String message) {
             super(message);
@@ -19,4 +34,22 @@ public class AppointmentsException {
             super(message);
         }
     }
+
+    public static class AppointmentFullException extends RuntimeException {
+        public AppointmentFullException(String message) {
+            super(message);
+        }
+    }
+
+    public static class AppointmentConcurrencyException extends RuntimeException {
+        public AppointmentConcurrencyException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    public static class InvalidConfirmationTransitionException extends RuntimeException {
+        public InvalidConfirmationTransitionException(String message) {
+            super(message);
+        }
+    }
 }
@@ -0,0 +1,87 @@
+package com.horafit.backend;
+
+import com.horafit.backend.entity.Appointment;
+import com.horafit.backend.entity.AppointmentClient;
+import com.horafit.backend.entity.Client;
+import com.horafit.backend.entity.Physiotherapist;
+import com.horafit.backend.entity.enums.AppointmentConfirmation;
+import com.horafit.backend.entity.enums.AppointmentLocation;
+import com.horafit.backend.entity.enums.AppointmentModality;
+import com.horafit.backend.repository.AppointmentClientRepository;
+import com.horafit.backend.repository.AppointmentRepository;
+import com.horafit.backend.repository.ClientRepository;
+import com.horafit.backend.repository.PhysiotherapistRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Saves the entities the integration tests start from: physiotherapists and
+ * clients with unique e-mails, group Pilates appointments at the office and
+ * their clients.
+ */
+@Component
+public class EntityFixtures {
+	public static final String PASSWORD = "12345678";
+
+	@Autowired
+	private PhysiotherapistRepository physiotherapistRepository;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private AppointmentClientRepository appointmentClientRepository;
+
+	public Physiotherapist physiotherapist() {
+		Physiotherapist physiotherapist = new Physiotherapist();
+		physiotherapist.setEmail(uniqueEmail());
+		physiotherapist.setName("Fisioterapeuta Teste");
+		physiotherapist.setPassword(PASSWORD);
+		return physiotherapistRepository.save(physiotherapist);
+	}
+
+	public Client client() {
+		return client("Cliente Teste");
+	}
+
+	public Client client(String name) {
+		Client client = new Client();
+		client.setEmail(uniqueEmail());
+		client.setName(name);
+		client.setPassword(PASSWORD);
+		return clientRepository.save(client);
+	}
+
+	public Appointment appointment(Physiotherapist physiotherapist, LocalDateTime dateTime) {
+		Appointment appointment = new Appointment();
+		appointment.setDateTime(dateTime);
+		appointment.setLocation(AppointmentLocation.OFFICE);
+		appointment.setModality(AppointmentModality.GROUP_PILATES);
+		appointment.setPhysiotherapist(physiotherapist);
+		return appointmentRepository.save(appointment);
+	}
+
+	public AppointmentClient appointmentClient(Appointment appointment, Client client) {
+		return appointmentClient(appointment, client, AppointmentConfirmation.CONFIRMED);
+	}
+
+	public AppointmentClient appointmentClient(Appointment appointment, Client client,
+											   AppointmentConfirmation confirmation) {
+		AppointmentClient appointmentClient = new AppointmentClient();
+		appointmentClient.setAppointment(appointment);
+		appointmentClient.setClient(client);
+		appointmentClient.setConfirmation(confirmation);
+		appointmentClient.setAttendance(true);
+		return appointmentClientRepository.save(appointmentClient);
+	}
+
+	public static String uniqueEmail() {
+		return UUID.randomUUID() + "@horafit.test";
+	}
+}
@@ -0,0 +1,72 @@
+package com.horafit.backend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JdbcConcurrencyGateTests {
+	private final DataSource pool = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+			new Class<?>[]{DataSource.class}, (proxy, method, args) -> connection());
+
+	@Test
+	void permitIsReturnedOnceWhenTheConnectionIsClosed() throws Exception {
+		JdbcConcurrencyGate gate = new JdbcConcurrencyGate(pool, 1, Duration.ofMillis(50));
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		gate.bindTo(registry);
+
+		Connection connection = gate.getConnection();
+		assertEquals(1.0, registry.get(JdbcConcurrencyGate.ACTIVE).gauge().value());
+		assertThrows(SQLTransientConnectionException.class, gate::getConnection);
+
+		connection.close();
+		connection.close();
+		assertEquals(0.0, registry.get(JdbcConcurrencyGate.ACTIVE).gauge().value());
+
+		// a segunda chamada a close() não libera uma permissão a mais
+		Connection other = gate.getConnection();
+		assertThrows(SQLTransientConnectionException.class, gate::getConnection);
+		other.close();
+
+		assertEquals(4, registry.get(JdbcConcurrencyGate.WAIT).timer().count());
+	}
+
+	@Test
+	void waitingThreadsAreQueuedUntilAConnectionIsClosed() throws Exception {
+		JdbcConcurrencyGate gate = new JdbcConcurrencyGate(pool, 1, Duration.ofSeconds(10));
+		Connection connection = gate.getConnection();
+
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			CompletableFuture<Connection> waiting = CompletableFuture.supplyAsync(() -> {
+				try {
+					return gate.getConnection();
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}, executor);
+
+			while (gate.getQueueLength() == 0) {
+				Thread.onSpinWait();
+			}
+			connection.close();
+
+			waiting.get(5, TimeUnit.SECONDS).close();
+			assertEquals(0, gate.getQueueLength());
+		}
+	}
+
+	private static Connection connection() {
+		return (Connection) Proxy.newProxyInstance(JdbcConcurrencyGateTests.class.getClassLoader(),
+				new Class<?>[]{Connection.class}, (proxy, method, args) -> null);
+	}
+}
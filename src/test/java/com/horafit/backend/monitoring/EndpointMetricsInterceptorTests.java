@@ -0,0 +1,65 @@
+package com.horafit.backend.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// sem @Transactional: a conexão precisa ser obtida dentro da requisição para ser contada
+@SpringBootTest
+@AutoConfigureMockMvc
+class EndpointMetricsInterceptorTests {
+	private static final String ENDPOINT = "AppointmentController.getClientsWithAppointments";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void handlerIsTimedAndItsStatementsAreCounted() throws Exception {
+		long timed = timer().count();
+		long counted = statements().count();
+		double statementsBefore = statements().totalAmount();
+
+		mockMvc.perform(get("/api/appointment/clients")).andExpect(status().isOk());
+
+		assertEquals(timed + 1, timer().count());
+		assertEquals(counted + 1, statements().count());
+		assertTrue(statements().totalAmount() - statementsBefore >= 1);
+		assertEquals(counted + 1, meterRegistry.get(EndpointMetricsInterceptor.ROWS).tag("endpoint", ENDPOINT)
+				.summary().count());
+	}
+
+	@Test
+	void otherControllersAreNotInstrumented() throws Exception {
+		mockMvc.perform(get("/api/pagamentos/status").param("clientIds", "1"));
+
+		assertTrue(meterRegistry.find(EndpointMetricsInterceptor.TIMER).timers().stream()
+				.noneMatch(timer -> timer.getId().getTag("endpoint").startsWith("PaymentController.")));
+	}
+
+	private Timer timer() {
+		return Timer.builder(EndpointMetricsInterceptor.TIMER)
+				.tag("endpoint", ENDPOINT)
+				.tag("status", "200")
+				.tag("exception", "none")
+				.register(meterRegistry);
+	}
+
+	private DistributionSummary statements() {
+		return DistributionSummary.builder(EndpointMetricsInterceptor.STATEMENTS)
+				.tag("endpoint", ENDPOINT)
+				.register(meterRegistry);
+	}
+}
@@ -0,0 +1,79 @@
+package com.horafit.backend.repository;
+
+import com.horafit.backend.EntityFixtures;
+import com.horafit.backend.entity.Appointment;
+import com.horafit.backend.entity.Physiotherapist;
+import com.horafit.backend.util.AppointmentCursor;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@Transactional
+class AppointmentRepositoryTests {
+	private static final LocalDateTime FIRST = LocalDateTime.of(2032, 5, 3, 7, 0);
+	private static final int PAGE_SIZE = 2;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private EntityFixtures fixtures;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void appointmentsAtTheSameTimeAreSplitAcrossPagesByIdWithoutGapsOrRepeats() {
+		Physiotherapist physiotherapist = fixtures.physiotherapist();
+		Appointment early = fixtures.appointment(physiotherapist, FIRST);
+		// os dois atendimentos das 8h ficam um em cada página
+		Appointment tiedFirst = fixtures.appointment(physiotherapist, FIRST.plusHours(1));
+		Appointment tiedSecond = fixtures.appointment(physiotherapist, FIRST.plusHours(1));
+		Appointment late = fixtures.appointment(physiotherapist, FIRST.plusHours(2));
+		entityManager.flush();
+		entityManager.clear();
+
+		List<Long> pages = new ArrayList<>();
+		List<Integer> pageSizes = new ArrayList<>();
+		AppointmentCursor cursor = AppointmentCursor.startingAt(FIRST);
+		while (true) {
+			List<Appointment> page = appointmentRepository.findPageByPhysiotherapistId(physiotherapist.getId(),
+					cursor.dateTime(), cursor.id(), FIRST.plusDays(1), PageRequest.of(0, PAGE_SIZE));
+			if (page.isEmpty()) {
+				break;
+			}
+			page.forEach(appointment -> pages.add(appointment.getId()));
+			pageSizes.add(page.size());
+			// o próximo cursor passa pelo token, como entre duas requisições
+			cursor = AppointmentCursor.decode(AppointmentCursor.after(page.get(page.size() - 1)).encode());
+		}
+
+		assertEquals(List.of(early.getId(), tiedFirst.getId(), tiedSecond.getId(), late.getId()), pages);
+		assertEquals(List.of(PAGE_SIZE, PAGE_SIZE), pageSizes);
+	}
+
+	@Test
+	void aCursorAtTheTimeOfTiedAppointmentsOnlySkipsTheOnesUpToItsId() {
+		Physiotherapist physiotherapist = fixtures.physiotherapist();
+		Appointment tiedFirst = fixtures.appointment(physiotherapist, FIRST);
+		Appointment tiedSecond = fixtures.appointment(physiotherapist, FIRST);
+		Appointment tiedThird = fixtures.appointment(physiotherapist, FIRST);
+		entityManager.flush();
+		entityManager.clear();
+
+		List<Appointment> page = appointmentRepository.findPageByPhysiotherapistId(physiotherapist.getId(),
+				FIRST, tiedFirst.getId(), FIRST.plusMinutes(1), PageRequest.of(0, 10));
+
+		assertEquals(List.of(tiedSecond.getId(), tiedThird.getId()), page.stream().map(Appointment::getId).toList());
+	}
+}
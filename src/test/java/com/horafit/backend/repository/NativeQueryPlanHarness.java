@@ -0,0 +1,157 @@
+package com.horafit.backend.repository;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures the rows examined by every native {@link Query} of the repositories
+ * of a package.
+ * SELECT queries are executed in a transaction that is rolled back, and their
+ * cost is the increase of the {@code Handler_read%} session counters of MySQL,
+ * that is the rows actually read by the storage engine. Modifying queries are
+ * not executed: their cost is the sum of the rows estimated by EXPLAIN.
+ * The parameters of the queries are bound by name from a map of sample values.
+ */
+public class NativeQueryPlanHarness {
+	private static final Pattern PARAMETER = Pattern.compile(":(\\w+)");
+	// Spring Data aceita "LIKE %:name%", que o JDBC não entende
+	private static final Pattern LIKE_PARAMETER = Pattern.compile("%:(\\w+)%");
+
+	private final ApplicationContext applicationContext;
+	private final TransactionTemplate transactionTemplate;
+	private final JdbcTemplate jdbcTemplate;
+	private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+	public record NativeQuery(String name, String sql, boolean modifying) {
+	}
+
+	public record Measurement(NativeQuery query, long rowsExamined) {
+		public boolean estimated() {
+			return query.modifying();
+		}
+	}
+
+	public NativeQueryPlanHarness(ApplicationContext applicationContext, PlatformTransactionManager transactionManager,
+			JdbcTemplate jdbcTemplate) {
+		this.applicationContext = applicationContext;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.jdbcTemplate = jdbcTemplate;
+		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+	}
+
+	/**
+	 * Finds the native queries declared by the repository interfaces of a package.
+	 *
+	 * @param basePackage the package of the repository interfaces.
+	 * @return the queries, named "Repository.method" and ordered by name.
+	 */
+	public List<NativeQuery> findNativeQueries(String basePackage) {
+		List<NativeQuery> queries = new ArrayList<>();
+		Repositories repositories = new Repositories(applicationContext);
+		for (Class<?> domainType : repositories) {
+			RepositoryInformation information = repositories.getRequiredRepositoryInformation(domainType);
+			Class<?> repositoryInterface = information.getRepositoryInterface();
+			if (!repositoryInterface.getPackageName().equals(basePackage)) {
+				continue;
+			}
+
+			for (Method method : repositoryInterface.getDeclaredMethods()) {
+				Query query = method.getAnnotation(Query.class);
+				if (query != null && query.nativeQuery()) {
+					queries.add(new NativeQuery(repositoryInterface.getSimpleName() + "." + method.getName(),
+							toJdbcSql(query.value()), method.isAnnotationPresent(Modifying.class)));
+				}
+			}
+		}
+		queries.sort(Comparator.comparing(NativeQuery::name));
+		return queries;
+	}
+
+	/**
+	 * Measures the rows examined by a query.
+	 *
+	 * @param query      the query.
+	 * @param parameters sample values of the parameters of the query, by name.
+	 * @return the measurement.
+	 * @throws IllegalArgumentException if a parameter of the query has no value.
+	 */
+	public Measurement measure(NativeQuery query, Map<String, ?> parameters) {
+		MapSqlParameterSource parameterSource = new MapSqlParameterSource();
+		for (String name : parameterNames(query.sql())) {
+			if (!parameters.containsKey(name)) {
+				throw new IllegalArgumentException("Sem valor de exemplo para o parâmetro :" + name + " de " + query.name());
+			}
+			parameterSource.addValue(name, parameters.get(name));
+		}
+
+		if (query.modifying()) {
+			long estimated = namedParameterJdbcTemplate.queryForList("EXPLAIN " + query.sql(), parameterSource).stream()
+					.map(row -> row.get("rows"))
+					.filter(rows -> rows != null)
+					.mapToLong(rows -> ((Number) rows).longValue())
+					.sum();
+			return new Measurement(query, estimated);
+		}
+
+		// as leituras precisam ser feitas na mesma conexão da consulta
+		Long rowsExamined = transactionTemplate.execute(status -> {
+			status.setRollbackOnly();
+			long before = handlerReads();
+			long overhead = handlerReads() - before;
+			long start = handlerReads();
+			namedParameterJdbcTemplate.query(query.sql(), parameterSource, resultSet -> {
+			});
+			return Math.max(0, handlerReads() - start - overhead);
+		});
+		return new Measurement(query, rowsExamined);
+	}
+
+	/**
+	 * Counts the rows of a table.
+	 */
+	public long countRows(String table) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+	}
+
+	private long handlerReads() {
+		return jdbcTemplate.query("SHOW SESSION STATUS LIKE 'Handler_read%'", resultSet -> {
+			long total = 0;
+			while (resultSet.next()) {
+				total += resultSet.getLong(2);
+			}
+			return total;
+		});
+	}
+
+	private static List<String> parameterNames(String sql) {
+		List<String> names = new ArrayList<>();
+		Matcher matcher = PARAMETER.matcher(sql);
+		while (matcher.find()) {
+			if (!names.contains(matcher.group(1))) {
+				names.add(matcher.group(1));
+			}
+		}
+		return names;
+	}
+
+	private static String toJdbcSql(String sql) {
+		String jdbcSql = LIKE_PARAMETER.matcher(sql.strip()).replaceAll("CONCAT('%', :$1, '%')");
+		return jdbcSql.endsWith(";") ? jdbcSql.substring(0, jdbcSql.length() - 1) : jdbcSql;
+	}
+}
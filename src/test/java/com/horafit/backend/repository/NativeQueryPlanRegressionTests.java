@@ -0,0 +1,269 @@
+package com.horafit.backend.repository;
+
+import com.horafit.backend.entity.Appointment;
+import com.horafit.backend.entity.AppointmentClient;
+import com.horafit.backend.entity.Client;
+import com.horafit.backend.entity.Physiotherapist;
+import com.horafit.backend.entity.enums.AppointmentConfirmation;
+import com.horafit.backend.entity.enums.AppointmentLocation;
+import com.horafit.backend.entity.enums.AppointmentModality;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Query-plan regression suite: measures the rows examined by every native
+ * query of the repositories over a seeded data set of realistic size and fails
+ * when a query examines more than the recorded baseline allows, or more rows
+ * than a cartesian product would suggest. Without a baseline every query is
+ * still held to an absolute bound: a share of the seeded rows, so that a lost
+ * index fails the suite, except for the queries that read whole tables by
+ * design.
+ * Runs only with the {@code query-plan} Maven profile:
+ * {@code mvn test -Pquery-plan}. The measurements of each run are written to
+ * {@code target/query-plan/rows-examined.properties}; copy them to
+ * {@code src/test/resources/query-plan/rows-examined.properties} to accept
+ * them as the new baseline.
+ */
+@Tag("query-plan")
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class NativeQueryPlanRegressionTests {
+	private static final String BASELINE = "/query-plan/rows-examined.properties";
+	private static final Path REPORT = Path.of("target", "query-plan", "rows-examined.properties");
+
+	private static final int PHYSIOTHERAPISTS = Integer.getInteger("queryplan.physiotherapists", 5);
+	private static final int CLIENTS = Integer.getInteger("queryplan.clients", 500);
+	private static final int WEEKS = Integer.getInteger("queryplan.weeks", 104);
+	private static final int CLIENTS_PER_APPOINTMENT = 3;
+	private static final List<LocalTime> DAILY_TIMES = List.of(
+			LocalTime.of(8, 0), LocalTime.of(10, 0), LocalTime.of(17, 0), LocalTime.of(19, 0));
+
+	// uma consulta pode examinar até 50% a mais que a linha de base, mais uma folga fixa
+	private static final double TOLERANCE = Double.parseDouble(System.getProperty("queryplan.tolerance", "0.5"));
+	private static final long SLACK_ROWS = 100;
+	// acima disso a consulta lê mais linhas que todas as tabelas juntas, várias vezes
+	private static final int CEILING_FACTOR = 5;
+	// uma consulta por cliente, atendimento, fisioterapeuta ou período lê uma fração pequena das tabelas
+	private static final double SELECTIVE_SHARE = Double.parseDouble(System.getProperty("queryplan.selective-share", "0.1"));
+	private static final Set<String> FULL_SCANS = Set.of(
+			"ClientPaymentStatusRepository.refreshAll",
+			"ClientRepository.findAll",
+			"ClientRepository.findClientsWithAppointments",
+			"ClientRepository.findClientsWithAppointmentsByName");
+
+	@Autowired
+	private ApplicationContext applicationContext;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private AppointmentBatchRepository appointmentBatchRepository;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private PhysiotherapistRepository physiotherapistRepository;
+
+	private NativeQueryPlanHarness harness;
+	private final List<Physiotherapist> physiotherapists = new ArrayList<>();
+	private final List<Client> clients = new ArrayList<>();
+	private final List<Appointment> appointments = new ArrayList<>();
+
+	@BeforeAll
+	void seed() {
+		harness = new NativeQueryPlanHarness(applicationContext, transactionManager, jdbcTemplate);
+
+		for (int i = 0; i < PHYSIOTHERAPISTS; i++) {
+			Physiotherapist physiotherapist = new Physiotherapist();
+			physiotherapist.setEmail(UUID.randomUUID() + "@queryplan.test");
+			physiotherapist.setName("Fisioterapeuta " + i);
+			physiotherapist.setPassword("12345678");
+			physiotherapists.add(physiotherapist);
+		}
+		physiotherapistRepository.saveAll(physiotherapists);
+
+		for (int i = 0; i < CLIENTS; i++) {
+			Client client = new Client();
+			client.setEmail(UUID.randomUUID() + "@queryplan.test");
+			client.setName("Cliente " + i);
+			client.setPassword("12345678");
+			clients.add(client);
+		}
+		clientRepository.saveAll(clients);
+
+		// metade dos atendimentos no passado e metade no futuro
+		LocalDate firstMonday = LocalDate.now().minusWeeks(WEEKS / 2).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+		AppointmentModality[] modalities = AppointmentModality.values();
+		for (int week = 0; week < WEEKS; week++) {
+			for (int day = 0; day < 5; day++) {
+				for (LocalTime time : DAILY_TIMES) {
+					for (Physiotherapist physiotherapist : physiotherapists) {
+						Appointment appointment = new Appointment();
+						appointment.setDateTime(LocalDateTime.of(firstMonday.plusWeeks(week).plusDays(day), time));
+						appointment.setLocation(AppointmentLocation.OFFICE);
+						appointment.setModality(modalities[appointments.size() % modalities.length]);
+						appointment.setPhysiotherapist(physiotherapist);
+						appointments.add(appointment);
+					}
+				}
+			}
+		}
+		appointmentBatchRepository.insertAppointments(appointments);
+
+		AppointmentConfirmation[] confirmations = {
+				AppointmentConfirmation.CONFIRMED, AppointmentConfirmation.CONFIRMED, AppointmentConfirmation.CONFIRMED,
+				AppointmentConfirmation.CONFIRMED, AppointmentConfirmation.CONFIRMED, AppointmentConfirmation.CONFIRMED,
+				AppointmentConfirmation.CONFIRMED, AppointmentConfirmation.RESCHEDULED,
+				AppointmentConfirmation.CANCELED_WITH_RESCHEDULING, AppointmentConfirmation.CANCELED_WITHOUT_RESCHEDULING};
+		List<AppointmentClient> appointmentClients = new ArrayList<>();
+		int next = 0;
+		for (Appointment appointment : appointments) {
+			for (int i = 0; i < CLIENTS_PER_APPOINTMENT; i++, next++) {
+				AppointmentClient appointmentClient = new AppointmentClient();
+				appointmentClient.setAppointment(appointment);
+				appointmentClient.setClient(clients.get(next % CLIENTS));
+				appointmentClient.setConfirmation(confirmations[next % confirmations.length]);
+				appointmentClient.setAttendance(true);
+				appointmentClients.add(appointmentClient);
+			}
+		}
+		appointmentBatchRepository.insertAppointmentClients(appointmentClients);
+	}
+
+	@Test
+	void nativeQueriesDoNotRegress() throws IOException {
+		List<NativeQueryPlanHarness.NativeQuery> queries = harness.findNativeQueries(AppointmentRepository.class.getPackageName());
+		assertFalse(queries.isEmpty());
+
+		Properties baseline = loadBaseline();
+		long seededRows = harness.countRows("horafit.appointment") + harness.countRows("horafit.appointment_client")
+				+ harness.countRows("horafit.client");
+		long ceiling = CEILING_FACTOR * seededRows;
+		long selectiveBound = Math.round(seededRows * SELECTIVE_SHARE) + SLACK_ROWS;
+
+		Map<String, Object> parameters = sampleParameters();
+		Properties report = new Properties();
+		List<String> failures = new ArrayList<>();
+		for (NativeQueryPlanHarness.NativeQuery query : queries) {
+			NativeQueryPlanHarness.Measurement measurement = harness.measure(query, parameters);
+			long rows = measurement.rowsExamined();
+			report.setProperty(query.name(), String.valueOf(rows));
+
+			if (rows > ceiling) {
+				failures.add(query.name() + " examinou " + rows + " linhas, acima do teto de " + ceiling);
+			} else if (!FULL_SCANS.contains(query.name()) && rows > selectiveBound) {
+				failures.add(query.name() + " examinou " + rows + " linhas" + (measurement.estimated() ? " (EXPLAIN)" : "")
+						+ ", acima do limite de " + selectiveBound + " para uma consulta seletiva");
+			}
+			String recorded = baseline.getProperty(query.name());
+			if (recorded != null) {
+				long allowed = Math.round(Long.parseLong(recorded) * (1 + TOLERANCE)) + SLACK_ROWS;
+				if (rows > allowed) {
+					failures.add(query.name() + " examinou " + rows + " linhas, linha de base " + recorded
+							+ " (máximo " + allowed + ")");
+				}
+			}
+		}
+
+		Files.createDirectories(REPORT.getParent());
+		try (Writer writer = Files.newBufferedWriter(REPORT)) {
+			report.store(writer, "Linhas examinadas por consulta nativa (" + appointments.size() + " atendimentos, "
+					+ CLIENTS + " clientes)");
+		}
+
+		assertTrue(failures.isEmpty(), () -> failures.stream().collect(Collectors.joining("\n", "Consultas com regressão:\n", "")));
+	}
+
+	private Map<String, Object> sampleParameters() {
+		Client client = clients.get(0);
+		Physiotherapist physiotherapist = physiotherapists.get(0);
+		Appointment appointment = appointments.get(appointments.size() / 2);
+		YearMonth month = YearMonth.now();
+
+		Map<String, Object> parameters = new HashMap<>();
+		parameters.put("clientId", client.getId());
+		parameters.put("id", client.getId());
+		parameters.put("clientIds", clients.subList(0, 10).stream().map(Client::getId).toList());
+		parameters.put("appointmentId", appointment.getId());
+		parameters.put("appointmentIds", appointments.subList(0, 10).stream().map(Appointment::getId).toList());
+		parameters.put("ids", appointments.subList(0, 10).stream().map(Appointment::getId).toList());
+		parameters.put("physiotherapistId", physiotherapist.getId());
+		parameters.put("dateTime", appointment.getDateTime());
+		parameters.put("dateTimes", List.of(appointment.getDateTime()));
+		parameters.put("start", month.atDay(1).atStartOfDay());
+		parameters.put("end", month.plusMonths(1).atDay(1).atStartOfDay());
+		parameters.put("from", LocalDateTime.now());
+		parameters.put("afterDateTime", LocalDateTime.now());
+		parameters.put("afterId", 0L);
+		parameters.put("to", LocalDateTime.now().plusDays(30));
+		parameters.put("until", LocalDateTime.now().plusWeeks(4));
+		parameters.put("month", month.atDay(1));
+		parameters.put("rescheduled", 1);
+		parameters.put("canceled", 0);
+		parameters.put("limit", 50);
+		parameters.put("modality", AppointmentModality.GROUP_PILATES.name());
+		parameters.put("name", "Cliente 1");
+		parameters.put("version", 0L);
+		return parameters;
+	}
+
+	private Properties loadBaseline() throws IOException {
+		Properties baseline = new Properties();
+		try (InputStream input = getClass().getResourceAsStream(BASELINE)) {
+			if (input != null) {
+				baseline.load(input);
+			}
+		}
+		return baseline;
+	}
+
+	@AfterAll
+	void cleanUp() {
+		List<Long> clientIds = clients.stream().map(Client::getId).toList();
+		List<Long> physiotherapistIds = physiotherapists.stream().map(Physiotherapist::getId).toList();
+		for (Long clientId : clientIds) {
+			jdbcTemplate.update("DELETE FROM horafit.appointment_client WHERE client_id = ?", clientId);
+		}
+		for (Long physiotherapistId : physiotherapistIds) {
+			jdbcTemplate.update("DELETE FROM horafit.appointment WHERE physiotherapist_id = ?", physiotherapistId);
+		}
+		clientRepository.deleteAllById(clientIds);
+		physiotherapistRepository.deleteAllById(physiotherapistIds);
+	}
+}
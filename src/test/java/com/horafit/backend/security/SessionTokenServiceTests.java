@@ -0,0 +1,79 @@
+package com.horafit.backend.security;
+
+import com.horafit.backend.repository.UserPrincipalRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionTokenServiceTests {
+	private static final String SECRET = "segredo-de-teste-com-pelo-menos-32-bytes";
+
+	private final SessionTokenService sessionTokenService = new SessionTokenService(SECRET, Duration.ofHours(1),
+			new MockEnvironment());
+
+	@Test
+	void issuedTokenCarriesThePrincipal() {
+		SessionPrincipal principal = new SessionPrincipal(42L, UserPrincipalRepository.CLIENT, 2L);
+
+		assertEquals(principal, sessionTokenService.verify(sessionTokenService.issue(principal)).orElseThrow());
+	}
+
+	@Test
+	void physiotherapistTokenHasNoAppointmentRules() {
+		SessionPrincipal principal = new SessionPrincipal(7L, UserPrincipalRepository.PHYSIOTHERAPIST, null);
+
+		assertEquals(principal, sessionTokenService.verify(sessionTokenService.issue(principal)).orElseThrow());
+	}
+
+	@Test
+	void tamperedTokenIsRejected() {
+		String token = sessionTokenService.issue(new SessionPrincipal(42L, UserPrincipalRepository.CLIENT, 2L));
+		String otherPayload = sessionTokenService.issue(new SessionPrincipal(43L, UserPrincipalRepository.CLIENT, 2L))
+				.split("\\.")[0];
+
+		assertTrue(sessionTokenService.verify(otherPayload + token.substring(token.indexOf('.'))).isEmpty());
+		assertTrue(sessionTokenService.verify("não-é-um-token").isEmpty());
+	}
+
+	@Test
+	void tokenSignedWithAnotherSecretIsRejected() {
+		SessionTokenService otherService = new SessionTokenService("outro-segredo-de-teste-com-pelo-menos-32-bytes",
+				Duration.ofHours(1), new MockEnvironment());
+		String token = otherService.issue(new SessionPrincipal(42L, UserPrincipalRepository.CLIENT, 2L));
+
+		assertTrue(sessionTokenService.verify(token).isEmpty());
+	}
+
+	@Test
+	void expiredTokenIsRejected() {
+		SessionTokenService expiringService = new SessionTokenService(SECRET, Duration.ofSeconds(-1),
+				new MockEnvironment());
+		String token = expiringService.issue(new SessionPrincipal(42L, UserPrincipalRepository.CLIENT, 2L));
+
+		assertTrue(sessionTokenService.verify(token).isEmpty());
+	}
+
+	@Test
+	void missingOrShortSecretFailsOutsideTheDevProfile() {
+		assertThrows(IllegalStateException.class,
+				() -> new SessionTokenService("", Duration.ofHours(1), new MockEnvironment()));
+		assertThrows(IllegalStateException.class,
+				() -> new SessionTokenService("segredo-curto", Duration.ofHours(1), new MockEnvironment()));
+	}
+
+	@Test
+	void devProfileFallsBackToARandomKey() {
+		MockEnvironment environment = new MockEnvironment();
+		environment.setActiveProfiles(SessionTokenService.DEV_PROFILE);
+		SessionTokenService devService = new SessionTokenService("", Duration.ofHours(1), environment);
+		SessionPrincipal principal = new SessionPrincipal(42L, UserPrincipalRepository.CLIENT, 2L);
+
+		assertEquals(principal, devService.verify(devService.issue(principal)).orElseThrow());
+		assertTrue(sessionTokenService.verify(devService.issue(principal)).isEmpty());
+	}
+}
@@ -0,0 +1,160 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.entity.Appointment;
+import com.horafit.backend.entity.AppointmentClient;
+import com.horafit.backend.entity.AppointmentRules;
+import com.horafit.backend.entity.Client;
+import com.horafit.backend.entity.Physiotherapist;
+import com.horafit.backend.entity.enums.AppointmentConfirmation;
+import com.horafit.backend.entity.enums.AppointmentLocation;
+import com.horafit.backend.entity.enums.AppointmentModality;
+import com.horafit.backend.repository.AppointmentClientRepository;
+import com.horafit.backend.repository.AppointmentRepository;
+import com.horafit.backend.repository.ClientRepository;
+import com.horafit.backend.repository.PhysiotherapistRepository;
+import com.horafit.backend.util.exception.appointment.AppointmentsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that concurrent bookings of one group never exceed its capacity. The
+ * time and rate printed by the test come from a single run against the test
+ * database and include the retry backoff, so they are not a throughput
+ * measurement; use the load-test profile (see pom.xml) for that.
+ */
+@SpringBootTest
+class AppointmentBookingServiceTests {
+	private static final int CONCURRENT_JOINS = 200;
+
+	@Autowired
+	private AppointmentService appointmentService;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private AppointmentClientRepository appointmentClientRepository;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private PhysiotherapistRepository physiotherapistRepository;
+
+	private Physiotherapist physiotherapist;
+	private Appointment appointment;
+	private Appointment canceled;
+	private final List<Client> clients = new ArrayList<>();
+
+	@Test
+	void concurrentJoinsNeverExceedCapacity() throws Exception {
+		physiotherapist = new Physiotherapist();
+		physiotherapist.setEmail(UUID.randomUUID() + "@horafit.test");
+		physiotherapist.setName("Fisioterapeuta Teste");
+		physiotherapist.setPassword("12345678");
+		physiotherapistRepository.save(physiotherapist);
+
+		appointment = new Appointment();
+		appointment.setDateTime(LocalDateTime.now().plusDays(7).withNano(0));
+		appointment.setLocation(AppointmentLocation.OFFICE);
+		appointment.setModality(AppointmentModality.GROUP_PILATES);
+		appointment.setPhysiotherapist(physiotherapist);
+		appointmentRepository.save(appointment);
+
+		// cada cliente tem um cancelamento com direito a remarcação, que a reserva usa
+		canceled = new Appointment();
+		canceled.setDateTime(appointment.getDateTime().minusDays(1));
+		canceled.setLocation(AppointmentLocation.OFFICE);
+		canceled.setModality(AppointmentModality.GROUP_PILATES);
+		canceled.setPhysiotherapist(physiotherapist);
+		appointmentRepository.save(canceled);
+
+		List<AppointmentClient> credits = new ArrayList<>();
+		for (int i = 0; i < CONCURRENT_JOINS; i++) {
+			Client client = new Client();
+			client.setEmail(UUID.randomUUID() + "@horafit.test");
+			client.setName("Cliente Teste " + i);
+			client.setPassword("12345678");
+			clients.add(clientRepository.save(client));
+
+			AppointmentClient credit = new AppointmentClient();
+			credit.setAppointment(canceled);
+			credit.setClient(client);
+			credit.setConfirmation(AppointmentConfirmation.CANCELED_WITH_RESCHEDULING);
+			credit.setAttendance(true);
+			credits.add(credit);
+		}
+		appointmentClientRepository.saveAll(credits);
+
+		ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_JOINS);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger joined = new AtomicInteger();
+		AtomicInteger full = new AtomicInteger();
+		AtomicInteger conflicts = new AtomicInteger();
+
+		List<Future<?>> futures = new ArrayList<>();
+		for (Client client : clients) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				try {
+					appointmentService.rescheduleAppointment(client.getId(), appointment.getId());
+					joined.incrementAndGet();
+				} catch (AppointmentsException.AppointmentFullException e) {
+					full.incrementAndGet();
+				} catch (AppointmentsException.AppointmentConcurrencyException e) {
+					conflicts.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+
+		long startedAt = System.nanoTime();
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(2, TimeUnit.MINUTES);
+		}
+		long elapsedNanos = System.nanoTime() - startedAt;
+		executor.shutdown();
+
+		long booked = appointmentClientRepository.countByAppointmentId(appointment.getId());
+		System.out.printf("%d reservas concorrentes em %d ms (%.1f reservas/s): %d aceitas, %d lotado, %d conflitos%n",
+				CONCURRENT_JOINS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+				CONCURRENT_JOINS / (elapsedNanos / 1_000_000_000.0), joined.get(), full.get(), conflicts.get());
+
+		assertEquals(CONCURRENT_JOINS, joined.get() + full.get() + conflicts.get());
+		assertEquals(joined.get(), booked);
+		assertTrue(booked <= AppointmentRules.DEFAULT_MAX_CLIENTS_PER_GROUP);
+		assertEquals(AppointmentRules.DEFAULT_MAX_CLIENTS_PER_GROUP, booked);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		for (Appointment created : new Appointment[]{appointment, canceled}) {
+			if (created != null) {
+				appointmentClientRepository.deleteAll(
+						appointmentClientRepository.findByAppointment(appointmentRepository.findById(created.getId()).orElseThrow()));
+				appointmentRepository.deleteById(created.getId());
+			}
+		}
+		clientRepository.deleteAll(clients);
+		if (physiotherapist != null) {
+			physiotherapistRepository.delete(physiotherapist);
+		}
+	}
+}
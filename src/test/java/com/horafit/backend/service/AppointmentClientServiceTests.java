@@ -0,0 +1,83 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.EntityFixtures;
+import com.horafit.backend.dto.appointment.AttendanceRollCallDTO;
+import com.horafit.backend.entity.Appointment;
+import com.horafit.backend.entity.Client;
+import com.horafit.backend.entity.Physiotherapist;
+import com.horafit.backend.repository.AppointmentClientRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional
+class AppointmentClientServiceTests {
+	@Autowired
+	private AppointmentClientService appointmentClientService;
+
+	@Autowired
+	private AppointmentClientRepository appointmentClientRepository;
+
+	@Autowired
+	private EntityFixtures fixtures;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void rollCallRecordsTheAttendanceOfEveryClassOfTheDay() {
+		Physiotherapist physiotherapist = fixtures.physiotherapist();
+		LocalDateTime morning = LocalDateTime.now().withHour(8).withMinute(0).withSecond(0).withNano(0);
+		Appointment first = fixtures.appointment(physiotherapist, morning);
+		Appointment second = fixtures.appointment(physiotherapist, morning.plusHours(10));
+		Client present = fixtures.client();
+		Client absent = fixtures.client();
+		Client notCalled = fixtures.client();
+		fixtures.appointmentClient(first, present);
+		fixtures.appointmentClient(first, absent);
+		fixtures.appointmentClient(first, notCalled);
+		fixtures.appointmentClient(second, absent);
+		entityManager.flush();
+
+		int recorded = appointmentClientService.rollCall(List.of(
+				new AttendanceRollCallDTO(first.getId(), Map.of(present.getId(), true, absent.getId(), false)),
+				new AttendanceRollCallDTO(second.getId(), Map.of(absent.getId(), false))));
+		entityManager.clear();
+
+		assertEquals(3, recorded);
+		assertTrue(attendance(first, present));
+		assertFalse(attendance(first, absent));
+		assertTrue(attendance(first, notCalled));
+		assertFalse(attendance(second, absent));
+	}
+
+	@Test
+	void rollCallFailsWhenAClientIsNotInTheClass() {
+		Appointment appointment = fixtures.appointment(fixtures.physiotherapist(), LocalDateTime.now());
+		Client client = fixtures.client();
+		fixtures.appointmentClient(appointment, client);
+		Client other = fixtures.client();
+		entityManager.flush();
+
+		assertThrows(IllegalArgumentException.class, () -> appointmentClientService.rollCall(List.of(
+				new AttendanceRollCallDTO(appointment.getId(), Map.of(client.getId(), false, other.getId(), false)))));
+	}
+
+	private boolean attendance(Appointment appointment, Client client) {
+		return appointmentClientRepository.findAppointmentClientByClient_IdAndAppointment_Id(client.getId(), appointment.getId())
+				.orElseThrow()
+				.getAttendance();
+	}
+}
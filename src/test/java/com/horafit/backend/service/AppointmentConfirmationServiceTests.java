@@ -0,0 +1,125 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.EntityFixtures;
+import com.horafit.backend.dto.appointment.AppointmentConfirmationRowDTO;
+import com.horafit.backend.entity.Appointment;
+import com.horafit.backend.entity.AppointmentClient;
+import com.horafit.backend.entity.Client;
+import com.horafit.backend.entity.Physiotherapist;
+import com.horafit.backend.entity.enums.AppointmentConfirmation;
+import com.horafit.backend.repository.AppointmentClientRepository;
+import com.horafit.backend.util.exception.appointment.AppointmentsException;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@Transactional
+class AppointmentConfirmationServiceTests {
+	@Autowired
+	private AppointmentConfirmationService appointmentConfirmationService;
+
+	@Autowired
+	private ClientMonthQuotaService clientMonthQuotaService;
+
+	@Autowired
+	private AppointmentClientRepository appointmentClientRepository;
+
+	@Autowired
+	private EntityFixtures fixtures;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void cancelingAClassOnlyMovesTheClientsThatCanBeCanceled() {
+		Physiotherapist physiotherapist = fixtures.physiotherapist();
+		LocalDateTime dateTime = LocalDateTime.now().plusDays(3).withHour(18).withMinute(0).withSecond(0).withNano(0);
+		Appointment appointment = fixtures.appointment(physiotherapist, dateTime);
+		Client confirmed = fixtures.client();
+		Client rescheduled = fixtures.client();
+		Client canceled = fixtures.client();
+		fixtures.appointmentClient(appointment, confirmed, AppointmentConfirmation.CONFIRMED);
+		fixtures.appointmentClient(appointment, rescheduled, AppointmentConfirmation.RESCHEDULED);
+		fixtures.appointmentClient(appointment, canceled, AppointmentConfirmation.CANCELED_WITHOUT_RESCHEDULING);
+		entityManager.flush();
+		entityManager.clear();
+
+		assertEquals(2, appointmentConfirmationService.cancelClasses(List.of(appointment.getId())));
+		entityManager.clear();
+
+		assertEquals(AppointmentConfirmation.CANCELED_WITH_RESCHEDULING, confirmation(appointment, confirmed));
+		assertEquals(AppointmentConfirmation.CANCELED_WITH_RESCHEDULING, confirmation(appointment, rescheduled));
+		assertEquals(AppointmentConfirmation.CANCELED_WITHOUT_RESCHEDULING, confirmation(appointment, canceled));
+		assertEquals(1, clientMonthQuotaService.find(confirmed.getId(), YearMonth.from(dateTime)).getCanceledWithRescheduling());
+		assertEquals(0, clientMonthQuotaService.find(canceled.getId(), YearMonth.from(dateTime)).getCanceledWithRescheduling());
+	}
+
+	@Test
+	void aCanceledClientCannotBeCanceledAgain() {
+		Appointment appointment = fixtures.appointment(fixtures.physiotherapist(), LocalDateTime.now().plusDays(3));
+		Client client = fixtures.client();
+		fixtures.appointmentClient(appointment, client, AppointmentConfirmation.CANCELED_WITH_RESCHEDULING);
+		entityManager.flush();
+
+		AppointmentConfirmationRowDTO row = appointmentConfirmationService.lock(appointment.getId(), client.getId());
+
+		assertThrows(AppointmentsException.InvalidConfirmationTransitionException.class,
+				() -> appointmentConfirmationService.apply(List.of(row), AppointmentConfirmation.CANCELED_WITHOUT_RESCHEDULING));
+	}
+
+	@Test
+	void eachCancellationAllowsASingleReschedule() {
+		Physiotherapist physiotherapist = fixtures.physiotherapist();
+		LocalDateTime dateTime = LocalDateTime.now().plusHours(2).withSecond(0).withNano(0);
+		Appointment canceled = fixtures.appointment(physiotherapist, dateTime);
+		Appointment first = fixtures.appointment(physiotherapist, dateTime.plusHours(1));
+		Appointment second = fixtures.appointment(physiotherapist, dateTime.plusHours(2));
+		Client client = fixtures.client();
+		fixtures.appointmentClient(canceled, client, AppointmentConfirmation.CANCELED_WITH_RESCHEDULING);
+		entityManager.flush();
+		clientMonthQuotaService.changed(client.getId(), dateTime, null, AppointmentConfirmation.CANCELED_WITH_RESCHEDULING);
+
+		AppointmentClient rescheduled = appointmentConfirmationService.reschedule(client.getId(), first);
+
+		assertEquals(first.getId(), rescheduled.getAppointment().getId());
+		assertEquals(AppointmentConfirmation.RESCHEDULED, rescheduled.getConfirmation());
+		assertEquals(0L, appointmentClientRepository.countByAppointmentId(canceled.getId()));
+		YearMonth month = YearMonth.from(dateTime.plusHours(1));
+		assertEquals(1, clientMonthQuotaService.find(client.getId(), month).getRescheduled());
+		assertThrows(AppointmentsException.InvalidConfirmationTransitionException.class,
+				() -> appointmentConfirmationService.reschedule(client.getId(), second));
+	}
+
+	@Test
+	void aCanceledClientIsNotMovedNorMarkedAbsent() {
+		Physiotherapist physiotherapist = fixtures.physiotherapist();
+		Appointment appointment = fixtures.appointment(physiotherapist, LocalDateTime.now().plusDays(3));
+		Appointment other = fixtures.appointment(physiotherapist, LocalDateTime.now().plusDays(4));
+		Client client = fixtures.client();
+		fixtures.appointmentClient(appointment, client, AppointmentConfirmation.CANCELED_WITHOUT_RESCHEDULING);
+		entityManager.flush();
+
+		AppointmentConfirmationRowDTO row = appointmentConfirmationService.lock(appointment.getId(), client.getId());
+
+		assertThrows(AppointmentsException.InvalidConfirmationTransitionException.class,
+				() -> appointmentConfirmationService.move(row, other));
+		assertEquals(0, appointmentConfirmationService.recordAttendance(appointment.getId(), Map.of(client.getId(), false)));
+	}
+
+	private AppointmentConfirmation confirmation(Appointment appointment, Client client) {
+		return appointmentClientRepository.findAppointmentClientByClient_IdAndAppointment_Id(client.getId(), appointment.getId())
+				.orElseThrow()
+				.getConfirmation();
+	}
+}
@@ -0,0 +1,102 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.EntityFixtures;
+import com.horafit.backend.dto.appointment.AppointmentConflictDTO;
+import com.horafit.backend.dto.appointment.AppointmentConflictReportDTO;
+import com.horafit.backend.entity.Appointment;
+import com.horafit.backend.entity.Client;
+import com.horafit.backend.entity.Physiotherapist;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class AppointmentConflictDetectorTests {
+	private static final LocalDateTime FIRST = LocalDateTime.of(2031, 9, 1, 18, 0);
+	private static final int WEEKS = 26;
+	private static final int CLIENTS = 8;
+
+	@Autowired
+	private AppointmentConflictDetector appointmentConflictDetector;
+
+	@Autowired
+	private EntityFixtures fixtures;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void reportsEveryConflictOfTheSeriesWithOneQuery() {
+		Physiotherapist physiotherapist = fixtures.physiotherapist();
+		Physiotherapist otherPhysiotherapist = fixtures.physiotherapist();
+
+		List<Long> clientIds = new ArrayList<>();
+		List<Client> clients = new ArrayList<>();
+		for (int i = 0; i < CLIENTS; i++) {
+			Client client = fixtures.client("Cliente Teste " + i);
+			clients.add(client);
+			clientIds.add(client.getId());
+		}
+
+		// semana 3: o fisioterapeuta já atende neste horário
+		fixtures.appointment(physiotherapist, FIRST.plusWeeks(3));
+		// semana 10: dois clientes da série já estão com outro fisioterapeuta
+		Appointment taken = fixtures.appointment(otherPhysiotherapist, FIRST.plusWeeks(10));
+		fixtures.appointmentClient(taken, clients.get(0));
+		fixtures.appointmentClient(taken, clients.get(5));
+		// fora da série: não é conflito
+		fixtures.appointment(physiotherapist, FIRST.plusWeeks(3).plusHours(1));
+
+		entityManager.flush();
+		entityManager.clear();
+
+		List<LocalDateTime> dateTimes = new ArrayList<>();
+		for (int i = 0; i < WEEKS; i++) {
+			dateTimes.add(FIRST.plusWeeks(i));
+		}
+
+		Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		AppointmentConflictReportDTO report = appointmentConflictDetector.detect(physiotherapist.getId(), clientIds, dateTimes);
+
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(WEEKS, report.checkedDateTimes());
+		assertEquals(CLIENTS, report.checkedClients());
+		assertEquals(3, report.conflicts().size());
+
+		AppointmentConflictDTO physiotherapistConflict = report.conflicts().get(0);
+		assertEquals(AppointmentConflictDTO.Type.PHYSIOTHERAPIST, physiotherapistConflict.type());
+		assertEquals(FIRST.plusWeeks(3), physiotherapistConflict.dateTime());
+
+		report.conflicts().subList(1, 3).forEach(conflict -> {
+			assertEquals(AppointmentConflictDTO.Type.CLIENT, conflict.type());
+			assertEquals(taken.getId(), conflict.appointmentId());
+		});
+	}
+
+	@Test
+	void seriesWithoutClientsOnlyChecksThePhysiotherapist() {
+		Physiotherapist physiotherapist = fixtures.physiotherapist();
+		entityManager.flush();
+
+		AppointmentConflictReportDTO report = appointmentConflictDetector.detect(physiotherapist.getId(), List.of(),
+				List.of(FIRST));
+
+		assertFalse(report.hasConflicts());
+	}
+}
@@ -0,0 +1,132 @@
+package com.horafit.backend.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Streams rows seeded in the database through {@link AppointmentExportService}.
+ * Runs in the same 32 MB heap surefire execution as
+ * {@link AppointmentExportWriterTests} (see pom.xml), so only the data source and
+ * the {@link JdbcTemplate} are started, and the export fails with
+ * OutOfMemoryError if the driver or the service keeps the result set in memory.
+ * The tables are expected to exist already, as created by the other tests.
+ */
+@SpringBootTest(classes = AppointmentExportService.class)
+@ImportAutoConfiguration({DataSourceAutoConfiguration.class, JdbcTemplateAutoConfiguration.class})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AppointmentExportServiceTests {
+	private static final int APPOINTMENTS = 50_000;
+	private static final int CLIENTS_PER_APPOINTMENT = 4;
+	private static final int BATCH_SIZE = 5_000;
+	// janela própria, longe dos atendimentos dos outros testes
+	private static final LocalDateTime FROM = LocalDateTime.of(2199, 1, 1, 7, 0);
+	private static final LocalDateTime TO = FROM.plusYears(1);
+
+	@Autowired
+	private AppointmentExportService appointmentExportService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Long physiotherapistId;
+	private final List<Long> clientIds = new ArrayList<>();
+
+	@BeforeAll
+	void seed() {
+		physiotherapistId = insertUser("physiotherapist", "Fisioterapeuta Exportação");
+		for (int i = 0; i < CLIENTS_PER_APPOINTMENT; i++) {
+			clientIds.add(insertUser("client", "Cliente Exportação " + i));
+		}
+
+		// os atendimentos são gerados em lotes, sem manter a lista em memória
+		for (int start = 0; start < APPOINTMENTS; start += BATCH_SIZE) {
+			int offset = start;
+			jdbcTemplate.batchUpdate("INSERT INTO horafit.appointment " +
+					"(date_time, location, modality, physiotherapist_id, version) VALUES (?, 'OFFICE', 'GROUP_PILATES', ?, 0)",
+					new BatchPreparedStatementSetter() {
+						@Override
+						public void setValues(PreparedStatement statement, int i) throws SQLException {
+							statement.setTimestamp(1, Timestamp.valueOf(FROM.plusMinutes(5L * (offset + i))));
+							statement.setLong(2, physiotherapistId);
+						}
+
+						@Override
+						public int getBatchSize() {
+							return Math.min(BATCH_SIZE, APPOINTMENTS - offset);
+						}
+					});
+		}
+		for (Long clientId : clientIds) {
+			jdbcTemplate.update("INSERT INTO horafit.appointment_client (appointment_id, client_id, confirmation, attendance) " +
+					"SELECT id, ?, 'CONFIRMED', 1 FROM horafit.appointment WHERE physiotherapist_id = ?",
+					clientId, physiotherapistId);
+		}
+	}
+
+	@Test
+	void streamsEverySeededRowAsNdjson() throws IOException {
+		LineCountingOutputStream out = new LineCountingOutputStream();
+
+		long rows = appointmentExportService.export(FROM, TO, AppointmentExportWriter.Format.NDJSON, out);
+
+		assertEquals(expectedRows(), rows);
+		assertEquals(rows, out.getLines());
+	}
+
+	@Test
+	void streamsEverySeededRowAsCsv() throws IOException {
+		LineCountingOutputStream out = new LineCountingOutputStream();
+
+		long rows = appointmentExportService.export(FROM, TO, AppointmentExportWriter.Format.CSV, out);
+
+		assertEquals(expectedRows(), rows);
+		// cabecalho + uma linha por registro
+		assertEquals(rows + 1, out.getLines());
+	}
+
+	@AfterAll
+	void cleanUp() {
+		for (Long clientId : clientIds) {
+			jdbcTemplate.update("DELETE FROM horafit.appointment_client WHERE client_id = ?", clientId);
+			jdbcTemplate.update("DELETE FROM horafit.client WHERE id = ?", clientId);
+		}
+		jdbcTemplate.update("DELETE FROM horafit.appointment WHERE physiotherapist_id = ?", physiotherapistId);
+		jdbcTemplate.update("DELETE FROM horafit.physiotherapist WHERE id = ?", physiotherapistId);
+	}
+
+	private long expectedRows() {
+		long seeded = (long) APPOINTMENTS * CLIENTS_PER_APPOINTMENT;
+		Long inWindow = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM horafit.appointment AS a " +
+				"LEFT JOIN horafit.appointment_client AS ac ON ac.appointment_id = a.id " +
+				"WHERE a.date_time >= ? AND a.date_time < ?", Long.class, Timestamp.valueOf(FROM), Timestamp.valueOf(TO));
+		assertEquals(seeded, inWindow);
+		return seeded;
+	}
+
+	private Long insertUser(String table, String name) {
+		String email = UUID.randomUUID() + "@export.test";
+		jdbcTemplate.update("INSERT INTO horafit." + table + " (email, name, password) VALUES (?, ?, '12345678')",
+				email, name);
+		return jdbcTemplate.queryForObject("SELECT id FROM horafit." + table + " WHERE email = ?", Long.class, email);
+	}
+}
@@ -0,0 +1,57 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.dto.appointment.AppointmentExportRowDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs in its own surefire execution with a 32 MB heap (see pom.xml), so any
+ * buffering proportional to the number of rows fails with OutOfMemoryError.
+ */
+class AppointmentExportWriterTests {
+	private static final int ROWS = 1_000_000;
+
+	@Test
+	void exportsOneMillionRowsAsNdjson() throws IOException {
+		LineCountingOutputStream out = new LineCountingOutputStream();
+
+		try (AppointmentExportWriter writer = new AppointmentExportWriter(AppointmentExportWriter.Format.NDJSON, out)) {
+			writeSyntheticRows(writer);
+			assertEquals(ROWS, writer.getRowCount());
+		}
+
+		assertEquals(ROWS, out.getLines());
+	}
+
+	@Test
+	void exportsOneMillionRowsAsCsv() throws IOException {
+		LineCountingOutputStream out = new LineCountingOutputStream();
+
+		try (AppointmentExportWriter writer = new AppointmentExportWriter(AppointmentExportWriter.Format.CSV, out)) {
+			writeSyntheticRows(writer);
+		}
+
+		// cabecalho + uma linha por registro
+		assertEquals(ROWS + 1, out.getLines());
+	}
+
+	private void writeSyntheticRows(AppointmentExportWriter writer) throws IOException {
+		LocalDateTime start = LocalDateTime.of(2024, 1, 1, 7, 0);
+		for (int i = 0; i < ROWS; i++) {
+			boolean hasClient = i % 10 != 0;
+			writer.write(new AppointmentExportRowDTO(
+					(long) i / 4,
+					start.plusMinutes(15L * (i / 4)),
+					"OFFICE",
+					"GROUP_PILATES",
+					1L,
+					hasClient ? (long) i % 5000 : null,
+					hasClient ? "CONFIRMED" : null,
+					hasClient ? Boolean.TRUE : null));
+		}
+	}
+}
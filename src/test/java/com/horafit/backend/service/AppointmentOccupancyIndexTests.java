@@ -0,0 +1,187 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.dto.appointment.AppointmentOccupancyRowDTO;
+import com.horafit.backend.entity.enums.AppointmentConfirmation;
+import com.horafit.backend.repository.AppointmentClientRepository;
+import com.horafit.backend.util.AppointmentCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentOccupancyIndexTests {
+	private static final LocalDateTime START = LocalDateTime.now().plusDays(1).withNano(0);
+
+	@Mock
+	private AppointmentClientRepository appointmentClientRepository;
+
+	@InjectMocks
+	private AppointmentOccupancyIndex index;
+
+	@BeforeEach
+	void loadIndex() {
+		List<AppointmentOccupancyRowDTO> rows = new ArrayList<>();
+		// 1: quatro confirmados, lotado
+		for (long clientId = 10; clientId < 14; clientId++) {
+			rows.add(row(1L, START, clientId, AppointmentConfirmation.CONFIRMED));
+		}
+		// 2: três confirmados e um cancelado, disponível
+		rows.add(row(2L, START.plusHours(1), 10L, AppointmentConfirmation.CONFIRMED));
+		rows.add(row(2L, START.plusHours(1), 11L, AppointmentConfirmation.RESCHEDULED));
+		rows.add(row(2L, START.plusHours(1), 12L, AppointmentConfirmation.CONFIRMED));
+		rows.add(row(2L, START.plusHours(1), 20L, AppointmentConfirmation.CANCELED_WITH_RESCHEDULING));
+		// 3 e 4: mesmo horário, ordenados por ID
+		rows.add(row(4L, START.plusHours(2), 10L, AppointmentConfirmation.CONFIRMED));
+		rows.add(row(3L, START.plusHours(2), 11L, AppointmentConfirmation.CONFIRMED));
+		// 5: no passado
+		rows.add(row(5L, START.minusDays(2), 10L, AppointmentConfirmation.CONFIRMED));
+
+		when(appointmentClientRepository.findOccupancyRowsFrom(any())).thenReturn(rows);
+		index.rebuild();
+	}
+
+	@Test
+	void findsAppointmentsWithFreeSlotsInOrder() {
+		assertEquals(List.of(2L, 3L, 4L), findAvailable(30L, Integer.MAX_VALUE));
+	}
+
+	@Test
+	void excludesAppointmentsOfTheClientWhateverTheConfirmation() {
+		assertEquals(List.of(3L), findAvailable(10L, Integer.MAX_VALUE));
+		assertEquals(List.of(3L, 4L), findAvailable(20L, Integer.MAX_VALUE));
+	}
+
+	@Test
+	void continuesAfterTheCursor() {
+		List<Long> firstPage = findAvailable(30L, 2);
+		assertEquals(List.of(2L, 3L), firstPage);
+
+		AppointmentCursor after = new AppointmentCursor(START.plusHours(2), 3L);
+		assertEquals(List.of(4L), index.findAvailable(30L, null, after, AppointmentCursor.MAX_DATE_TIME, 2));
+	}
+
+	@Test
+	void refreshReplacesAndRemovesAppointments() {
+		when(appointmentClientRepository.findOccupancyRowsByAppointmentIds(anyCollection())).thenReturn(List.of(
+				row(1L, START, 10L, AppointmentConfirmation.CONFIRMED),
+				row(1L, START, 11L, AppointmentConfirmation.CANCELED_WITHOUT_RESCHEDULING)));
+
+		index.refresh(Set.of(1L, 2L));
+
+		assertEquals(List.of(1L, 3L, 4L), findAvailable(30L, Integer.MAX_VALUE));
+		assertEquals(1, index.get(1L).occupied());
+		assertNull(index.get(2L));
+	}
+
+	@Test
+	void concurrentRefreshesOfAnAppointmentDoNotApplyAStaleSnapshot() throws Exception {
+		AtomicInteger reads = new AtomicInteger();
+		CountDownLatch firstReading = new CountDownLatch(1);
+		CountDownLatch secondReading = new CountDownLatch(1);
+		when(appointmentClientRepository.findOccupancyRowsByAppointmentIds(anyCollection())).thenAnswer(invocation -> {
+			if (reads.incrementAndGet() == 1) {
+				// leitura antiga: demora até a segunda leitura, se ela não esperar
+				firstReading.countDown();
+				secondReading.await(200, TimeUnit.MILLISECONDS);
+				return List.of(row(2L, START.plusHours(1), 10L, AppointmentConfirmation.CONFIRMED));
+			}
+			secondReading.countDown();
+			return List.of(
+					row(2L, START.plusHours(1), 10L, AppointmentConfirmation.CONFIRMED),
+					row(2L, START.plusHours(1), 11L, AppointmentConfirmation.CONFIRMED));
+		});
+
+		Thread stale = new Thread(() -> index.refresh(Set.of(2L)));
+		stale.start();
+		firstReading.await();
+		index.refresh(Set.of(2L));
+		stale.join();
+
+		assertEquals(2, reads.get());
+		assertEquals(2, index.get(2L).occupied());
+	}
+
+	@Test
+	void rebuildWaitsForARunningRefreshAndReadsAfterIt() throws Exception {
+		AtomicBoolean refreshed = new AtomicBoolean();
+		CountDownLatch refreshReading = new CountDownLatch(1);
+		CountDownLatch rebuildReading = new CountDownLatch(1);
+		List<AppointmentOccupancyRowDTO> before = List.of(row(2L, START.plusHours(1), 10L, AppointmentConfirmation.CONFIRMED));
+		List<AppointmentOccupancyRowDTO> after = List.of(
+				row(2L, START.plusHours(1), 10L, AppointmentConfirmation.CONFIRMED),
+				row(2L, START.plusHours(1), 11L, AppointmentConfirmation.CONFIRMED));
+		when(appointmentClientRepository.findOccupancyRowsByAppointmentIds(anyCollection())).thenAnswer(invocation -> {
+			refreshReading.countDown();
+			// a reconstrução lê durante esta espera, se não esperar pelo refresh
+			rebuildReading.await(200, TimeUnit.MILLISECONDS);
+			refreshed.set(true);
+			return after;
+		});
+		when(appointmentClientRepository.findOccupancyRowsFrom(any())).thenAnswer(invocation -> {
+			rebuildReading.countDown();
+			return refreshed.get() ? after : before;
+		});
+
+		Thread refresh = new Thread(() -> index.refresh(Set.of(2L)));
+		refresh.start();
+		refreshReading.await();
+		index.rebuild();
+		refresh.join();
+
+		assertEquals(2, index.get(2L).occupied());
+	}
+
+	@Test
+	void usesTheSmallestGroupLimitOfTheRules() {
+		when(appointmentClientRepository.findOccupancyRowsByAppointmentIds(anyCollection())).thenReturn(List.of(
+				row(3L, START.plusHours(2), 11L, AppointmentConfirmation.CONFIRMED, 10),
+				row(3L, START.plusHours(2), 12L, AppointmentConfirmation.CONFIRMED, 2),
+				row(4L, START.plusHours(2), 10L, AppointmentConfirmation.CONFIRMED, 10),
+				row(4L, START.plusHours(2), 13L, AppointmentConfirmation.CONFIRMED, 10),
+				row(4L, START.plusHours(2), 14L, AppointmentConfirmation.CONFIRMED, 10),
+				row(4L, START.plusHours(2), 15L, AppointmentConfirmation.CONFIRMED, 10)));
+
+		index.refresh(Set.of(3L, 4L));
+
+		assertEquals(List.of(2L, 4L), findAvailable(30L, null, Integer.MAX_VALUE));
+		assertEquals(List.of(2L), findAvailable(30L, 4, Integer.MAX_VALUE));
+		assertEquals(List.of(), findAvailable(30L, 3, Integer.MAX_VALUE));
+	}
+
+	private List<Long> findAvailable(Long clientId, int limit) {
+		return findAvailable(clientId, null, limit);
+	}
+
+	private List<Long> findAvailable(Long clientId, Integer clientLimit, int limit) {
+		return index.findAvailable(clientId, clientLimit, AppointmentCursor.startingAt(AppointmentCursor.MIN_DATE_TIME),
+				AppointmentCursor.MAX_DATE_TIME, limit);
+	}
+
+	private static AppointmentOccupancyRowDTO row(Long appointmentId, LocalDateTime dateTime, Long clientId,
+			AppointmentConfirmation confirmation) {
+		return row(appointmentId, dateTime, clientId, confirmation, null);
+	}
+
+	private static AppointmentOccupancyRowDTO row(Long appointmentId, LocalDateTime dateTime, Long clientId,
+			AppointmentConfirmation confirmation, Integer maxClientsPerGroup) {
+		return new AppointmentOccupancyRowDTO(appointmentId, dateTime, clientId, confirmation, maxClientsPerGroup);
+	}
+}
@@ -0,0 +1,139 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.EntityFixtures;
+import com.horafit.backend.dto.appointment.AppointmentEditBatchDTO;
+import com.horafit.backend.dto.appointment.AppointmentPlanDiffDTO;
+import com.horafit.backend.dto.appointment.RepetirDTO;
+import com.horafit.backend.entity.AppointmentClient;
+import com.horafit.backend.entity.Client;
+import com.horafit.backend.entity.Physiotherapist;
+import com.horafit.backend.entity.enums.AppointmentConfirmation;
+import com.horafit.backend.entity.enums.AppointmentLocation;
+import com.horafit.backend.entity.enums.AppointmentModality;
+import com.horafit.backend.repository.AppointmentClientRepository;
+import com.horafit.backend.repository.AppointmentRepository;
+import com.horafit.backend.repository.RecurringSeriesRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = "horafit.recurrence.horizon-weeks=4")
+class AppointmentPlanServiceTests {
+	// ocorrências de cada dia e horário dentro do horizonte
+	private static final int WEEKS = 4;
+	private static final LocalTime EVENING = LocalTime.of(18, 0);
+	private static final LocalTime MORNING = LocalTime.of(7, 0);
+
+	@Autowired
+	private AppointmentPlanService appointmentPlanService;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private AppointmentClientRepository appointmentClientRepository;
+
+	@Autowired
+	private RecurringSeriesRepository recurringSeriesRepository;
+
+	@Autowired
+	private EntityFixtures fixtures;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void onlyTheOccurrencesThatDifferAreWritten() {
+		Physiotherapist physiotherapist = fixtures.physiotherapist();
+		Client client = fixtures.client();
+		AppointmentClient history = pastAppointment(physiotherapist, client);
+
+		AppointmentPlanDiffDTO created = apply(physiotherapist, client, Map.of("segunda-feira", List.of(EVENING)));
+		assertEquals(new AppointmentPlanDiffDTO(0, WEEKS, 0, 0), created);
+
+		AppointmentPlanDiffDTO extended = apply(physiotherapist, client,
+				Map.of("segunda-feira", List.of(EVENING), "quarta-feira", List.of(MORNING)));
+		assertEquals(new AppointmentPlanDiffDTO(WEEKS, WEEKS, 0, 0), extended);
+
+		// quarta-feira -> sexta-feira: cada ocorrência vai para a sexta-feira da mesma semana, exceto nas pontas
+		AppointmentPlanDiffDTO changed = apply(physiotherapist, client,
+				Map.of("segunda-feira", List.of(EVENING), "sexta-feira", List.of(MORNING)));
+		assertEquals(WEEKS, changed.kept());
+		assertEquals(WEEKS, changed.moved() + changed.inserted());
+		assertEquals(WEEKS, changed.moved() + changed.detached());
+		assertTrue(changed.moved() >= WEEKS - 1);
+
+		entityManager.flush();
+		entityManager.clear();
+
+		List<AppointmentClient> future = appointmentClientRepository.findByClientIdAndModalityAfter(client.getId(),
+				AppointmentModality.GROUP_PILATES, LocalDateTime.now());
+		assertEquals(2 * WEEKS, future.size());
+		assertTrue(future.stream().allMatch(appointmentClient -> {
+			int day = appointmentClient.getAppointment().getDateTime().getDayOfWeek().getValue();
+			return day == 1 || day == 5;
+		}));
+		// nenhum atendimento da quarta-feira ficou sem clientes
+		assertEquals(2 * WEEKS + 1, appointmentRepository.findAll().stream()
+				.filter(appointment -> appointment.getPhysiotherapist().getId().equals(physiotherapist.getId()))
+				.count());
+
+		assertEquals(2, recurringSeriesRepository.findByClientIdAndModality(client.getId(),
+				AppointmentModality.GROUP_PILATES).size());
+
+		AppointmentClient unchangedHistory = appointmentClientRepository.findById(history.getId()).orElseThrow();
+		assertEquals(history.getAppointment().getId(), unchangedHistory.getAppointment().getId());
+		assertEquals(AppointmentConfirmation.CONFIRMED, unchangedHistory.getConfirmation());
+	}
+
+	@Test
+	void emptyPlanDetachesEveryFutureOccurrence() {
+		Physiotherapist physiotherapist = fixtures.physiotherapist();
+		Client client = fixtures.client();
+		apply(physiotherapist, client, Map.of("terça-feira", List.of(EVENING)));
+
+		AppointmentPlanDiffDTO cleared = apply(physiotherapist, client, Map.of());
+
+		assertEquals(new AppointmentPlanDiffDTO(0, 0, 0, WEEKS), cleared);
+		assertTrue(recurringSeriesRepository.findByClientIdAndModality(client.getId(),
+				AppointmentModality.GROUP_PILATES).isEmpty());
+	}
+
+	private AppointmentPlanDiffDTO apply(Physiotherapist physiotherapist, Client client,
+										 Map<String, List<LocalTime>> daysAndTimes) {
+		RepetirDTO repetir = new RepetirDTO();
+		repetir.setAtivo(true);
+		repetir.setOpcao("Sempre");
+
+		AppointmentEditBatchDTO plan = new AppointmentEditBatchDTO();
+		plan.setModality(AppointmentModality.GROUP_PILATES.name());
+		plan.setLocation(AppointmentLocation.OFFICE.name());
+		plan.setPhysiotherapistId(physiotherapist.getId());
+		plan.setRepetir(repetir);
+		plan.setDaysAndTimes(new LinkedHashMap<>(daysAndTimes));
+
+		AppointmentPlanDiffDTO diff = appointmentPlanService.applyPlan(plan, client.getId());
+		entityManager.flush();
+		entityManager.clear();
+		return diff;
+	}
+
+	private AppointmentClient pastAppointment(Physiotherapist physiotherapist, Client client) {
+		LocalDateTime lastWeek = LocalDateTime.now().minusWeeks(1).withHour(18).withMinute(0).withSecond(0).withNano(0);
+		return fixtures.appointmentClient(fixtures.appointment(physiotherapist, lastWeek), client);
+	}
+}
@@ -0,0 +1,74 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.EntityFixtures;
+import com.horafit.backend.dto.appointment.AppointmentPageDTO;
+import com.horafit.backend.dto.appointment.AppointmentPageRequestDTO;
+import com.horafit.backend.entity.Appointment;
+import com.horafit.backend.entity.Client;
+import com.horafit.backend.entity.Physiotherapist;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class AppointmentProjectionServiceTests {
+	private static final int APPOINTMENTS = 40;
+	private static final int CLIENTS_PER_APPOINTMENT = 3;
+
+	@Autowired
+	private AppointmentService appointmentService;
+
+	@Autowired
+	private EntityFixtures fixtures;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void physiotherapistAppointmentsAreLoadedWithFixedNumberOfStatements() {
+		Physiotherapist physiotherapist = fixtures.physiotherapist();
+
+		List<Client> clients = new ArrayList<>();
+		for (int i = 0; i < CLIENTS_PER_APPOINTMENT; i++) {
+			clients.add(fixtures.client("Cliente Teste " + i));
+		}
+
+		LocalDateTime start = LocalDateTime.of(2030, 1, 7, 8, 0);
+		for (int i = 0; i < APPOINTMENTS; i++) {
+			Appointment appointment = fixtures.appointment(physiotherapist, start.plusWeeks(i));
+
+			for (Client client : clients) {
+				fixtures.appointmentClient(appointment, client);
+			}
+		}
+
+		entityManager.flush();
+		entityManager.clear();
+
+		Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		AppointmentPageDTO appointments = appointmentService.findAllByPhysiotherapistId(physiotherapist.getId(),
+				new AppointmentPageRequestDTO(null, null, null, APPOINTMENTS));
+
+		assertEquals(APPOINTMENTS, appointments.items().size());
+		assertNull(appointments.nextCursor());
+		appointments.items().forEach(appointment -> assertEquals(CLIENTS_PER_APPOINTMENT, appointment.clients().size()));
+		// uma consulta para os atendimentos e uma para os clientes de todos eles
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+}
@@ -0,0 +1,157 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.entity.Appointment;
+import com.horafit.backend.entity.AppointmentClient;
+import com.horafit.backend.entity.Client;
+import com.horafit.backend.entity.Physiotherapist;
+import com.horafit.backend.entity.enums.AppointmentConfirmation;
+import com.horafit.backend.entity.enums.AppointmentLocation;
+import com.horafit.backend.entity.enums.AppointmentModality;
+import com.horafit.backend.repository.AppointmentBatchRepository;
+import com.horafit.backend.repository.AppointmentClientRepository;
+import com.horafit.backend.repository.AppointmentRepository;
+import com.horafit.backend.repository.AppointmentRulesRepository;
+import com.horafit.backend.repository.ClientRepository;
+import com.horafit.backend.repository.PhysiotherapistRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Checks with EXPLAIN that the date/time range queries use the indexes of
+ * {@code appointment} and {@code appointment_client} instead of scanning them.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AppointmentQueryPlanTests {
+	// dois anos de atendimentos diários, para que o otimizador prefira os índices
+	private static final int DAYS = 730;
+	private static final LocalDateTime FIRST = LocalDateTime.of(2031, 1, 1, 10, 0);
+	private static final YearMonth MONTH = YearMonth.of(2031, 6);
+
+	@Autowired
+	private AppointmentBatchRepository appointmentBatchRepository;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private PhysiotherapistRepository physiotherapistRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+	private Physiotherapist physiotherapist;
+	private Client client;
+
+	@BeforeAll
+	void seed() {
+		physiotherapist = new Physiotherapist();
+		physiotherapist.setEmail(UUID.randomUUID() + "@horafit.test");
+		physiotherapist.setName("Fisioterapeuta Teste");
+		physiotherapist.setPassword("12345678");
+		physiotherapistRepository.save(physiotherapist);
+
+		client = new Client();
+		client.setEmail(UUID.randomUUID() + "@horafit.test");
+		client.setName("Cliente Teste");
+		client.setPassword("12345678");
+		clientRepository.save(client);
+
+		List<Appointment> appointments = new ArrayList<>();
+		for (int i = 0; i < DAYS; i++) {
+			Appointment appointment = new Appointment();
+			appointment.setDateTime(FIRST.plusDays(i));
+			appointment.setLocation(AppointmentLocation.OFFICE);
+			appointment.setModality(AppointmentModality.GROUP_PILATES);
+			appointment.setPhysiotherapist(physiotherapist);
+			appointments.add(appointment);
+		}
+		appointmentBatchRepository.insertAppointments(appointments);
+
+		List<AppointmentClient> appointmentClients = new ArrayList<>();
+		for (int i = 0; i < DAYS; i += 7) {
+			AppointmentClient appointmentClient = new AppointmentClient();
+			appointmentClient.setAppointment(appointments.get(i));
+			appointmentClient.setClient(client);
+			appointmentClient.setConfirmation(i % 2 == 0 ? AppointmentConfirmation.CONFIRMED : AppointmentConfirmation.RESCHEDULED);
+			appointmentClient.setAttendance(true);
+			appointmentClients.add(appointmentClient);
+		}
+		appointmentBatchRepository.insertAppointmentClients(appointmentClients);
+	}
+
+	@Test
+	void findBetweenUsesAnIndex() {
+		assertNoFullScan(AppointmentRepository.FIND_BETWEEN, Map.of(
+				"start", MONTH.atDay(1).atStartOfDay(),
+				"end", MONTH.atDay(2).atStartOfDay()));
+	}
+
+	@Test
+	void findByClientIdBetweenUsesAnIndex() {
+		assertNoFullScan(AppointmentRepository.FIND_BY_CLIENT_ID_BETWEEN, Map.of(
+				"clientId", client.getId(),
+				"start", MONTH.atDay(1).atStartOfDay(),
+				"end", MONTH.plusMonths(1).atDay(1).atStartOfDay()));
+	}
+
+	@Test
+	void findByClientIdAndModalityBetweenUsesAnIndex() {
+		assertNoFullScan(AppointmentRepository.FIND_BY_CLIENT_ID_AND_MODALITY_BETWEEN, Map.of(
+				"clientId", client.getId(),
+				"modality", AppointmentModality.GROUP_PILATES.name(),
+				"start", MONTH.atDay(1).atStartOfDay(),
+				"end", MONTH.plusMonths(1).atDay(1).atStartOfDay()));
+	}
+
+	@Test
+	void appointmentClientsInRangeUseAnIndex() {
+		assertNoFullScan(AppointmentClientRepository.FIND_BY_CLIENT_ID_BETWEEN, Map.of(
+				"clientId", client.getId(),
+				"start", MONTH.atDay(1).atStartOfDay(),
+				"end", MONTH.plusMonths(2).atDay(1).atStartOfDay()));
+	}
+
+	@Test
+	void rescheduledCountUsesAnIndex() {
+		assertNoFullScan(AppointmentRulesRepository.COUNT_RESCHEDULED_BETWEEN, Map.of(
+				"id", client.getId(),
+				"start", MONTH.atDay(1).atStartOfDay(),
+				"end", MONTH.plusMonths(1).atDay(1).atStartOfDay()));
+	}
+
+	private void assertNoFullScan(String query, Map<String, Object> params) {
+		List<Map<String, Object>> plan = namedParameterJdbcTemplate.queryForList("EXPLAIN " + query, params);
+		assertFalse(plan.isEmpty());
+		for (Map<String, Object> row : plan) {
+			assertNotEquals("ALL", row.get("type"), () -> "Varredura completa de " + row.get("table") + ": " + plan);
+		}
+	}
+
+	@AfterAll
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM horafit.appointment_client WHERE client_id = ?", client.getId());
+		jdbcTemplate.update("DELETE FROM horafit.appointment WHERE physiotherapist_id = ?", physiotherapist.getId());
+		clientRepository.delete(client);
+		physiotherapistRepository.delete(physiotherapist);
+	}
+}
@@ -0,0 +1,114 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.EntityFixtures;
+import com.horafit.backend.dto.appointmentRules.CanRescheduleDTO;
+import com.horafit.backend.entity.AppointmentClient;
+import com.horafit.backend.entity.Client;
+import com.horafit.backend.entity.ClientMonthQuota;
+import com.horafit.backend.entity.Physiotherapist;
+import com.horafit.backend.entity.enums.AppointmentConfirmation;
+import com.horafit.backend.repository.AppointmentClientRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = {"spring.jpa.properties.hibernate.generate_statistics=true",
+		"horafit.month-quota.rebuild-chunk-size=1"})
+class ClientMonthQuotaServiceTests {
+	private static final YearMonth MONTH = YearMonth.now();
+
+	@Autowired
+	private ClientMonthQuotaService clientMonthQuotaService;
+
+	@Autowired
+	private AppointmentRulesService appointmentRulesService;
+
+	@Autowired
+	private AppointmentClientRepository appointmentClientRepository;
+
+	@Autowired
+	private EntityFixtures fixtures;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void countersFollowTheConfirmationChangesAndMatchARebuild() {
+		Physiotherapist physiotherapist = fixtures.physiotherapist();
+		Client client = fixtures.client();
+		LocalDateTime thisMonth = MONTH.atDay(10).atTime(18, 0);
+		LocalDateTime nextMonth = MONTH.plusMonths(1).atDay(10).atTime(18, 0);
+
+		fixtures.appointmentClient(fixtures.appointment(physiotherapist, thisMonth), client, AppointmentConfirmation.RESCHEDULED);
+		fixtures.appointmentClient(fixtures.appointment(physiotherapist, nextMonth), client, AppointmentConfirmation.CANCELED_WITH_RESCHEDULING);
+		entityManager.flush();
+		clientMonthQuotaService.rebuild();
+
+		// cancelamento com direito a remarcação e depois a remarcação, no mês seguinte
+		AppointmentClient canceled = fixtures.appointmentClient(fixtures.appointment(physiotherapist, nextMonth.plusDays(1)), client,
+				AppointmentConfirmation.CONFIRMED);
+		change(canceled, AppointmentConfirmation.CANCELED_WITH_RESCHEDULING);
+		clientMonthQuotaService.changed(client.getId(), nextMonth.plusDays(2), null, AppointmentConfirmation.RESCHEDULED);
+		fixtures.appointmentClient(fixtures.appointment(physiotherapist, nextMonth.plusDays(2)), client, AppointmentConfirmation.RESCHEDULED);
+		// remarcação do mês atual cancelada sem direito a nova remarcação
+		AppointmentClient rescheduled = appointmentClientRepository.findByClientIdBetween(client.getId(),
+				MONTH.atDay(1).atStartOfDay(), MONTH.plusMonths(1).atDay(1).atStartOfDay()).get(0);
+		change(rescheduled, AppointmentConfirmation.CANCELED_WITHOUT_RESCHEDULING);
+		entityManager.flush();
+		entityManager.clear();
+
+		List<ClientMonthQuota> incremental = clientMonthQuotaService.find(client.getId(), MONTH, MONTH.plusMonths(1));
+		assertEquals(0, incremental.get(0).getRescheduled());
+		assertEquals(1, incremental.get(1).getRescheduled());
+		assertEquals(2, incremental.get(1).getCanceledWithRescheduling());
+
+		clientMonthQuotaService.rebuild();
+		entityManager.clear();
+		List<ClientMonthQuota> rebuilt = clientMonthQuotaService.find(client.getId(), MONTH, MONTH.plusMonths(1));
+		for (int i = 0; i < rebuilt.size(); i++) {
+			assertEquals(rebuilt.get(i).getRescheduled(), incremental.get(i).getRescheduled());
+			assertEquals(rebuilt.get(i).getCanceledWithRescheduling(), incremental.get(i).getCanceledWithRescheduling());
+		}
+	}
+
+	@Test
+	void canClientRescheduleReadsTheQuotaWithOneQuery() {
+		Client client = fixtures.client();
+		Client withoutQuota = fixtures.client();
+		entityManager.flush();
+		clientMonthQuotaService.changed(client.getId(), MONTH.plusMonths(1).atDay(5).atTime(7, 0), null,
+				AppointmentConfirmation.CANCELED_WITH_RESCHEDULING);
+		entityManager.clear();
+
+		Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		CanRescheduleDTO canReschedule = appointmentRulesService.canClientReschedule(client.getId());
+
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertTrue(canReschedule.canReschedule());
+		assertFalse(appointmentRulesService.canClientReschedule(withoutQuota.getId()).canReschedule());
+	}
+
+	private void change(AppointmentClient appointmentClient, AppointmentConfirmation confirmation) {
+		clientMonthQuotaService.changed(appointmentClient.getClient().getId(),
+				appointmentClient.getAppointment().getDateTime(), appointmentClient.getConfirmation(), confirmation);
+		appointmentClient.setConfirmation(confirmation);
+		appointmentClientRepository.save(appointmentClient);
+	}
+}
@@ -0,0 +1,110 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.EntityFixtures;
+import com.horafit.backend.dto.appointment.AppointmentDTO;
+import com.horafit.backend.dto.appointment.DayScheduleDTO;
+import com.horafit.backend.dto.client.ClientScheduleDTO;
+import com.horafit.backend.entity.Client;
+import com.horafit.backend.entity.ClientWeeklyPattern;
+import com.horafit.backend.entity.Physiotherapist;
+import com.horafit.backend.entity.enums.AppointmentConfirmation;
+import com.horafit.backend.entity.enums.AppointmentModality;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = "horafit.weekly-pattern.rebuild-chunk-size=1")
+class ClientWeeklyPatternServiceTests {
+	// segunda-feira
+	private static final LocalDateTime FIRST = LocalDateTime.of(2031, 9, 1, 18, 0);
+	private static final int WEEKS = 20;
+
+	@Autowired
+	private ClientWeeklyPatternService clientWeeklyPatternService;
+
+	@Autowired
+	private AppointmentService appointmentService;
+
+	@Autowired
+	private EntityFixtures fixtures;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void recurringSlotsAreSummarizedOncePerWeekdayAndTime() {
+		Physiotherapist physiotherapist = fixtures.physiotherapist();
+
+		Client client = fixtures.client();
+		client.setSignedContract(new Date());
+
+		for (int i = 0; i < WEEKS; i++) {
+			appointmentClient(physiotherapist, client, FIRST.plusWeeks(i), AppointmentConfirmation.CONFIRMED);
+			appointmentClient(physiotherapist, client, FIRST.plusWeeks(i).plusDays(2).plusHours(1),
+					AppointmentConfirmation.CONFIRMED);
+		}
+		// cancelamentos não fazem parte da agenda semanal
+		appointmentClient(physiotherapist, client, FIRST.plusDays(4), AppointmentConfirmation.CANCELED_WITHOUT_RESCHEDULING);
+
+		clientWeeklyPatternService.refresh(List.of(client.getId()));
+		entityManager.clear();
+
+		List<ClientWeeklyPattern> patterns = clientWeeklyPatternService.findByClientId(client.getId());
+		assertEquals(2, patterns.size());
+		assertTrue(patterns.stream().allMatch(pattern -> pattern.getOccurrences() == WEEKS));
+
+		ClientScheduleDTO schedule = appointmentService.getClientSchedule(client.getId());
+		assertEquals(1, schedule.getAtendimentos().size());
+
+		AppointmentDTO modality = schedule.getAtendimentos().get(0);
+		assertEquals(AppointmentModality.GROUP_PILATES.name(), modality.getModalidade());
+		assertEquals(2, modality.getDiasDaSemana().size());
+
+		DayScheduleDTO monday = modality.getDiasDaSemana().get(0);
+		assertEquals("segunda-feira", monday.getDia());
+		assertEquals(List.of(LocalTime.of(18, 0)), monday.getHorarios());
+
+		DayScheduleDTO wednesday = modality.getDiasDaSemana().get(1);
+		assertEquals("quarta-feira", wednesday.getDia());
+		assertEquals(List.of(LocalTime.of(19, 0)), wednesday.getHorarios());
+	}
+
+	@Test
+	void rebuildRecomputesEveryClientChunkByChunk() {
+		Physiotherapist physiotherapist = fixtures.physiotherapist();
+		Client first = fixtures.client();
+		Client second = fixtures.client();
+		for (int i = 0; i < 3; i++) {
+			appointmentClient(physiotherapist, first, FIRST.plusWeeks(i), AppointmentConfirmation.CONFIRMED);
+			appointmentClient(physiotherapist, second, FIRST.plusWeeks(i).plusHours(1), AppointmentConfirmation.CONFIRMED);
+		}
+		entityManager.flush();
+
+		clientWeeklyPatternService.rebuild();
+		entityManager.clear();
+
+		for (Client client : List.of(first, second)) {
+			List<ClientWeeklyPattern> patterns = clientWeeklyPatternService.findByClientId(client.getId());
+			assertEquals(1, patterns.size());
+			assertEquals(3, patterns.get(0).getOccurrences());
+		}
+	}
+
+	private void appointmentClient(Physiotherapist physiotherapist, Client client, LocalDateTime dateTime,
+			AppointmentConfirmation confirmation) {
+		fixtures.appointmentClient(fixtures.appointment(physiotherapist, dateTime), client, confirmation);
+	}
+}
@@ -0,0 +1,31 @@
+package com.horafit.backend.service;
+
+import java.io.OutputStream;
+
+/**
+ * Discards what is written to it and only counts the line breaks, so that the
+ * export tests do not keep the exported data in memory.
+ */
+class LineCountingOutputStream extends OutputStream {
+	private long lines;
+
+	@Override
+	public void write(int b) {
+		if (b == '\n') {
+			lines++;
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+		for (int i = off; i < off + len; i++) {
+			if (b[i] == '\n') {
+				lines++;
+			}
+		}
+	}
+
+	long getLines() {
+		return lines;
+	}
+}
@@ -0,0 +1,113 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.EntityFixtures;
+import com.horafit.backend.dto.payment.PaymentStatusDTO;
+import com.horafit.backend.dto.payment.UpdatePaymentDTO;
+import com.horafit.backend.entity.Client;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PaymentServiceTests {
+	@Autowired
+	private PaymentService paymentService;
+
+	@Autowired
+	private EntityFixtures fixtures;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void paymentUpdateRefreshesTheStatus() {
+		Client client = fixtures.client();
+		LocalDateTime paidAt = LocalDateTime.now().withNano(0);
+
+		paymentService.atualizarPagamento(payment(client, paidAt));
+
+		assertTrue(paymentService.verificarPagamento(client.getId()));
+		assertTrue(paymentService.verificarPagamentoDoMesAtual(client.getId()));
+	}
+
+	@Test
+	void sameMonthOfAnotherYearIsNotTheCurrentMonth() {
+		Client client = fixtures.client();
+
+		paymentService.atualizarPagamento(payment(client, LocalDateTime.now().minusYears(1)));
+
+		assertTrue(paymentService.verificarPagamento(client.getId()));
+		assertFalse(paymentService.verificarPagamentoDoMesAtual(client.getId()));
+	}
+
+	@Test
+	void paymentUpdateWithoutDateClearsTheStatus() {
+		Client client = fixtures.client();
+		paymentService.atualizarPagamento(payment(client, LocalDateTime.now()));
+
+		UpdatePaymentDTO unpaid = new UpdatePaymentDTO();
+		unpaid.setClientId(client.getId());
+		paymentService.atualizarPagamento(unpaid);
+
+		assertFalse(paymentService.verificarPagamento(client.getId()));
+		assertFalse(paymentService.verificarPagamentoDoMesAtual(client.getId()));
+		assertNull(paymentService.findPaymentStatus(List.of(client.getId())).get(0).ultimoPagamento());
+	}
+
+	@Test
+	void statusOfManyClientsIsReadWithOneQuery() {
+		List<Long> clientIds = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			Client client = fixtures.client();
+			clientIds.add(client.getId());
+			if (i % 2 == 0) {
+				paymentService.atualizarPagamento(payment(client, LocalDateTime.now()));
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		List<PaymentStatusDTO> statuses = paymentService.findPaymentStatus(clientIds);
+
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(clientIds.size(), statuses.size());
+		for (int i = 0; i < statuses.size(); i++) {
+			PaymentStatusDTO status = statuses.get(i);
+			assertEquals(clientIds.get(i), status.clientId());
+			assertEquals(i % 2 == 0, status.pagamentoMesAtual());
+			if (i % 2 == 0) {
+				assertEquals(YearMonth.now(), status.pagoAte());
+			} else {
+				assertNull(status.ultimoPagamento());
+			}
+		}
+	}
+
+	private static UpdatePaymentDTO payment(Client client, LocalDateTime paidAt) {
+		UpdatePaymentDTO dto = new UpdatePaymentDTO();
+		dto.setClientId(client.getId());
+		dto.setDate(Timestamp.valueOf(paidAt));
+		return dto;
+	}
+}
@@ -0,0 +1,109 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.dto.appointment.AppointmentCreateDTO;
+import com.horafit.backend.dto.appointment.RepetirDTO;
+import com.horafit.backend.entity.Client;
+import com.horafit.backend.entity.Physiotherapist;
+import com.horafit.backend.repository.AppointmentRepository;
+import com.horafit.backend.repository.ClientRepository;
+import com.horafit.backend.repository.PhysiotherapistRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Counts the statements MySQL executes while a recurring series is created.
+ * Only the batched path is measured: the one INSERT per row of the previous
+ * implementation (26 + 78 for this series) follows from its code and was not
+ * measured, so the printed counts are not a before/after comparison.
+ */
+@SpringBootTest
+@Transactional
+class PhysiotherapistServiceTests {
+	private static final int WEEKS = 26;
+	private static final int CLIENTS = 3;
+
+	@Autowired
+	private PhysiotherapistService physiotherapistService;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private PhysiotherapistRepository physiotherapistRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void recurringSeriesIsInsertedInTwoBatches() {
+		Physiotherapist physiotherapist = new Physiotherapist();
+		physiotherapist.setEmail(UUID.randomUUID() + "@horafit.test");
+		physiotherapist.setName("Fisioterapeuta Teste");
+		physiotherapist.setPassword("12345678");
+		physiotherapistRepository.save(physiotherapist);
+
+		List<Long> clientIds = new ArrayList<>();
+		for (int i = 0; i < CLIENTS; i++) {
+			Client client = new Client();
+			client.setEmail(UUID.randomUUID() + "@horafit.test");
+			client.setName("Cliente Teste " + i);
+			client.setPassword("12345678");
+			clientIds.add(clientRepository.save(client).getId());
+		}
+		entityManager.flush();
+
+		RepetirDTO repetir = new RepetirDTO();
+		repetir.setAtivo(true);
+		repetir.setOpcao("X vezes");
+		repetir.setQuantidade(WEEKS);
+
+		AppointmentCreateDTO dto = new AppointmentCreateDTO();
+		dto.setData(LocalDate.of(2031, 3, 4).format(DateTimeFormatter.ofPattern("dd/MM/yyyy")));
+		dto.setHorario("07:30");
+		dto.setRepetir(repetir);
+		dto.setModalidade("GROUP_PILATES");
+		dto.setLocacao("OFFICE");
+		dto.setClientes(clientIds);
+		dto.setFisioterapeuta(physiotherapist.getId());
+
+		long insertsBefore = globalStatus("Com_insert");
+		long questionsBefore = globalStatus("Questions");
+
+		physiotherapistService.createAppointmentClient(dto);
+
+		long inserts = globalStatus("Com_insert") - insertsBefore;
+		// a própria consulta de status também conta como uma pergunta
+		long roundTrips = globalStatus("Questions") - questionsBefore - 1;
+		System.out.printf("Série de %d atendimentos com %d clientes: %d INSERTs, %d idas ao banco%n",
+				WEEKS, CLIENTS, inserts, roundTrips);
+
+		assertEquals(2, inserts);
+		assertEquals(WEEKS, appointmentRepository.findByPhysiotherapist_Id(physiotherapist.getId()).size());
+		for (Long clientId : clientIds) {
+			assertEquals(WEEKS, appointmentRepository.findAppointmentsByClientId(clientId).size());
+		}
+	}
+
+	private long globalStatus(String variable) {
+		return jdbcTemplate.queryForObject("SHOW GLOBAL STATUS LIKE ?",
+				(resultSet, rowNum) -> resultSet.getLong("Value"), variable);
+	}
+}
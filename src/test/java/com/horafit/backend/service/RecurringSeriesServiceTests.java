@@ -0,0 +1,183 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.EntityFixtures;
+import com.horafit.backend.dto.appointment.AppointmentCreateDTO;
+import com.horafit.backend.dto.appointment.RepetirDTO;
+import com.horafit.backend.entity.Appointment;
+import com.horafit.backend.entity.Physiotherapist;
+import com.horafit.backend.entity.RecurringSeries;
+import com.horafit.backend.entity.enums.AppointmentModality;
+import com.horafit.backend.repository.AppointmentRepository;
+import com.horafit.backend.repository.RecurringSeriesRepository;
+import com.horafit.backend.util.DateTimeUtil;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = "horafit.recurrence.horizon-weeks=4")
+class RecurringSeriesServiceTests {
+	private static final int HORIZON_WEEKS = 4;
+	private static final int CLIENTS = 2;
+
+	@Autowired
+	private RecurringSeriesService recurringSeriesService;
+
+	@Autowired
+	private PhysiotherapistService physiotherapistService;
+
+	@Autowired
+	private RecurringSeriesRepository recurringSeriesRepository;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private EntityFixtures fixtures;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void openEndedSeriesIsMaterializedOnlyInsideTheHorizon() {
+		Physiotherapist physiotherapist = fixtures.physiotherapist();
+		List<Long> clientIds = clients();
+		LocalDateTime first = LocalDateTime.now().plusHours(1).withSecond(0).withNano(0);
+
+		physiotherapistService.createAppointmentClient(openEnded(physiotherapist, clientIds, first));
+		entityManager.flush();
+
+		// a primeira ocorrência é daqui a uma hora: as 4 semanas do horizonte
+		assertEquals(HORIZON_WEEKS, appointmentRepository.findByPhysiotherapist_Id(physiotherapist.getId()).size());
+		RecurringSeries series = recurringSeriesRepository.findByClientIdAndModality(clientIds.get(0),
+				AppointmentModality.GROUP_PILATES).get(0);
+		assertEquals(first.plusWeeks(HORIZON_WEEKS), series.getNextOccurrence());
+
+		// horário ocupado antes de o job chegar nele: a ocorrência é pulada
+		fixtures.appointment(physiotherapist, first.plusWeeks(5));
+		entityManager.flush();
+
+		LocalDateTime until = first.plusWeeks(2 * HORIZON_WEEKS - 1);
+		assertEquals(HORIZON_WEEKS - 1, recurringSeriesService.materialize(LocalDateTime.now(), until));
+		// repetir não cria nada: a série já está materializada até o fim do horizonte
+		assertEquals(0, recurringSeriesService.materialize(LocalDateTime.now(), until));
+
+		entityManager.flush();
+		entityManager.clear();
+
+		assertEquals(first.plusWeeks(2 * HORIZON_WEEKS),
+				recurringSeriesRepository.findById(series.getId()).orElseThrow().getNextOccurrence());
+		for (Long clientId : clientIds) {
+			assertEquals(2 * HORIZON_WEEKS - 1, appointmentRepository.findAppointmentsByClientId(clientId).size());
+		}
+	}
+
+	@Test
+	void occurrencesMissedWhileTheJobWasDownAreNotCreated() {
+		Physiotherapist physiotherapist = fixtures.physiotherapist();
+		List<Long> clientIds = clients();
+		LocalDateTime first = LocalDateTime.now().plusHours(1).withSecond(0).withNano(0);
+
+		physiotherapistService.createAppointmentClient(openEnded(physiotherapist, clientIds, first));
+		entityManager.flush();
+		RecurringSeries series = recurringSeriesRepository.findByClientIdAndModality(clientIds.get(0),
+				AppointmentModality.GROUP_PILATES).get(0);
+
+		// o job volta a rodar logo depois da 7ª ocorrência: as semanas 4 a 6 já passaram
+		LocalDateTime now = first.plusWeeks(6).plusMinutes(1);
+		assertEquals(HORIZON_WEEKS - 1, recurringSeriesService.materialize(now, now.plusWeeks(HORIZON_WEEKS - 1)));
+
+		entityManager.flush();
+		entityManager.clear();
+
+		List<Appointment> appointments = appointmentRepository.findByPhysiotherapist_Id(physiotherapist.getId());
+		assertEquals(2 * HORIZON_WEEKS - 1, appointments.size());
+		assertEquals(HORIZON_WEEKS, appointments.stream()
+				.filter(appointment -> appointment.getDateTime().isBefore(first.plusWeeks(HORIZON_WEEKS)))
+				.count());
+		assertTrue(appointments.stream()
+				.filter(appointment -> !appointment.getDateTime().isBefore(first.plusWeeks(HORIZON_WEEKS)))
+				.allMatch(appointment -> appointment.getDateTime().isAfter(now)));
+		assertEquals(first.plusWeeks(10),
+				recurringSeriesRepository.findById(series.getId()).orElseThrow().getNextOccurrence());
+	}
+
+	@Test
+	void clientRemovedFromAnOccurrenceIsNotRecreatedByTheJob() {
+		Physiotherapist physiotherapist = fixtures.physiotherapist();
+		List<Long> clientIds = clients();
+		LocalDateTime first = LocalDateTime.now().plusHours(1).withSecond(0).withNano(0);
+
+		physiotherapistService.createAppointmentClient(openEnded(physiotherapist, clientIds, first));
+		entityManager.flush();
+
+		Long removed = clientIds.get(0);
+		Appointment appointment = appointmentRepository.findAppointmentsByClientId(removed).get(0);
+		physiotherapistService.deleteClientFromAppointment(removed, appointment.getId());
+		entityManager.flush();
+
+		LocalDateTime until = first.plusWeeks(2 * HORIZON_WEEKS - 1);
+		assertEquals(HORIZON_WEEKS, recurringSeriesService.materialize(LocalDateTime.now(), until));
+
+		entityManager.flush();
+		entityManager.clear();
+
+		assertEquals(HORIZON_WEEKS - 1, appointmentRepository.findAppointmentsByClientId(removed).size());
+		assertEquals(2 * HORIZON_WEEKS, appointmentRepository.findAppointmentsByClientId(clientIds.get(1)).size());
+		assertTrue(recurringSeriesRepository.findByClientIdAndModality(removed, AppointmentModality.GROUP_PILATES).isEmpty());
+	}
+
+	@Test
+	void endedSeriesIsNotMaterializedAnymore() {
+		Physiotherapist physiotherapist = fixtures.physiotherapist();
+		List<Long> clientIds = clients();
+		LocalDateTime first = LocalDateTime.now().plusHours(1).withSecond(0).withNano(0);
+
+		physiotherapistService.createAppointmentClient(openEnded(physiotherapist, clientIds, first));
+		entityManager.flush();
+
+		Appointment appointment = appointmentRepository.findByPhysiotherapist_Id(physiotherapist.getId()).get(0);
+		assertEquals(1, physiotherapistService.endSeries(appointment.getId()));
+		entityManager.flush();
+
+		assertEquals(0, recurringSeriesService.materialize(LocalDateTime.now(), first.plusWeeks(2 * HORIZON_WEEKS - 1)));
+		// os atendimentos já criados continuam
+		assertEquals(HORIZON_WEEKS, appointmentRepository.findByPhysiotherapist_Id(physiotherapist.getId()).size());
+	}
+
+	private AppointmentCreateDTO openEnded(Physiotherapist physiotherapist, List<Long> clientIds, LocalDateTime first) {
+		RepetirDTO repetir = new RepetirDTO();
+		repetir.setAtivo(true);
+		repetir.setOpcao("Sempre");
+
+		AppointmentCreateDTO dto = new AppointmentCreateDTO();
+		dto.setData(first.toLocalDate().format(DateTimeUtil.DATE));
+		dto.setHorario(first.toLocalTime().format(DateTimeUtil.TIME));
+		dto.setRepetir(repetir);
+		dto.setModalidade("GROUP_PILATES");
+		dto.setLocacao("OFFICE");
+		dto.setClientes(clientIds);
+		dto.setFisioterapeuta(physiotherapist.getId());
+		return dto;
+	}
+
+	private List<Long> clients() {
+		List<Long> clientIds = new ArrayList<>();
+		for (int i = 0; i < CLIENTS; i++) {
+			clientIds.add(fixtures.client("Cliente Teste " + i).getId());
+		}
+		entityManager.flush();
+		return clientIds;
+	}
+}
@@ -0,0 +1,143 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.EntityFixtures;
+import com.horafit.backend.config.CacheConfiguration;
+import com.horafit.backend.dto.appointment.AppointmentPhysiotherapistDTO;
+import com.horafit.backend.dto.appointmentRules.AppointmentRulesDTO;
+import com.horafit.backend.dto.businessRules.BusinessRulesRegisterDTO;
+import com.horafit.backend.entity.AppointmentRules;
+import com.horafit.backend.entity.BusinessRules;
+import com.horafit.backend.entity.Physiotherapist;
+import com.horafit.backend.entity.Rule;
+import com.horafit.backend.entity.enums.AppointmentFrequency;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ReferenceDataCacheTests {
+	@Autowired
+	private AppointmentRulesService appointmentRulesService;
+
+	@Autowired
+	private BusinessRulesService businessRulesService;
+
+	@Autowired
+	private PhysiotherapistService physiotherapistService;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private EntityFixtures fixtures;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void appointmentRulesAreLoadedOnceAndEvictedOnRegister() {
+		AppointmentRules rules = appointmentRulesService.register(appointmentRulesDTO("Regra de teste"));
+		entityManager.flush();
+		entityManager.clear();
+
+		Statistics statistics = statistics();
+		AppointmentRules first = appointmentRulesService.findById(rules.getId());
+		AppointmentRules second = appointmentRulesService.findById(rules.getId());
+
+		assertSame(first, second);
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertNotNull(cacheManager.getCache(CacheConfiguration.APPOINTMENT_RULES).get(rules.getId()));
+
+		appointmentRulesService.register(appointmentRulesDTO("Outra regra de teste"));
+
+		assertNull(cacheManager.getCache(CacheConfiguration.APPOINTMENT_RULES).get(rules.getId()));
+	}
+
+	@Test
+	void businessRulesAreLoadedWithTheirRulesOnceAndEvictedOnRegister() {
+		Rule rule = new Rule();
+		rule.setRuleText("Chegar com 10 minutos de antecedência");
+		businessRulesService.register(new BusinessRulesRegisterDTO("Regras de teste", List.of(rule)));
+		entityManager.flush();
+		entityManager.clear();
+
+		Statistics statistics = statistics();
+		List<BusinessRules> first = businessRulesService.findAll();
+		List<BusinessRules> second = businessRulesService.findAll();
+
+		assertSame(first, second);
+		// regras e seus itens na mesma consulta
+		assertEquals(1, statistics.getPrepareStatementCount());
+		first.forEach(businessRules -> businessRules.getRules().size());
+		assertEquals(1, statistics.getPrepareStatementCount());
+
+		businessRulesService.register(new BusinessRulesRegisterDTO("Mais regras de teste", List.of()));
+
+		assertNull(cacheManager.getCache(CacheConfiguration.BUSINESS_RULES).get("all"));
+	}
+
+	@Test
+	void physiotherapistsAreCheckedOnceAndCachedWithoutThePassword() {
+		Physiotherapist physiotherapist = fixtures.physiotherapist();
+		entityManager.flush();
+		entityManager.clear();
+
+		Statistics statistics = statistics();
+		Physiotherapist first = physiotherapistService.findById(physiotherapist.getId());
+		entityManager.clear();
+		Physiotherapist second = physiotherapistService.findById(physiotherapist.getId());
+
+		assertEquals(physiotherapist.getId(), first.getId());
+		assertEquals(physiotherapist.getId(), second.getId());
+		// a referência não carrega a entidade: só a projeção é lida, uma vez
+		assertEquals(1, statistics.getPrepareStatementCount());
+		Object cached = cacheManager.getCache(CacheConfiguration.PHYSIOTHERAPISTS).get(physiotherapist.getId()).get();
+		assertInstanceOf(AppointmentPhysiotherapistDTO.class, cached);
+	}
+
+	@Test
+	void missingPhysiotherapistsAreNotCached() {
+		assertThrows(IllegalArgumentException.class, () -> physiotherapistService.findById(-1L));
+
+		assertNull(cacheManager.getCache(CacheConfiguration.PHYSIOTHERAPISTS).get(-1L));
+	}
+
+	@AfterEach
+	void clearCaches() {
+		cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+	}
+
+	private Statistics statistics() {
+		Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		return statistics;
+	}
+
+	private static AppointmentRulesDTO appointmentRulesDTO(String name) {
+		AppointmentRulesDTO dto = new AppointmentRulesDTO();
+		dto.setName(name);
+		dto.setReeschedulingLimit(2);
+		dto.setReeschedulingMinHoursInAdvance(24);
+		dto.setMaxClientsPerGroup(4);
+		dto.setFrequency(AppointmentFrequency.values()[0]);
+		return dto;
+	}
+}
@@ -0,0 +1,163 @@
+package com.horafit.backend.service;
+
+import com.horafit.backend.dto.client.ClientRegisterDTO;
+import com.horafit.backend.dto.client.ResetPasswordDTO;
+import com.horafit.backend.dto.user.UserLoginDTO;
+import com.horafit.backend.dto.user.UserLoginResponseDTO;
+import com.horafit.backend.entity.Client;
+import com.horafit.backend.entity.Physiotherapist;
+import com.horafit.backend.repository.ClientRepository;
+import com.horafit.backend.repository.PhysiotherapistRepository;
+import com.horafit.backend.repository.UserPrincipalRepository;
+import com.horafit.backend.security.SessionPrincipal;
+import com.horafit.backend.security.SessionTokenService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class UserServiceTests {
+	private static final String PASSWORD = "senha-de-teste";
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private ClientService clientService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private PhysiotherapistRepository physiotherapistRepository;
+
+	@Autowired
+	private SessionTokenService sessionTokenService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private Client client;
+
+	private Physiotherapist physiotherapist;
+
+	@Test
+	void clientLogsInWithOneLookupAndTimedVerification() throws Exception {
+		client = register();
+		long before = loginCount("success");
+
+		UserLoginResponseDTO response = userService.login(new UserLoginDTO(client.getEmail(), PASSWORD))
+				.get(10, TimeUnit.SECONDS);
+
+		assertEquals(client.getId(), response.id());
+		assertEquals(UserPrincipalRepository.CLIENT, response.userType());
+		assertEquals(before + 1, loginCount("success"));
+
+		SessionPrincipal principal = sessionTokenService.verify(response.token()).orElseThrow();
+		assertEquals(client.getId(), principal.id());
+		assertEquals(UserPrincipalRepository.CLIENT, principal.role());
+		assertEquals(client.getAppointmentRules().getId(), principal.appointmentRulesId());
+	}
+
+	@Test
+	void wrongPasswordAndUnknownEmailFail() {
+		client = register();
+
+		ExecutionException wrongPassword = assertThrows(ExecutionException.class,
+				() -> userService.login(new UserLoginDTO(client.getEmail(), "outra-senha")).get(10, TimeUnit.SECONDS));
+		assertEquals("Incorrect password", wrongPassword.getCause().getMessage());
+
+		ExecutionException unknown = assertThrows(ExecutionException.class,
+				() -> userService.login(new UserLoginDTO(UUID.randomUUID() + "@horafit.test", PASSWORD)).get(10, TimeUnit.SECONDS));
+		assertEquals("User not found", unknown.getCause().getMessage());
+	}
+
+	@Test
+	void passwordResetEvictsTheCachedPrincipal() throws Exception {
+		client = register();
+		userService.login(new UserLoginDTO(client.getEmail(), PASSWORD)).get(10, TimeUnit.SECONDS);
+
+		ResetPasswordDTO reset = new ResetPasswordDTO();
+		reset.setEmail(client.getEmail());
+		reset.setNewPassword("nova-senha");
+		clientService.resetPassword(reset);
+
+		UserLoginResponseDTO response = userService.login(new UserLoginDTO(client.getEmail(), "nova-senha"))
+				.get(10, TimeUnit.SECONDS);
+		assertEquals(client.getId(), response.id());
+		assertThrows(ExecutionException.class,
+				() -> userService.login(new UserLoginDTO(client.getEmail(), PASSWORD)).get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void physiotherapistLogsInWithPlainTextPassword() throws Exception {
+		physiotherapist = new Physiotherapist();
+		physiotherapist.setEmail(UUID.randomUUID() + "@horafit.test");
+		physiotherapist.setName("Fisioterapeuta Teste");
+		physiotherapist.setPassword(PASSWORD);
+		physiotherapist = physiotherapistRepository.save(physiotherapist);
+
+		UserLoginResponseDTO response = userService.login(new UserLoginDTO(physiotherapist.getEmail(), PASSWORD))
+				.get(10, TimeUnit.SECONDS);
+
+		assertEquals(physiotherapist.getId(), response.id());
+		assertEquals(UserPrincipalRepository.PHYSIOTHERAPIST, response.userType());
+	}
+
+	@Test
+	void clientWithPlainTextPasswordCannotLogIn() {
+		client = register();
+		client.setPassword(PASSWORD);
+		client = clientRepository.save(client);
+
+		ExecutionException plainText = assertThrows(ExecutionException.class,
+				() -> userService.login(new UserLoginDTO(client.getEmail(), PASSWORD)).get(10, TimeUnit.SECONDS));
+		assertEquals("Incorrect password", plainText.getCause().getMessage());
+	}
+
+	@Test
+	void passwordResetStoresAHash() {
+		client = register();
+
+		ResetPasswordDTO reset = new ResetPasswordDTO();
+		reset.setEmail(client.getEmail());
+		reset.setNewPassword("nova-senha");
+		clientService.resetPassword(reset);
+
+		assertNotEquals("nova-senha", clientRepository.findById(client.getId()).orElseThrow().getPassword());
+	}
+
+	private Client register() {
+		ClientRegisterDTO dto = new ClientRegisterDTO();
+		dto.setEmail(UUID.randomUUID() + "@horafit.test");
+		dto.setName("Cliente Teste");
+		dto.setPassword(PASSWORD);
+		return clientService.register(dto);
+	}
+
+	private long loginCount(String outcome) {
+		Timer timer = meterRegistry.find(UserService.LOGIN_TIMER).tag("outcome", outcome).timer();
+		return timer == null ? 0 : timer.count();
+	}
+
+	@AfterEach
+	void cleanUp() {
+		if (client != null) {
+			clientRepository.deleteById(client.getId());
+		}
+		if (physiotherapist != null) {
+			physiotherapistRepository.deleteById(physiotherapist.getId());
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.horafit.backend.util;
+
+import com.horafit.backend.entity.Appointment;
+import com.horafit.backend.util.exception.GlobalExceptionHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AppointmentCursorTests {
+	private static final LocalDateTime DATE_TIME = LocalDateTime.of(2031, 3, 4, 7, 30);
+
+	@Test
+	void encodedCursorDecodesToTheSamePosition() {
+		List<AppointmentCursor> cursors = List.of(
+				new AppointmentCursor(DATE_TIME, 42L),
+				new AppointmentCursor(DATE_TIME.withSecond(15).withNano(123_000_000), Long.MAX_VALUE),
+				AppointmentCursor.startingAt(AppointmentCursor.MIN_DATE_TIME),
+				AppointmentCursor.startingAt(AppointmentCursor.MAX_DATE_TIME));
+
+		for (AppointmentCursor cursor : cursors) {
+			String token = cursor.encode();
+			// o token vai na query string sem escape
+			assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+			assertEquals(cursor, AppointmentCursor.decode(token));
+		}
+	}
+
+	@Test
+	void cursorAfterAnAppointmentKeepsItsIdForTheTieBreak() {
+		Appointment appointment = new Appointment();
+		appointment.setId(7L);
+		appointment.setDateTime(DATE_TIME);
+
+		AppointmentCursor after = AppointmentCursor.decode(AppointmentCursor.after(appointment).encode());
+
+		assertEquals(DATE_TIME, after.dateTime());
+		assertEquals(7L, after.id());
+		assertEquals(0L, AppointmentCursor.startingAt(DATE_TIME).id());
+	}
+
+	@Test
+	void malformedTokensAreRejectedWithBadRequest() {
+		List<String> tokens = List.of(
+				"",
+				"não é base64!",
+				encode("2031-03-04T07:30"),
+				encode("2031-03-04T07:30|"),
+				encode("2031-03-04T07:30|abc"),
+				encode("04/03/2031 07:30|1"),
+				encode("|1"));
+
+		GlobalExceptionHandler handler = new GlobalExceptionHandler();
+		for (String token : tokens) {
+			IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+					() -> AppointmentCursor.decode(token), token);
+			assertEquals(HttpStatus.BAD_REQUEST, handler.handleIllegalArgumentException(e).getStatusCode());
+		}
+	}
+
+	private static String encode(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
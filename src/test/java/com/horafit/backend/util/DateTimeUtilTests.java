@@ -0,0 +1,77 @@
+package com.horafit.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DateTimeUtilTests {
+	private static final int THREADS = 64;
+	private static final int DATES_PER_THREAD = 2_000;
+	private static final LocalDateTime FIRST = LocalDateTime.of(2024, 1, 1, 0, 0, 0);
+
+	@Test
+	void paymentDatesAreStableUnderConcurrentFormatting() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<Integer>> results = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				int thread = t;
+				results.add(executor.submit(() -> {
+					start.await();
+					int mismatches = 0;
+					for (int i = 0; i < DATES_PER_THREAD; i++) {
+						// cada thread formata datas diferentes para que um formatador compartilhado com estado misture as saídas
+						LocalDateTime paidAt = FIRST.plusMinutes(thread * 7_919L + i * 61L).plusSeconds(i % 60);
+						if (!expected(paidAt).equals(DateTimeUtil.formatDateTimeSeconds(paidAt))) {
+							mismatches++;
+						}
+					}
+					return mismatches;
+				}));
+			}
+			start.countDown();
+
+			int mismatches = 0;
+			for (Future<Integer> result : results) {
+				mismatches += result.get();
+			}
+			assertEquals(0, mismatches);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void namesAreInBrazilianPortuguese() {
+		assertEquals("segunda-feira", DateTimeUtil.dayName(DayOfWeek.MONDAY));
+		assertEquals("sábado", DateTimeUtil.dayName(DayOfWeek.SATURDAY));
+		assertEquals("domingo", DateTimeUtil.dayName(DayOfWeek.SUNDAY));
+		assertEquals("janeiro", DateTimeUtil.monthName(Month.JANUARY));
+		assertEquals("março", DateTimeUtil.monthName(Month.MARCH));
+		assertEquals("dezembro", DateTimeUtil.monthName(Month.DECEMBER));
+	}
+
+	@Test
+	void parsesTheRequestFormats() {
+		assertEquals(LocalDateTime.of(2031, 3, 4, 18, 30), DateTimeUtil.parseDateTime("04/03/2031", "18:30"));
+		assertEquals(YearMonth.of(2025, 3), DateTimeUtil.parseMonthYear("03/2025"));
+		assertEquals("04/03/2031 18:30", DateTimeUtil.formatDateTime(LocalDateTime.of(2031, 3, 4, 18, 30)));
+	}
+
+	private static String expected(LocalDateTime dateTime) {
+		return String.format("%02d/%02d/%04d %02d:%02d:%02d", dateTime.getDayOfMonth(), dateTime.getMonthValue(),
+				dateTime.getYear(), dateTime.getHour(), dateTime.getMinute(), dateTime.getSecond());
+	}
+}